@@ -0,0 +1,112 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.BestPossibleStateCalcStage;
+import org.apache.helix.controller.stages.BestPossibleStateOutput;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.IntermediateStateCalcStage;
+import org.apache.helix.controller.stages.IntermediateStateOutput;
+import org.apache.helix.controller.stages.MessageOutput;
+import org.apache.helix.controller.stages.resource.ResourceMessageGenerationPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the resource pipeline stages that dominate the controller latency:
+ * BestPossibleStateCalcStage, IntermediateStateCalcStage and the message generation phase.
+ *
+ * The resources use the DelayedAutoRebalancer with the CrushEd strategy. About 1% of the instances
+ * are offline, so every run has replicas to move and messages to generate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ControllerStageBenchmark {
+  @Param({"1000", "10000", "50000"})
+  public int numPartitions;
+
+  @Param({"100", "500", "2000"})
+  public int numInstances;
+
+  @Param({"100"})
+  public int partitionsPerResource;
+
+  @Param({"3"})
+  public int replicas;
+
+  private SyntheticCluster _cluster;
+  private ClusterEvent _event;
+  private ResourceControllerDataProvider _dataProvider;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _cluster = SyntheticCluster
+        .create(numInstances, Math.max(1, numInstances / 100), numPartitions,
+            partitionsPerResource, replicas, false);
+    _event = _cluster.newRefreshedEvent();
+    _dataProvider = _event.getAttribute(AttributeName.ControllerDataProvider.name());
+    // Prepare the outputs of the upstream stages for the benchmarks that start mid-pipeline.
+    SyntheticCluster.runStage(new BestPossibleStateCalcStage(), _event);
+    SyntheticCluster.runStage(new IntermediateStateCalcStage(), _event);
+  }
+
+  @Setup(Level.Invocation)
+  public void invalidateCache() {
+    // The rebalancers cache the ideal mapping in the data provider. Drop it so every invocation
+    // measures the full calculation, as happens after any cluster change.
+    _cluster.invalidateCachedIdealMappings(_dataProvider);
+  }
+
+  @Benchmark
+  public BestPossibleStateOutput bestPossibleStateCalc() {
+    SyntheticCluster.runStage(new BestPossibleStateCalcStage(), _event);
+    return _event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+  }
+
+  @Benchmark
+  public IntermediateStateOutput intermediateStateCalc() {
+    SyntheticCluster.runStage(new IntermediateStateCalcStage(), _event);
+    return _event.getAttribute(AttributeName.INTERMEDIATE_STATE.name());
+  }
+
+  @Benchmark
+  public MessageOutput messageGeneration() {
+    SyntheticCluster.runStage(new ResourceMessageGenerationPhase(), _event);
+    return _event.getAttribute(AttributeName.MESSAGES_ALL.name());
+  }
+}
@@ -0,0 +1,100 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.common.ClusterEventBlockingQueue;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.ClusterEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the enqueue throughput of the controller event queue when 64 threads put events
+ * concurrently, like the ZK callback threads do during a callback storm. A single consumer thread
+ * keeps taking events, like the controller's event processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(64)
+public class EventQueueBenchmark {
+  @Param({"false", "true"})
+  public boolean concurrentQueueEnabled;
+
+  private ClusterEventBlockingQueue _queue;
+  private Thread _consumer;
+  private ClusterEvent[] _events;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _queue = new ClusterEventBlockingQueue(concurrentQueueEnabled);
+    _events = new ClusterEvent[] {
+        new ClusterEvent(ClusterEventType.CurrentStateChange),
+        new ClusterEvent(ClusterEventType.LiveInstanceChange),
+        new ClusterEvent(ClusterEventType.MessageChange),
+        new ClusterEvent(ClusterEventType.ExternalViewChange)
+    };
+    _consumer = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          _queue.take();
+        }
+      } catch (InterruptedException e) {
+        // The benchmark is done.
+      }
+    }, "EventQueueBenchmark-consumer");
+    _consumer.setDaemon(true);
+    _consumer.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    _consumer.interrupt();
+    _consumer.join();
+  }
+
+  @State(Scope.Thread)
+  public static class ProducerState {
+    int _index;
+  }
+
+  @Benchmark
+  public void put(ProducerState producerState) {
+    // Most of the events of a callback storm have the same type, and they are coalesced.
+    _queue.put(_events[producerState._index++ & (_events.length - 1)]);
+  }
+}
@@ -0,0 +1,133 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.strategy.AutoRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.strategy.RebalanceStrategy;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.CurrentStateOutput;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.model.Partition;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks RebalanceStrategy.computePartitionAssignment of the FULL_AUTO strategies for a
+ * single resource, isolated from the rest of the rebalancer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RebalanceStrategyBenchmark {
+  public enum Strategy {
+    CRUSHED,
+    AUTO
+  }
+
+  @Param({"1000", "10000", "50000"})
+  public int numPartitions;
+
+  @Param({"100", "500", "2000"})
+  public int numInstances;
+
+  @Param({"3"})
+  public int replicas;
+
+  @Param({"CRUSHED", "AUTO"})
+  public Strategy strategy;
+
+  private ResourceControllerDataProvider _dataProvider;
+  private String _resourceName;
+  private List<String> _partitions;
+  private List<String> _allNodes;
+  private List<String> _liveNodes;
+  private LinkedHashMap<String, Integer> _stateCountMap;
+  private Map<String, Map<String, String>> _currentMapping;
+  private RebalanceStrategy<ResourceControllerDataProvider> _rebalanceStrategy;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    // A single resource that holds all the partitions.
+    SyntheticCluster cluster = SyntheticCluster
+        .create(numInstances, Math.max(1, numInstances / 100), numPartitions, numPartitions,
+            replicas, false);
+    ClusterEvent event = cluster.newRefreshedEvent();
+    _dataProvider = event.getAttribute(AttributeName.ControllerDataProvider.name());
+    CurrentStateOutput currentStateOutput = event.getAttribute(AttributeName.CURRENT_STATE.name());
+
+    _resourceName = cluster.getResources().get(0);
+    _partitions = new ArrayList<>(_dataProvider.getIdealState(_resourceName).getPartitionSet());
+    _allNodes = new ArrayList<>(cluster.getInstances());
+    _liveNodes = new ArrayList<>(cluster.getLiveInstances());
+    _stateCountMap = _dataProvider
+        .getStateModelDef(BuiltInStateModelDefinitions.MasterSlave.name())
+        .getStateCountMap(_liveNodes.size(), replicas);
+    _currentMapping = new HashMap<>();
+    for (String partition : _partitions) {
+      _currentMapping.put(partition, new HashMap<>(
+          currentStateOutput.getCurrentStateMap(_resourceName, new Partition(partition))));
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void initStrategy() {
+    // The strategies keep per-calculation state, so each invocation starts from a new instance.
+    switch (strategy) {
+    case CRUSHED:
+      _rebalanceStrategy = new CrushEdRebalanceStrategy();
+      break;
+    case AUTO:
+    default:
+      _rebalanceStrategy = new AutoRebalanceStrategy();
+      break;
+    }
+    _rebalanceStrategy.init(_resourceName, _partitions, _stateCountMap, Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  public ZNRecord computePartitionAssignment() {
+    return _rebalanceStrategy
+        .computePartitionAssignment(_allNodes, _liveNodes, _currentMapping, _dataProvider);
+  }
+}
@@ -0,0 +1,262 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixManager;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.api.config.StateTransitionThrottleConfig;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.pipeline.Stage;
+import org.apache.helix.controller.pipeline.StageContext;
+import org.apache.helix.controller.rebalancer.DelayedAutoRebalancer;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
+import org.apache.helix.controller.rebalancer.waged.WagedRebalancer;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.ClusterEventType;
+import org.apache.helix.controller.stages.CurrentStateComputationStage;
+import org.apache.helix.controller.stages.ReadClusterDataStage;
+import org.apache.helix.controller.stages.ResourceComputationStage;
+import org.apache.helix.mock.MockManager;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.model.StateModelDefinition;
+
+/**
+ * An in-memory cluster used by the benchmarks. The cluster metadata is written into a
+ * MockAccessor so the controller data provider is refreshed through the same code path as a real
+ * controller, only without the ZooKeeper round trips.
+ *
+ * The synthetic cluster has the following shape:
+ * 1. numInstances participants, the first numOfflineInstances of them are not live.
+ * 2. numPartitions MasterSlave partitions, split into resources of partitionsPerResource each.
+ * 3. Current states place every replica round-robin on all instances (including the offline
+ * ones), so the rebalancer always has some replicas to move.
+ * 4. Per-instance state transition throttling is configured for both recovery and load balance.
+ */
+public class SyntheticCluster {
+  public static final String INSTANCE_PREFIX = "localhost_";
+  public static final String RESOURCE_PREFIX = "Resource_";
+  public static final String SESSION_PREFIX = "session_";
+  public static final String CAPACITY_KEY = "CU";
+  public static final int INSTANCE_CAPACITY = 100000;
+  public static final int PARTITION_WEIGHT = 10;
+  public static final int LOAD_BALANCE_THROTTLE = 10;
+  public static final int RECOVERY_BALANCE_THROTTLE = 50;
+
+  private final String _clusterName;
+  private final HelixManager _manager;
+  private final List<String> _instances;
+  private final List<String> _liveInstances;
+  private final List<String> _resources;
+
+  private SyntheticCluster(String clusterName, HelixManager manager, List<String> instances,
+      List<String> liveInstances, List<String> resources) {
+    _clusterName = clusterName;
+    _manager = manager;
+    _instances = Collections.unmodifiableList(instances);
+    _liveInstances = Collections.unmodifiableList(liveInstances);
+    _resources = Collections.unmodifiableList(resources);
+  }
+
+  /**
+   * Build a new synthetic cluster.
+   * @param numInstances total number of instances
+   * @param numOfflineInstances number of instances that are configured but not live
+   * @param numPartitions total number of partitions across all the resources
+   * @param partitionsPerResource partition count of each resource
+   * @param replicas replica count of each partition
+   * @param useWaged if true, the resources are configured to use the WAGED rebalancer, otherwise
+   *          the DelayedAutoRebalancer with the CrushEd strategy is used
+   */
+  public static SyntheticCluster create(int numInstances, int numOfflineInstances,
+      int numPartitions, int partitionsPerResource, int replicas, boolean useWaged) {
+    String clusterName = "BenchmarkCluster";
+    MockManager manager = new MockManager(clusterName);
+    HelixDataAccessor accessor = manager.getHelixDataAccessor();
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+
+    ClusterConfig clusterConfig = new ClusterConfig(clusterName);
+    clusterConfig.setPersistBestPossibleAssignment(true);
+    // Enable the throttling so the IntermediateStateCalcStage goes through the full calculation.
+    clusterConfig.setStateTransitionThrottleConfigs(Arrays.asList(
+        new StateTransitionThrottleConfig(StateTransitionThrottleConfig.RebalanceType.LOAD_BALANCE,
+            StateTransitionThrottleConfig.ThrottleScope.INSTANCE, LOAD_BALANCE_THROTTLE),
+        new StateTransitionThrottleConfig(
+            StateTransitionThrottleConfig.RebalanceType.RECOVERY_BALANCE,
+            StateTransitionThrottleConfig.ThrottleScope.INSTANCE, RECOVERY_BALANCE_THROTTLE)));
+    if (useWaged) {
+      clusterConfig.setInstanceCapacityKeys(Collections.singletonList(CAPACITY_KEY));
+      clusterConfig.setDefaultInstanceCapacityMap(
+          Collections.singletonMap(CAPACITY_KEY, INSTANCE_CAPACITY));
+      clusterConfig.setDefaultPartitionWeightMap(
+          Collections.singletonMap(CAPACITY_KEY, PARTITION_WEIGHT));
+    }
+    accessor.setProperty(keyBuilder.clusterConfig(), clusterConfig);
+
+    for (StateModelDefinition stateModelDef : Arrays
+        .asList(BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition(),
+            BuiltInStateModelDefinitions.OnlineOffline.getStateModelDefinition(),
+            BuiltInStateModelDefinitions.LeaderStandby.getStateModelDefinition())) {
+      accessor.setProperty(keyBuilder.stateModelDef(stateModelDef.getId()), stateModelDef);
+    }
+
+    List<String> instances = new ArrayList<>(numInstances);
+    List<String> liveInstances = new ArrayList<>(numInstances);
+    for (int i = 0; i < numInstances; i++) {
+      String instanceName = INSTANCE_PREFIX + i;
+      instances.add(instanceName);
+      InstanceConfig instanceConfig = new InstanceConfig(instanceName);
+      instanceConfig.setHostName("localhost");
+      instanceConfig.setPort(String.valueOf(i));
+      instanceConfig.setInstanceEnabled(true);
+      accessor.setProperty(keyBuilder.instanceConfig(instanceName), instanceConfig);
+      if (i >= numOfflineInstances) {
+        LiveInstance liveInstance = new LiveInstance(instanceName);
+        liveInstance.setSessionId(SESSION_PREFIX + i);
+        accessor.setProperty(keyBuilder.liveInstance(instanceName), liveInstance);
+        liveInstances.add(instanceName);
+      }
+    }
+
+    List<String> resources = new ArrayList<>();
+    int numResources = (numPartitions + partitionsPerResource - 1) / partitionsPerResource;
+    int replicaCursor = 0;
+    for (int r = 0; r < numResources; r++) {
+      String resourceName = RESOURCE_PREFIX + r;
+      resources.add(resourceName);
+      int resourcePartitions =
+          Math.min(partitionsPerResource, numPartitions - r * partitionsPerResource);
+
+      IdealState idealState = new IdealState(resourceName);
+      idealState.setStateModelDefRef(BuiltInStateModelDefinitions.MasterSlave.name());
+      idealState.setRebalanceMode(IdealState.RebalanceMode.FULL_AUTO);
+      idealState.setNumPartitions(resourcePartitions);
+      idealState.setReplicas(String.valueOf(replicas));
+      if (useWaged) {
+        idealState.setRebalancerClassName(WagedRebalancer.class.getName());
+      } else {
+        idealState.setRebalancerClassName(DelayedAutoRebalancer.class.getName());
+        idealState.setRebalanceStrategy(CrushEdRebalanceStrategy.class.getName());
+      }
+
+      Map<String, CurrentState> currentStates = new HashMap<>();
+      for (int p = 0; p < resourcePartitions; p++) {
+        String partitionName = resourceName + "_" + p;
+        // The list fields are required so the partitions are discovered from the IdealState.
+        idealState.getRecord().setListField(partitionName, new ArrayList<>());
+        for (int replica = 0; replica < replicas; replica++) {
+          int instanceId = replicaCursor++ % numInstances;
+          if (instanceId < numOfflineInstances) {
+            continue;
+          }
+          String instanceName = INSTANCE_PREFIX + instanceId;
+          CurrentState currentState = currentStates.computeIfAbsent(instanceName, name -> {
+            CurrentState cs = new CurrentState(resourceName);
+            cs.setSessionId(SESSION_PREFIX + instanceId);
+            cs.setStateModelDefRef(BuiltInStateModelDefinitions.MasterSlave.name());
+            return cs;
+          });
+          currentState.setState(partitionName, replica == 0 ? "MASTER" : "SLAVE");
+        }
+      }
+      accessor.setProperty(keyBuilder.idealStates(resourceName), idealState);
+      for (Map.Entry<String, CurrentState> entry : currentStates.entrySet()) {
+        CurrentState currentState = entry.getValue();
+        accessor.setProperty(
+            keyBuilder.currentState(entry.getKey(), currentState.getSessionId(), resourceName),
+            currentState);
+      }
+    }
+
+    return new SyntheticCluster(clusterName, manager, instances, liveInstances, resources);
+  }
+
+  /**
+   * Create a new event that carries a freshly refreshed data provider and all the attributes that
+   * the rebalance stages expect from the earlier stages of the pipeline.
+   */
+  public ClusterEvent newRefreshedEvent() {
+    ClusterEvent event = new ClusterEvent(_clusterName, ClusterEventType.Unknown);
+    event.addAttribute(AttributeName.helixmanager.name(), _manager);
+    event.addAttribute(AttributeName.ControllerDataProvider.name(),
+        new ResourceControllerDataProvider(_clusterName));
+    runStage(new ReadClusterDataStage(), event);
+    runStage(new ResourceComputationStage(), event);
+    runStage(new CurrentStateComputationStage(), event);
+    return event;
+  }
+
+  /**
+   * Run a single stage against the event in the same order the Pipeline does.
+   */
+  public static void runStage(Stage stage, ClusterEvent event) {
+    stage.init(new StageContext());
+    stage.preProcess();
+    try {
+      stage.process(event);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to run stage " + stage.getStageName(), e);
+    }
+    stage.postProcess();
+  }
+
+  /**
+   * Drop the ideal mappings that the rebalancers cached in the data provider during a previous
+   * run, so the next run pays the full calculation cost.
+   */
+  public void invalidateCachedIdealMappings(ResourceControllerDataProvider dataProvider) {
+    for (String resource : _resources) {
+      dataProvider.invalidateCachedIdealStateMapping(resource);
+    }
+  }
+
+  public String getClusterName() {
+    return _clusterName;
+  }
+
+  public HelixManager getManager() {
+    return _manager;
+  }
+
+  public List<String> getInstances() {
+    return _instances;
+  }
+
+  public List<String> getLiveInstances() {
+    return _liveInstances;
+  }
+
+  public List<String> getResources() {
+    return _resources;
+  }
+}
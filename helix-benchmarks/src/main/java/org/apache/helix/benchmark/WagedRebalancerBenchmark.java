@@ -0,0 +1,122 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.HelixManager;
+import org.apache.helix.HelixRebalanceException;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.waged.WagedRebalancer;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.CurrentStateOutput;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks WagedRebalancer.computeNewIdealStates.
+ *
+ * The rebalancer is created without an assignment metadata store, so the current states are used
+ * as the previous baseline and best possible assignment, and nothing is persisted.
+ * Note that the larger cluster sizes take minutes per invocation; they can be enabled with
+ * "-p numPartitions=50000 -p numInstances=2000" on the command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class WagedRebalancerBenchmark {
+  @Param({"1000", "10000"})
+  public int numPartitions;
+
+  @Param({"100", "500"})
+  public int numInstances;
+
+  @Param({"100"})
+  public int partitionsPerResource;
+
+  @Param({"3"})
+  public int replicas;
+
+  // 1 evaluates the candidate nodes sequentially, -1 uses the JVM common pool.
+  @Param({"1", "-1"})
+  public int candidateScoringParallelism;
+
+  private ResourceControllerDataProvider _dataProvider;
+  private Map<String, Resource> _resourceMap;
+  private CurrentStateOutput _currentStateOutput;
+  private WagedRebalancer _rebalancer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SyntheticCluster cluster = SyntheticCluster
+        .create(numInstances, Math.max(1, numInstances / 100), numPartitions,
+            partitionsPerResource, replicas, true);
+    ClusterEvent event = cluster.newRefreshedEvent();
+    _dataProvider = event.getAttribute(AttributeName.ControllerDataProvider.name());
+    _resourceMap = event.getAttribute(AttributeName.RESOURCES_TO_REBALANCE.name());
+    _currentStateOutput = event.getAttribute(AttributeName.CURRENT_STATE.name());
+    _rebalancer = new WagedRebalancer((HelixManager) null);
+    _rebalancer.updateRebalancePreference(ClusterConfig.DEFAULT_GLOBAL_REBALANCE_PREFERENCE,
+        candidateScoringParallelism);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _rebalancer.close();
+  }
+
+  /**
+   * Both the global baseline calculation and the partial rebalance run, as happens after any
+   * config or topology change.
+   */
+  @Benchmark
+  public Map<String, IdealState> globalRebalance() throws HelixRebalanceException {
+    // Reset the change detector so the whole cluster is treated as changed.
+    _rebalancer.reset();
+    return _rebalancer.computeNewIdealStates(_dataProvider, _resourceMap, _currentStateOutput);
+  }
+
+  /**
+   * Only the partial rebalance runs, as happens on a live instance or current state change.
+   */
+  @Benchmark
+  public Map<String, IdealState> partialRebalance() throws HelixRebalanceException {
+    return _rebalancer.computeNewIdealStates(_dataProvider, _resourceMap, _currentStateOutput);
+  }
+}
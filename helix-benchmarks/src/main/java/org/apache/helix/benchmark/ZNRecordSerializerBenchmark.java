@@ -0,0 +1,135 @@
+package org.apache.helix.benchmark;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordBinarySerializer;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordStreamingSerializer;
+import org.apache.helix.zookeeper.util.StringInternPool;
+import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks serializing and deserializing an ExternalView-like ZNRecord with the JSON, the
+ * streaming JSON (with and without the string intern pool) and the binary ZNRecord serializers.
+ * The serialized size of each serializer is printed in the setup, so it can be compared together
+ * with the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ZNRecordSerializerBenchmark {
+  public enum Serializer {
+    JSON,
+    STREAMING,
+    STREAMING_INTERNED,
+    BINARY,
+    BINARY_COMPRESSED
+  }
+
+  @Param({"1000", "10000"})
+  public int numPartitions;
+
+  @Param({"100"})
+  public int numInstances;
+
+  @Param({"3"})
+  public int replicas;
+
+  @Param({"JSON", "STREAMING", "STREAMING_INTERNED", "BINARY", "BINARY_COMPRESSED"})
+  public Serializer serializer;
+
+  private ZkSerializer _serializer;
+  private ZNRecord _record;
+  private byte[] _serializedRecord;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    switch (serializer) {
+    case JSON:
+      _serializer = new ZNRecordSerializer();
+      break;
+    case STREAMING:
+      _serializer = new ZNRecordStreamingSerializer(null);
+      break;
+    case STREAMING_INTERNED:
+      _serializer = new ZNRecordStreamingSerializer(new StringInternPool(1 << 16));
+      break;
+    case BINARY:
+      _serializer = new ZNRecordBinarySerializer();
+      break;
+    case BINARY_COMPRESSED:
+    default:
+      _serializer = new ZNRecordBinarySerializer(0);
+      break;
+    }
+
+    _record = new ZNRecord(SyntheticCluster.RESOURCE_PREFIX + 0);
+    _record.setSimpleField("STATE_MODEL_DEF_REF", "MasterSlave");
+    _record.setSimpleField("NUM_PARTITIONS", String.valueOf(numPartitions));
+    for (int p = 0; p < numPartitions; p++) {
+      String partitionName = _record.getId() + "_" + p;
+      Map<String, String> stateMap = new TreeMap<>();
+      List<String> preferenceList = new ArrayList<>(replicas);
+      for (int r = 0; r < replicas; r++) {
+        String instanceName = SyntheticCluster.INSTANCE_PREFIX + ((p + r) % numInstances);
+        stateMap.put(instanceName, r == 0 ? "MASTER" : "SLAVE");
+        preferenceList.add(instanceName);
+      }
+      _record.setMapField(partitionName, stateMap);
+      _record.setListField(partitionName, preferenceList);
+    }
+    _serializedRecord = _serializer.serialize(_record);
+    System.out.println(String
+        .format("%n%s serialized size of %d partitions: %d bytes", serializer, numPartitions,
+            _serializedRecord.length));
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return _serializer.serialize(_record);
+  }
+
+  @Benchmark
+  public Object deserialize() {
+    return _serializer.deserialize(_serializedRecord);
+  }
+}
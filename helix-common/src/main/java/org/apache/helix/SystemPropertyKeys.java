@@ -55,6 +55,17 @@ public class SystemPropertyKeys {
 
   public static final String ZK_WAIT_CONNECTED_TIMEOUT = "helixmanager.waitForConnectedTimeout";
 
+  // GroupCommit
+  // The number of lock stripes of the per key group commit queues. 0 keeps the legacy fixed
+  // array of hashed queues.
+  public static final String GROUP_COMMIT_STRIPES = "helix.groupCommit.stripes";
+
+  // ZkBaseDataAccessor
+  // The max number of writes of createChildren/setChildren in a ZK multi transaction. 0 writes
+  // each path with its own async op.
+  public static final String ZK_BASE_DATA_ACCESSOR_MULTI_OP_BATCH_SIZE =
+      "helix.zkBaseDataAccessor.multiOpBatchSize";
+
   public static final String PARTICIPANT_HEALTH_REPORT_LATENCY =
       "helixmanager.participantHealthReport.reportLatency";
 
@@ -69,6 +80,47 @@ public class SystemPropertyKeys {
   // Controller
   public static final String CONTROLLER_MESSAGE_PURGE_DELAY = "helix.controller.stages.MessageGenerationPhase.messagePurgeDelay";
 
+  // Use the lock-free deduplicating event queue for the controller pipelines.
+  public static final String CONTROLLER_CONCURRENT_EVENT_QUEUE_ENABLED =
+      "helix.controller.concurrentEventQueue.enabled";
+
+  // Sample the bytes allocated by one in every N pipeline stage executions. 0 disables sampling.
+  public static final String CONTROLLER_PIPELINE_ALLOCATION_SAMPLING_INTERVAL =
+      "helix.controller.pipeline.allocationSamplingInterval";
+
+  // Participant
+  // Merge the current state updates of the state transitions that complete within the window.
+  // 0 disables the merge.
+  public static final String PARTICIPANT_CURRENT_STATE_COALESCE_WINDOW_MS =
+      "helix.participant.currentStateCoalesceWindowMs";
+
+  // Read the new messages in batches of this size, and process each batch once it is read.
+  // 0 reads all the new messages before processing them.
+  public static final String PARTICIPANT_MESSAGE_READ_BATCH_SIZE =
+      "helix.participant.messageReadBatchSize";
+
+  // Run the queued state transitions in priority order: top state first, then by the resource
+  // priority, then by age.
+  public static final String PARTICIPANT_STATE_TRANSITION_PRIORITY_SCHEDULING_ENABLED =
+      "helix.participant.stateTransitionPrioritySchedulingEnabled";
+
+  // The max number of running state transitions of a resource with the priority scheduling.
+  // 0 does not cap the resources.
+  public static final String PARTICIPANT_STATE_TRANSITION_PER_RESOURCE_CONCURRENCY =
+      "helix.participant.stateTransitionPerResourceConcurrency";
+
+  // Run the message handling tasks on virtual threads on JDK 21 or later. The thread pool sizes
+  // limit the number of running tasks instead. The priority scheduling of the state transitions
+  // still uses platform threads.
+  public static final String PARTICIPANT_VIRTUAL_THREADS_ENABLED =
+      "helix.participant.virtualThreadsEnabled";
+
+  // RoutingTableProvider
+  // Rebuild only the resources whose ExternalView or CurrentStates are changed, the routing
+  // entries of the other resources are shared with the previous routing table.
+  public static final String ROUTING_TABLE_PROVIDER_INCREMENTAL_REFRESH_ENABLED =
+      "helix.routingTableProvider.incrementalRefreshEnabled";
+
   // Message
   public static final String MESSAGE_EXPECTED_COMPLETION_PERIOD = "helix.controller.message.ExpectMessageCompletionPeriod";
 
@@ -85,6 +137,14 @@ public class SystemPropertyKeys {
 
   public static final String STATEUPDATEUTIL_ERROR_PERSISTENCY_ENABLED = "helix.StateUpdateUtil.errorLog.enabled";
 
+  // The max number of status updates queued for the asynchronous writer. 0 writes synchronously.
+  public static final String STATUS_UPDATE_ASYNC_QUEUE_CAPACITY =
+      "helix.StatusUpdateUtil.asyncQueueCapacity";
+
+  // Keep one in every N info status updates when the asynchronous writer is backpressured.
+  public static final String STATUS_UPDATE_INFO_SAMPLING_RATE =
+      "helix.StatusUpdateUtil.infoSamplingRate";
+
   public static final String TASK_CURRENT_STATE_PATH_DISABLED =
       "helix.taskCurrentStatePathDisabled";
 }
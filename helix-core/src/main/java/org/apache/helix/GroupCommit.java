@@ -21,10 +21,12 @@ package org.apache.helix;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.helix.manager.zk.StripedGroupCommitQueue;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
 import org.slf4j.Logger;
@@ -56,15 +58,27 @@ public class GroupCommit {
   }
 
   private final Queue[] _queues = new Queue[100];
+  // Per key queues that replace the hashed queues if the stripes are configured.
+  private final StripedGroupCommitQueue<ZNRecord> _stripedQueue;
 
   /**
    * Set up a group committer and its associated queues
    */
   public GroupCommit() {
+    this(Integer.getInteger(SystemPropertyKeys.GROUP_COMMIT_STRIPES, 0));
+  }
+
+  /**
+   * Set up a group committer
+   * @param stripes the number of lock stripes of the per key queues, or 0 to hash the keys into
+   *          the fixed array of queues
+   */
+  public GroupCommit(int stripes) {
     // Don't use Arrays.fill();
     for (int i = 0; i < _queues.length; ++i) {
       _queues[i] = new Queue();
     }
+    _stripedQueue = stripes > 0 ? new StripedGroupCommitQueue<ZNRecord>(stripes) : null;
   }
 
   private Queue getQueue(String key) {
@@ -86,6 +100,12 @@ public class GroupCommit {
 
   public boolean commit(BaseDataAccessor<ZNRecord> accessor, int options, String key,
       ZNRecord record, boolean removeIfEmpty) {
+    if (_stripedQueue != null) {
+      return _stripedQueue.commit(key, record,
+          (mergedKey, records) -> commitBatch(accessor, options, mergedKey, records,
+              removeIfEmpty));
+    }
+
     Queue queue = getQueue(key);
     Entry entry = new Entry(key, record);
 
@@ -138,33 +158,7 @@ public class GroupCommit {
             it.remove();
           }
 
-          int retry = 0;
-          success = false;
-          while (++retry <= MAX_RETRY && !success) {
-            if (removeIfEmpty && merged.getMapFields().isEmpty()) {
-              try {
-                success = accessor.remove(mergedKey, options);
-              } catch (Exception e) {
-                LOG.error("Fails to remove " + mergedKey + " from ZK due to ZK issue.", e);
-                success = false;
-              }
-              if (!success) {
-                LOG.error("Fails to remove " + mergedKey + " from ZK, retry it!");
-              } else {
-                LOG.info("Removed " + mergedKey);
-              }
-            } else {
-              try {
-                success = accessor.set(mergedKey, merged, options);
-              } catch (Exception e) {
-                LOG.error("Fails to update " + mergedKey + " to ZK due to ZK issue.", e);
-                success = false;
-              }
-              if (!success) {
-                LOG.error("Fails to update " + mergedKey + " to ZK, retry it! ");
-              }
-            }
-          }
+          success = write(accessor, options, mergedKey, merged, removeIfEmpty);
         } finally {
           queue._running.set(null);
           for (Entry e : processed) {
@@ -190,4 +184,61 @@ public class GroupCommit {
     }
     return success;
   }
+
+  /**
+   * Merge the records of a key into the current data and write it.
+   */
+  private boolean commitBatch(BaseDataAccessor<ZNRecord> accessor, int options, String key,
+      List<ZNRecord> records, boolean removeIfEmpty) {
+    ZNRecord merged = null;
+    try {
+      // accessor will fallback to zk if not found in cache
+      merged = accessor.get(key, null, options);
+    } catch (ZkNoNodeException e) {
+      // OK.
+    } catch (Exception e) {
+      LOG.error("Fail to get " + key + " from ZK", e);
+      return false;
+    }
+
+    if (merged == null) {
+      merged = new ZNRecord(records.get(0));
+    }
+    for (ZNRecord record : records) {
+      merged.merge(record);
+    }
+    return write(accessor, options, key, merged, removeIfEmpty);
+  }
+
+  private boolean write(BaseDataAccessor<ZNRecord> accessor, int options, String mergedKey,
+      ZNRecord merged, boolean removeIfEmpty) {
+    int retry = 0;
+    boolean success = false;
+    while (++retry <= MAX_RETRY && !success) {
+      if (removeIfEmpty && merged.getMapFields().isEmpty()) {
+        try {
+          success = accessor.remove(mergedKey, options);
+        } catch (Exception e) {
+          LOG.error("Fails to remove " + mergedKey + " from ZK due to ZK issue.", e);
+          success = false;
+        }
+        if (!success) {
+          LOG.error("Fails to remove " + mergedKey + " from ZK, retry it!");
+        } else {
+          LOG.info("Removed " + mergedKey);
+        }
+      } else {
+        try {
+          success = accessor.set(mergedKey, merged, options);
+        } catch (Exception e) {
+          LOG.error("Fails to update " + mergedKey + " to ZK due to ZK issue.", e);
+          success = false;
+        }
+        if (!success) {
+          LOG.error("Fails to update " + mergedKey + " to ZK, retry it! ");
+        }
+      }
+    }
+    return success;
+  }
 }
@@ -37,6 +37,7 @@ public class HelixManagerProperty {
   private HelixCloudProperty _helixCloudProperty;
   private RealmAwareZkClient.RealmAwareZkConnectionConfig _zkConnectionConfig;
   private RealmAwareZkClient.RealmAwareZkClientConfig _zkClientConfig;
+  private boolean _zkConnectionShared;
 
   /**
    * ** Deprecated - HelixManagerProperty should be a general property/config object used for
@@ -57,12 +58,13 @@ public class HelixManagerProperty {
   private HelixManagerProperty(String version, long healthReportLatency,
       HelixCloudProperty helixCloudProperty,
       RealmAwareZkClient.RealmAwareZkConnectionConfig zkConnectionConfig,
-      RealmAwareZkClient.RealmAwareZkClientConfig zkClientConfig) {
+      RealmAwareZkClient.RealmAwareZkClientConfig zkClientConfig, boolean zkConnectionShared) {
     _version = version;
     _healthReportLatency = healthReportLatency;
     _helixCloudProperty = helixCloudProperty;
     _zkConnectionConfig = zkConnectionConfig;
     _zkClientConfig = zkClientConfig;
+    _zkConnectionShared = zkConnectionShared;
   }
 
   public HelixCloudProperty getHelixCloudProperty() {
@@ -85,19 +87,28 @@ public class HelixManagerProperty {
     return _zkClientConfig;
   }
 
+  /**
+   * @return true if a SPECTATOR HelixManager shares the ZK connection with the other shared
+   *         clients of the same ZK realm
+   */
+  public boolean isZkConnectionShared() {
+    return _zkConnectionShared;
+  }
+
   public static class Builder {
     private String _version;
     private long _healthReportLatency;
     private HelixCloudProperty _helixCloudProperty;
     private RealmAwareZkClient.RealmAwareZkConnectionConfig _zkConnectionConfig;
     private RealmAwareZkClient.RealmAwareZkClientConfig _zkClientConfig;
+    private boolean _zkConnectionShared;
 
     public Builder() {
     }
 
     public HelixManagerProperty build() {
       return new HelixManagerProperty(_version, _healthReportLatency, _helixCloudProperty,
-          _zkConnectionConfig, _zkClientConfig);
+          _zkConnectionConfig, _zkClientConfig, _zkConnectionShared);
     }
 
     public Builder setVersion(String version) {
@@ -126,5 +137,15 @@ public class HelixManagerProperty {
       _zkClientConfig = zkClientConfig;
       return this;
     }
+
+    /**
+     * Share the ZK connection of a SPECTATOR HelixManager with the other shared clients of the
+     * same ZK realm. The shared connection cannot create ephemeral nodes, so it does not apply
+     * to the other instance types.
+     */
+    public Builder setZkConnectionShared(boolean zkConnectionShared) {
+      _zkConnectionShared = zkConnectionShared;
+      return this;
+    }
   }
 }
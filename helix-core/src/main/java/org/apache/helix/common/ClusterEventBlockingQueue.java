@@ -19,6 +19,7 @@ package org.apache.helix.common;
  * under the License.
  */
 import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
 
 import org.apache.helix.controller.stages.ClusterEvent;
 import org.apache.helix.controller.stages.ClusterEventType;
@@ -43,7 +44,18 @@ public class ClusterEventBlockingQueue {
    * Instantiate the queue
    */
   public ClusterEventBlockingQueue() {
-    _eventQueue = new DedupEventBlockingQueue();
+    this(false);
+  }
+
+  /**
+   * Instantiate the queue
+   * @param concurrentQueueEnabled if true, use the lock-free
+   *                               {@link ConcurrentDedupEventBlockingQueue} so the threads that
+   *                               put events don't contend on a single monitor
+   */
+  public ClusterEventBlockingQueue(boolean concurrentQueueEnabled) {
+    _eventQueue = concurrentQueueEnabled ? new ConcurrentDedupEventBlockingQueue<>()
+        : new DedupEventBlockingQueue<>();
   }
 
   /**
@@ -80,6 +92,26 @@ public class ClusterEventBlockingQueue {
     return event;
   }
 
+  /**
+   * Remove the event of the given type from the queue
+   * @param eventType the type of the event
+   * @return the removed event, or null if there is no event of the type in the queue
+   */
+  public ClusterEvent remove(ClusterEventType eventType) {
+    return _eventQueue.remove(eventType);
+  }
+
+  /**
+   * Remove the event of the given type from the queue if it matches the condition. The check and
+   * the removal are atomic.
+   * @param eventType the type of the event
+   * @param condition the condition that the queued event must match to be removed
+   * @return the removed event, or null if there is no matching event of the type in the queue
+   */
+  public ClusterEvent remove(ClusterEventType eventType, Predicate<ClusterEvent> condition) {
+    return _eventQueue.remove(eventType, condition);
+  }
+
   /**
    * Get at the head of the queue without removing it
    * @return ClusterEvent at the front of the queue, or null if none available
@@ -0,0 +1,187 @@
+package org.apache.helix.common;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A non-blocking implementation of the {@link DedupEventBlockingQueue}, which keeps the same
+ * per-type deduplication semantics without synchronizing the producers on a single monitor.
+ *
+ * The latest event of each pending type is kept in a concurrent map, and the order of the pending
+ * types is kept in a lock-free FIFO queue. A type is only appended to the FIFO queue when its
+ * event is newly added to the map, so the events of the same type are coalesced into the latest
+ * one. The producers only take a lock to wake up the consumers that are waiting in take().
+ *
+ * T -- the Type of an event.
+ * E -- the event itself.
+ */
+public class ConcurrentDedupEventBlockingQueue<T, E> extends DedupEventBlockingQueue<T, E> {
+  private final ConcurrentHashMap<T, E> _pendingEventMap = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<T> _pendingTypeQueue = new ConcurrentLinkedQueue<>();
+
+  private final ReentrantLock _waitLock = new ReentrantLock();
+  private final Condition _notEmpty = _waitLock.newCondition();
+  private final AtomicInteger _waitingConsumerCount = new AtomicInteger();
+
+  /**
+   * Instantiate the queue
+   */
+  public ConcurrentDedupEventBlockingQueue() {
+    // The events are kept in the concurrent structures, so the parent storage is not allocated.
+    super(null, null);
+  }
+
+  /**
+   * Remove all events from the queue
+   */
+  @Override
+  public void clear() {
+    _pendingTypeQueue.clear();
+    _pendingEventMap.clear();
+  }
+
+  /**
+   * Add a single event to the queue, overwriting events with the same name
+   */
+  @Override
+  public void put(T type, E event) {
+    if (_pendingEventMap.put(type, event) != null) {
+      // The type is already in the queue, and the consumer will take the new event.
+      return;
+    }
+    _pendingTypeQueue.offer(type);
+    if (_waitingConsumerCount.get() > 0) {
+      _waitLock.lock();
+      try {
+        _notEmpty.signalAll();
+      } finally {
+        _waitLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Remove an element from the front of the queue, blocking if none is available. This method
+   * will return the most recent event seen with the oldest enqueued event name.
+   * @return ClusterEvent at the front of the queue
+   * @throws InterruptedException if the wait for elements was interrupted
+   */
+  @Override
+  public E take() throws InterruptedException {
+    while (true) {
+      T type = _pendingTypeQueue.poll();
+      if (type != null) {
+        E event = _pendingEventMap.remove(type);
+        if (event != null) {
+          return event;
+        }
+        // The event has been removed by clear(), skip the type.
+        continue;
+      }
+      _waitLock.lockInterruptibly();
+      _waitingConsumerCount.incrementAndGet();
+      try {
+        // Check again after registering as a waiting consumer, so a concurrent put won't be missed.
+        if (_pendingTypeQueue.isEmpty()) {
+          _notEmpty.await();
+        }
+      } finally {
+        _waitingConsumerCount.decrementAndGet();
+        _waitLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Remove the event of the given type from the queue
+   * @param type the type of the event
+   * @return the removed event, or null if there is no event of the type in the queue
+   */
+  @Override
+  public E remove(T type) {
+    E event = _pendingEventMap.remove(type);
+    if (event != null) {
+      // If the type is put again concurrently, it is appended behind the one removed here.
+      _pendingTypeQueue.remove(type);
+    }
+    return event;
+  }
+
+  /**
+   * Remove the event of the given type from the queue if it matches the condition. The check and
+   * the removal are atomic, so an event that is put concurrently is never removed unchecked.
+   * @param type the type of the event
+   * @param condition the condition that the queued event must match to be removed
+   * @return the removed event, or null if there is no matching event of the type in the queue
+   */
+  @Override
+  public E remove(T type, Predicate<E> condition) {
+    while (true) {
+      E event = _pendingEventMap.get(type);
+      if (event == null || !condition.test(event)) {
+        return null;
+      }
+      // Only remove the checked event. If it has been replaced meanwhile, check the new one.
+      if (_pendingEventMap.remove(type, event)) {
+        _pendingTypeQueue.remove(type);
+        return event;
+      }
+    }
+  }
+
+  /**
+   * Get at the head of the queue without removing it
+   * @return ClusterEvent at the front of the queue, or null if none available
+   */
+  @Override
+  public E peek() {
+    for (T type : _pendingTypeQueue) {
+      E event = _pendingEventMap.get(type);
+      if (event != null) {
+        return event;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the queue size
+   * @return integer size of the queue
+   */
+  @Override
+  public int size() {
+    return _pendingEventMap.size();
+  }
+
+  /**
+   * Check if the queue is empty
+   * @return true if events are not present, false otherwise
+   */
+  @Override
+  public boolean isEmpty() {
+    return _pendingEventMap.isEmpty();
+  }
+}
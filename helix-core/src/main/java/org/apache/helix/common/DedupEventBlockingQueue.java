@@ -22,6 +22,7 @@ package org.apache.helix.common;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.function.Predicate;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -61,8 +62,16 @@ public class DedupEventBlockingQueue<T, E> {
    * Instantiate the queue
    */
   public DedupEventBlockingQueue() {
-    _eventMap = Maps.newHashMap();
-    _eventQueue = Lists.newLinkedList();
+    this(Maps.newHashMap(), Lists.newLinkedList());
+  }
+
+  /**
+   * Instantiate the queue with the given storage. The subclasses that keep the events in their
+   * own structures pass null and override all the queue operations.
+   */
+  protected DedupEventBlockingQueue(Map<T, Entry<T, E>> eventMap, Queue<Entry> eventQueue) {
+    _eventMap = eventMap;
+    _eventQueue = eventQueue;
   }
 
   /**
@@ -109,6 +118,32 @@ public class DedupEventBlockingQueue<T, E> {
     return null;
   }
 
+  /**
+   * Remove the event of the given type from the queue
+   * @param type the type of the event
+   * @return the removed event, or null if there is no event of the type in the queue
+   */
+  public E remove(T type) {
+    return remove(type, event -> true);
+  }
+
+  /**
+   * Remove the event of the given type from the queue if it matches the condition. The check and
+   * the removal are atomic, so an event that is put concurrently is never removed unchecked.
+   * @param type the type of the event
+   * @param condition the condition that the queued event must match to be removed
+   * @return the removed event, or null if there is no matching event of the type in the queue
+   */
+  public synchronized E remove(T type, Predicate<E> condition) {
+    Entry<T, E> entry = _eventMap.get(type);
+    if (entry == null || !condition.test(entry.getEvent())) {
+      return null;
+    }
+    _eventMap.remove(type);
+    _eventQueue.removeIf(queuedEntry -> type.equals(queuedEntry.getType()));
+    return entry.getEvent();
+  }
+
   /**
    * Get at the head of the queue without removing it
    * @return ClusterEvent at the front of the queue, or null if none available
@@ -20,18 +20,19 @@ package org.apache.helix.common.caches;
  */
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.Maps;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixException;
 import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.common.controllers.ControlContextProvider;
 import org.apache.helix.controller.LogUtil;
+import org.apache.helix.util.PersistentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,19 +51,37 @@ public abstract class AbstractDataCache<T extends HelixProperty> {
   /**
    * Selectively fetch Helix Properties from ZK by comparing the version of local cached one with the one on ZK.
    * If version on ZK is newer, fetch it from zk and update local cache.
+   * If the cached map is a {@link PersistentHashMap}, the returned map shares the unchanged entries
+   * with it, so both of them can be held, for example by a snapshot, without a copy.
    * @param accessor the HelixDataAccessor
    * @param reloadKeysIn keys needs to be reload
    * @param cachedKeys keys already exists in the cache
    * @param cachedPropertyMap cached map of propertykey -> property object
    * @param reloadedKeys keys actually reloaded; may include more keys than reloadKeysIn
-   * @return updated properties map
+   * @return updated properties map, which is an immutable {@link PersistentHashMap}
    */
   protected Map<PropertyKey, T> refreshProperties(
       HelixDataAccessor accessor, Set<PropertyKey> reloadKeysIn, List<PropertyKey> cachedKeys,
       Map<PropertyKey, T> cachedPropertyMap, Set<PropertyKey> reloadedKeys) {
     // All new entries from zk not cached locally yet should be read from ZK.
     List<PropertyKey> reloadKeys = new ArrayList<>(reloadKeysIn);
-    Map<PropertyKey, T> refreshedPropertyMap = Maps.newHashMap();
+    PersistentHashMap.Builder<PropertyKey, T> refreshedPropertyMap;
+    if (cachedPropertyMap instanceof PersistentHashMap) {
+      // Start from the cached map and remove the entries that are not cached anymore, so the
+      // entries that are kept are shared instead of being copied.
+      @SuppressWarnings("unchecked")
+      PersistentHashMap<PropertyKey, T> cachedPersistentMap =
+          (PersistentHashMap<PropertyKey, T>) cachedPropertyMap;
+      refreshedPropertyMap = cachedPersistentMap.toBuilder();
+      Set<PropertyKey> cachedKeySet = new HashSet<>(cachedKeys);
+      for (PropertyKey key : cachedPersistentMap.keySet()) {
+        if (!cachedKeySet.contains(key)) {
+          refreshedPropertyMap.remove(key);
+        }
+      }
+    } else {
+      refreshedPropertyMap = PersistentHashMap.<PropertyKey, T>empty().toBuilder();
+    }
     List<HelixProperty.Stat> stats = accessor.getPropertyStats(cachedKeys);
     for (int i = 0; i < cachedKeys.size(); i++) {
       PropertyKey key = cachedKeys.get(i);
@@ -92,6 +111,7 @@ public abstract class AbstractDataCache<T extends HelixProperty> {
       if (property != null) {
         refreshedPropertyMap.put(key, property);
       } else {
+        refreshedPropertyMap.remove(key);
         LOG.warn("znode is null for key: " + key);
       }
     }
@@ -101,7 +121,7 @@ public abstract class AbstractDataCache<T extends HelixProperty> {
       LOG.debug("refreshed keys: " + reloadKeys);
     }
 
-    return refreshedPropertyMap;
+    return refreshedPropertyMap.build();
   }
 
   protected String genEventInfo() {
@@ -19,17 +19,20 @@ package org.apache.helix.common.caches;
  * under the License.
  */
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.helix.PropertyKey;
+import org.apache.helix.util.PersistentHashMap;
 
 public abstract class AbstractDataSnapshot<T> {
   protected final Map<PropertyKey, T> _properties;
 
+  /**
+   * @param cacheData the cached data. It is copied unless it is an immutable
+   *                  {@link PersistentHashMap}, which is shared by the snapshot as is.
+   */
   protected AbstractDataSnapshot(Map<PropertyKey, T> cacheData) {
-    _properties = Collections.unmodifiableMap(new HashMap<>(cacheData));
+    _properties = PersistentHashMap.copyOf(cacheData);
   }
 
   public Map<PropertyKey, T> getPropertyMap() {
@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.PropertyKey;
@@ -41,6 +42,8 @@ public class CurrentStateCache extends ParticipantStateCache<CurrentState> {
   // If the snapshot is already refreshed with current state data.
   private boolean _initialized = false;
   private CurrentStateSnapshot _snapshot;
+  // Only the current states of the resources that match the filter are read. Null for all.
+  private volatile Predicate<String> _resourceFilter;
 
   public CurrentStateCache(String clusterName) {
     this(createDefaultControlContextProvider(clusterName));
@@ -56,12 +59,16 @@ public class CurrentStateCache extends ParticipantStateCache<CurrentState> {
       Map<String, LiveInstance> liveInstanceMap) {
     Set<PropertyKey> participantStateKeys = new HashSet<>();
     PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    Predicate<String> resourceFilter = _resourceFilter;
     for (String instanceName : liveInstanceMap.keySet()) {
       LiveInstance liveInstance = liveInstanceMap.get(instanceName);
       String sessionId = liveInstance.getEphemeralOwner();
       List<String> currentStateNames =
           accessor.getChildNames(keyBuilder.currentStates(instanceName, sessionId));
       for (String currentStateName : currentStateNames) {
+        if (resourceFilter != null && !resourceFilter.test(currentStateName)) {
+          continue;
+        }
         participantStateKeys
             .add(keyBuilder.currentState(instanceName, sessionId, currentStateName));
       }
@@ -69,6 +76,15 @@ public class CurrentStateCache extends ParticipantStateCache<CurrentState> {
     return participantStateKeys;
   }
 
+  /**
+   * Only read and cache the current states of the resources that match the filter. The change
+   * takes effect on the next refresh.
+   * @param resourceFilter tests the resource names, null for all the resources
+   */
+  public void setResourceFilter(Predicate<String> resourceFilter) {
+    _resourceFilter = resourceFilter;
+  }
+
   protected void refreshSnapshot(Map<PropertyKey, CurrentState> newStateCache,
       Map<PropertyKey, CurrentState> participantStateCache, Set<PropertyKey> reloadedKeys) {
     if (_initialized) {
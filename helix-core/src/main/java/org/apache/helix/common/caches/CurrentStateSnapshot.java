@@ -27,6 +27,7 @@ import java.util.Set;
 
 import org.apache.helix.PropertyKey;
 import org.apache.helix.model.CurrentState;
+import org.apache.helix.util.PersistentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,7 +46,7 @@ public class CurrentStateSnapshot extends AbstractDataSnapshot<CurrentState> {
       final Map<PropertyKey, CurrentState> prevStateMap, final Set<PropertyKey> updatedStateKeys) {
     this(currentStateMap);
     _updatedStateKeys = Collections.unmodifiableSet(new HashSet<>(updatedStateKeys));
-    _prevStateMap = Collections.unmodifiableMap(new HashMap<>(prevStateMap));
+    _prevStateMap = PersistentHashMap.copyOf(prevStateMap);
   }
 
   /**
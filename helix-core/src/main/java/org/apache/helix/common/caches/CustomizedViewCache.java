@@ -21,6 +21,7 @@ package org.apache.helix.common.caches;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.PropertyKey;
@@ -79,6 +80,15 @@ public class CustomizedViewCache extends AbstractDataCache<CustomizedView> {
     _customizedViewCache.refresh(accessor);
   }
 
+  /**
+   * Only read and cache the CustomizedViews of the resources that match the filter. The change
+   * takes effect on the next refresh.
+   * @param resourceFilter tests the resource names, null for all the resources
+   */
+  public void setResourceFilter(Predicate<String> resourceFilter) {
+    _customizedViewCache.setObjNameFilter(resourceFilter);
+  }
+
   /**
    * Return CustomizedView map for all resources.
    * @return
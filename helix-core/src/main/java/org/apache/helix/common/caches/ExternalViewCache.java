@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import com.google.common.collect.Maps;
 import org.apache.helix.HelixDataAccessor;
@@ -50,6 +51,8 @@ public class ExternalViewCache extends AbstractDataCache<ExternalView> {
   protected String _clusterName;
 
   private PropertyType _type;
+  // Only the ExternalViews of the resources that match the filter are read. Null for all.
+  private volatile Predicate<String> _resourceFilter;
 
   public ExternalViewCache(String clusterName) {
     this(clusterName, PropertyType.EXTERNALVIEW);
@@ -78,8 +81,11 @@ public class ExternalViewCache extends AbstractDataCache<ExternalView> {
     Set<PropertyKey> currentPropertyKeys = new HashSet<>();
 
     List<String> resources = accessor.getChildNames(externalViewsKey(keyBuilder));
+    Predicate<String> resourceFilter = _resourceFilter;
     for (String resource : resources) {
-      currentPropertyKeys.add(externalViewKey(keyBuilder, resource));
+      if (resourceFilter == null || resourceFilter.test(resource)) {
+        currentPropertyKeys.add(externalViewKey(keyBuilder, resource));
+      }
     }
 
     Set<PropertyKey> cachedKeys = new HashSet<>();
@@ -138,6 +144,15 @@ public class ExternalViewCache extends AbstractDataCache<ExternalView> {
     return evPropertyKey;
   }
 
+  /**
+   * Only read and cache the ExternalViews of the resources that match the filter. The change takes
+   * effect on the next refresh.
+   * @param resourceFilter tests the resource names, null for all the resources
+   */
+  public void setResourceFilter(Predicate<String> resourceFilter) {
+    _resourceFilter = resourceFilter;
+  }
+
   /**
    * Return ExternalView map for all resources.
    *
@@ -21,17 +21,17 @@ package org.apache.helix.common.caches;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
-import com.google.common.collect.Maps;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.common.controllers.ControlContextProvider;
 import org.apache.helix.controller.LogUtil;
 import org.apache.helix.model.LiveInstance;
+import org.apache.helix.util.PersistentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,13 +40,18 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class ParticipantStateCache<T> extends AbstractDataCache {
   private static Logger LOG = LoggerFactory.getLogger(ParticipantStateCache.class);
-  protected Map<String, Map<String, Map<String, T>>> _participantStateMap;
+  // Both the maps are immutable. A refresh only copies the paths to the changed states, and the
+  // maps that have been returned to the callers are not changed.
+  protected PersistentHashMap<String, Map<String, Map<String, T>>> _participantStateMap;
 
-  protected Map<PropertyKey, T> _participantStateCache = Maps.newHashMap();
+  protected volatile Map<PropertyKey, T> _participantStateCache = PersistentHashMap.empty();
+  // The participant states that are read by the prefetch, and not yet used by a refresh.
+  private final AtomicReference<Map<PropertyKey, T>> _prefetchedStateCache =
+      new AtomicReference<>();
 
   public ParticipantStateCache(ControlContextProvider controlContextProvider) {
     super(controlContextProvider);
-    _participantStateMap = new HashMap<>();
+    _participantStateMap = PersistentHashMap.empty();
   }
 
   /**
@@ -59,36 +64,23 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
   public boolean refresh(HelixDataAccessor accessor, Map<String, LiveInstance> liveInstanceMap) {
     long startTime = System.currentTimeMillis();
 
+    Map<PropertyKey, T> prevStateCache = _participantStateCache;
     refreshParticipantStatesCacheFromZk(accessor, liveInstanceMap);
-    Map<String, Map<String, Map<String, T>>> allParticipantStateMap = new HashMap<>();
-    // There should be 4 levels of keys. The first one is the cluster name, the second one is the
-    // instance name, the third one is a customized key (could be session Id or customized state
-    // type), the fourth one is the resourceName
-    for (PropertyKey key : _participantStateCache.keySet()) {
-      T participantState = _participantStateCache.get(key);
-      String[] params = key.getParams();
-      if (participantState != null && params.length >= 4) {
-        String instanceName = params[1];
-        String customizedName = params[2];
-        String resourceName = params[3];
-        Map<String, Map<String, T>> instanceMap = allParticipantStateMap.get(instanceName);
-        if (instanceMap == null) {
-          instanceMap = Maps.newHashMap();
-          allParticipantStateMap.put(instanceName, instanceMap);
-        }
-        Map<String, T> customizedMap = instanceMap.get(customizedName);
-        if (customizedMap == null) {
-          customizedMap = Maps.newHashMap();
-          instanceMap.put(customizedName, customizedMap);
-        }
-        customizedMap.put(resourceName, participantState);
-      } else {
-        LogUtil.logError(LOG, genEventInfo(),
-            "Invalid key found in the participant state cache" + key);
+    PersistentHashMap.Builder<String, Map<String, Map<String, T>>> participantStateMapBuilder =
+        _participantStateMap.toBuilder();
+    // Only the changed states are applied, the unchanged part of the map is shared with the
+    // previous map.
+    for (PropertyKey key : prevStateCache.keySet()) {
+      if (!_participantStateCache.containsKey(key)) {
+        updateParticipantState(participantStateMapBuilder, key, null);
       }
     }
-
-    _participantStateMap = Collections.unmodifiableMap(allParticipantStateMap);
+    for (Map.Entry<PropertyKey, T> entry : _participantStateCache.entrySet()) {
+      if (prevStateCache.get(entry.getKey()) != entry.getValue()) {
+        updateParticipantState(participantStateMapBuilder, entry.getKey(), entry.getValue());
+      }
+    }
+    _participantStateMap = participantStateMapBuilder.build();
 
     long endTime = System.currentTimeMillis();
     LogUtil.logInfo(LOG, genEventInfo(),
@@ -102,29 +94,113 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
     return true;
   }
 
+  /**
+   * Set or remove the participant state of the key in the nested participant state map.
+   * @param participantState the new state, or null to remove the state
+   */
+  private void updateParticipantState(
+      PersistentHashMap.Builder<String, Map<String, Map<String, T>>> participantStateMapBuilder,
+      PropertyKey key, T participantState) {
+    // There should be 4 levels of keys. The first one is the cluster name, the second one is the
+    // instance name, the third one is a customized key (could be session Id or customized state
+    // type), the fourth one is the resourceName
+    String[] params = key.getParams();
+    if (params.length < 4) {
+      LogUtil.logError(LOG, genEventInfo(),
+          "Invalid key found in the participant state cache" + key);
+      return;
+    }
+    String instanceName = params[1];
+    String customizedName = params[2];
+    String resourceName = params[3];
+    PersistentHashMap<String, Map<String, T>> instanceMap =
+        toPersistentMap(participantStateMapBuilder.get(instanceName));
+    PersistentHashMap<String, T> customizedMap =
+        toPersistentMap(instanceMap.get(customizedName));
+    customizedMap = participantState == null ? customizedMap.minus(resourceName)
+        : customizedMap.plus(resourceName, participantState);
+    instanceMap = customizedMap.isEmpty() ? instanceMap.minus(customizedName)
+        : instanceMap.plus(customizedName, customizedMap);
+    if (instanceMap.isEmpty()) {
+      participantStateMapBuilder.remove(instanceName);
+    } else {
+      participantStateMapBuilder.put(instanceName, instanceMap);
+    }
+  }
+
+  private static <K, V> PersistentHashMap<K, V> toPersistentMap(Map<K, V> map) {
+    return map == null ? PersistentHashMap.<K, V>empty() : PersistentHashMap.copyOf(map);
+  }
+
+  /**
+   * Read the participant states that have been changed since the last refresh from ZK in advance,
+   * so the next refresh only needs to read the states that are changed after this prefetch.
+   * The prefetched states are not visible until the next refresh, which still verifies them with
+   * their versions on ZK, so the prefetch never changes what the readers of this cache see. It is
+   * safe to call this method concurrently with the readers and the refresh.
+   * @param accessor
+   * @param liveInstanceMap map of all liveInstances in cluster
+   */
+  public void prefetch(HelixDataAccessor accessor, Map<String, LiveInstance> liveInstanceMap) {
+    long start = System.currentTimeMillis();
+    Map<PropertyKey, T> baseStateCache = _prefetchedStateCache.get();
+    if (baseStateCache == null) {
+      baseStateCache = _participantStateCache;
+    }
+    Map<PropertyKey, T> prefetchedStateCache =
+        readParticipantStates(accessor, liveInstanceMap, baseStateCache, new HashSet<>());
+    _prefetchedStateCache.set(prefetchedStateCache);
+    LogUtil.logInfo(LOG, genEventInfo(), String
+        .format("Prefetched %d participant states for cluster %s, took %d ms",
+            prefetchedStateCache.size(), _controlContextProvider.getClusterName(),
+            System.currentTimeMillis() - start));
+  }
+
   // reload participant states that has been changed from zk to local cache.
   private void refreshParticipantStatesCacheFromZk(HelixDataAccessor accessor,
       Map<String, LiveInstance> liveInstanceMap) {
+    Map<PropertyKey, T> prefetchedStateCache = _prefetchedStateCache.getAndSet(null);
+    Set<PropertyKey> reloadedKeys = new HashSet<>();
+    Map<PropertyKey, T> newStateCache = readParticipantStates(accessor, liveInstanceMap,
+        prefetchedStateCache == null ? _participantStateCache : prefetchedStateCache,
+        reloadedKeys);
+    if (prefetchedStateCache != null) {
+      // The states read by the prefetch are also changed since the last refresh. The unchanged
+      // states are the same objects as the ones in the current cache.
+      reloadedKeys.clear();
+      for (Map.Entry<PropertyKey, T> entry : newStateCache.entrySet()) {
+        if (_participantStateCache.get(entry.getKey()) != entry.getValue()) {
+          reloadedKeys.add(entry.getKey());
+        }
+      }
+    }
+
+    refreshSnapshot(newStateCache, _participantStateCache, reloadedKeys);
+
+    _participantStateCache = newStateCache;
+  }
 
+  /**
+   * Read the participant states that are changed compared with the base states from ZK.
+   * @return the new participant states, which share the unchanged states with the base states
+   */
+  private Map<PropertyKey, T> readParticipantStates(HelixDataAccessor accessor,
+      Map<String, LiveInstance> liveInstanceMap, Map<PropertyKey, T> baseStateCache,
+      Set<PropertyKey> reloadedKeys) {
     long start = System.currentTimeMillis();
     Set<PropertyKey> participantStateKeys =
         PopulateParticipantKeys(accessor, liveInstanceMap);
 
     // All new entries from zk not cached locally yet should be read from ZK.
     Set<PropertyKey> reloadKeys = new HashSet<>(participantStateKeys);
-    reloadKeys.removeAll(_participantStateCache.keySet());
+    reloadKeys.removeAll(baseStateCache.keySet());
 
-    Set<PropertyKey> cachedKeys = new HashSet<>(_participantStateCache.keySet());
+    Set<PropertyKey> cachedKeys = new HashSet<>(baseStateCache.keySet());
     cachedKeys.retainAll(participantStateKeys);
 
-    Set<PropertyKey> reloadedKeys = new HashSet<>();
-    Map<PropertyKey, T> newStateCache = Collections.unmodifiableMap(
-        refreshProperties(accessor, reloadKeys, new ArrayList<>(cachedKeys), _participantStateCache,
-            reloadedKeys));
-
-    refreshSnapshot(newStateCache, _participantStateCache, reloadedKeys);
-
-    _participantStateCache = newStateCache;
+    Map<PropertyKey, T> newStateCache =
+        refreshProperties(accessor, reloadKeys, new ArrayList<>(cachedKeys), baseStateCache,
+            reloadedKeys);
 
     if (LOG.isDebugEnabled()) {
       LogUtil.logDebug(LOG, genEventInfo(),
@@ -134,6 +210,7 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
               + " ms to reload new participant states for cluster: " + _controlContextProvider
               .getClusterName() + "and state: " + this.getClass().getName());
     }
+    return newStateCache;
   }
 
   protected abstract Set<PropertyKey> PopulateParticipantKeys(HelixDataAccessor accessor,
@@ -149,11 +226,12 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
   }
 
   /**
-   * Return the whole participant state map.
+   * Return the whole participant state map. The map is an immutable snapshot, so it can be held
+   * without a defensive copy.
    * @return
    */
   public Map<String, Map<String, Map<String, T>>> getParticipantStatesMap() {
-    return Collections.unmodifiableMap(_participantStateMap);
+    return _participantStateMap;
   }
 
   /**
@@ -162,10 +240,8 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
    * @return
    */
   public Map<String, Map<String, T>> getParticipantStates(String instanceName) {
-    if (!_participantStateMap.containsKey(instanceName)) {
-      return Collections.emptyMap();
-    }
-    return Collections.unmodifiableMap(_participantStateMap.get(instanceName));
+    Map<String, Map<String, T>> instanceMap = _participantStateMap.get(instanceName);
+    return instanceMap == null ? Collections.emptyMap() : instanceMap;
   }
 
   /**
@@ -175,10 +251,8 @@ public abstract class ParticipantStateCache<T> extends AbstractDataCache {
    * @return
    */
   public Map<String, T> getParticipantState(String instanceName, String customizedKey) {
-    if (!_participantStateMap.containsKey(instanceName) || !_participantStateMap.get(instanceName)
-        .containsKey(customizedKey)) {
-      return Collections.emptyMap();
-    }
-    return Collections.unmodifiableMap(_participantStateMap.get(instanceName).get(customizedKey));
+    Map<String, Map<String, T>> instanceMap = _participantStateMap.get(instanceName);
+    Map<String, T> customizedMap = instanceMap == null ? null : instanceMap.get(customizedKey);
+    return customizedMap == null ? Collections.emptyMap() : customizedMap;
   }
 }
@@ -20,12 +20,12 @@ package org.apache.helix.common.caches;
  */
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
@@ -34,6 +34,7 @@ import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.common.controllers.ControlContextProvider;
 import org.apache.helix.controller.LogUtil;
+import org.apache.helix.util.PersistentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,24 +80,27 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
     String getObjName(O obj);
   }
 
-  // Used for serving user operations
-  private Map<String, T> _objMap;
+  // Used for serving user operations. Both maps are immutable, so a map that has been returned to
+  // the caller is a consistent snapshot which is not changed by the later refresh or updates.
+  private PersistentHashMap<String, T> _objMap;
 
   // Used for caching data from object store - this makes it possible to have async
   // data refresh from object store
-  private Map<String, T> _objCache;
+  private PersistentHashMap<String, T> _objCache;
 
   private final String _propertyDescription;
   private final boolean _useSelectiveUpdate;
   private final PropertyCacheKeyFuncs<T> _keyFuncs;
+  // Only the objects whose names match the filter are cached. Null for all.
+  private volatile Predicate<String> _objNameFilter;
 
   public PropertyCache(ControlContextProvider contextProvider, String propertyDescription,
       PropertyCacheKeyFuncs<T> keyFuncs, boolean useSelectiveUpdate) {
     super(contextProvider);
     _propertyDescription = propertyDescription;
     _keyFuncs = keyFuncs;
-    _objMap = new HashMap<>();
-    _objCache = new HashMap<>();
+    _objMap = PersistentHashMap.empty();
+    _objCache = PersistentHashMap.empty();
     _useSelectiveUpdate = useSelectiveUpdate;
   }
 
@@ -130,8 +134,11 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
       Map<String, T> oldCache, PropertyCache.PropertyCacheKeyFuncs<T> propertyKeyFuncs) {
     // Generate keys for all current live instances
     Set<PropertyKey> latestKeys = Sets.newHashSet();
+    Predicate<String> objNameFilter = _objNameFilter;
     for (String liveInstanceName : accessor.getChildNames(propertyKeyFuncs.getRootKey(accessor))) {
-      latestKeys.add(propertyKeyFuncs.getObjPropertyKey(accessor, liveInstanceName));
+      if (objNameFilter == null || objNameFilter.test(liveInstanceName)) {
+        latestKeys.add(propertyKeyFuncs.getObjPropertyKey(accessor, liveInstanceName));
+      }
     }
 
     Set<PropertyKey> oldCachedKeys = Sets.newHashSet();
@@ -165,8 +172,14 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
   }
 
   private void doSimpleCacheRefresh(final HelixDataAccessor accessor) {
-    _objCache = accessor.getChildValuesMap(_keyFuncs.getRootKey(accessor), true);
-    _objMap = new HashMap<>(_objCache);
+    Map<String, T> objs = accessor.getChildValuesMap(_keyFuncs.getRootKey(accessor), true);
+    Predicate<String> objNameFilter = _objNameFilter;
+    if (objNameFilter != null) {
+      objs = new HashMap<>(objs);
+      objs.keySet().removeIf(objNameFilter.negate());
+    }
+    _objCache = _objCache.withContents(objs);
+    _objMap = _objCache;
   }
 
   private void doRefreshWithSelectiveUpdate(final HelixDataAccessor accessor) {
@@ -174,11 +187,11 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
         genSelectiveUpdateInput(accessor, _objCache, _keyFuncs);
     Map<PropertyKey, T> updatedData = refreshProperties(accessor, new HashSet<>(input.getReloadKeys()),
         input.getCachedKeys(), input.getCachedPropertyMap(), new HashSet<>());
-    _objCache = propertyKeyMapToStringMap(updatedData, _keyFuncs);
+    _objCache = _objCache.withContents(propertyKeyMapToStringMap(updatedData, _keyFuncs));
 
-    // need to separate keys so we can potentially update cache map asynchronously while
-    // keeping snapshot unchanged
-    _objMap = new HashMap<>(_objCache);
+    // The cache map is immutable, so it can be updated asynchronously later without changing the
+    // snapshot that is being used.
+    _objMap = _objCache;
   }
 
   private Map<String, T> propertyKeyMapToStringMap(Map<PropertyKey, T> propertyKeyMap,
@@ -190,8 +203,21 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
     return stringMap;
   }
 
+  /**
+   * Only cache the objects whose names match the filter. With the selective update, the other
+   * objects are not read either. The change takes effect on the next refresh.
+   * @param objNameFilter tests the object names, null for all the objects
+   */
+  public void setObjNameFilter(Predicate<String> objNameFilter) {
+    _objNameFilter = objNameFilter;
+  }
+
+  /**
+   * @return an immutable snapshot of the property map. It can be held without a defensive copy
+   * since it is not changed by the later refresh or updates of this cache.
+   */
   public Map<String, T> getPropertyMap() {
-    return Collections.unmodifiableMap(_objMap);
+    return _objMap;
   }
 
   public T getPropertyByName(String name) {
@@ -204,14 +230,14 @@ public class PropertyCache<T extends HelixProperty> extends AbstractDataCache<T>
   public void setPropertyMap(Map<String, T> objMap) {
     // make a copy in case objMap is modified by the caller later on
     // not updating the cache as cache is for data from data store
-    _objMap = new HashMap<>(objMap);
+    _objMap = _objMap.withContents(objMap);
   }
 
   public void setProperty(T obj) {
-    _objMap.put(_keyFuncs.getObjName(obj), obj);
+    _objMap = _objMap.plus(_keyFuncs.getObjName(obj), obj);
   }
 
   public void deletePropertyByName(String name) {
-    _objMap.remove(name);
+    _objMap = _objMap.minus(name);
   }
 }
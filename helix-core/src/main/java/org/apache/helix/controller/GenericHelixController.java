@@ -47,6 +47,7 @@ import org.apache.helix.HelixManager;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyKey.Builder;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.api.exceptions.HelixMetaDataAccessException;
 import org.apache.helix.api.listeners.ClusterConfigChangeListener;
 import org.apache.helix.api.listeners.ControllerChangeListener;
@@ -87,6 +88,7 @@ import org.apache.helix.controller.stages.MessageThrottleStage;
 import org.apache.helix.controller.stages.PersistAssignmentStage;
 import org.apache.helix.controller.stages.ReadClusterDataStage;
 import org.apache.helix.controller.stages.ResourceComputationStage;
+import org.apache.helix.controller.stages.ResourceRebalancePool;
 import org.apache.helix.controller.stages.ResourceValidationStage;
 import org.apache.helix.controller.stages.TargetExteralViewCalcStage;
 import org.apache.helix.controller.stages.TaskGarbageCollectionStage;
@@ -156,6 +158,15 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
   private boolean _isMonitoring = false;
   private final ClusterStatusMonitor _clusterStatusMonitor;
 
+  // The change notification events that can be merged into the pipeline run of another event
+  // during the event debounce, since the data refresh reads all the changed data anyway.
+  private static final Set<ClusterEventType> MERGEABLE_EVENT_TYPES = ImmutableSet
+      .of(ClusterEventType.IdealStateChange, ClusterEventType.CurrentStateChange,
+          ClusterEventType.TaskCurrentStateChange, ClusterEventType.CustomizedStateChange,
+          ClusterEventType.InstanceConfigChange, ClusterEventType.ResourceConfigChange,
+          ClusterEventType.ClusterConfigChange, ClusterEventType.CustomizeStateConfigChange,
+          ClusterEventType.LiveInstanceChange, ClusterEventType.MessageChange);
+
   /**
    * A queue for controller events and a thread that will consume it
    */
@@ -201,6 +212,11 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
   private final WorkflowControllerDataProvider _workflowControlDataProvider;
   private final ScheduledExecutorService _asyncTasksThreadPool;
 
+  /**
+   * The pool that calculates the best possible states of the resources in parallel
+   */
+  private final ResourceRebalancePool _resourceRebalancePool;
+
   /**
    * A record of last pipeline finish duration
    */
@@ -644,6 +660,7 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     _lastSeenSessions = new AtomicReference<>();
     _lastSeenCustomizedStateTypesMapRef = new AtomicReference<>();
     _clusterName = clusterName;
+    _resourceRebalancePool = new ResourceRebalancePool(clusterName);
     _lastPipelineEndTimestamp = TopStateHandoffReportStage.TIMESTAMP_NOT_RECORDED;
     _clusterStatusMonitor = new ClusterStatusMonitor(_clusterName);
 
@@ -663,7 +680,8 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     if (_enabledPipelineTypes.contains(Pipeline.Type.DEFAULT)) {
       logger.info("Initializing {} pipeline", Pipeline.Type.DEFAULT.name());
       _resourceControlDataProvider = new ResourceControllerDataProvider(clusterName);
-      _eventQueue = new ClusterEventBlockingQueue();
+      _eventQueue = new ClusterEventBlockingQueue(
+          Boolean.getBoolean(SystemPropertyKeys.CONTROLLER_CONCURRENT_EVENT_QUEUE_ENABLED));
       _eventThread = new ClusterEventProcessor(_resourceControlDataProvider, _eventQueue,
           "default-" + clusterName);
       initPipeline(_eventThread, _resourceControlDataProvider);
@@ -677,7 +695,8 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     if (_enabledPipelineTypes.contains(Pipeline.Type.TASK)) {
       logger.info("Initializing {} pipeline", Pipeline.Type.TASK.name());
       _workflowControlDataProvider = new WorkflowControllerDataProvider(clusterName);
-      _taskEventQueue = new ClusterEventBlockingQueue();
+      _taskEventQueue = new ClusterEventBlockingQueue(
+          Boolean.getBoolean(SystemPropertyKeys.CONTROLLER_CONCURRENT_EVENT_QUEUE_ENABLED));
       _taskEventThread = new ClusterEventProcessor(_workflowControlDataProvider, _taskEventQueue,
           "task-" + clusterName);
       initPipeline(_taskEventThread, _workflowControlDataProvider);
@@ -749,6 +768,7 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     // regains leadership.
     event.addAttribute(AttributeName.STATEFUL_REBALANCER.name(),
         _rebalancerRef.getRebalancer(manager));
+    event.addAttribute(AttributeName.RESOURCE_REBALANCE_POOL.name(), _resourceRebalancePool);
 
     Optional<String> eventSessionId = Optional.empty();
     // We should expect only events in tests don't have it.
@@ -841,6 +861,12 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
       try {
         pipeline.handle(event);
         pipeline.finish();
+        if (isPipelinedDataPrefetchEnabled(dataProvider) && isDataRefreshPipeline(pipeline)
+            && !isEventQueueEmpty(isTaskFrameworkPipeline)) {
+          // The data for this event has been refreshed. Read the changed data for the next queued
+          // event while the rest of the pipelines are computing with the refreshed data.
+          dataProvider.startPrefetch(manager.getHelixDataAccessor());
+        }
       } catch (Exception e) {
         logger.error(
             "Exception while executing {} pipeline: {} for cluster {}. Will not continue to next pipeline",
@@ -922,6 +948,15 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     resetClusterStatusMonitor();
   }
 
+  private boolean isPipelinedDataPrefetchEnabled(BaseControllerDataProvider dataProvider) {
+    ClusterConfig clusterConfig = dataProvider.getClusterConfig();
+    return clusterConfig != null && clusterConfig.isPipelinedDataPrefetchEnabled();
+  }
+
+  private boolean isDataRefreshPipeline(Pipeline pipeline) {
+    return pipeline.getStages().stream().anyMatch(stage -> stage instanceof ReadClusterDataStage);
+  }
+
   private void updateContinuousRebalancedFailureCount(boolean isTaskFrameworkPipeline,
       boolean resetToZero) {
     if (isTaskFrameworkPipeline) {
@@ -1409,6 +1444,8 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     // shutdown async workers
     shutdownAsyncFIFOWorkers();
 
+    _resourceRebalancePool.shutdown();
+
     enableClusterStatusMonitor(false);
 
     _rebalancerRef.closeRebalancer();
@@ -1520,6 +1557,7 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
       while (!isInterrupted()) {
         try {
           ClusterEvent newClusterEvent = _eventBlockingQueue.take();
+          debounceEvent(newClusterEvent, _eventBlockingQueue, _cache);
           String threadName = String.format(
               "HelixController-pipeline-%s-(%s)", _processorName, newClusterEvent.getEventId());
           this.setName(threadName);
@@ -1543,6 +1581,87 @@ public class GenericHelixController implements IdealStateChangeListener, LiveIns
     }
   }
 
+  /**
+   * If events are queued behind the given event, wait for the debounce window and merge the queued
+   * events that are handled by the pipelines of the given event. The wait is extended by the min
+   * delay each time more events are merged, until the max delay is reached.
+   */
+  void debounceEvent(ClusterEvent event, ClusterEventBlockingQueue queue,
+      BaseControllerDataProvider dataProvider) throws InterruptedException {
+    ClusterConfig clusterConfig = dataProvider.getClusterConfig();
+    if (clusterConfig == null || clusterConfig.getControllerEventDebounceMaxDelayMs() <= 0
+        || queue.isEmpty() || !isMergeableEvent(event)) {
+      return;
+    }
+    PipelineRegistry registry =
+        dataProvider instanceof WorkflowControllerDataProvider ? _taskRegistry : _registry;
+    if (registry == null) {
+      return;
+    }
+    long startTime = System.currentTimeMillis();
+    int mergedCount = mergeQueuedEvents(event, queue, registry);
+    if (mergedCount == 0) {
+      // The queued events need other pipelines, so there is nothing to gain by waiting.
+      return;
+    }
+    long deadline = startTime + clusterConfig.getControllerEventDebounceMaxDelayMs();
+    long minDelay = clusterConfig.getControllerEventDebounceMinDelayMs();
+    while (true) {
+      long delay = Math.min(minDelay, deadline - System.currentTimeMillis());
+      if (delay <= 0) {
+        break;
+      }
+      Thread.sleep(delay);
+      int newlyMergedCount = mergeQueuedEvents(event, queue, registry);
+      if (newlyMergedCount == 0) {
+        break;
+      }
+      mergedCount += newlyMergedCount;
+    }
+
+    long debounceDuration = System.currentTimeMillis() - startTime;
+    logger.info("Merged {} queued events into event {} of type {} in {} ms for cluster {}",
+        mergedCount, event.getEventId(), event.getEventType(), debounceDuration, _clusterName);
+    if (_isMonitoring) {
+      _clusterStatusMonitor.reportMergedEvents(mergedCount);
+      _clusterStatusMonitor
+          .updateClusterEventDuration(ClusterEventMonitor.PhaseName.Debounce.name(),
+              debounceDuration);
+    }
+  }
+
+  /**
+   * Remove the queued events whose pipelines are all run for the given event.
+   * @return the number of removed events
+   */
+  private int mergeQueuedEvents(ClusterEvent event, ClusterEventBlockingQueue queue,
+      PipelineRegistry registry) {
+    List<Pipeline> pipelines = registry.getPipelinesForEvent(event.getEventType());
+    Optional<String> eventSessionId = event.getAttribute(AttributeName.EVENT_SESSION.name());
+    int mergedCount = 0;
+    for (ClusterEventType eventType : MERGEABLE_EVENT_TYPES) {
+      if (!pipelines.containsAll(registry.getPipelinesForEvent(eventType))) {
+        continue;
+      }
+      // The queued event is only removed if it can be merged. Otherwise, for example if it belongs
+      // to a new session, it stays in its place in the queue to be handled on its own.
+      ClusterEvent queuedEvent = queue.remove(eventType,
+          candidate -> isMergeableEvent(candidate) && eventSessionId
+              .equals(candidate.getAttribute(AttributeName.EVENT_SESSION.name())));
+      if (queuedEvent != null) {
+        mergedCount++;
+      }
+    }
+    return mergedCount;
+  }
+
+  private boolean isMergeableEvent(ClusterEvent event) {
+    NotificationContext context = event.getAttribute(AttributeName.changeContext.name());
+    return MERGEABLE_EVENT_TYPES.contains(event.getEventType())
+        && event.containsAttribute(AttributeName.EVENT_SESSION.name()) && context != null
+        && context.getType() == NotificationContext.Type.CALLBACK;
+  }
+
   private void initPipeline(Thread eventThread, BaseControllerDataProvider cache) {
     if (eventThread == null || cache == null) {
       logger.warn("pipeline cannot be initialized");
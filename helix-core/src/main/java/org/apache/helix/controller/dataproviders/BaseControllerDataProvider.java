@@ -29,7 +29,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
@@ -90,6 +92,8 @@ public class BaseControllerDataProvider implements ControlContextProvider {
   private boolean _isMaintenanceModeEnabled;
   private boolean _hasMaintenanceSignalChanged;
   private ExecutorService _asyncTasksThreadPool;
+  // The running data prefetch for the next refresh. Only accessed by the pipeline thread.
+  private Future<?> _prefetchFuture;
 
   // A map recording what data has changed
   protected Map<HelixConstants.ChangeType, AtomicBoolean> _propertyDataChangedMap;
@@ -363,6 +367,7 @@ public class BaseControllerDataProvider implements ControlContextProvider {
    * @return The types that has been updated during the refresh.
    */
   protected synchronized Set<HelixConstants.ChangeType> doRefresh(HelixDataAccessor accessor) {
+    waitForPrefetch();
     Set<HelixConstants.ChangeType> refreshedTypes = new HashSet<>();
 
     // Refresh raw data
@@ -394,6 +399,50 @@ public class BaseControllerDataProvider implements ControlContextProvider {
     return refreshedTypes;
   }
 
+  /**
+   * Start prefetching the data for the next refresh in the async tasks thread pool, so the ZK
+   * reads of the next refresh can overlap with the pipeline stages that are using the current
+   * data. The prefetch does not change any data that is visible through this data provider, the
+   * next refresh waits for the prefetch to finish and verifies the prefetched data before using
+   * it. Nothing is done if the async tasks thread pool is not set or a prefetch is running.
+   * @param accessor the data accessor to read the data with
+   */
+  public void startPrefetch(final HelixDataAccessor accessor) {
+    if (_asyncTasksThreadPool == null || (_prefetchFuture != null && !_prefetchFuture.isDone())) {
+      return;
+    }
+    _prefetchFuture = _asyncTasksThreadPool.submit(() -> {
+      prefetch(accessor);
+      return null;
+    });
+  }
+
+  /**
+   * Prefetch the data for the next refresh. It is called in the async tasks thread pool, so it
+   * must not change any data that is visible through this data provider.
+   * @param accessor the data accessor to read the data with
+   */
+  protected void prefetch(HelixDataAccessor accessor) {
+    _currentStateCache.prefetch(accessor, _liveInstanceCache.getPropertyMap());
+  }
+
+  private void waitForPrefetch() {
+    if (_prefetchFuture == null) {
+      return;
+    }
+    try {
+      _prefetchFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // The refresh reads all the data that is not prefetched, so the failure is not fatal.
+      LogUtil.logWarn(logger, getClusterEventId(),
+          "Failed to prefetch the data for cluster " + _clusterName, e);
+    } finally {
+      _prefetchFuture = null;
+    }
+  }
+
   protected void dumpDebugInfo() {
     if (logger.isDebugEnabled()) {
       LogUtil.logDebug(logger, getClusterEventId(),
@@ -87,7 +87,8 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
   // TODO: Sorting the partition list in CrushEd strategy instead of using the cache to reduce
   // TODO: dependency. Note that this will change the cluster partition assignment and potentially
   // TODO: cause shuffling. So it is not backward compatible.
-  private final Map<String, List<String>> _stablePartitionListCache = new HashMap<>();
+  // Read by the rebalancers, which may run in parallel.
+  private final Map<String, List<String>> _stablePartitionListCache = new ConcurrentHashMap<>();
 
   public ResourceControllerDataProvider() {
     this(AbstractDataCache.UNKNOWN_CLUSTER);
@@ -127,15 +128,23 @@ public class ResourceControllerDataProvider extends BaseControllerDataProvider {
         return obj.getResourceName();
       }
     }, true);
-    _resourceAssignmentCache = new HashMap<>();
-    _idealMappingCache = new HashMap<>();
-    _missingTopStateMap = new HashMap<>();
-    _lastTopStateLocationMap = new HashMap<>();
+    // The assignment caches are updated by the rebalancers, which may run in parallel.
+    _resourceAssignmentCache = new ConcurrentHashMap<>();
+    _idealMappingCache = new ConcurrentHashMap<>();
+    // The top state records are shared with the stages that may run the resources in parallel.
+    _missingTopStateMap = new ConcurrentHashMap<>();
+    _lastTopStateLocationMap = new ConcurrentHashMap<>();
     _refreshedChangeTypes = ConcurrentHashMap.newKeySet();
     _customizedStateCache = new CustomizedStateCache(this, _aggregationEnabledTypes);
     _customizedViewCacheMap = new HashMap<>();
   }
 
+  @Override
+  protected void prefetch(HelixDataAccessor accessor) {
+    super.prefetch(accessor);
+    _customizedStateCache.prefetch(accessor, getLiveInstanceCache().getPropertyMap());
+  }
+
   public synchronized void refresh(HelixDataAccessor accessor) {
     long startTime = System.currentTimeMillis();
 
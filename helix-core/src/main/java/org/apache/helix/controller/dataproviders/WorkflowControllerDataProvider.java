@@ -85,6 +85,12 @@ public class WorkflowControllerDataProvider extends BaseControllerDataProvider {
             || propertyRefreshed.contains(HelixConstants.ChangeType.LIVE_INSTANCE);
   }
 
+  @Override
+  protected void prefetch(HelixDataAccessor accessor) {
+    super.prefetch(accessor);
+    _taskCurrentStateCache.prefetch(accessor, getLiveInstanceCache().getPropertyMap());
+  }
+
   public synchronized void refresh(HelixDataAccessor accessor) {
     long startTime = System.currentTimeMillis();
     Set<HelixConstants.ChangeType> propertyRefreshed = super.doRefresh(accessor);
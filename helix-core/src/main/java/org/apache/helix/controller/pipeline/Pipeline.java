@@ -19,9 +19,13 @@ package org.apache.helix.controller.pipeline;
  * under the License.
  */
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.controller.stages.AttributeName;
 import org.apache.helix.controller.stages.ClusterEvent;
 import org.apache.helix.monitoring.mbeans.ClusterStatusMonitor;
@@ -30,7 +34,13 @@ import org.slf4j.LoggerFactory;
 
 public class Pipeline {
   private static final Logger logger = LoggerFactory.getLogger(Pipeline.class.getName());
+  private static final long ALLOCATION_SAMPLING_INTERVAL =
+      Long.getLong(SystemPropertyKeys.CONTROLLER_PIPELINE_ALLOCATION_SAMPLING_INTERVAL, 0L);
+  // Null if the JVM does not support measuring the allocated bytes of a thread.
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
   private final String _pipelineType;
+  private final AtomicLong _stageExecutionCount = new AtomicLong();
   List<Stage> _stages;
 
   public enum Type {
@@ -61,25 +71,53 @@ public class Pipeline {
     if (_stages == null) {
       return;
     }
+    ClusterStatusMonitor clusterStatusMonitor =
+        event.getAttribute(AttributeName.clusterStatusMonitor.name());
     for (Stage stage : _stages) {
-      long startTime = System.currentTimeMillis();
+      boolean sampleAllocation = clusterStatusMonitor != null && shouldSampleAllocation();
+      long threadId = Thread.currentThread().getId();
+      long startAllocatedBytes =
+          sampleAllocation ? THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) : -1;
+      long startTime = System.nanoTime();
 
       stage.preProcess();
       stage.process(event);
       stage.postProcess();
 
-      long endTime = System.currentTimeMillis();
-      long duration = endTime - startTime;
-      logger.info(String.format("END %s for %s pipeline for cluster %s. took: %d ms for event %s",
-          stage.getStageName(), _pipelineType, event.getClusterName(), duration,
-          event.getEventId()));
+      long durationNs = System.nanoTime() - startTime;
+      long allocatedBytes = sampleAllocation
+          ? THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - startAllocatedBytes : -1;
+      if (logger.isInfoEnabled()) {
+        logger.info("END {} for {} pipeline for cluster {}. took: {} ms for event {}",
+            stage.getStageName(), _pipelineType, event.getClusterName(),
+            TimeUnit.NANOSECONDS.toMillis(durationNs), event.getEventId());
+      }
 
-      ClusterStatusMonitor clusterStatusMonitor =
-          event.getAttribute(AttributeName.clusterStatusMonitor.name());
       if (clusterStatusMonitor != null) {
-        clusterStatusMonitor.updateClusterEventDuration(stage.getStageName(), duration);
+        clusterStatusMonitor
+            .updateClusterEventStageMetrics(stage.getStageName(), durationNs, allocatedBytes);
+      }
+    }
+  }
+
+  private boolean shouldSampleAllocation() {
+    return THREAD_MX_BEAN != null && ALLOCATION_SAMPLING_INTERVAL > 0
+        && _stageExecutionCount.getAndIncrement() % ALLOCATION_SAMPLING_INTERVAL == 0;
+  }
+
+  private static com.sun.management.ThreadMXBean getThreadMXBean() {
+    try {
+      java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean;
+        }
       }
+    } catch (Throwable t) {
+      logger.warn("Cannot measure the allocated bytes of the pipeline stages.", t);
     }
+    return null;
   }
 
   public void finish() {
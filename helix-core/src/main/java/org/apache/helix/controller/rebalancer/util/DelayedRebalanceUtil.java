@@ -41,7 +41,7 @@ import org.slf4j.LoggerFactory;
 public class DelayedRebalanceUtil {
   private static final Logger LOG = LoggerFactory.getLogger(DelayedRebalanceUtil.class);
 
-  private static RebalanceScheduler REBALANCE_SCHEDULER = new RebalanceScheduler();
+  private static final RebalanceScheduler REBALANCE_SCHEDULER = new RebalanceScheduler();
 
   /**
    * @return true if delay rebalance is configured and enabled in the ClusterConfig configurations.
@@ -268,13 +268,16 @@ public class DelayedRebalanceUtil {
                 startTime));
       }
     } else {
-      long currentScheduledTime = REBALANCE_SCHEDULER.getRebalanceTime(resourceName);
-      if (currentScheduledTime < 0 || currentScheduledTime > nextRebalanceTime) {
-        REBALANCE_SCHEDULER.scheduleRebalance(manager, resourceName, nextRebalanceTime);
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(String
-              .format("Set next rebalance time for resource %s at time %d\n", resourceName,
-                  nextRebalanceTime));
+      // The resources may be rebalanced in parallel, so check and update the schedule atomically.
+      synchronized (REBALANCE_SCHEDULER) {
+        long currentScheduledTime = REBALANCE_SCHEDULER.getRebalanceTime(resourceName);
+        if (currentScheduledTime < 0 || currentScheduledTime > nextRebalanceTime) {
+          REBALANCE_SCHEDULER.scheduleRebalance(manager, resourceName, nextRebalanceTime);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug(String
+                .format("Set next rebalance time for resource %s at time %d\n", resourceName,
+                    nextRebalanceTime));
+          }
         }
       }
     }
@@ -19,8 +19,8 @@ package org.apache.helix.controller.rebalancer.util;
  * under the License.
  */
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -60,7 +60,7 @@ public class RebalanceScheduler {
     }
   }
 
-  private final Map<String, ScheduledTask> _rebalanceTasks = new HashMap<String, ScheduledTask>();
+  private final Map<String, ScheduledTask> _rebalanceTasks = new ConcurrentHashMap<>();
   private final ScheduledExecutorService _rebalanceExecutor =
       Executors.newSingleThreadScheduledExecutor();
 
@@ -69,7 +69,8 @@ public class RebalanceScheduler {
    * @param resource
    * @param startTime time in milliseconds
    */
-  public void scheduleRebalance(HelixManager manager, String resource, long startTime) {
+  public synchronized void scheduleRebalance(HelixManager manager, String resource,
+      long startTime) {
     // Do nothing if there is already a timer set for the this workflow with the same start time.
     ScheduledTask existTask = _rebalanceTasks.get(resource);
     if (existTask != null && existTask.getStartTime() == startTime) {
@@ -102,7 +103,7 @@ public class RebalanceScheduler {
    * @param resource
    * @return existing schedule time or -1 if there is no scheduled task for this resource
    */
-  public long getRebalanceTime(String resource) {
+  public synchronized long getRebalanceTime(String resource) {
     ScheduledTask task = _rebalanceTasks.get(resource);
     if (task != null && !task.getFuture().isDone()) {
       return task.getStartTime();
@@ -114,7 +115,7 @@ public class RebalanceScheduler {
    * Remove all existing future schedule tasks for the given resource
    * @param resource
    */
-  public long removeScheduledRebalance(String resource) {
+  public synchronized long removeScheduledRebalance(String resource) {
     ScheduledTask existTask = _rebalanceTasks.remove(resource);
     if (existTask != null && !existTask.getFuture().isDone()) {
       if (!existTask.getFuture().cancel(true)) {
@@ -40,4 +40,12 @@ public interface RebalanceAlgorithm {
    * @return An instance of {@link OptimalAssignment}
    */
   OptimalAssignment calculate(ClusterModel clusterModel) throws HelixRebalanceException;
+
+  /**
+   * @return true if the calculated assignment is also recorded in the input cluster model, so the
+   *         cluster model can be updated and reused for the next calculation.
+   */
+  default boolean isAssignmentRecordedInClusterModel() {
+    return false;
+  }
 }
@@ -82,6 +82,10 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
       ImmutableSet
           .of(HelixConstants.ChangeType.RESOURCE_CONFIG, HelixConstants.ChangeType.IDEAL_STATE,
               HelixConstants.ChangeType.CLUSTER_CONFIG, HelixConstants.ChangeType.INSTANCE_CONFIG);
+  // When only the following changes happen, the cluster model of the previous partial rebalance
+  // can be updated incrementally and reused for the next partial rebalance.
+  private static final Set<HelixConstants.ChangeType> CLUSTER_MODEL_REUSABLE_CHANGE_TYPES =
+      ImmutableSet.of(HelixConstants.ChangeType.LIVE_INSTANCE);
   // To identify if the preference has been configured or not.
   private static final Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer>
       NOT_CONFIGURED_PREFERENCE = ImmutableMap
@@ -114,12 +118,18 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
   private final BaselineDivergenceGauge _baselineDivergenceGauge;
 
   private boolean _asyncGlobalRebalanceEnabled;
+  // The cluster model that was calculated by the previous partial rebalance. It is reset to null
+  // once any change that cannot be applied incrementally is detected. It is volatile because
+  // reset() may be called from a thread other than the pipeline thread.
+  private volatile PartialRebalanceSnapshot _lastPartialRebalance;
 
   // Note, the rebalance algorithm field is mutable so it should not be directly referred except for
   // the public method computeNewIdealStates.
   private RebalanceAlgorithm _rebalanceAlgorithm;
   private Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer> _preference =
       NOT_CONFIGURED_PREFERENCE;
+  private int _candidateScoringParallelism =
+      ClusterConfig.DEFAULT_WAGED_CANDIDATE_SCORING_PARALLELISM;
 
   private static AssignmentMetadataStore constructAssignmentStore(String metadataStoreAddrs,
       String clusterName) {
@@ -227,11 +237,22 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
   // Update the rebalancer preference if the new options are different from the current preference.
   public synchronized void updateRebalancePreference(
       Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer> newPreference) {
+    updateRebalancePreference(newPreference, _candidateScoringParallelism);
+  }
+
+  // Update the rebalancer preference and the candidate scoring parallelism if any of them is
+  // different from the current setting.
+  public synchronized void updateRebalancePreference(
+      Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer> newPreference,
+      int candidateScoringParallelism) {
     // 1. if the preference was not configured during constructing, no need to update.
-    // 2. if the preference equals to the new preference, no need to update.
-    if (!_preference.equals(NOT_CONFIGURED_PREFERENCE) && !_preference.equals(newPreference)) {
-      _rebalanceAlgorithm = ConstraintBasedAlgorithmFactory.getInstance(newPreference);
+    // 2. if both the preference and the parallelism equal to the new ones, no need to update.
+    if (!_preference.equals(NOT_CONFIGURED_PREFERENCE) && (!_preference.equals(newPreference)
+        || _candidateScoringParallelism != candidateScoringParallelism)) {
+      _rebalanceAlgorithm =
+          ConstraintBasedAlgorithmFactory.getInstance(newPreference, candidateScoringParallelism);
       _preference = ImmutableMap.copyOf(newPreference);
+      _candidateScoringParallelism = candidateScoringParallelism;
     }
   }
 
@@ -241,6 +262,7 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
       _assignmentMetadataStore.reset();
     }
     _changeDetector.resetSnapshots();
+    _lastPartialRebalance = null;
   }
 
   // TODO the rebalancer should reject any other computing request after being closed.
@@ -419,6 +441,12 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
     // Get all the changed items' information. Filter for the items that have content changed.
     final Map<HelixConstants.ChangeType, Set<String>> clusterChanges =
         _changeDetector.getAllChanges();
+    // Note the change types are checked instead of the changed items, since the change detector
+    // ignores the non-topology changes, such as the disabled partitions, which still impact the
+    // cluster model of the partial rebalance.
+    if (!CLUSTER_MODEL_REUSABLE_CHANGE_TYPES.containsAll(_changeDetector.getChangeTypes())) {
+      _lastPartialRebalance = null;
+    }
 
     if (clusterChanges.keySet().stream()
         .anyMatch(GLOBAL_REBALANCE_REQUIRED_CHANGE_TYPES::contains)) {
@@ -525,11 +553,26 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
     Map<String, ResourceAssignment> currentBestPossibleAssignment =
         getBestPossibleAssignment(_assignmentMetadataStore, currentStateOutput,
             resourceMap.keySet());
-    ClusterModel clusterModel;
+    // The previous cluster model will be modified by the following calculation, so it cannot be
+    // reused again unless the calculation succeeds.
+    PartialRebalanceSnapshot lastPartialRebalance = _lastPartialRebalance;
+    _lastPartialRebalance = null;
+    ClusterModel clusterModel = null;
     try {
-      clusterModel = ClusterModelProvider
-          .generateClusterModelForPartialRebalance(clusterData, resourceMap, activeNodes,
-              currentBaseline, currentBestPossibleAssignment);
+      if (lastPartialRebalance != null && lastPartialRebalance
+          .isReusable(resourceMap.keySet(), currentBaseline, currentBestPossibleAssignment)) {
+        clusterModel = ClusterModelProvider
+            .updateClusterModelForPartialRebalance(lastPartialRebalance.getClusterModel(),
+                clusterData, resourceMap, activeNodes, currentBaseline,
+                currentBestPossibleAssignment);
+      }
+      if (clusterModel == null) {
+        clusterModel = ClusterModelProvider
+            .generateClusterModelForPartialRebalance(clusterData, resourceMap, activeNodes,
+                currentBaseline, currentBestPossibleAssignment);
+      } else {
+        LOG.info("Reuse the cluster model of the previous partial rebalance.");
+      }
     } catch (Exception ex) {
       throw new HelixRebalanceException("Failed to generate cluster model for partial rebalance.",
           HelixRebalanceException.Type.INVALID_CLUSTER_STATUS, ex);
@@ -560,6 +603,11 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
     } else {
       LOG.debug("Assignment Metadata Store is null. Skip persisting the baseline assignment.");
     }
+    if (algorithm.isAssignmentRecordedInClusterModel()) {
+      _lastPartialRebalance =
+          new PartialRebalanceSnapshot(clusterModel, resourceMap.keySet(), currentBaseline,
+              newAssignment);
+    }
     _partialRebalanceLatency.endMeasuringLatency();
     LOG.info("Finish calculating the new best possible assignment.");
     return newAssignment;
@@ -796,4 +844,38 @@ public class WagedRebalancer implements StatefulRebalancer<ResourceControllerDat
     super.finalize();
     close();
   }
+
+  /**
+   * The cluster model that was calculated by a partial rebalance, together with the input and the
+   * result of the calculation.
+   */
+  private static class PartialRebalanceSnapshot {
+    private final ClusterModel _clusterModel;
+    private final Set<String> _resources;
+    private final Map<String, ResourceAssignment> _baseline;
+    private final Map<String, ResourceAssignment> _bestPossibleAssignment;
+
+    PartialRebalanceSnapshot(ClusterModel clusterModel, Set<String> resources,
+        Map<String, ResourceAssignment> baseline,
+        Map<String, ResourceAssignment> bestPossibleAssignment) {
+      _clusterModel = clusterModel;
+      _resources = ImmutableSet.copyOf(resources);
+      _baseline = baseline;
+      _bestPossibleAssignment = bestPossibleAssignment;
+    }
+
+    ClusterModel getClusterModel() {
+      return _clusterModel;
+    }
+
+    /**
+     * @return true if the next partial rebalance has the same input as this calculation, except
+     *         for the active nodes, and the best possible assignment is this calculation result.
+     */
+    boolean isReusable(Set<String> resources, Map<String, ResourceAssignment> baseline,
+        Map<String, ResourceAssignment> bestPossibleAssignment) {
+      return _resources.equals(resources) && _baseline.equals(baseline)
+          && _bestPossibleAssignment.equals(bestPossibleAssignment);
+    }
+  }
 }
@@ -21,13 +21,14 @@ package org.apache.helix.controller.rebalancer.waged.constraints;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Maps;
@@ -38,6 +39,7 @@ import org.apache.helix.controller.rebalancer.waged.model.AssignableReplica;
 import org.apache.helix.controller.rebalancer.waged.model.ClusterContext;
 import org.apache.helix.controller.rebalancer.waged.model.ClusterModel;
 import org.apache.helix.controller.rebalancer.waged.model.OptimalAssignment;
+import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.ResourceAssignment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,13 +56,30 @@ import org.slf4j.LoggerFactory;
  */
 class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
   private static final Logger LOG = LoggerFactory.getLogger(ConstraintBasedAlgorithm.class);
+  // The minimum number of candidate nodes that are evaluated by one scoring task.
+  private static final int MIN_SCORING_CHUNK_SIZE = 16;
+  // The number of scoring tasks per thread, so the idle threads can steal the remaining chunks.
+  private static final int SCORING_CHUNKS_PER_THREAD = 4;
   private final List<HardConstraint> _hardConstraints;
   private final Map<SoftConstraint, Float> _softConstraints;
+  private final int _candidateScoringParallelism;
 
   ConstraintBasedAlgorithm(List<HardConstraint> hardConstraints,
       Map<SoftConstraint, Float> softConstraints) {
+    this(hardConstraints, softConstraints,
+        ClusterConfig.DEFAULT_WAGED_CANDIDATE_SCORING_PARALLELISM);
+  }
+
+  /**
+   * @param candidateScoringParallelism The number of threads that evaluate the candidate nodes.
+   *                                    1 means sequential evaluation, and a value smaller than 1
+   *                                    means the JVM common pool is used.
+   */
+  ConstraintBasedAlgorithm(List<HardConstraint> hardConstraints,
+      Map<SoftConstraint, Float> softConstraints, int candidateScoringParallelism) {
     _hardConstraints = hardConstraints;
     _softConstraints = softConstraints;
+    _candidateScoringParallelism = candidateScoringParallelism;
   }
 
   @Override
@@ -70,9 +89,9 @@ class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
     Set<String> busyInstances =
         getBusyInstances(clusterModel.getContext().getBestPossibleAssignment().values());
 
-    // Compute overall utilization of the cluster. Capacity dimension -> total remaining capacity
-    Map<String, Integer> overallClusterRemainingCapacityMap =
-        computeOverallClusterRemainingCapacity(nodes);
+    // Compute overall utilization of the cluster. The total remaining capacity is indexed by the
+    // capacity key dictionary of the cluster model.
+    int[] overallClusterRemainingCapacity = computeOverallClusterRemainingCapacity(nodes);
 
     // Create a wrapper for each AssignableReplica.
     Set<AssignableReplicaWithScore> toBeAssignedReplicas =
@@ -81,72 +100,103 @@ class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
             .map(replica -> new AssignableReplicaWithScore(replica, clusterModel))
             .collect(Collectors.toSet());
 
-    while (!toBeAssignedReplicas.isEmpty()) {
-      AssignableReplica replica =
-          getNextAssignableReplica(toBeAssignedReplicas, overallClusterRemainingCapacityMap);
-      Optional<AssignableNode> maybeBestNode =
-          getNodeWithHighestPoints(replica, nodes, clusterModel.getContext(), busyInstances,
-              optimalAssignment);
-      // stop immediately if any replica cannot find best assignable node
-      if (!maybeBestNode.isPresent() || optimalAssignment.hasAnyFailure()) {
-        String errorMessage = String.format(
-            "Unable to find any available candidate node for partition %s; Fail reasons: %s",
-            replica.getPartitionName(), optimalAssignment.getFailures());
-        throw new HelixRebalanceException(errorMessage,
-            HelixRebalanceException.Type.FAILED_TO_CALCULATE);
+    ForkJoinPool scoringPool = createScoringPool();
+    int scoringChunkSize = getScoringChunkSize(nodes.size(), scoringPool);
+    // The candidate node scores are indexed by the node position and reused for every replica.
+    double[] scores = new double[nodes.size()];
+    try {
+      while (!toBeAssignedReplicas.isEmpty()) {
+        AssignableReplica replica =
+            getNextAssignableReplica(toBeAssignedReplicas, overallClusterRemainingCapacity);
+        Optional<AssignableNode> maybeBestNode =
+            getNodeWithHighestPoints(replica, nodes, clusterModel.getContext(), busyInstances,
+                optimalAssignment, scores, scoringPool, scoringChunkSize);
+        // stop immediately if any replica cannot find best assignable node
+        if (!maybeBestNode.isPresent() || optimalAssignment.hasAnyFailure()) {
+          String errorMessage = String.format(
+              "Unable to find any available candidate node for partition %s; Fail reasons: %s",
+              replica.getPartitionName(), optimalAssignment.getFailures());
+          throw new HelixRebalanceException(errorMessage,
+              HelixRebalanceException.Type.FAILED_TO_CALCULATE);
+        }
+        AssignableNode bestNode = maybeBestNode.get();
+        // Assign the replica and update the cluster model.
+        clusterModel.assign(replica.getResourceName(), replica.getPartitionName(),
+            replica.getReplicaState(), bestNode.getInstanceName());
+        updateOverallClusterRemainingCapacity(overallClusterRemainingCapacity, replica);
+      }
+    } finally {
+      if (scoringPool != null && scoringPool != ForkJoinPool.commonPool()) {
+        scoringPool.shutdown();
       }
-      AssignableNode bestNode = maybeBestNode.get();
-      // Assign the replica and update the cluster model.
-      clusterModel
-          .assign(replica.getResourceName(), replica.getPartitionName(), replica.getReplicaState(),
-              bestNode.getInstanceName());
-      updateOverallClusterRemainingCapacity(overallClusterRemainingCapacityMap, replica);
     }
     optimalAssignment.updateAssignments(clusterModel);
     return optimalAssignment;
   }
 
+  @Override
+  public boolean isAssignmentRecordedInClusterModel() {
+    // All the assignments are recorded into the cluster model by calculate().
+    return true;
+  }
+
+  /**
+   * @return the pool that evaluates the candidate nodes, or null if the candidate nodes are
+   *         evaluated sequentially in the calculating thread.
+   */
+  private ForkJoinPool createScoringPool() {
+    if (_candidateScoringParallelism == 1) {
+      return null;
+    }
+    return _candidateScoringParallelism > 1 ? new ForkJoinPool(_candidateScoringParallelism)
+        : ForkJoinPool.commonPool();
+  }
+
+  private static int getScoringChunkSize(int nodeCount, ForkJoinPool scoringPool) {
+    if (scoringPool == null) {
+      return nodeCount;
+    }
+    int chunkCount = scoringPool.getParallelism() * SCORING_CHUNKS_PER_THREAD;
+    return Math.max(MIN_SCORING_CHUNK_SIZE, (nodeCount + chunkCount - 1) / chunkCount);
+  }
+
   private Optional<AssignableNode> getNodeWithHighestPoints(AssignableReplica replica,
       List<AssignableNode> assignableNodes, ClusterContext clusterContext,
-      Set<String> busyInstances, OptimalAssignment optimalAssignment) {
+      Set<String> busyInstances, OptimalAssignment optimalAssignment, double[] scores,
+      ForkJoinPool scoringPool, int scoringChunkSize) {
     Map<AssignableNode, List<HardConstraint>> hardConstraintFailures = new ConcurrentHashMap<>();
-    List<AssignableNode> candidateNodes = assignableNodes.parallelStream().filter(candidateNode -> {
-      boolean isValid = true;
-      // need to record all the failure reasons and it gives us the ability to debug/fix the runtime
-      // cluster environment
-      for (HardConstraint hardConstraint : _hardConstraints) {
-        if (!hardConstraint.isAssignmentValid(candidateNode, replica, clusterContext)) {
-          hardConstraintFailures.computeIfAbsent(candidateNode, node -> new ArrayList<>())
-              .add(hardConstraint);
-          isValid = false;
-        }
-      }
-      return isValid;
-    }).collect(Collectors.toList());
+    CandidateNodeEvaluation evaluation =
+        new CandidateNodeEvaluation(replica, assignableNodes, clusterContext, busyInstances,
+            hardConstraintFailures, scores);
+    // Every chunk returns its own best candidate, and the chunk results are merged with the same
+    // total order. So the chosen node does not depend on how the nodes are split into the chunks.
+    int bestIndex = scoringPool == null ? evaluation.findBestCandidate(0, assignableNodes.size())
+        : scoringPool.invoke(
+            new CandidateScoringTask(evaluation, 0, assignableNodes.size(), scoringChunkSize));
 
-    if (candidateNodes.isEmpty()) {
+    if (bestIndex < 0) {
       optimalAssignment.recordAssignmentFailure(replica,
           Maps.transformValues(hardConstraintFailures, this::convertFailureReasons));
       return Optional.empty();
     }
+    return Optional.of(assignableNodes.get(bestIndex));
+  }
 
-    return candidateNodes.parallelStream().map(node -> new HashMap.SimpleEntry<>(node,
-        getAssignmentNormalizedScore(node, replica, clusterContext)))
-        .max((nodeEntry1, nodeEntry2) -> {
-          int scoreCompareResult = nodeEntry1.getValue().compareTo(nodeEntry2.getValue());
-          if (scoreCompareResult == 0) {
-            // If the evaluation scores of 2 nodes are the same, the algorithm assigns the replica
-            // to the idle node first.
-            String instanceName1 = nodeEntry1.getKey().getInstanceName();
-            String instanceName2 = nodeEntry2.getKey().getInstanceName();
-            int idleScore1 = busyInstances.contains(instanceName1) ? 0 : 1;
-            int idleScore2 = busyInstances.contains(instanceName2) ? 0 : 1;
-            return idleScore1 != idleScore2 ? (idleScore1 - idleScore2)
-                : - instanceName1.compareTo(instanceName2);
-          } else {
-            return scoreCompareResult;
-          }
-        }).map(Map.Entry::getKey);
+  private static int compareCandidates(AssignableNode node1, double score1, AssignableNode node2,
+      double score2, Set<String> busyInstances) {
+    int scoreCompareResult = Double.compare(score1, score2);
+    if (scoreCompareResult == 0) {
+      // If the evaluation scores of 2 nodes are the same, the algorithm assigns the replica
+      // to the idle node first.
+      String instanceName1 = node1.getInstanceName();
+      String instanceName2 = node2.getInstanceName();
+      int idleScore1 = busyInstances.contains(instanceName1) ? 0 : 1;
+      int idleScore2 = busyInstances.contains(instanceName2) ? 0 : 1;
+      return idleScore1 != idleScore2 ? (idleScore1 - idleScore2)
+          : - instanceName1.compareTo(instanceName2);
+    } else {
+      return scoreCompareResult;
+    }
   }
 
   private double getAssignmentNormalizedScore(AssignableNode node, AssignableReplica replica,
@@ -163,32 +213,124 @@ class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
     return sum;
   }
 
+  /**
+   * Evaluates the hard and soft constraints of the candidate nodes for one replica.
+   */
+  private class CandidateNodeEvaluation {
+    private final AssignableReplica _replica;
+    private final List<AssignableNode> _nodes;
+    private final ClusterContext _clusterContext;
+    private final Set<String> _busyInstances;
+    private final Map<AssignableNode, List<HardConstraint>> _hardConstraintFailures;
+    private final double[] _scores;
+
+    CandidateNodeEvaluation(AssignableReplica replica, List<AssignableNode> nodes,
+        ClusterContext clusterContext, Set<String> busyInstances,
+        Map<AssignableNode, List<HardConstraint>> hardConstraintFailures, double[] scores) {
+      _replica = replica;
+      _nodes = nodes;
+      _clusterContext = clusterContext;
+      _busyInstances = busyInstances;
+      _hardConstraintFailures = hardConstraintFailures;
+      _scores = scores;
+    }
+
+    /**
+     * @return the index of the best valid candidate node in [from, to), or -1 if none is valid.
+     */
+    int findBestCandidate(int from, int to) {
+      int bestIndex = -1;
+      for (int i = from; i < to; i++) {
+        AssignableNode candidateNode = _nodes.get(i);
+        if (isAssignmentValid(candidateNode)) {
+          _scores[i] = getAssignmentNormalizedScore(candidateNode, _replica, _clusterContext);
+          bestIndex = getBetterCandidate(bestIndex, i);
+        }
+      }
+      return bestIndex;
+    }
+
+    int getBetterCandidate(int index1, int index2) {
+      if (index1 < 0 || index2 < 0) {
+        return Math.max(index1, index2);
+      }
+      return compareCandidates(_nodes.get(index1), _scores[index1], _nodes.get(index2),
+          _scores[index2], _busyInstances) >= 0 ? index1 : index2;
+    }
+
+    private boolean isAssignmentValid(AssignableNode candidateNode) {
+      boolean isValid = true;
+      // need to record all the failure reasons and it gives us the ability to debug/fix the runtime
+      // cluster environment
+      for (HardConstraint hardConstraint : _hardConstraints) {
+        if (!hardConstraint.isAssignmentValid(candidateNode, _replica, _clusterContext)) {
+          _hardConstraintFailures.computeIfAbsent(candidateNode, node -> new ArrayList<>())
+              .add(hardConstraint);
+          isValid = false;
+        }
+      }
+      return isValid;
+    }
+  }
+
+  /**
+   * Splits the candidate nodes into chunks, so the chunks can be stolen by the idle threads of the
+   * scoring pool.
+   */
+  private static class CandidateScoringTask extends RecursiveTask<Integer> {
+    private final CandidateNodeEvaluation _evaluation;
+    private final int _from;
+    private final int _to;
+    private final int _chunkSize;
+
+    CandidateScoringTask(CandidateNodeEvaluation evaluation, int from, int to, int chunkSize) {
+      _evaluation = evaluation;
+      _from = from;
+      _to = to;
+      _chunkSize = chunkSize;
+    }
+
+    @Override
+    protected Integer compute() {
+      if (_to - _from <= _chunkSize) {
+        return _evaluation.findBestCandidate(_from, _to);
+      }
+      int middle = (_from + _to) >>> 1;
+      CandidateScoringTask left = new CandidateScoringTask(_evaluation, _from, middle, _chunkSize);
+      left.fork();
+      int rightBest =
+          new CandidateScoringTask(_evaluation, middle, _to, _chunkSize).compute();
+      return _evaluation.getBetterCandidate(left.join(), rightBest);
+    }
+  }
+
   private List<String> convertFailureReasons(List<HardConstraint> hardConstraints) {
     return hardConstraints.stream().map(HardConstraint::getDescription)
         .collect(Collectors.toList());
   }
 
-  private Map<String, Integer> computeOverallClusterRemainingCapacity(List<AssignableNode> nodes) {
-    Map<String, Integer> utilizationMap = new HashMap<>();
+  private int[] computeOverallClusterRemainingCapacity(List<AssignableNode> nodes) {
+    if (nodes.isEmpty()) {
+      return new int[0];
+    }
+    int[] overallRemainingCapacity = new int[nodes.get(0).getRemainingCapacityArray().length];
     for (AssignableNode node : nodes) {
-      for (String capacityKey : node.getMaxCapacity().keySet()) {
-        utilizationMap.compute(capacityKey,
-            (k, v) -> v == null ? node.getRemainingCapacity().get(capacityKey)
-                : v + node.getRemainingCapacity().get(capacityKey));
+      int[] remainingCapacity = node.getRemainingCapacityArray();
+      for (int i = 0; i < overallRemainingCapacity.length; i++) {
+        overallRemainingCapacity[i] += remainingCapacity[i];
       }
     }
-    return utilizationMap;
+    return overallRemainingCapacity;
   }
 
   /**
-   * Update the overallClusterUtilMap with newly placed replica
+   * Update the overallClusterRemainingCapacity with newly placed replica
    */
-  private void updateOverallClusterRemainingCapacity(
-      Map<String, Integer> overallClusterRemainingCapacityMap, AssignableReplica replica) {
-    for (Map.Entry<String, Integer> resourceUsage : replica.getCapacity().entrySet()) {
-      overallClusterRemainingCapacityMap.put(resourceUsage.getKey(),
-          overallClusterRemainingCapacityMap.get(resourceUsage.getKey()) - resourceUsage
-              .getValue());
+  private void updateOverallClusterRemainingCapacity(int[] overallClusterRemainingCapacity,
+      AssignableReplica replica) {
+    int[] replicaCapacity = replica.getCapacityArray();
+    for (int i = 0; i < overallClusterRemainingCapacity.length; i++) {
+      overallClusterRemainingCapacity[i] -= replicaCapacity[i];
     }
   }
 
@@ -208,19 +350,18 @@ class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
       _replicaHash = Objects.hash(replica.toString(), clusterModel.getAssignableNodes().keySet());
     }
 
-    public void computeScore(Map<String, Integer> overallClusterRemainingCapMap) {
+    public void computeScore(int[] overallClusterRemainingCapacity) {
       float score = 0;
       // score = SUM(weight * (resource_capacity/cluster_capacity) where weight = 1/(1-total_util%)
       // it could be be simplified to "resource_capacity/cluster_remainingCapacity".
-      for (Map.Entry<String, Integer> resourceCapacity : _replica.getCapacity().entrySet()) {
-        if (resourceCapacity.getValue() == 0) {
+      int[] replicaCapacity = _replica.getCapacityArray();
+      for (int i = 0; i < overallClusterRemainingCapacity.length; i++) {
+        if (replicaCapacity[i] == 0) {
           continue;
         }
-        score = (overallClusterRemainingCapMap.get(resourceCapacity.getKey()) == 0
-            || resourceCapacity.getValue() > (overallClusterRemainingCapMap
-            .get(resourceCapacity.getKey()))) ? Float.MAX_VALUE
-            : score + (float) resourceCapacity.getValue() / (overallClusterRemainingCapMap
-                .get(resourceCapacity.getKey()));
+        score = (overallClusterRemainingCapacity[i] == 0
+            || replicaCapacity[i] > overallClusterRemainingCapacity[i]) ? Float.MAX_VALUE
+            : score + (float) replicaCapacity[i] / overallClusterRemainingCapacity[i];
         if (Float.compare(score, Float.MAX_VALUE) == 0) {
           break;
         }
@@ -289,12 +430,11 @@ class ConstraintBasedAlgorithm implements RebalanceAlgorithm {
   }
 
   private AssignableReplica getNextAssignableReplica(
-      Set<AssignableReplicaWithScore> allReplica,
-      Map<String, Integer> overallClusterRemainingCapMap) {
+      Set<AssignableReplicaWithScore> allReplica, int[] overallClusterRemainingCapacity) {
     AssignableReplicaWithScore nextAssinableReplica = null;
     // Compare every replica with current candidate, update candidate if needed
     for (AssignableReplicaWithScore replica : allReplica) {
-      replica.computeScore(overallClusterRemainingCapMap);
+      replica.computeScore(overallClusterRemainingCapacity);
       if (nextAssinableReplica == null || replica.compareTo(nextAssinableReplica) < 0) {
         nextAssinableReplica = replica;
       }
@@ -61,6 +61,18 @@ public class ConstraintBasedAlgorithmFactory {
 
   public static RebalanceAlgorithm getInstance(
       Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer> preferences) {
+    return getInstance(preferences, ClusterConfig.DEFAULT_WAGED_CANDIDATE_SCORING_PARALLELISM);
+  }
+
+  /**
+   * @param preferences                 The global rebalance preferences.
+   * @param candidateScoringParallelism The number of threads that evaluate the candidate nodes of
+   *                                    each replica. Please refer to
+   *                                    ClusterConfig.getWagedCandidateScoringParallelism().
+   */
+  public static RebalanceAlgorithm getInstance(
+      Map<ClusterConfig.GlobalRebalancePreferenceKey, Integer> preferences,
+      int candidateScoringParallelism) {
     List<HardConstraint> hardConstraints =
         ImmutableList.of(new FaultZoneAwareConstraint(), new NodeCapacityConstraint(),
             new ReplicaActivateConstraint(), new NodeMaxPartitionLimitConstraint(),
@@ -97,6 +109,7 @@ public class ConstraintBasedAlgorithmFactory {
     });
 
 
-    return new ConstraintBasedAlgorithm(hardConstraints, softConstraintsWithWeight);
+    return new ConstraintBasedAlgorithm(hardConstraints, softConstraintsWithWeight,
+        candidateScoringParallelism);
   }
 }
@@ -19,8 +19,6 @@ package org.apache.helix.controller.rebalancer.waged.constraints;
  * under the License.
  */
 
-import java.util.Map;
-
 import org.apache.helix.controller.rebalancer.waged.model.AssignableNode;
 import org.apache.helix.controller.rebalancer.waged.model.AssignableReplica;
 import org.apache.helix.controller.rebalancer.waged.model.ClusterContext;
@@ -30,14 +28,13 @@ class NodeCapacityConstraint extends HardConstraint {
   @Override
   boolean isAssignmentValid(AssignableNode node, AssignableReplica replica,
       ClusterContext clusterContext) {
-    Map<String, Integer> nodeCapacity = node.getRemainingCapacity();
-    Map<String, Integer> replicaCapacity = replica.getCapacity();
+    // Both arrays are indexed by the capacity key dictionary of the cluster model.
+    int[] nodeCapacity = node.getRemainingCapacityArray();
+    int[] replicaCapacity = replica.getCapacityArray();
 
-    for (String key : replicaCapacity.keySet()) {
-      if (nodeCapacity.containsKey(key)) {
-        if (nodeCapacity.get(key) < replicaCapacity.get(key)) {
-          return false;
-        }
+    for (int i = 0; i < nodeCapacity.length; i++) {
+      if (nodeCapacity[i] < replicaCapacity[i]) {
+        return false;
       }
     }
     return true;
@@ -55,14 +55,17 @@ public class AssignableNode implements Comparable<AssignableNode> {
   private final ImmutableSet<String> _instanceTags;
   private final ImmutableMap<String, List<String>> _disabledPartitionsMap;
   private final ImmutableMap<String, Integer> _maxAllowedCapacity;
+  // The capacity values are kept in arrays that are indexed by the capacity key dictionary.
+  private final CapacityKeyDictionary _capacityKeyDictionary;
+  private final int[] _maxCapacity;
 
   // Mutable (Dynamic) Instance Properties
   // A map of <resource name, <partition name, replica>> that tracks the replicas assigned to the
   // node.
   private Map<String, Map<String, AssignableReplica>> _currentAssignedReplicaMap;
-  // A map of <capacity key, capacity value> that tracks the current available node capacity
-  private Map<String, Integer> _remainingCapacity;
-  private Map<String, Integer> _remainingTopStateCapacity;
+  // The arrays of the capacity values that track the current available node capacity
+  private final int[] _remainingCapacity;
+  private final int[] _remainingTopStateCapacity;
 
   /**
    * Update the node with a ClusterDataCache. This resets the current assignment and recalculates
@@ -74,6 +77,16 @@ public class AssignableNode implements Comparable<AssignableNode> {
    * subject to change. If the assumption is no longer true, this function should become private.
    */
   AssignableNode(ClusterConfig clusterConfig, InstanceConfig instanceConfig, String instanceName) {
+    this(clusterConfig, instanceConfig, instanceName,
+        new CapacityKeyDictionary(clusterConfig.getInstanceCapacityKeys()));
+  }
+
+  /**
+   * @param capacityKeyDictionary The capacity key dictionary that is shared by all the nodes and
+   *                              replicas of the same cluster model.
+   */
+  AssignableNode(ClusterConfig clusterConfig, InstanceConfig instanceConfig, String instanceName,
+      CapacityKeyDictionary capacityKeyDictionary) {
     _instanceName = instanceName;
     Map<String, Integer> instanceCapacity = fetchInstanceCapacity(clusterConfig, instanceConfig);
     _faultZone = computeFaultZone(clusterConfig, instanceConfig);
@@ -81,8 +94,10 @@ public class AssignableNode implements Comparable<AssignableNode> {
     _disabledPartitionsMap = ImmutableMap.copyOf(instanceConfig.getDisabledPartitionsMap());
     // make a copy of max capacity
     _maxAllowedCapacity = ImmutableMap.copyOf(instanceCapacity);
-    _remainingCapacity = new HashMap<>(instanceCapacity);
-    _remainingTopStateCapacity = new HashMap<>(instanceCapacity);
+    _capacityKeyDictionary = capacityKeyDictionary;
+    _maxCapacity = capacityKeyDictionary.toArray(instanceCapacity);
+    _remainingCapacity = _maxCapacity.clone();
+    _remainingTopStateCapacity = _maxCapacity.clone();
     _maxPartition = clusterConfig.getMaxPartitionsPerInstance();
     _currentAssignedReplicaMap = new HashMap<>();
   }
@@ -94,21 +109,18 @@ public class AssignableNode implements Comparable<AssignableNode> {
    * Using this function avoids the overhead of updating capacity repeatedly.
    */
   void assignInitBatch(Collection<AssignableReplica> replicas) {
-    Map<String, Integer> totalTopStatePartitionCapacity = new HashMap<>();
-    Map<String, Integer> totalPartitionCapacity = new HashMap<>();
+    int[] totalTopStatePartitionCapacity = new int[_maxCapacity.length];
+    int[] totalPartitionCapacity = new int[_maxCapacity.length];
     for (AssignableReplica replica : replicas) {
       // TODO: the exception could occur in the middle of for loop and the previous added records cannot be reverted
       addToAssignmentRecord(replica);
       // increment the capacity requirement according to partition's capacity configuration.
-      for (Map.Entry<String, Integer> capacity : replica.getCapacity().entrySet()) {
+      int[] capacity = replica.getCapacityArray();
+      for (int i = 0; i < totalPartitionCapacity.length; i++) {
         if (replica.isReplicaTopState()) {
-          totalTopStatePartitionCapacity.compute(capacity.getKey(),
-              (key, totalValue) -> (totalValue == null) ? capacity.getValue()
-                  : totalValue + capacity.getValue());
+          totalTopStatePartitionCapacity[i] += capacity[i];
         }
-        totalPartitionCapacity.compute(capacity.getKey(),
-            (key, totalValue) -> (totalValue == null) ? capacity.getValue()
-                : totalValue + capacity.getValue());
+        totalPartitionCapacity[i] += capacity[i];
       }
     }
 
@@ -123,9 +135,10 @@ public class AssignableNode implements Comparable<AssignableNode> {
    */
   void assign(AssignableReplica assignableReplica) {
     addToAssignmentRecord(assignableReplica);
-    updateRemainingCapacity(assignableReplica.getCapacity(), _remainingCapacity, false);
+    updateRemainingCapacity(assignableReplica.getCapacityArray(), _remainingCapacity, false);
     if (assignableReplica.isReplicaTopState()) {
-      updateRemainingCapacity(assignableReplica.getCapacity(), _remainingTopStateCapacity, false);
+      updateRemainingCapacity(assignableReplica.getCapacityArray(), _remainingTopStateCapacity,
+          false);
     }
   }
 
@@ -155,9 +168,10 @@ public class AssignableNode implements Comparable<AssignableNode> {
     }
 
     AssignableReplica removedReplica = partitionMap.remove(partitionName);
-    updateRemainingCapacity(removedReplica.getCapacity(), _remainingCapacity, true);
+    updateRemainingCapacity(removedReplica.getCapacityArray(), _remainingCapacity, true);
     if (removedReplica.isReplicaTopState()) {
-      updateRemainingCapacity(removedReplica.getCapacity(), _remainingTopStateCapacity, true);
+      updateRemainingCapacity(removedReplica.getCapacityArray(), _remainingTopStateCapacity,
+          true);
     }
   }
 
@@ -219,6 +233,14 @@ public class AssignableNode implements Comparable<AssignableNode> {
    * @return The current available capacity.
    */
   public Map<String, Integer> getRemainingCapacity() {
+    return _capacityKeyDictionary.toMap(_remainingCapacity);
+  }
+
+  /**
+   * @return The current available capacity in an array that is indexed by the capacity key
+   *         dictionary. Note the returned array is the internal record and shall not be modified.
+   */
+  public int[] getRemainingCapacityArray() {
     return _remainingCapacity;
   }
 
@@ -230,6 +252,21 @@ public class AssignableNode implements Comparable<AssignableNode> {
     return _maxAllowedCapacity;
   }
 
+  /**
+   * @return The max capacity of the node in an array that is indexed by the capacity key
+   *         dictionary. Note the returned array shall not be modified.
+   */
+  public int[] getMaxCapacityArray() {
+    return _maxCapacity;
+  }
+
+  /**
+   * @return The capacity key dictionary that indexes the capacity arrays of the node.
+   */
+  public CapacityKeyDictionary getCapacityKeyDictionary() {
+    return _capacityKeyDictionary;
+  }
+
   /**
    * Return the most concerning capacity utilization number for evenly partition assignment.
    * The method dynamically calculates the projected highest utilization number among all the
@@ -240,6 +277,17 @@ public class AssignableNode implements Comparable<AssignableNode> {
    * @return The highest utilization number of the node among all the capacity category.
    */
   public float getGeneralProjectedHighestUtilization(Map<String, Integer> newUsage) {
+    return getProjectedHighestUtilization(_capacityKeyDictionary.toArray(newUsage),
+        _remainingCapacity);
+  }
+
+  /**
+   * The same as getGeneralProjectedHighestUtilization(Map), but the new usage is given in an array
+   * that is indexed by the capacity key dictionary. This method does not allocate any object.
+   * @param newUsage the proposed new additional capacity usage.
+   * @return The highest utilization number of the node among all the capacity category.
+   */
+  public float getGeneralProjectedHighestUtilization(int[] newUsage) {
     return getProjectedHighestUtilization(newUsage, _remainingCapacity);
   }
 
@@ -254,16 +302,25 @@ public class AssignableNode implements Comparable<AssignableNode> {
    * @return The highest utilization number of the node among all the capacity category.
    */
   public float getTopStateProjectedHighestUtilization(Map<String, Integer> newUsage) {
+    return getProjectedHighestUtilization(_capacityKeyDictionary.toArray(newUsage),
+        _remainingTopStateCapacity);
+  }
+
+  /**
+   * The same as getTopStateProjectedHighestUtilization(Map), but the new usage is given in an
+   * array that is indexed by the capacity key dictionary. This method does not allocate any object.
+   * @param newUsage the proposed new additional capacity usage.
+   * @return The highest utilization number of the node among all the capacity category.
+   */
+  public float getTopStateProjectedHighestUtilization(int[] newUsage) {
     return getProjectedHighestUtilization(newUsage, _remainingTopStateCapacity);
   }
 
-  private float getProjectedHighestUtilization(Map<String, Integer> newUsage,
-      Map<String, Integer> remainingCapacity) {
+  private float getProjectedHighestUtilization(int[] newUsage, int[] remainingCapacity) {
     float highestCapacityUtilization = 0;
-    for (String capacityKey : _maxAllowedCapacity.keySet()) {
-      float capacityValue = _maxAllowedCapacity.get(capacityKey);
-      float utilization = (capacityValue - remainingCapacity.get(capacityKey) + newUsage
-          .getOrDefault(capacityKey, 0)) / capacityValue;
+    for (int i = 0; i < _maxCapacity.length; i++) {
+      float capacityValue = _maxCapacity[i];
+      float utilization = (capacityValue - remainingCapacity[i] + newUsage[i]) / capacityValue;
       highestCapacityUtilization = Math.max(highestCapacityUtilization, utilization);
     }
     return highestCapacityUtilization;
@@ -341,12 +398,12 @@ public class AssignableNode implements Comparable<AssignableNode> {
     }
   }
 
-  private void updateRemainingCapacity(Map<String, Integer> usedCapacity, Map<String, Integer> remainingCapacity,
+  private void updateRemainingCapacity(int[] usedCapacity, int[] remainingCapacity,
       boolean isRelease) {
     int multiplier = isRelease ? -1 : 1;
-    // if the used capacity key does not exist in the node's capacity, ignore it
-    usedCapacity.forEach((capacityKey, capacityValue) -> remainingCapacity.compute(capacityKey,
-        (key, value) -> value == null ? null : value - multiplier * capacityValue));
+    for (int i = 0; i < remainingCapacity.length; i++) {
+      remainingCapacity[i] -= multiplier * usedCapacity[i];
+    }
   }
 
   /**
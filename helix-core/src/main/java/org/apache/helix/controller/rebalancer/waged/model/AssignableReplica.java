@@ -44,6 +44,8 @@ public class AssignableReplica implements Comparable<AssignableReplica> {
   private final String _resourceInstanceGroupTag;
   private final int _resourceMaxPartitionsPerInstance;
   private final Map<String, Integer> _capacityUsage;
+  // The capacity usage in an array that is indexed by the capacity key dictionary
+  private final int[] _capacityUsageArray;
   // The priority of the replica's state
   private final int _statePriority;
   // The state of the replica
@@ -58,11 +60,23 @@ public class AssignableReplica implements Comparable<AssignableReplica> {
    */
   AssignableReplica(ClusterConfig clusterConfig, ResourceConfig resourceConfig,
       String partitionName, String replicaState, int statePriority) {
+    this(clusterConfig, resourceConfig, partitionName, replicaState, statePriority,
+        new CapacityKeyDictionary(clusterConfig.getInstanceCapacityKeys()));
+  }
+
+  /**
+   * @param capacityKeyDictionary The capacity key dictionary that is shared by all the nodes and
+   *                              replicas of the same cluster model.
+   */
+  AssignableReplica(ClusterConfig clusterConfig, ResourceConfig resourceConfig,
+      String partitionName, String replicaState, int statePriority,
+      CapacityKeyDictionary capacityKeyDictionary) {
     _partitionName = partitionName;
     _replicaState = replicaState;
     _statePriority = statePriority;
     _resourceName = resourceConfig.getResourceName();
     _capacityUsage = fetchCapacityUsage(partitionName, resourceConfig, clusterConfig);
+    _capacityUsageArray = capacityKeyDictionary.toArray(_capacityUsage);
     _resourceInstanceGroupTag = resourceConfig.getInstanceGroupTag();
     _resourceMaxPartitionsPerInstance = resourceConfig.getMaxPartitionsPerInstance();
     _replicaKey = generateReplicaKey(_resourceName, _partitionName,_replicaState);
@@ -72,6 +86,14 @@ public class AssignableReplica implements Comparable<AssignableReplica> {
     return _capacityUsage;
   }
 
+  /**
+   * @return The capacity usage in an array that is indexed by the capacity key dictionary of the
+   *         cluster model. Note the returned array shall not be modified.
+   */
+  public int[] getCapacityArray() {
+    return _capacityUsageArray;
+  }
+
   public String getPartitionName() {
     return _partitionName;
   }
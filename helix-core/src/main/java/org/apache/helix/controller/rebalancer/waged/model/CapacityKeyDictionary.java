@@ -0,0 +1,80 @@
+package org.apache.helix.controller.rebalancer.waged.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * This class maps the capacity keys to the indexes of the capacity arrays that are kept by the
+ * assignable nodes and replicas. The nodes and replicas of one cluster model are created with the
+ * same dictionary, so their capacity arrays can be compared index by index without any map lookup
+ * or boxing.
+ */
+public class CapacityKeyDictionary {
+  private final String[] _capacityKeys;
+
+  /**
+   * @param capacityKeys The required capacity keys that are configured in the cluster config.
+   */
+  CapacityKeyDictionary(Collection<String> capacityKeys) {
+    _capacityKeys = new LinkedHashSet<>(capacityKeys).toArray(new String[0]);
+  }
+
+  /**
+   * @return The number of the capacity keys, which is also the length of the capacity arrays.
+   */
+  public int size() {
+    return _capacityKeys.length;
+  }
+
+  /**
+   * @return The capacity key of the specified index.
+   */
+  public String getCapacityKey(int index) {
+    return _capacityKeys[index];
+  }
+
+  /**
+   * Convert the capacity map into a capacity array. The keys that are not in the dictionary are
+   * ignored, and the missing keys are treated as 0.
+   */
+  int[] toArray(Map<String, Integer> capacityMap) {
+    int[] capacity = new int[_capacityKeys.length];
+    for (int i = 0; i < _capacityKeys.length; i++) {
+      Integer value = capacityMap.get(_capacityKeys[i]);
+      capacity[i] = value == null ? 0 : value;
+    }
+    return capacity;
+  }
+
+  /**
+   * Convert the capacity array into a capacity map of <capacity key, capacity value>.
+   */
+  Map<String, Integer> toMap(int[] capacity) {
+    Map<String, Integer> capacityMap = new HashMap<>();
+    for (int i = 0; i < _capacityKeys.length; i++) {
+      capacityMap.put(_capacityKeys[i], capacity[i]);
+    }
+    return capacityMap;
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.helix.controller.rebalancer.waged.model;
  */
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +36,7 @@ import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
 import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.IdealState;
 import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.Partition;
 import org.apache.helix.model.Resource;
 import org.apache.helix.model.ResourceAssignment;
 import org.apache.helix.model.ResourceConfig;
@@ -78,6 +80,136 @@ public class ClusterModelProvider {
         baselineAssignment, bestPossibleAssignment, RebalanceScopeType.PARTIAL);
   }
 
+  /**
+   * Update the Cluster Model object that was calculated by the previous partial rebalance so it
+   * can be used for the next partial rebalance. Instead of re-constructing all the assignable nodes
+   * and replicas, only the nodes that are added to or removed from the active instances are
+   * updated, and only the replicas of the affected partitions are evaluated again. The affected
+   * partitions are:
+   * 1. The partitions that had any replica re-assigned in the previous partial rebalance.
+   * 2. The partitions that have any replica allocated on a removed node.
+   * 3. The partitions that have any replica allocated on an added node in the baseline.
+   * The replicas of the other partitions are kept at their current allocations, which is exactly
+   * what generateClusterModelForPartialRebalance would decide for them.
+   *
+   * The caller must ensure the following preconditions, otherwise the result is undefined:
+   * 1. The previous Cluster Model has been successfully calculated by the rebalance algorithm, and
+   * the given best possible assignment is the calculation result.
+   * 2. The baseline assignment, the resources to be rebalanced, and all the cluster, instance and
+   * resource configurations are the same as in the previous calculation.
+   *
+   * Note the previous Cluster Model object is modified and shall not be used anymore.
+   * @param previousClusterModel   The Cluster Model that was calculated by the previous partial
+   *                               rebalance.
+   * @param dataProvider           The controller's data cache.
+   * @param resourceMap            The full list of the resources to be rebalanced.
+   * @param activeInstances        The active instances that will be used in the calculation.
+   * @param baselineAssignment     The persisted Baseline assignment.
+   * @param bestPossibleAssignment The persisted Best Possible assignment that was generated in the
+   *                               previous rebalance.
+   * @return the updated cluster model, or null if the model cannot be updated incrementally. For
+   *         example, the replica count of a resource changes with the active instances.
+   */
+  public static ClusterModel updateClusterModelForPartialRebalance(
+      ClusterModel previousClusterModel, ResourceControllerDataProvider dataProvider,
+      Map<String, Resource> resourceMap, Set<String> activeInstances,
+      Map<String, ResourceAssignment> baselineAssignment,
+      Map<String, ResourceAssignment> bestPossibleAssignment) {
+    Map<String, AssignableNode> previousNodes = previousClusterModel.getAssignableNodes();
+    Map<String, InstanceConfig> instanceConfigMap = dataProvider.getInstanceConfigMap();
+    // The same as getAllAssignableNodes(), the active instances without config are ignored.
+    Set<String> removedInstances = new HashSet<>(previousNodes.keySet());
+    removedInstances.removeAll(activeInstances);
+    // The added nodes share the capacity key dictionary with the previous nodes.
+    CapacityKeyDictionary capacityKeyDictionary = previousNodes.isEmpty()
+        ? new CapacityKeyDictionary(dataProvider.getClusterConfig().getInstanceCapacityKeys())
+        : previousNodes.values().iterator().next().getCapacityKeyDictionary();
+    Set<AssignableNode> addedNodes = getAllAssignableNodes(dataProvider.getClusterConfig(),
+        instanceConfigMap, activeInstances.stream()
+            .filter(instance -> !previousNodes.containsKey(instance))
+            .collect(Collectors.toSet()), capacityKeyDictionary);
+
+    Set<AssignableNode> assignableNodes = new HashSet<>(addedNodes);
+    previousNodes.values().stream()
+        .filter(node -> !removedInstances.contains(node.getInstanceName()))
+        .forEach(assignableNodes::add);
+    if (!isReplicaCountUnchanged(dataProvider, resourceMap, previousNodes.values(),
+        assignableNodes)) {
+      return null;
+    }
+
+    // <resource, partition set>
+    Map<String, Set<String>> affectedPartitions = new HashMap<>();
+    // 1. The partitions that had any replica re-assigned in the previous partial rebalance.
+    previousClusterModel.getAssignableReplicaMap().values().stream().flatMap(Set::stream)
+        .forEach(replica -> affectedPartitions
+            .computeIfAbsent(replica.getResourceName(), key -> new HashSet<>())
+            .add(replica.getPartitionName()));
+    // 2. The partitions that have any replica allocated on a removed node.
+    for (String instanceName : removedInstances) {
+      previousNodes.get(instanceName).getAssignedPartitionsMap().forEach(
+          (resourceName, partitions) -> affectedPartitions
+              .computeIfAbsent(resourceName, key -> new HashSet<>()).addAll(partitions));
+    }
+    // 3. The partitions that have any replica allocated on an added node in the baseline.
+    if (!addedNodes.isEmpty()) {
+      Set<String> addedInstances =
+          addedNodes.stream().map(AssignableNode::getInstanceName).collect(Collectors.toSet());
+      for (Map.Entry<String, ResourceAssignment> baselineEntry : baselineAssignment.entrySet()) {
+        ResourceAssignment assignment = baselineEntry.getValue();
+        for (Partition partition : assignment.getMappedPartitions()) {
+          if (assignment.getReplicaMap(partition).keySet().stream()
+              .anyMatch(addedInstances::contains)) {
+            affectedPartitions.computeIfAbsent(baselineEntry.getKey(), key -> new HashSet<>())
+                .add(partition.getPartitionName());
+          }
+        }
+      }
+    }
+
+    // Release all the replicas of the affected partitions from the nodes.
+    // <resource, replica set>
+    Map<String, Set<AssignableReplica>> affectedReplicaMap = new HashMap<>();
+    for (AssignableNode node : previousNodes.values()) {
+      boolean isRemoved = removedInstances.contains(node.getInstanceName());
+      for (AssignableReplica replica : node.getAssignedReplicas()) {
+        if (affectedPartitions.getOrDefault(replica.getResourceName(), Collections.emptySet())
+            .contains(replica.getPartitionName())) {
+          affectedReplicaMap.computeIfAbsent(replica.getResourceName(), key -> new HashSet<>())
+              .add(replica);
+          if (!isRemoved) {
+            node.release(replica);
+          }
+        }
+      }
+    }
+
+    // Evaluate the affected replicas in the same way as the full partial rebalance scope.
+    Map<String, Set<AssignableReplica>> allocatedReplicas = new HashMap<>();
+    Set<AssignableReplica> toBeAssignedReplicas =
+        findToBeAssignedReplicasByComparingWithIdealAssignment(affectedReplicaMap,
+            activeInstances, baselineAssignment, bestPossibleAssignment, allocatedReplicas);
+    Map<String, AssignableNode> assignableNodeMap = assignableNodes.stream()
+        .collect(Collectors.toMap(AssignableNode::getInstanceName, node -> node));
+    allocatedReplicas.forEach((instanceName, replicas) -> {
+      AssignableNode node = assignableNodeMap.get(instanceName);
+      if (node != null) {
+        node.assignInitBatch(replicas);
+      }
+    });
+
+    // Construct and initialize cluster context.
+    Set<AssignableReplica> allReplicas = new HashSet<>(toBeAssignedReplicas);
+    assignableNodes.forEach(node -> allReplicas.addAll(node.getAssignedReplicas()));
+    ClusterContext context =
+        new ClusterContext(allReplicas, assignableNodes, baselineAssignment,
+            bestPossibleAssignment);
+    // Initial the cluster context with the allocated assignments.
+    context.setAssignmentForFaultZoneMap(mapAssignmentToFaultZone(assignableNodes));
+
+    return new ClusterModel(context, toBeAssignedReplicas, assignableNodes);
+  }
+
   /**
    * Generate a new Cluster Model object according to the current cluster status for the Baseline
    * calculation. The rebalance scope is determined according to the cluster changes.
@@ -136,15 +268,19 @@ public class ClusterModelProvider {
       Map<HelixConstants.ChangeType, Set<String>> clusterChanges,
       Map<String, ResourceAssignment> idealAssignment,
       Map<String, ResourceAssignment> currentAssignment, RebalanceScopeType scopeType) {
+    // All the nodes and replicas of the model share the same capacity key dictionary.
+    CapacityKeyDictionary capacityKeyDictionary =
+        new CapacityKeyDictionary(dataProvider.getClusterConfig().getInstanceCapacityKeys());
     // Construct all the assignable nodes and initialize with the allocated replicas.
     Set<AssignableNode> assignableNodes =
         getAllAssignableNodes(dataProvider.getClusterConfig(), dataProvider.getInstanceConfigMap(),
-            activeInstances);
+            activeInstances, capacityKeyDictionary);
 
     // Generate replica objects for all the resource partitions.
     // <resource, replica set>
     Map<String, Set<AssignableReplica>> replicaMap =
-        getAllAssignableReplicas(dataProvider, resourceMap, assignableNodes);
+        getAllAssignableReplicas(dataProvider, resourceMap, assignableNodes,
+            capacityKeyDictionary);
 
     // Check if the replicas need to be reassigned.
     Map<String, Set<AssignableReplica>> allocatedReplicas =
@@ -429,14 +565,16 @@ public class ClusterModelProvider {
    * @param instanceConfigMap A map of all the instance configuration.
    *                          If any active instance has no configuration, it will be ignored.
    * @param activeInstances   All the instances that are online and enabled.
+   * @param capacityKeyDictionary The capacity key dictionary of the cluster model.
    * @return A map of assignable node set, <InstanceName, node set>.
    */
   private static Set<AssignableNode> getAllAssignableNodes(ClusterConfig clusterConfig,
-      Map<String, InstanceConfig> instanceConfigMap, Set<String> activeInstances) {
+      Map<String, InstanceConfig> instanceConfigMap, Set<String> activeInstances,
+      CapacityKeyDictionary capacityKeyDictionary) {
     return activeInstances.parallelStream()
         .filter(instance -> instanceConfigMap.containsKey(instance)).map(
             instanceName -> new AssignableNode(clusterConfig, instanceConfigMap.get(instanceName),
-                instanceName)).collect(Collectors.toSet());
+                instanceName, capacityKeyDictionary)).collect(Collectors.toSet());
   }
 
   /**
@@ -445,11 +583,12 @@ public class ClusterModelProvider {
    * @param dataProvider The cluster status cache that contains the current cluster status.
    * @param resourceMap  All the valid resources that are managed by the rebalancer.
    * @param assignableNodes All the active assignable nodes.
+   * @param capacityKeyDictionary The capacity key dictionary of the cluster model.
    * @return A map of assignable replica set, <ResourceName, replica set>.
    */
   private static Map<String, Set<AssignableReplica>> getAllAssignableReplicas(
       ResourceControllerDataProvider dataProvider, Map<String, Resource> resourceMap,
-      Set<AssignableNode> assignableNodes) {
+      Set<AssignableNode> assignableNodes, CapacityKeyDictionary capacityKeyDictionary) {
     ClusterConfig clusterConfig = dataProvider.getClusterConfig();
     int activeFaultZoneCount = assignableNodes.stream().map(node -> node.getFaultZone())
         .collect(Collectors.toSet()).size();
@@ -458,18 +597,8 @@ public class ClusterModelProvider {
       if (resourceConfig == null) {
         resourceConfig = new ResourceConfig(resourceName);
       }
-      IdealState is = dataProvider.getIdealState(resourceName);
-      if (is == null) {
-        throw new HelixException(
-            "Cannot find the resource ideal state for resource: " + resourceName);
-      }
-      String defName = is.getStateModelDefRef();
-      StateModelDefinition def = dataProvider.getStateModelDef(defName);
-      if (def == null) {
-        throw new IllegalArgumentException(String
-            .format("Cannot find state model definition %s for resource %s.",
-                is.getStateModelDefRef(), resourceName));
-      }
+      IdealState is = getIdealState(dataProvider, resourceName);
+      StateModelDefinition def = getStateModelDef(dataProvider, is, resourceName);
       Map<String, Integer> stateCountMap =
           def.getStateCountMap(activeFaultZoneCount, is.getReplicaCount(assignableNodes.size()));
       ResourceConfig mergedResourceConfig =
@@ -480,7 +609,7 @@ public class ClusterModelProvider {
           String state = entry.getKey();
           for (int i = 0; i < entry.getValue(); i++) {
             replicas.add(new AssignableReplica(clusterConfig, mergedResourceConfig, partition, state,
-                    def.getStatePriorityMap().get(state)));
+                    def.getStatePriorityMap().get(state), capacityKeyDictionary));
           }
         }
       }
@@ -488,6 +617,55 @@ public class ClusterModelProvider {
     }).collect(Collectors.toMap(entry -> entry.getKey(), entry -> entry.getValue()));
   }
 
+  /**
+   * Check if the replicas of every resource stay the same when the active nodes change.
+   * The state count of a resource depends on the active node count and the active fault zone
+   * count, so the replicas need to be re-generated if the state count changes.
+   */
+  private static boolean isReplicaCountUnchanged(ResourceControllerDataProvider dataProvider,
+      Map<String, Resource> resourceMap, Collection<AssignableNode> previousNodes,
+      Collection<AssignableNode> currentNodes) {
+    int previousFaultZoneCount = previousNodes.stream().map(AssignableNode::getFaultZone)
+        .collect(Collectors.toSet()).size();
+    int currentFaultZoneCount = currentNodes.stream().map(AssignableNode::getFaultZone)
+        .collect(Collectors.toSet()).size();
+    if (previousNodes.size() == currentNodes.size()
+        && previousFaultZoneCount == currentFaultZoneCount) {
+      return true;
+    }
+    for (String resourceName : resourceMap.keySet()) {
+      IdealState is = getIdealState(dataProvider, resourceName);
+      StateModelDefinition def = getStateModelDef(dataProvider, is, resourceName);
+      if (!def.getStateCountMap(previousFaultZoneCount, is.getReplicaCount(previousNodes.size()))
+          .equals(def.getStateCountMap(currentFaultZoneCount,
+              is.getReplicaCount(currentNodes.size())))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static IdealState getIdealState(ResourceControllerDataProvider dataProvider,
+      String resourceName) {
+    IdealState is = dataProvider.getIdealState(resourceName);
+    if (is == null) {
+      throw new HelixException(
+          "Cannot find the resource ideal state for resource: " + resourceName);
+    }
+    return is;
+  }
+
+  private static StateModelDefinition getStateModelDef(
+      ResourceControllerDataProvider dataProvider, IdealState is, String resourceName) {
+    StateModelDefinition def = dataProvider.getStateModelDef(is.getStateModelDefRef());
+    if (def == null) {
+      throw new IllegalArgumentException(String
+          .format("Cannot find state model definition %s for resource %s.",
+              is.getStateModelDefRef(), resourceName));
+    }
+    return def;
+  }
+
   /**
    * @return A map containing the assignments for each fault zone. <fault zone, <resource, set of partitions>>
    */
@@ -41,6 +41,7 @@ public enum AttributeName {
   LastRebalanceFinishTimeStamp,
   ControllerDataProvider,
   STATEFUL_REBALANCER,
+  RESOURCE_REBALANCE_POOL,
 
   /** This is the cluster manager's session id when event is received. */
   EVENT_SESSION,
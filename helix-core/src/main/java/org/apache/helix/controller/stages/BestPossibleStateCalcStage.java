@@ -19,13 +19,18 @@ package org.apache.helix.controller.stages;
  * under the License.
  */
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import org.apache.helix.HelixException;
@@ -174,23 +179,18 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     // Fallback to the original single resource rebalancer calculation.
     // This is required because we support mixed cluster that uses both WAGED rebalancer and the
     // older rebalancers.
-    Iterator<Resource> itr = remainingResourceMap.values().iterator();
-    while (itr.hasNext()) {
-      Resource resource = itr.next();
-      boolean result = false;
-      try {
-        result = computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource,
-            output);
-      } catch (HelixException ex) {
-        LogUtil.logError(logger, _eventId, String
-            .format("Exception when calculating best possible states for %s",
-                resource.getResourceName()), ex);
-
-      }
-      if (!result) {
-        failureResources.add(resource.getResourceName());
-        LogUtil.logWarn(logger, _eventId, String
-            .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    int parallelism = cache.getClusterConfig() == null
+        ? ClusterConfig.DEFAULT_RESOURCE_REBALANCE_PARALLELISM
+        : cache.getClusterConfig().getResourceRebalanceParallelism();
+    if (parallelism > 1 && remainingResourceMap.size() > 1) {
+      computeResourcesBestPossibleStateInParallel(event, cache, currentStateOutput,
+          remainingResourceMap.values(), output, failureResources, parallelism);
+    } else {
+      for (Resource resource : remainingResourceMap.values()) {
+        if (!computeResourceBestPossibleState(event, cache, currentStateOutput, resource,
+            output)) {
+          failureResources.add(resource.getResourceName());
+        }
       }
     }
 
@@ -271,7 +271,8 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     if (clusterConfig != null) {
       // Since the rebalance configuration can be updated at runtime, try to update the rebalancer
       // before calculating.
-      wagedRebalancer.updateRebalancePreference(clusterConfig.getGlobalRebalancePreference());
+      wagedRebalancer.updateRebalancePreference(clusterConfig.getGlobalRebalancePreference(),
+          clusterConfig.getWagedCandidateScoringParallelism());
       wagedRebalancer
           .setGlobalRebalanceAsyncMode(clusterConfig.isGlobalRebalanceAsyncModeEnabled());
     }
@@ -353,6 +354,95 @@ public class BestPossibleStateCalcStage extends AbstractBaseStage {
     }
   }
 
+  /**
+   * Calculate the best possible states of the resources concurrently in the controller's resource
+   * rebalance pool. Each resource is calculated into its own output, and the outputs are merged in
+   * the iteration order of the resources, so the result is identical to the sequential calculation.
+   *
+   * @param event              The cluster event.
+   * @param cache              Cluster data cache.
+   * @param currentStateOutput The current state information.
+   * @param resources          The resources to be calculated.
+   * @param output             The best possible state output.
+   * @param failureResources   The failure records that will be updated if any resource cannot be computed.
+   * @param parallelism        The maximum number of resources that are calculated concurrently.
+   */
+  private void computeResourcesBestPossibleStateInParallel(final ClusterEvent event,
+      final ResourceControllerDataProvider cache, final CurrentStateOutput currentStateOutput,
+      Collection<Resource> resources, BestPossibleStateOutput output,
+      List<String> failureResources, int parallelism) {
+    final List<Resource> resourceList = new ArrayList<>(resources);
+    ResourceRebalancePool rebalancePool =
+        event.getAttribute(AttributeName.RESOURCE_REBALANCE_POOL.name());
+    // Without a controller owned pool, e.g. when the stage runs standalone, a pool is created for
+    // this calculation only.
+    ForkJoinPool pool = rebalancePool == null ? new ForkJoinPool(parallelism)
+        : rebalancePool.getPool(parallelism);
+    List<Map.Entry<BestPossibleStateOutput, Boolean>> results;
+    try {
+      results = pool.submit(() -> resourceList.parallelStream()
+          .<Map.Entry<BestPossibleStateOutput, Boolean>>map(resource -> {
+            BestPossibleStateOutput resourceOutput = new BestPossibleStateOutput();
+            boolean result = computeResourceBestPossibleState(event, cache, currentStateOutput,
+                resource, resourceOutput);
+            return new AbstractMap.SimpleImmutableEntry<>(resourceOutput, result);
+          }).collect(Collectors.toList())).get();
+    } catch (InterruptedException | ExecutionException | RejectedExecutionException ex) {
+      // The pool may be rejecting the tasks if it has just been replaced by another parallelism.
+      if (ex instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      LogUtil.logError(logger, _eventId,
+          "Failed to calculate best possible states in parallel. "
+              + "Fall back to sequential calculation.", ex);
+      for (Resource resource : resourceList) {
+        if (!computeResourceBestPossibleState(event, cache, currentStateOutput, resource,
+            output)) {
+          failureResources.add(resource.getResourceName());
+        }
+      }
+      return;
+    } finally {
+      if (rebalancePool == null) {
+        pool.shutdown();
+      }
+    }
+
+    for (int i = 0; i < resourceList.size(); i++) {
+      String resourceName = resourceList.get(i).getResourceName();
+      BestPossibleStateOutput resourceOutput = results.get(i).getKey();
+      // Merge whatever the calculation has set, as if it had written to the output directly.
+      if (resourceOutput.containsResource(resourceName)) {
+        output.setPreferenceLists(resourceName, resourceOutput.getPreferenceLists(resourceName));
+      }
+      if (resourceOutput.getResourceStatesMap().containsKey(resourceName)) {
+        output.setState(resourceName, resourceOutput.getPartitionStateMap(resourceName));
+      }
+      if (!results.get(i).getValue()) {
+        failureResources.add(resourceName);
+      }
+    }
+  }
+
+  private boolean computeResourceBestPossibleState(ClusterEvent event,
+      ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
+      Resource resource, BestPossibleStateOutput output) {
+    boolean result = false;
+    try {
+      result = computeSingleResourceBestPossibleState(event, cache, currentStateOutput, resource,
+          output);
+    } catch (HelixException ex) {
+      LogUtil.logError(logger, _eventId, String
+          .format("Exception when calculating best possible states for %s",
+              resource.getResourceName()), ex);
+    }
+    if (!result) {
+      LogUtil.logWarn(logger, _eventId, String
+          .format("Failed to calculate best possible states for %s", resource.getResourceName()));
+    }
+    return result;
+  }
+
   private boolean computeSingleResourceBestPossibleState(ClusterEvent event,
       ResourceControllerDataProvider cache, CurrentStateOutput currentStateOutput,
       Resource resource, BestPossibleStateOutput output) {
@@ -0,0 +1,66 @@
+package org.apache.helix.controller.stages;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The thread pool that BestPossibleStateCalcStage uses to calculate the resources in parallel.
+ * It is owned by the controller and keeps a single pool. The pool is replaced, and the previous
+ * one is shut down, when the configured parallelism changes.
+ */
+public class ResourceRebalancePool {
+  private final String _clusterName;
+  private ForkJoinPool _pool = null;
+
+  public ResourceRebalancePool(String clusterName) {
+    _clusterName = clusterName;
+  }
+
+  /**
+   * @param parallelism the number of resources that are calculated concurrently
+   * @return the pool with the given parallelism
+   */
+  public synchronized ForkJoinPool getPool(int parallelism) {
+    if (_pool == null || _pool.getParallelism() != parallelism) {
+      // The tasks that are still running on the previous pool complete before it terminates.
+      shutdown();
+      _pool = new ForkJoinPool(parallelism, pool -> {
+        ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(
+            String.format("ResourceRebalance-%s-%d", _clusterName, thread.getPoolIndex()));
+        return thread;
+      }, null, false);
+    }
+    return _pool;
+  }
+
+  /**
+   * Shut down the pool to release the threads.
+   */
+  public synchronized void shutdown() {
+    if (_pool != null) {
+      _pool.shutdown();
+      _pool = null;
+    }
+  }
+}
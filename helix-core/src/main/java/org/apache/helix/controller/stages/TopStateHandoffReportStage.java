@@ -171,10 +171,8 @@ public class TopStateHandoffReportStage extends AbstractBaseStage {
   private void updateCachedTopStateLocation(ResourceControllerDataProvider cache, String resourceName,
       Partition partition, String currentTopStateInstance) {
     Map<String, Map<String, String>> lastTopStateMap = cache.getLastTopStateLocationMap();
-    if (!lastTopStateMap.containsKey(resourceName)) {
-      lastTopStateMap.put(resourceName, new HashMap<String, String>());
-    }
-    lastTopStateMap.get(resourceName).put(partition.getPartitionName(), currentTopStateInstance);
+    lastTopStateMap.computeIfAbsent(resourceName, k -> new HashMap<>())
+        .put(partition.getPartitionName(), currentTopStateInstance);
   }
 
   /**
@@ -423,11 +421,8 @@ public class TopStateHandoffReportStage extends AbstractBaseStage {
       startTime = System.currentTimeMillis();
     }
 
-    if (!missingTopStateMap.containsKey(resourceName)) {
-      missingTopStateMap.put(resourceName, new HashMap<String, MissingTopStateRecord>());
-    }
-
-    missingTopStateMap.get(resourceName).put(partition.getPartitionName(),
+    missingTopStateMap.computeIfAbsent(resourceName, k -> new HashMap<>()).put(
+        partition.getPartitionName(),
         new MissingTopStateRecord(startTime, fromTopStateUserLatency, isGraceful));
   }
 
@@ -21,10 +21,12 @@ package org.apache.helix.manager.zk;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.zookeeper.zkclient.DataUpdater;
 import org.apache.helix.zookeeper.zkclient.exception.ZkBadVersionException;
 import org.apache.helix.zookeeper.zkclient.exception.ZkNoNodeException;
@@ -54,12 +56,23 @@ public class HelixGroupCommit<T> {
   }
 
   private final Queue<T>[] _queues = new Queue[100];
+  // Per key queues that replace the hashed queues if the stripes are configured.
+  private final StripedGroupCommitQueue<DataUpdater<T>> _stripedQueue;
 
   public HelixGroupCommit() {
+    this(Integer.getInteger(SystemPropertyKeys.GROUP_COMMIT_STRIPES, 0));
+  }
+
+  /**
+   * @param stripes the number of lock stripes of the per key queues, or 0 to hash the keys into
+   *          the fixed array of queues
+   */
+  public HelixGroupCommit(int stripes) {
     // Don't use Arrays.fill();
     for (int i = 0; i < _queues.length; ++i) {
       _queues[i] = new Queue<T>();
     }
+    _stripedQueue = stripes > 0 ? new StripedGroupCommitQueue<DataUpdater<T>>(stripes) : null;
   }
 
   private Queue<T> getQueue(String key) {
@@ -68,6 +81,11 @@ public class HelixGroupCommit<T> {
 
   public boolean commit(ZkBaseDataAccessor<T> accessor, int options, String key,
       DataUpdater<T> updater) {
+    if (_stripedQueue != null) {
+      return _stripedQueue.commit(key, updater,
+          (mergedKey, updaters) -> commitBatch(accessor, options, mergedKey, updaters));
+    }
+
     Queue<T> queue = getQueue(key);
     Entry<T> entry = new Entry<T>(key, updater);
 
@@ -163,4 +181,36 @@ public class HelixGroupCommit<T> {
     }
     return entry._isSuccess;
   }
+
+  /**
+   * Apply the updaters of a key to the current data and write it with a version check. The
+   * updaters are applied again to the new data if the version check fails.
+   */
+  private boolean commitBatch(ZkBaseDataAccessor<T> accessor, int options, String key,
+      List<DataUpdater<T>> updaters) {
+    while (true) {
+      try {
+        T merged = null;
+        Stat readStat = new Stat();
+        // to create a new znode, we need set version to -1
+        readStat.setVersion(-1);
+        try {
+          merged = accessor.get(key, readStat, options);
+        } catch (ZkNoNodeException e) {
+          // OK
+        }
+        for (DataUpdater<T> updater : updaters) {
+          merged = updater.update(merged);
+        }
+        boolean success = accessor.set(key, merged, readStat.getVersion(), options);
+        if (!success) {
+          LOG.error("Fail to group commit. path: " + key + ", value: " + merged + ", version: "
+              + readStat.getVersion());
+        }
+        return success;
+      } catch (ZkBadVersionException e) {
+        // retry
+      }
+    }
+  }
 }
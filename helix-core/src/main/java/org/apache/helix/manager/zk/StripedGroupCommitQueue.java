@@ -0,0 +1,182 @@
+package org.apache.helix.manager.zk;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.monitoring.mbeans.GroupCommitMonitor;
+
+/**
+ * Group commit queues that are kept per key instead of being hashed into a fixed number of slots.
+ * A lock stripe only guards the bookkeeping of its queues, and it is never held while the merged
+ * updates are written, so a hot key does not block the other keys of the same stripe.
+ *
+ * The updates of a key are committed in the order they are queued. The thread that owns the
+ * oldest update writes all the pending updates of the key as one batch, then hands the queue over
+ * to the owner of the next pending update. The waiting threads are notified instead of polling.
+ * @param <E> the type of the queued updates
+ */
+public class StripedGroupCommitQueue<E> {
+  /**
+   * Writes the merged updates of one key.
+   */
+  public interface BatchCommitter<E> {
+    /**
+     * @param key the data identifier
+     * @param updates the pending updates of the key, in the order they are queued
+     * @return true if the updates are written, false otherwise
+     */
+    boolean commit(String key, List<E> updates);
+  }
+
+  private static class KeyQueue<E> {
+    final ArrayDeque<Entry<E>> _pending = new ArrayDeque<>();
+    boolean _running;
+  }
+
+  private static class Entry<E> {
+    final E _update;
+    final long _queuedTime = System.nanoTime();
+    // Guarded by the entry itself once the entry is queued.
+    boolean _leader;
+    boolean _done;
+    boolean _success;
+
+    Entry(E update) {
+      _update = update;
+    }
+  }
+
+  private final Map<String, KeyQueue<E>>[] _stripes;
+  private final GroupCommitMonitor _monitor;
+
+  /**
+   * @param stripes the number of the lock stripes
+   */
+  public StripedGroupCommitQueue(int stripes) {
+    this(stripes, GroupCommitMonitor.getSharedMonitor());
+  }
+
+  StripedGroupCommitQueue(int stripes, GroupCommitMonitor monitor) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("The number of stripes must be positive: " + stripes);
+    }
+    _stripes = new Map[stripes];
+    for (int i = 0; i < stripes; i++) {
+      _stripes[i] = new HashMap<>();
+    }
+    _monitor = monitor;
+  }
+
+  private Map<String, KeyQueue<E>> getStripe(String key) {
+    return _stripes[(key.hashCode() & Integer.MAX_VALUE) % _stripes.length];
+  }
+
+  /**
+   * Queue an update of the key and wait until it is committed, either by the current thread or by
+   * the thread that commits the batch the update belongs to.
+   * @param key the data identifier
+   * @param update the update to be committed
+   * @param committer writes the batch if the current thread commits it
+   * @return true if the batch that contains the update is written, false otherwise
+   */
+  public boolean commit(String key, E update, BatchCommitter<E> committer) {
+    Map<String, KeyQueue<E>> stripe = getStripe(key);
+    Entry<E> entry = new Entry<>(update);
+    KeyQueue<E> queue;
+    synchronized (stripe) {
+      queue = stripe.computeIfAbsent(key, k -> new KeyQueue<>());
+      queue._pending.add(entry);
+      if (!queue._running) {
+        queue._running = true;
+        entry._leader = true;
+      }
+    }
+
+    boolean interrupted = false;
+    synchronized (entry) {
+      while (!entry._done && !entry._leader) {
+        try {
+          entry.wait();
+        } catch (InterruptedException e) {
+          // The entry cannot leave the queue, since the queue may be handed over to it later.
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (entry._done) {
+      return entry._success;
+    }
+
+    List<Entry<E>> batch;
+    synchronized (stripe) {
+      batch = new ArrayList<>(queue._pending);
+      queue._pending.clear();
+    }
+    long commitStartTime = System.nanoTime();
+    List<E> updates = new ArrayList<>(batch.size());
+    for (Entry<E> e : batch) {
+      updates.add(e._update);
+      if (_monitor != null) {
+        _monitor.reportQueueWaitTime(commitStartTime - e._queuedTime);
+      }
+    }
+
+    boolean success = false;
+    try {
+      success = committer.commit(key, updates);
+    } finally {
+      if (_monitor != null) {
+        _monitor.reportCommit(batch.size());
+      }
+      for (Entry<E> e : batch) {
+        if (e != entry) {
+          synchronized (e) {
+            e._done = true;
+            e._success = success;
+            e.notify();
+          }
+        }
+      }
+      Entry<E> next;
+      synchronized (stripe) {
+        next = queue._pending.peek();
+        if (next == null) {
+          queue._running = false;
+          stripe.remove(key);
+        }
+      }
+      if (next != null) {
+        synchronized (next) {
+          next._leader = true;
+          next.notify();
+        }
+      }
+    }
+    return success;
+  }
+}
@@ -1452,7 +1452,8 @@ public class ZKHelixManager implements HelixManager, IZkStateListener {
         .setMonitorInstanceName(_instanceName)
         .setMonitorRootPathOnly(isMonitorRootPathOnly());
 
-    if (_instanceType == InstanceType.ADMINISTRATOR) {
+    if (_instanceType == InstanceType.ADMINISTRATOR || (_instanceType == InstanceType.SPECTATOR
+        && _helixManagerProperty != null && _helixManagerProperty.isZkConnectionShared())) {
       return resolveZkClient(SharedZkClientFactory.getInstance(), _realmAwareZkConnectionConfig,
           clientConfig);
     }
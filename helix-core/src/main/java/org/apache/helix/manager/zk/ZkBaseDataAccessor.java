@@ -26,7 +26,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import org.apache.helix.AccessOption;
 import org.apache.helix.BaseDataAccessor;
@@ -38,6 +40,8 @@ import org.apache.helix.store.zk.ZNode;
 import org.apache.helix.util.HelixUtil;
 import org.apache.helix.zookeeper.api.client.HelixZkClient;
 import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
+import org.apache.helix.zookeeper.datamodel.SessionAwareZNRecord;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordSerializer;
 import org.apache.helix.zookeeper.exception.ZkClientException;
@@ -56,6 +60,9 @@ import org.apache.helix.zookeeper.zkclient.serialize.PathBasedZkSerializer;
 import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.data.Stat;
 import org.apache.zookeeper.server.DataTree;
 import org.slf4j.Logger;
@@ -118,6 +125,16 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
 
   private static Logger LOG = LoggerFactory.getLogger(ZkBaseDataAccessor.class);
 
+  // A multi transaction is sent as one request, so its size is bounded by jute.maxbuffer.
+  private static final int MULTI_OP_MAX_BYTES =
+      Integer.getInteger(ZkSystemPropertyKeys.JUTE_MAXBUFFER, ZNRecord.SIZE_LIMIT);
+  // The estimated request size of an op besides its path and data.
+  private static final int MULTI_OP_OVERHEAD_BYTES = 64;
+
+  // 0 if createChildren/setChildren write each path with its own async op.
+  private final int _multiOpBatchSize =
+      Integer.getInteger(SystemPropertyKeys.ZK_BASE_DATA_ACCESSOR_MULTI_OP_BATCH_SIZE, 0);
+
   private final RealmAwareZkClient _zkClient;
 
   // true if ZkBaseDataAccessor was instantiated with a RealmAwareZkClient, false otherwise
@@ -827,13 +844,26 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
 
     long startT = System.nanoTime();
     try {
+      // Ephemeral and sequential nodes are always created by the async ops.
+      if (isMultiOpEnabled() && mode == CreateMode.PERSISTENT) {
+        OpResult[] results = multi(paths, records,
+            (path, data) -> Op.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, mode));
+        for (int i = 0; i < results.length; i++) {
+          if (results[i] != null) {
+            success[i] = true;
+            needCreate[i] = false;
+          }
+        }
+      }
 
       ZkAsyncCallbacks.CreateCallbackHandler[] cbList =
           create(paths, records, needCreate, pathsCreated, options);
 
       for (int i = 0; i < cbList.length; i++) {
         ZkAsyncCallbacks.CreateCallbackHandler cb = cbList[i];
-        success[i] = (Code.get(cb.getRc()) == Code.OK);
+        if (cb != null) {
+          success[i] = (Code.get(cb.getRc()) == Code.OK);
+        }
       }
 
       return success;
@@ -888,6 +918,18 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
     long startT = System.nanoTime();
 
     try {
+      if (isMultiOpEnabled()) {
+        // A path that does not exist fails its transaction, and is created by the async ops.
+        OpResult[] results = multi(paths, records, (path, data) -> Op.setData(path, data, -1));
+        for (int i = 0; i < results.length; i++) {
+          if (results[i] != null) {
+            setStats.set(i, ((OpResult.SetDataResult) results[i]).getStat());
+            success[i] = true;
+            needSet[i] = false;
+          }
+        }
+      }
+
       boolean retry;
       do {
         retry = false;
@@ -907,6 +949,10 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
 
         for (int i = 0; i < cbList.length; i++) {
           ZkAsyncCallbacks.SetDataCallbackHandler cb = cbList[i];
+          if (cb == null) {
+            // written by a multi transaction
+            continue;
+          }
           cb.waitForSuccess();
           Code rc = Code.get(cb.getRc());
           switch (rc) {
@@ -957,6 +1003,9 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
       // construct return results
       for (int i = 0; i < cbList.length; i++) {
         ZkAsyncCallbacks.SetDataCallbackHandler cb = cbList[i];
+        if (cb == null) {
+          continue;
+        }
 
         Code rc = Code.get(cb.getRc());
         if (rc == Code.OK) {
@@ -985,6 +1034,88 @@ public class ZkBaseDataAccessor<T> implements BaseDataAccessor<T> {
     }
   }
 
+  private boolean isMultiOpEnabled() {
+    // FederatedZkClient does not support multi.
+    return _multiOpBatchSize > 0 && !(_zkClient instanceof FederatedZkClient);
+  }
+
+  /**
+   * Write the records with ZK multi transactions of at most _multiOpBatchSize ops, bounded by
+   * jute.maxbuffer. The records of a transaction share the expected session of the
+   * SessionAwareZNRecords. A failed transaction is rolled back as a whole, so its paths are left
+   * to the async ops, which get the result of each path.
+   * @param opFactory creates the op of a path from the serialized record
+   * @return the result of each path that is written by a committed transaction, null for the
+   *         other paths
+   */
+  private OpResult[] multi(List<String> paths, List<T> records,
+      BiFunction<String, byte[], Op> opFactory) {
+    OpResult[] results = new OpResult[paths.size()];
+    List<Integer> batch = new ArrayList<>();
+    List<Op> batchOps = new ArrayList<>();
+    String batchSessionId = null;
+    int batchBytes = 0;
+    for (int i = 0; i < paths.size(); i++) {
+      String path = paths.get(i);
+      T record = records == null ? null : records.get(i);
+      byte[] data;
+      try {
+        data = record == null ? null : _zkClient.serialize(record, path);
+      } catch (Exception e) {
+        // The async op reports the error of the path.
+        continue;
+      }
+      int opBytes = MULTI_OP_OVERHEAD_BYTES + path.length() + (data == null ? 0 : data.length);
+      if (opBytes > MULTI_OP_MAX_BYTES) {
+        continue;
+      }
+      String sessionId = getExpectedSessionId(record);
+      if (!batch.isEmpty() && (batch.size() >= _multiOpBatchSize
+          || batchBytes + opBytes > MULTI_OP_MAX_BYTES
+          || !Objects.equals(sessionId, batchSessionId))) {
+        commitMulti(batch, batchOps, batchSessionId, results);
+        batch.clear();
+        batchOps.clear();
+        batchBytes = 0;
+      }
+      batch.add(i);
+      batchOps.add(opFactory.apply(path, data));
+      batchBytes += opBytes;
+      batchSessionId = sessionId;
+    }
+    if (!batch.isEmpty()) {
+      commitMulti(batch, batchOps, batchSessionId, results);
+    }
+    return results;
+  }
+
+  private void commitMulti(List<Integer> batch, List<Op> ops, String expectedSessionId,
+      OpResult[] results) {
+    List<OpResult> opResults;
+    try {
+      opResults = expectedSessionId == null ? _zkClient.multi(ops)
+          : _zkClient.multi(ops, expectedSessionId);
+    } catch (Exception e) {
+      LOG.debug("Failed to write {} paths in a multi transaction, write them one by one.",
+          batch.size(), e);
+      return;
+    }
+    for (int j = 0; j < batch.size(); j++) {
+      OpResult opResult = opResults.get(j);
+      if (!(opResult instanceof OpResult.ErrorResult)) {
+        results[batch.get(j)] = opResult;
+      }
+    }
+  }
+
+  private static String getExpectedSessionId(Object record) {
+    if (!(record instanceof SessionAwareZNRecord)) {
+      return null;
+    }
+    String sessionId = ((SessionAwareZNRecord) record).getExpectedSessionId();
+    return sessionId == null || sessionId.isEmpty() ? null : sessionId;
+  }
+
   // TODO: rename to update
 
   /**
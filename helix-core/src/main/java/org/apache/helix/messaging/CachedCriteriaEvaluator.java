@@ -0,0 +1,134 @@
+package org.apache.helix.messaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Strings;
+import org.apache.helix.Criteria;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyType;
+import org.apache.helix.api.listeners.RoutingTableChangeListener;
+import org.apache.helix.spectator.RoutingTableProvider;
+import org.apache.helix.spectator.RoutingTableSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link CriteriaEvaluator} that evaluates the EXTERNALVIEW criteria of its cluster with a
+ * {@link CriteriaIndex} of the latest ExternalView snapshot of a {@link RoutingTableProvider}.
+ * The index is rebuilt lazily on the first evaluation after the routing table changes.
+ *
+ * The persisted data is read as before if the criteria are not supported by the index, if the
+ * criteria target another cluster, or if the routing table has not been refreshed within the
+ * staleness limit. The periodic refresh of the RoutingTableProvider keeps a quiet cluster's
+ * snapshot fresh.
+ */
+public class CachedCriteriaEvaluator extends CriteriaEvaluator
+    implements RoutingTableChangeListener {
+  private static Logger logger = LoggerFactory.getLogger(CachedCriteriaEvaluator.class);
+
+  private final String _clusterName;
+  private final long _maxStalenessMs;
+
+  private volatile RoutingTableSnapshot _snapshot;
+  private volatile long _snapshotTime;
+  private RoutingTableSnapshot _indexedSnapshot;
+  private CriteriaIndex _index;
+
+  /**
+   * @param clusterName the cluster of the routing table
+   * @param maxStalenessMs the maximum time since the last routing table refresh for the index to
+   *          be used
+   */
+  public CachedCriteriaEvaluator(String clusterName, long maxStalenessMs) {
+    _clusterName = clusterName;
+    _maxStalenessMs = maxStalenessMs;
+  }
+
+  /**
+   * Create an evaluator that is fed by the ExternalView routing table of the provider.
+   * @param clusterName the cluster of the routing table
+   * @param provider the RoutingTableProvider that sources the ExternalViews
+   * @param maxStalenessMs the maximum time since the last routing table refresh for the index to
+   *          be used
+   * @return the registered evaluator
+   */
+  public static CachedCriteriaEvaluator create(String clusterName, RoutingTableProvider provider,
+      long maxStalenessMs) {
+    CachedCriteriaEvaluator evaluator = new CachedCriteriaEvaluator(clusterName, maxStalenessMs);
+    provider.addRoutingTableChangeListener(evaluator, null);
+    evaluator.onRoutingTableChange(provider.getRoutingTableSnapshot(PropertyType.EXTERNALVIEW),
+        null);
+    return evaluator;
+  }
+
+  @Override
+  public void onRoutingTableChange(RoutingTableSnapshot routingTableSnapshot, Object context) {
+    if (routingTableSnapshot.getPropertyType() != PropertyType.EXTERNALVIEW) {
+      return;
+    }
+    _snapshot = routingTableSnapshot;
+    _snapshotTime = System.currentTimeMillis();
+  }
+
+  @Override
+  public List<Map<String, String>> evaluateCriteria(Criteria recipientCriteria,
+      HelixDataAccessor accessor) {
+    CriteriaIndex index = getIndex(recipientCriteria);
+    if (index == null) {
+      return super.evaluateCriteria(recipientCriteria, accessor);
+    }
+    List<Map<String, String>> result = index.evaluateCriteria(recipientCriteria);
+    logger.info("Indexed query returned " + result.size() + " rows");
+    return result;
+  }
+
+  /**
+   * @return the fresh index that can evaluate the criteria, or null if there is none
+   */
+  private CriteriaIndex getIndex(Criteria criteria) {
+    String clusterName = criteria.getClusterName();
+    if ((clusterName != null && !clusterName.equals(_clusterName))
+        || !CriteriaIndex.isSupported(criteria)) {
+      return null;
+    }
+    RoutingTableSnapshot snapshot = _snapshot;
+    if (snapshot == null || System.currentTimeMillis() - _snapshotTime > _maxStalenessMs) {
+      return null;
+    }
+    CriteriaIndex index;
+    synchronized (this) {
+      if (_indexedSnapshot != snapshot) {
+        _index = new CriteriaIndex(snapshot.getExternalViews(), snapshot.getLiveInstances());
+        _indexedSnapshot = snapshot;
+      }
+      index = _index;
+    }
+    // A resource that is not in the snapshot yet is read from the persisted data.
+    String resource = criteria.getResource();
+    if (!Strings.isNullOrEmpty(resource) && !resource.equals(MATCH_ALL_SYM)
+        && !index.containsResource(resource)) {
+      return null;
+    }
+    return index;
+  }
+}
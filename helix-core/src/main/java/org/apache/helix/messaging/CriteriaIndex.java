@@ -0,0 +1,266 @@
+package org.apache.helix.messaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Strings;
+import org.apache.helix.Criteria;
+import org.apache.helix.Criteria.DataSource;
+import org.apache.helix.HelixException;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.LiveInstance;
+
+/**
+ * An immutable in-memory index of the ExternalViews and the live instances of a cluster, which
+ * evaluates the EXTERNALVIEW {@link Criteria} with the same result as {@link CriteriaEvaluator}
+ * without reading and flattening all the ExternalViews for every message.
+ *
+ * The replicas are indexed by resource, by partition and by instance, and the matching is done
+ * with the SQL like patterns of the criteria instead of regular expressions. Only the map fields
+ * of the ExternalViews are indexed, since the rows of the simple and the list fields can only
+ * match a live instance that has the same name as a resource.
+ */
+public class CriteriaIndex {
+  private static class Replica {
+    final String _resource;
+    final String _partition;
+    final String _instance;
+    final String _state;
+
+    Replica(String resource, String partition, String instance, String state) {
+      _resource = resource;
+      _partition = partition;
+      _instance = instance;
+      _state = state;
+    }
+  }
+
+  private static class ResourceEntry {
+    final List<Replica> _replicas = new ArrayList<>();
+    // lower case partition name -> replicas
+    final Map<String, List<Replica>> _partitionReplicas = new HashMap<>();
+  }
+
+  private final long _creationTime;
+  private final Set<String> _liveInstances;
+  private final Map<String, ResourceEntry> _resources = new HashMap<>();
+  // lower case instance name -> replicas
+  private final Map<String, List<Replica>> _instanceReplicas = new HashMap<>();
+
+  /**
+   * Build the index.
+   * @param externalViews the ExternalViews of the cluster
+   * @param liveInstances the live instances of the cluster
+   */
+  public CriteriaIndex(Collection<ExternalView> externalViews,
+      Collection<LiveInstance> liveInstances) {
+    _creationTime = System.currentTimeMillis();
+    _liveInstances = new HashSet<>();
+    for (LiveInstance liveInstance : liveInstances) {
+      _liveInstances.add(liveInstance.getInstanceName());
+    }
+    for (ExternalView externalView : externalViews) {
+      String resource = externalView.getResourceName();
+      ResourceEntry resourceEntry = new ResourceEntry();
+      _resources.put(resource, resourceEntry);
+      for (Map.Entry<String, Map<String, String>> partitionEntry : externalView.getRecord()
+          .getMapFields().entrySet()) {
+        String partition = partitionEntry.getKey();
+        if (partitionEntry.getValue() == null) {
+          continue;
+        }
+        for (Map.Entry<String, String> instanceEntry : partitionEntry.getValue().entrySet()) {
+          Replica replica =
+              new Replica(resource, partition, instanceEntry.getKey(), instanceEntry.getValue());
+          resourceEntry._replicas.add(replica);
+          resourceEntry._partitionReplicas
+              .computeIfAbsent(partition.toLowerCase(), k -> new ArrayList<>()).add(replica);
+          _instanceReplicas.computeIfAbsent(Strings.nullToEmpty(replica._instance).toLowerCase(),
+              k -> new ArrayList<>()).add(replica);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the time the index is built
+   */
+  public long getCreationTime() {
+    return _creationTime;
+  }
+
+  /**
+   * @return true if the ExternalView of the resource is indexed, false otherwise
+   */
+  public boolean containsResource(String resource) {
+    return _resources.containsKey(resource);
+  }
+
+  /**
+   * @return true if the index can evaluate the criteria, false otherwise
+   */
+  public static boolean isSupported(Criteria criteria) {
+    return criteria.getDataSource() == DataSource.EXTERNALVIEW;
+  }
+
+  /**
+   * Match the wildcards in the {@link Criteria} against the indexed data.
+   * @param criteria Criteria specifying the message destinations, the data source of which must be
+   *          EXTERNALVIEW
+   * @return map of evaluated criteria, in the same format as {@link CriteriaEvaluator}
+   */
+  public List<Map<String, String>> evaluateCriteria(Criteria criteria) {
+    if (!isSupported(criteria)) {
+      throw new HelixException("Data source " + criteria.getDataSource() + " is not indexed");
+    }
+    LikePattern instancePattern = new LikePattern(criteria.getInstanceName());
+    LikePattern resourcePattern = new LikePattern(criteria.getResource());
+    LikePattern partitionPattern = new LikePattern(criteria.getPartition());
+    LikePattern statePattern = new LikePattern(criteria.getPartitionState());
+
+    Set<Map<String, String>> selected = new HashSet<>();
+    for (Replica replica : getCandidates(criteria, instancePattern, partitionPattern)) {
+      String instance = Strings.nullToEmpty(replica._instance);
+      // The participant instance name is either the map sub key or the record id of the row.
+      if ((instancePattern.matches(instance) || instancePattern.matches(replica._resource))
+          && resourcePattern.matches(replica._resource)
+          && partitionPattern.matches(replica._partition)
+          && statePattern.matches(Strings.nullToEmpty(replica._state))
+          && (_liveInstances.contains(replica._resource)
+          || _liveInstances.contains(replica._instance))) {
+        Map<String, String> resultRow = new HashMap<>();
+        resultRow.put("instanceName", !criteria.getInstanceName().equals("")
+            ? (!instance.isEmpty() ? instance : replica._resource) : "");
+        resultRow.put("resourceName", !criteria.getResource().equals("") ? replica._resource : "");
+        resultRow.put("partitionName",
+            !criteria.getPartition().equals("") ? replica._partition : "");
+        resultRow.put("partitionState",
+            !criteria.getPartitionState().equals("") ? Strings.nullToEmpty(replica._state) : "");
+        selected.add(resultRow);
+      }
+    }
+    return new ArrayList<>(selected);
+  }
+
+  /**
+   * Narrow down the replicas to be matched with the indexes. The candidates are a superset of the
+   * matched replicas.
+   */
+  private Collection<Replica> getCandidates(Criteria criteria, LikePattern instancePattern,
+      LikePattern partitionPattern) {
+    String resource = criteria.getResource();
+    if (Strings.isNullOrEmpty(resource) || resource.equals(CriteriaEvaluator.MATCH_ALL_SYM)) {
+      if (!instancePattern.isLiteral()) {
+        List<Replica> candidates = new ArrayList<>();
+        for (ResourceEntry resourceEntry : _resources.values()) {
+          candidates.addAll(resourceEntry._replicas);
+        }
+        return candidates;
+      }
+      List<Replica> candidates = new ArrayList<>(
+          _instanceReplicas.getOrDefault(instancePattern.getLiteral(), Collections.emptyList()));
+      // The instance name may also match the resource name.
+      for (Map.Entry<String, ResourceEntry> resourceEntry : _resources.entrySet()) {
+        if (resourceEntry.getKey().equalsIgnoreCase(instancePattern.getLiteral())) {
+          candidates.addAll(resourceEntry.getValue()._replicas);
+        }
+      }
+      return candidates;
+    }
+
+    // A specified resource is read directly, the same as CriteriaEvaluator.
+    ResourceEntry resourceEntry = _resources.get(resource);
+    if (resourceEntry == null) {
+      throw new HelixException(String
+          .format("Specified %s %s is not found!", DataSource.EXTERNALVIEW.name(), resource));
+    }
+    if (partitionPattern.isLiteral()) {
+      return resourceEntry._partitionReplicas
+          .getOrDefault(partitionPattern.getLiteral(), Collections.emptyList());
+    }
+    return resourceEntry._replicas;
+  }
+
+  /**
+   * A case insensitive SQL like pattern, in which '%' matches any sequence of characters and '_'
+   * matches any single character. An empty pattern or "*" matches everything.
+   */
+  static class LikePattern {
+    private final String _pattern;
+    private final boolean _literal;
+
+    LikePattern(String pattern) {
+      if (pattern == null || pattern.equals("") || pattern.equals("*")) {
+        pattern = CriteriaEvaluator.MATCH_ALL_SYM;
+      }
+      _pattern = pattern.toLowerCase();
+      _literal = _pattern.indexOf('%') < 0 && _pattern.indexOf('_') < 0;
+    }
+
+    /**
+     * @return true if the pattern has no wildcard, so it only matches the literal
+     */
+    boolean isLiteral() {
+      return _literal;
+    }
+
+    String getLiteral() {
+      return _pattern;
+    }
+
+    boolean matches(String value) {
+      if (_literal) {
+        return _pattern.equalsIgnoreCase(value);
+      }
+      // Greedy matching that backtracks to the last '%'.
+      int p = 0;
+      int v = 0;
+      int lastWildcard = -1;
+      int lastWildcardMatch = 0;
+      while (v < value.length()) {
+        if (p < _pattern.length() && _pattern.charAt(p) == '%') {
+          lastWildcard = p++;
+          lastWildcardMatch = v;
+        } else if (p < _pattern.length() && (_pattern.charAt(p) == '_'
+            || _pattern.charAt(p) == Character.toLowerCase(value.charAt(v)))) {
+          p++;
+          v++;
+        } else if (lastWildcard >= 0) {
+          p = lastWildcard + 1;
+          v = ++lastWildcardMatch;
+        } else {
+          return false;
+        }
+      }
+      while (p < _pattern.length() && _pattern.charAt(p) == '%') {
+        p++;
+      }
+      return p == _pattern.length();
+    }
+  }
+}
@@ -45,12 +45,13 @@ import org.apache.helix.model.Message.MessageType;
 import org.apache.helix.model.builder.ConfigScopeBuilder;
 import org.apache.helix.monitoring.mbeans.MessageQueueMonitor;
 import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
+import org.apache.helix.spectator.RoutingTableProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DefaultMessagingService implements ClusterMessagingService {
   private final HelixManager _manager;
-  private final CriteriaEvaluator _evaluator;
+  private volatile CriteriaEvaluator _evaluator;
   private final HelixTaskExecutor _taskExecutor;
   // TODO:rename to factory, this is not a service
   private final AsyncCallbackService _asyncCallbackService;
@@ -76,6 +77,19 @@ public class DefaultMessagingService implements ClusterMessagingService {
         _asyncCallbackService);
   }
 
+  /**
+   * Evaluate the EXTERNALVIEW recipient criteria of this cluster with an index of the routing
+   * table of the provider, instead of reading all the ExternalViews for every message. The
+   * persisted data is still read if the routing table is not refreshed within the staleness limit.
+   * @param provider the RoutingTableProvider that sources the ExternalViews of this cluster
+   * @param maxStalenessMs the maximum time since the last routing table refresh for the index to
+   *          be used
+   */
+  public void enableCachedCriteriaEvaluation(RoutingTableProvider provider, long maxStalenessMs) {
+    _evaluator =
+        CachedCriteriaEvaluator.create(_manager.getClusterName(), provider, maxStalenessMs);
+  }
+
   @Override
   public int send(Criteria recipientCriteria, final Message messageTemplate) {
     return send(recipientCriteria, messageTemplate, null, -1);
@@ -0,0 +1,215 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the current state deltas of the concurrent state transitions on a participant. The first
+ * delta of a current state ZNode starts a window, and all the deltas of the same ZNode that arrive
+ * in the window are merged and written to ZK once when the window ends. So the delay added to a
+ * state transition is bounded by the window.
+ *
+ * Each delta gets a future that is completed when the merged delta is written, so the state
+ * transition can still fail if its current state is not persisted.
+ */
+public class CurrentStateUpdateCoalescer {
+  private static final Logger LOG = LoggerFactory.getLogger(CurrentStateUpdateCoalescer.class);
+  private static final int FLUSH_THREAD_COUNT = 4;
+
+  private final long _windowMs;
+  private final ScheduledExecutorService _flushExecutor;
+  private final ConcurrentHashMap<String, PendingUpdates> _pendingUpdatesMap =
+      new ConcurrentHashMap<>();
+
+  private static class PendingUpdates {
+    private final HelixDataAccessor _accessor;
+    private final PropertyKey _key;
+    private final List<CurrentState> _deltas = new ArrayList<>();
+    private final List<CompletableFuture<Boolean>> _futures = new ArrayList<>();
+    private boolean _closed = false;
+
+    PendingUpdates(HelixDataAccessor accessor, PropertyKey key) {
+      _accessor = accessor;
+      _key = key;
+    }
+  }
+
+  /**
+   * @param windowMs the time in milliseconds to wait for more deltas of the same current state
+   */
+  public CurrentStateUpdateCoalescer(long windowMs) {
+    if (windowMs <= 0) {
+      throw new IllegalArgumentException("The window must be positive, window: " + windowMs);
+    }
+    _windowMs = windowMs;
+    _flushExecutor = Executors.newScheduledThreadPool(FLUSH_THREAD_COUNT, new ThreadFactory() {
+      private final AtomicInteger _threadIndex = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread =
+            new Thread(r, "CurrentStateUpdateCoalescer-" + _threadIndex.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Queue a current state delta to be merged with the other deltas of the same ZNode.
+   * @param accessor the accessor that writes the merged delta
+   * @param key the key of the current state ZNode
+   * @param delta the current state delta. It must not carry a delta list
+   * @return the future that is completed with the result of writing the merged delta
+   */
+  public CompletableFuture<Boolean> update(HelixDataAccessor accessor, PropertyKey key,
+      CurrentState delta) {
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    String path = key.getPath();
+    while (true) {
+      PendingUpdates pendingUpdates = _pendingUpdatesMap.computeIfAbsent(path, p -> {
+        PendingUpdates newPendingUpdates = new PendingUpdates(accessor, key);
+        _flushExecutor
+            .schedule(() -> flush(p, newPendingUpdates), _windowMs, TimeUnit.MILLISECONDS);
+        return newPendingUpdates;
+      });
+      synchronized (pendingUpdates) {
+        if (!pendingUpdates._closed) {
+          pendingUpdates._deltas.add(delta);
+          pendingUpdates._futures.add(future);
+          return future;
+        }
+      }
+      // The pending updates are being flushed, start a new window.
+      _pendingUpdatesMap.remove(path, pendingUpdates);
+    }
+  }
+
+  /**
+   * Remove a queued delta, so it is not written. The delta cannot be removed once its merged
+   * delta is being written.
+   * @param key the key of the current state ZNode
+   * @param future the future that is returned by {@link #update} for the delta
+   * @return true if the delta is removed and will not be written, false if it is being or has been
+   *         written
+   */
+  public boolean cancel(PropertyKey key, CompletableFuture<Boolean> future) {
+    PendingUpdates pendingUpdates = _pendingUpdatesMap.get(key.getPath());
+    if (pendingUpdates == null) {
+      return false;
+    }
+    synchronized (pendingUpdates) {
+      if (pendingUpdates._closed) {
+        return false;
+      }
+      int index = pendingUpdates._futures.indexOf(future);
+      if (index < 0) {
+        // The delta is in a window that is being flushed.
+        return false;
+      }
+      pendingUpdates._futures.remove(index);
+      pendingUpdates._deltas.remove(index);
+    }
+    future.cancel(false);
+    return true;
+  }
+
+  /**
+   * Write the pending deltas right away and stop the flush threads.
+   */
+  public void shutdown() {
+    for (String path : _pendingUpdatesMap.keySet()) {
+      PendingUpdates pendingUpdates = _pendingUpdatesMap.get(path);
+      if (pendingUpdates != null) {
+        flush(path, pendingUpdates);
+      }
+    }
+    _flushExecutor.shutdownNow();
+  }
+
+  private void flush(String path, PendingUpdates pendingUpdates) {
+    _pendingUpdatesMap.remove(path, pendingUpdates);
+    synchronized (pendingUpdates) {
+      if (pendingUpdates._closed) {
+        return;
+      }
+      pendingUpdates._closed = true;
+    }
+    if (pendingUpdates._deltas.isEmpty()) {
+      return;
+    }
+
+    // The deltas are still owned by the state transitions, so they are merged into a new record.
+    ZNRecord merged = new ZNRecord(pendingUpdates._deltas.get(0).getId());
+    for (CurrentState delta : pendingUpdates._deltas) {
+      mergeRecord(merged, delta.getRecord());
+    }
+    try {
+      boolean success = pendingUpdates._accessor
+          .updateProperty(pendingUpdates._key, new CurrentState(merged));
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Merged {} current state deltas of {}, success: {}",
+            pendingUpdates._deltas.size(), path, success);
+      }
+      for (CompletableFuture<Boolean> future : pendingUpdates._futures) {
+        future.complete(success);
+      }
+    } catch (Exception e) {
+      LOG.error("Failed to write the merged current state deltas of {}", path, e);
+      for (CompletableFuture<Boolean> future : pendingUpdates._futures) {
+        future.completeExceptionally(e);
+      }
+    }
+  }
+
+  /**
+   * Merge the fields of the delta into the merged record. Unlike {@link ZNRecord#merge(ZNRecord)},
+   * the map and list fields are copied, so the merged record never shares them with the delta.
+   */
+  private static void mergeRecord(ZNRecord merged, ZNRecord delta) {
+    merged.getSimpleFields().putAll(delta.getSimpleFields());
+    for (Map.Entry<String, Map<String, String>> entry : delta.getMapFields().entrySet()) {
+      merged.getMapFields().computeIfAbsent(entry.getKey(), k -> new TreeMap<>())
+          .putAll(entry.getValue());
+    }
+    for (Map.Entry<String, List<String>> entry : delta.getListFields().entrySet()) {
+      merged.getListFields().computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+          .addAll(entry.getValue());
+    }
+  }
+}
@@ -26,7 +26,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.helix.HelixAdmin;
 import org.apache.helix.HelixDataAccessor;
@@ -274,7 +277,7 @@ public class HelixStateTransitionHandler extends MessageHandler {
           .currentState(instanceName, sessionId, resource, bucketizer.getBucketName(partitionKey));
       if (_message.getAttribute(Attributes.PARENT_MSG_ID) == null) {
         // normal message
-        if (!accessor.updateProperty(key, _currentStateDelta)) {
+        if (!persistCurrentStateDelta(accessor, key)) {
           throw new HelixException("Fails to persist current state back to ZK for resource "
               + resource + " partition: " + _message.getPartitionName());
         }
@@ -295,6 +298,44 @@ public class HelixStateTransitionHandler extends MessageHandler {
     }
   }
 
+  /**
+   * Write the current state delta of this state transition. If the task executor coalesces the
+   * current state updates, the delta is merged with the deltas of the other transitions.
+   */
+  private boolean persistCurrentStateDelta(HelixDataAccessor accessor, PropertyKey key) {
+    HelixTaskExecutor executor =
+        (HelixTaskExecutor) _notificationContext.get(MapKey.TASK_EXECUTOR.toString());
+    CurrentStateUpdateCoalescer coalescer =
+        executor == null ? null : executor.getCurrentStateUpdateCoalescer();
+    // The delta that drops the partition carries a delta list, which cannot be merged.
+    if (coalescer == null || !_currentStateDelta.getRecord().getDeltaList().isEmpty()) {
+      return accessor.updateProperty(key, _currentStateDelta);
+    }
+    CompletableFuture<Boolean> future = coalescer.update(accessor, key, _currentStateDelta);
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      if (coalescer.cancel(key, future)) {
+        Thread.currentThread().interrupt();
+        throw new HelixException("Interrupted while persisting the current state of resource "
+            + _message.getResourceName() + ", the current state is not persisted.", e);
+      }
+      // The merged delta is being written. Wait for it as a synchronous update would, so the
+      // state model is not rolled back for a current state that is persisted.
+      try {
+        return future.join();
+      } catch (CompletionException ce) {
+        throw new HelixException("Fails to persist the merged current state of resource "
+            + _message.getResourceName(), ce.getCause());
+      } finally {
+        Thread.currentThread().interrupt();
+      }
+    } catch (ExecutionException e) {
+      throw new HelixException("Fails to persist the merged current state of resource "
+          + _message.getResourceName(), e.getCause());
+    }
+  }
+
   @Override
   public HelixTaskResult handleMessage() {
     NotificationContext context = _notificationContext;
@@ -36,6 +36,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -151,6 +152,15 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
   private boolean _isShuttingDown;
 
+  // Null if every state transition writes its own current state delta.
+  private final CurrentStateUpdateCoalescer _currentStateUpdateCoalescer;
+  // Null if all the new messages are read before they are processed.
+  private final PipelinedMessageReader _messageReader;
+  // Null if the state transitions are run in arrival order.
+  private final StateTransitionTaskComparator _stateTransitionTaskComparator;
+  private final int _stateTransitionPerResourceConcurrency;
+  private final boolean _virtualThreadsEnabled;
+
   public HelixTaskExecutor() {
     this(new ParticipantStatusMonitor(false, null), null);
   }
@@ -170,7 +180,9 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     _executorMap = new ConcurrentHashMap<>();
     _messageTaskMap = new ConcurrentHashMap<>();
     _knownMessageIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _batchMessageExecutorService = Executors.newCachedThreadPool();
+    _virtualThreadsEnabled = isVirtualThreadsEnabled();
+    _batchMessageExecutorService = _virtualThreadsEnabled ? new VirtualThreadMessageExecutor(0)
+        : Executors.newCachedThreadPool();
     _monitor.createExecutorMonitor("BatchMessageExecutor", _batchMessageExecutorService);
 
     _resourcesThreadpoolChecked = Collections.newSetFromMap(new ConcurrentHashMap<>());
@@ -184,6 +196,20 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     _isShuttingDown = false;
 
+    long currentStateCoalesceWindowMs =
+        Long.getLong(SystemPropertyKeys.PARTICIPANT_CURRENT_STATE_COALESCE_WINDOW_MS, 0L);
+    _currentStateUpdateCoalescer = currentStateCoalesceWindowMs > 0
+        ? new CurrentStateUpdateCoalescer(currentStateCoalesceWindowMs) : null;
+    int messageReadBatchSize =
+        Integer.getInteger(SystemPropertyKeys.PARTICIPANT_MESSAGE_READ_BATCH_SIZE, 0);
+    _messageReader = messageReadBatchSize > 0
+        ? new PipelinedMessageReader(messageReadBatchSize, _messageQueueMonitor) : null;
+    _stateTransitionTaskComparator = Boolean.getBoolean(
+        SystemPropertyKeys.PARTICIPANT_STATE_TRANSITION_PRIORITY_SCHEDULING_ENABLED)
+        ? new StateTransitionTaskComparator() : null;
+    _stateTransitionPerResourceConcurrency = Integer
+        .getInteger(SystemPropertyKeys.PARTICIPANT_STATE_TRANSITION_PER_RESOURCE_CONCURRENCY, 0);
+
     startMonitorThread();
   }
 
@@ -215,8 +241,9 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     MsgHandlerFactoryRegistryItem prevItem = _hdlrFtyRegistry.putIfAbsent(type, newItem);
     if (prevItem == null) {
       _executorMap.computeIfAbsent(type, msgType -> {
-        ExecutorService newPool = Executors.newFixedThreadPool(threadpoolSize, r -> new Thread(r,
-            "HelixTaskExecutor-message_handle_thread_" + thread_uid.getAndIncrement()));
+        ExecutorService newPool = createMessageHandlerPool(type, threadpoolSize,
+            r -> new Thread(r,
+                "HelixTaskExecutor-message_handle_thread_" + thread_uid.getAndIncrement()));
         _monitor.createExecutorMonitor(type, newPool);
         return newPool;
       });
@@ -239,6 +266,45 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     return _monitor;
   }
 
+  private static boolean isVirtualThreadsEnabled() {
+    if (!Boolean.getBoolean(SystemPropertyKeys.PARTICIPANT_VIRTUAL_THREADS_ENABLED)) {
+      return false;
+    }
+    if (!VirtualThreadMessageExecutor.isSupported()) {
+      LOG.warn("Virtual threads are not supported by the JVM, use the thread pools instead.");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Create the pool of a message type. The pool size is the max number of running tasks.
+   */
+  private ExecutorService createMessageHandlerPool(String msgType, int poolSize,
+      ThreadFactory threadFactory) {
+    if (isPriorityScheduled(msgType)) {
+      return createStateTransitionTaskScheduler(poolSize, msgType);
+    }
+    if (_virtualThreadsEnabled) {
+      return new VirtualThreadMessageExecutor(poolSize);
+    }
+    return Executors.newFixedThreadPool(poolSize, threadFactory);
+  }
+
+  private boolean isPriorityScheduled(String msgType) {
+    return _stateTransitionTaskComparator != null
+        && msgType.equals(MessageType.STATE_TRANSITION.name());
+  }
+
+  /**
+   * The shared pool of the state transitions runs the queued transitions in priority order. The
+   * dedicated pools of the resources and the batch message pool are not affected.
+   */
+  private ExecutorService createStateTransitionTaskScheduler(int poolSize, String msgType) {
+    return new StateTransitionTaskScheduler(poolSize, _stateTransitionPerResourceConcurrency,
+        _stateTransitionTaskComparator, _monitor, "HelixTaskExecutor-message_handle_" + msgType);
+  }
+
   private void startMonitorThread() {
     // start a thread which monitors the completions of task
   }
@@ -300,8 +366,10 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       }
       final String key = getPerResourceStateTransitionPoolName(resourceName);
       if (threadpoolSize > 0) {
-        _executorMap.put(key, Executors.newFixedThreadPool(threadpoolSize,
-            r -> new Thread(r, "GerenricHelixController-message_handle_" + key)));
+        _executorMap.put(key, _virtualThreadsEnabled
+            ? new VirtualThreadMessageExecutor(threadpoolSize)
+            : Executors.newFixedThreadPool(threadpoolSize,
+                r -> new Thread(r, "GerenricHelixController-message_handle_" + key)));
         LOG.info("Added dedicate threadpool for resource: " + resourceName + " with size: "
             + threadpoolSize);
       } else {
@@ -407,6 +475,9 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     try {
       // Check to see if dedicate thread pool for handling state transition messages is configured or provided.
       updateStateTransitionMessageThreadPool(message, manager);
+      if (isPriorityScheduled(message.getMsgType())) {
+        _stateTransitionTaskComparator.loadPriority(message, manager);
+      }
 
       LOG.info("Scheduling message {}: {}:{}, {}->{}", taskId, message.getResourceName(),
           message.getPartitionName(), message.getFromState(), message.getToState());
@@ -690,7 +761,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     for (final String msgType : _hdlrFtyRegistry.keySet()) {
       MsgHandlerFactoryRegistryItem item = _hdlrFtyRegistry.get(msgType);
       ExecutorService pool = _executorMap.computeIfAbsent(msgType, type -> {
-        ExecutorService newPool = Executors.newFixedThreadPool(item.threadPoolSize(),
+        ExecutorService newPool = createMessageHandlerPool(type, item.threadPoolSize(),
             r -> new Thread(r, "HelixTaskExecutor-message_handle_" + type));
         _monitor.createExecutorMonitor(type, newPool);
         return newPool;
@@ -723,7 +794,11 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     }
   }
 
-  private List<Message> readNewMessagesFromZK(HelixManager manager, String instanceName,
+  /**
+   * @return the keys of the messages that are not known yet, or null if the change type is not a
+   *         message change
+   */
+  private List<PropertyKey> getNewMessageKeys(HelixManager manager, String instanceName,
       HelixConstants.ChangeType changeType) {
     HelixDataAccessor accessor = manager.getHelixDataAccessor();
     Builder keyBuilder = accessor.keyBuilder();
@@ -735,7 +810,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       messageIds.addAll(accessor.getChildNames(keyBuilder.controllerMessages()));
     } else {
       LOG.warn("Unexpected ChangeType for Message Change CallbackHandler: " + changeType);
-      return Collections.emptyList();
+      return null;
     }
 
     // Avoid reading the already known messages.
@@ -748,6 +823,15 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
         keys.add(keyBuilder.controllerMessage(messageId));
       }
     }
+    return keys;
+  }
+
+  private List<Message> readNewMessagesFromZK(HelixManager manager, String instanceName,
+      HelixConstants.ChangeType changeType) {
+    List<PropertyKey> keys = getNewMessageKeys(manager, instanceName, changeType);
+    if (keys == null) {
+      return Collections.emptyList();
+    }
 
     /**
      * Do not throw exception on partial message read.
@@ -757,7 +841,11 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
      * as long as the participant processes messages, it will touch the message folder and triggers
      * another message event.
      */
-    List<Message> newMessages = accessor.getProperty(keys, false);
+    long readStartTime = System.currentTimeMillis();
+    List<Message> newMessages = manager.getHelixDataAccessor().getProperty(keys, false);
+    if (_messageQueueMonitor != null && !keys.isEmpty()) {
+      _messageQueueMonitor.reportMessageReadLatency(System.currentTimeMillis() - readStartTime);
+    }
     // Message may be removed before get read, clean up null messages.
     Iterator<Message> messageIterator = newMessages.iterator();
     while (messageIterator.hasNext()) {
@@ -789,17 +877,36 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
 
     // if prefetch is disabled in MessageListenerCallback, we need to read all new messages from zk.
     if (messages == null || messages.isEmpty()) {
-      // If no messages are given, check and read all new messages.
-      messages = readNewMessagesFromZK(manager, instanceName, changeContext.getChangeType());
+      if (_messageReader != null && !_isShuttingDown) {
+        // Process the new messages batch by batch while the rest of them are still being read.
+        List<PropertyKey> keys =
+            getNewMessageKeys(manager, instanceName, changeContext.getChangeType());
+        if (keys != null && !keys.isEmpty()) {
+          // The backlog and the existing current states are read once for all the batches.
+          if (_messageQueueMonitor != null) {
+            _messageQueueMonitor.setMessageQueueBacklog(keys.size());
+          }
+          Set<String> curResourceNames = getCurrentStateResourceNames(manager, instanceName);
+          _messageReader.read(manager.getHelixDataAccessor(), keys,
+              batch -> processMessageBatch(instanceName, batch, changeContext, curResourceNames));
+          return;
+        }
+        messages = new ArrayList<>();
+      } else {
+        // If no messages are given, check and read all new messages.
+        messages = readNewMessagesFromZK(manager, instanceName, changeContext.getChangeType());
+      }
     }
+    processMessages(instanceName, messages, changeContext);
+  }
 
+  /**
+   * Report the backlog and process the messages as a single batch.
+   */
+  private void processMessages(String instanceName, List<Message> messages,
+      NotificationContext changeContext) {
     if (_isShuttingDown) {
-      StringBuilder sb = new StringBuilder();
-      for (Message message : messages) {
-        sb.append(message.getMsgId() + ",");
-      }
-      LOG.info(
-          "Helix task executor is shutting down, ignore unprocessed messages : " + sb.toString());
+      logIgnoredMessages(messages);
       return;
     }
 
@@ -813,6 +920,48 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       return;
     }
 
+    processMessageBatch(instanceName, messages, changeContext,
+        getCurrentStateResourceNames(changeContext.getManager(), instanceName));
+  }
+
+  /**
+   * @return the names of the resources that have a current state or a task current state in the
+   *         current session of the instance
+   */
+  private Set<String> getCurrentStateResourceNames(HelixManager manager, String instanceName) {
+    HelixDataAccessor accessor = manager.getHelixDataAccessor();
+    Builder keyBuilder = accessor.keyBuilder();
+    String sessionId = manager.getSessionId();
+    Set<String> resourceNames =
+        new HashSet<>(accessor.getChildNames(keyBuilder.currentStates(instanceName, sessionId)));
+    resourceNames
+        .addAll(accessor.getChildNames(keyBuilder.taskCurrentStates(instanceName, sessionId)));
+    return resourceNames;
+  }
+
+  private void logIgnoredMessages(List<Message> messages) {
+    StringBuilder sb = new StringBuilder();
+    for (Message message : messages) {
+      sb.append(message.getMsgId() + ",");
+    }
+    LOG.info(
+        "Helix task executor is shutting down, ignore unprocessed messages : " + sb.toString());
+  }
+
+  /**
+   * Create the handlers of the messages, mark the messages as read and schedule the handlers.
+   * @param curResourceNames the resources that already have a current state. The resources whose
+   *                         current state is created for this batch are added to it, so the later
+   *                         batches of the same callback don't create them again.
+   */
+  private void processMessageBatch(String instanceName, List<Message> messages,
+      NotificationContext changeContext, Set<String> curResourceNames) {
+    HelixManager manager = changeContext.getManager();
+    if (_isShuttingDown) {
+      logIgnoredMessages(messages);
+      return;
+    }
+
     // sort message by creation timestamp, so message created earlier is processed first
     Collections.sort(messages, Message.CREATE_TIME_COMPARATOR);
 
@@ -830,10 +979,6 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     Map<String, Message> msgsToBeUpdated = new HashMap<>();
 
     String sessionId = manager.getSessionId();
-    List<String> curResourceNames =
-        accessor.getChildNames(keyBuilder.currentStates(instanceName, sessionId));
-    List<String> taskCurResourceNames =
-        accessor.getChildNames(keyBuilder.taskCurrentStates(instanceName, sessionId));
     List<PropertyKey> createCurStateKeys = new ArrayList<>();
     List<CurrentState> metaCurStates = new ArrayList<>();
     Set<String> createCurStateNames = new HashSet<>();
@@ -912,7 +1057,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       if (!message.isControlerMsg() && message.getMsgType()
           .equals(Message.MessageType.STATE_TRANSITION.name())) {
         String resourceName = message.getResourceName();
-        if (!curResourceNames.contains(resourceName) && !taskCurResourceNames.contains(resourceName)
+        if (!curResourceNames.contains(resourceName)
             && !createCurStateNames.contains(resourceName)) {
           createCurStateNames.add(resourceName);
           PropertyKey curStateKey = keyBuilder.currentState(instanceName, sessionId, resourceName);
@@ -945,6 +1090,7 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
       } catch (Exception e) {
         LOG.error("fail to create cur-state znodes for messages: " + msgsToBeUpdated, e);
       }
+      curResourceNames.addAll(createCurStateNames);
     }
 
     // update message state in batch and schedule tasks for all read messages
@@ -1267,6 +1413,14 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     _monitor.reportProcessedMessage(message, ProcessedMessageState.FAILED);
   }
 
+  /**
+   * @return the coalescer of the current state updates, or null if the current state updates of
+   *         the state transitions are written separately
+   */
+  public CurrentStateUpdateCoalescer getCurrentStateUpdateCoalescer() {
+    return _currentStateUpdateCoalescer;
+  }
+
   public MessageHandler createMessageHandler(Message message, NotificationContext changeContext) {
     String msgType = message.getMsgType();
 
@@ -1346,6 +1500,12 @@ public class HelixTaskExecutor implements MessageListener, TaskExecutor {
     _timer.cancel();
 
     reset();
+    if (_currentStateUpdateCoalescer != null) {
+      _currentStateUpdateCoalescer.shutdown();
+    }
+    if (_messageReader != null) {
+      _messageReader.shutdown();
+    }
     _monitor.shutDown();
     LOG.info("Shutdown HelixTaskExecutor finished");
   }
@@ -0,0 +1,138 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.Message;
+import org.apache.helix.monitoring.mbeans.MessageQueueMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the new messages of a participant in batches on background threads. The batches are
+ * handed to the caller in the order they are submitted, so the first messages can be scheduled
+ * while the other batches are still being read from ZK, and a slow batch does not let the later
+ * batches overtake it.
+ */
+class PipelinedMessageReader {
+  private static final Logger LOG = LoggerFactory.getLogger(PipelinedMessageReader.class);
+  private static final int READ_THREAD_COUNT = 2;
+
+  private final int _batchSize;
+  private final MessageQueueMonitor _messageQueueMonitor;
+  private final ExecutorService _readExecutor;
+
+  /**
+   * @param batchSize the max number of messages in a batch
+   * @param messageQueueMonitor reports the read latency of the batches, may be null
+   */
+  PipelinedMessageReader(int batchSize, MessageQueueMonitor messageQueueMonitor) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+    }
+    _batchSize = batchSize;
+    _messageQueueMonitor = messageQueueMonitor;
+    _readExecutor = Executors.newFixedThreadPool(READ_THREAD_COUNT, new ThreadFactory() {
+      private final AtomicInteger _threadIndex = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread =
+            new Thread(r, "PipelinedMessageReader-" + _threadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Read the messages and pass each batch to the processor on the calling thread, in the order of
+   * the keys, as soon as the batch and the batches before it are read. The messages that are
+   * removed before they are read are skipped.
+   * @param accessor the accessor to read the messages
+   * @param keys the keys of the messages to be read
+   * @param processor processes a batch of messages
+   * @return the number of the messages that are read
+   */
+  int read(final HelixDataAccessor accessor, List<PropertyKey> keys,
+      Consumer<List<Message>> processor) {
+    List<Future<List<Message>>> futures = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i += _batchSize) {
+      final List<PropertyKey> batchKeys =
+          new ArrayList<>(keys.subList(i, Math.min(i + _batchSize, keys.size())));
+      futures.add(_readExecutor.submit(() -> readBatch(accessor, batchKeys)));
+    }
+
+    int messageCount = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      List<Message> messages;
+      try {
+        messages = futures.get(i).get();
+      } catch (InterruptedException e) {
+        LOG.warn("Interrupted while reading messages, {} of {} batches are processed.", i,
+            futures.size());
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        // Same as a partial read, the messages will be read again in the next callback.
+        LOG.error("Failed to read a batch of messages.", e.getCause());
+        continue;
+      }
+      if (!messages.isEmpty()) {
+        messageCount += messages.size();
+        processor.accept(messages);
+      }
+    }
+    return messageCount;
+  }
+
+  private List<Message> readBatch(HelixDataAccessor accessor, List<PropertyKey> keys) {
+    long startTime = System.currentTimeMillis();
+    // Do not throw exception on partial message read, see HelixTaskExecutor.
+    List<Message> messages = accessor.getProperty(keys, false);
+    if (_messageQueueMonitor != null) {
+      _messageQueueMonitor.reportMessageReadLatency(System.currentTimeMillis() - startTime);
+    }
+    // Message may be removed before get read, clean up null messages.
+    Iterator<Message> messageIterator = messages.iterator();
+    while (messageIterator.hasNext()) {
+      if (messageIterator.next() == null) {
+        messageIterator.remove();
+      }
+    }
+    return messages;
+  }
+
+  void shutdown() {
+    _readExecutor.shutdownNow();
+  }
+}
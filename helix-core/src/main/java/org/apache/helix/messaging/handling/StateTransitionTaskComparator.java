@@ -0,0 +1,146 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixManager;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.Message;
+import org.apache.helix.model.ResourceConfig;
+import org.apache.helix.model.StateModelDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders the state transition tasks for the {@link StateTransitionTaskScheduler}:
+ * 1) The transitions to the top state of the state model come first.
+ * 2) Then the transitions of the resources with the higher priority, see
+ * {@link ClusterConfig#getResourcePriorityField()}. The resources without a priority are the
+ * lowest priority.
+ * 3) Then the older messages.
+ *
+ * The comparison only reads the cached top states and resource priorities, which are loaded by
+ * {@link #loadPriority(Message, HelixManager)} before the task is queued. Like the dedicated
+ * thread pool of a resource, a change of the resource priority takes effect after the
+ * participant is restarted.
+ */
+public class StateTransitionTaskComparator implements Comparator<MessageTask> {
+  private static final Logger LOG = LoggerFactory.getLogger(StateTransitionTaskComparator.class);
+  private static final String NO_TOP_STATE = "";
+
+  // State model definition name -> top state
+  private final Map<String, String> _topStates = new ConcurrentHashMap<>();
+  // Resource name -> priority
+  private final Map<String, Integer> _resourcePriorities = new ConcurrentHashMap<>();
+
+  /**
+   * Load the top state of the state model and the priority of the resource of the message, if
+   * they are not loaded yet.
+   */
+  public void loadPriority(Message message, HelixManager manager) {
+    String stateModelDef = message.getStateModelDef();
+    String resourceName = message.getResourceName();
+    if ((stateModelDef == null || _topStates.containsKey(stateModelDef)) && (resourceName == null
+        || _resourcePriorities.containsKey(resourceName))) {
+      return;
+    }
+    HelixDataAccessor accessor = manager.getHelixDataAccessor();
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    try {
+      if (stateModelDef != null && !_topStates.containsKey(stateModelDef)) {
+        StateModelDefinition definition =
+            accessor.getProperty(keyBuilder.stateModelDef(stateModelDef));
+        String topState = definition == null ? null : definition.getTopState();
+        _topStates.put(stateModelDef, topState == null ? NO_TOP_STATE : topState);
+      }
+      if (resourceName != null && !_resourcePriorities.containsKey(resourceName)) {
+        _resourcePriorities.put(resourceName, readResourcePriority(accessor, resourceName));
+      }
+    } catch (Exception e) {
+      // The task is still scheduled, with the lowest priority.
+      LOG.warn("Failed to load the priority of message {}.", message.getMsgId(), e);
+    }
+  }
+
+  private static int readResourcePriority(HelixDataAccessor accessor, String resourceName) {
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    ClusterConfig clusterConfig = accessor.getProperty(keyBuilder.clusterConfig());
+    String priorityField =
+        clusterConfig == null ? null : clusterConfig.getResourcePriorityField();
+    if (priorityField == null) {
+      return Integer.MIN_VALUE;
+    }
+    // Same as the controller, the priority of the ResourceConfig overrides the IdealState's.
+    String priority = null;
+    ResourceConfig resourceConfig = accessor.getProperty(keyBuilder.resourceConfig(resourceName));
+    if (resourceConfig != null) {
+      priority = resourceConfig.getSimpleConfig(priorityField);
+    }
+    if (priority == null) {
+      IdealState idealState = accessor.getProperty(keyBuilder.idealStates(resourceName));
+      if (idealState != null) {
+        priority = idealState.getRecord().getSimpleField(priorityField);
+      }
+    }
+    if (priority == null) {
+      return Integer.MIN_VALUE;
+    }
+    try {
+      return Integer.parseInt(priority);
+    } catch (NumberFormatException e) {
+      LOG.warn("Invalid priority field {} for resource {}", priority, resourceName);
+      return Integer.MIN_VALUE;
+    }
+  }
+
+  @Override
+  public int compare(MessageTask task1, MessageTask task2) {
+    Message message1 = task1.getMessage();
+    Message message2 = task2.getMessage();
+    int result = Boolean.compare(isTopStateTransition(message2), isTopStateTransition(message1));
+    if (result != 0) {
+      return result;
+    }
+    result = Integer.compare(getResourcePriority(message2), getResourcePriority(message1));
+    if (result != 0) {
+      return result;
+    }
+    return Long.compare(message1.getCreateTimeStamp(), message2.getCreateTimeStamp());
+  }
+
+  private boolean isTopStateTransition(Message message) {
+    String stateModelDef = message.getStateModelDef();
+    String toState = message.getToState();
+    return stateModelDef != null && toState != null
+        && toState.equals(_topStates.get(stateModelDef));
+  }
+
+  private int getResourcePriority(Message message) {
+    String resourceName = message.getResourceName();
+    return resourceName == null ? Integer.MIN_VALUE
+        : _resourcePriorities.getOrDefault(resourceName, Integer.MIN_VALUE);
+  }
+}
@@ -0,0 +1,286 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.monitoring.mbeans.MonitoredThreadPool;
+import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
+
+/**
+ * An executor of the message tasks that runs the queued tasks in the order of a comparator
+ * instead of the arrival order, so a burst of low priority state transitions does not delay the
+ * transitions that recover the top states. The number of running tasks of a resource can be
+ * capped, so the tasks of one resource cannot take all the threads.
+ *
+ * The tasks that are not {@link MessageTask}s run before the message tasks, in arrival order.
+ * The scheduler reports the same thread pool gauges as a ThreadPoolExecutor.
+ */
+public class StateTransitionTaskScheduler extends AbstractExecutorService
+    implements MonitoredThreadPool {
+  private final int _poolSize;
+  private final int _perResourceConcurrency;
+  private final Comparator<? super MessageTask> _comparator;
+  private final ParticipantStatusMonitor _monitor;
+  private final ThreadPoolExecutor _workers;
+
+  private final Object _lock = new Object();
+  private final PriorityQueue<QueuedTask> _queuedTasks;
+  // The queued tasks of the resources that are running at the concurrency cap.
+  private final Map<String, PriorityQueue<QueuedTask>> _deferredTasks = new HashMap<>();
+  private final Map<String, Integer> _runningCounts = new HashMap<>();
+  private int _runningCount;
+  private int _queueDepth;
+  private long _sequence;
+  private boolean _isShutdown;
+
+  /**
+   * @param poolSize the number of threads
+   * @param perResourceConcurrency the max number of running tasks of a resource, 0 for no cap
+   * @param comparator orders the queued tasks, the smaller one runs first
+   * @param monitor reports the queue depth and the queue wait time, may be null
+   * @param threadName the name prefix of the threads
+   */
+  public StateTransitionTaskScheduler(int poolSize, int perResourceConcurrency,
+      Comparator<? super MessageTask> comparator, ParticipantStatusMonitor monitor,
+      final String threadName) {
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException("The pool size must be positive: " + poolSize);
+    }
+    _poolSize = poolSize;
+    _perResourceConcurrency = perResourceConcurrency;
+    _comparator = comparator;
+    _monitor = monitor;
+    _queuedTasks = new PriorityQueue<>(this::compare);
+    final AtomicInteger threadIndex = new AtomicInteger();
+    // The tasks are handed to the workers only if a thread is free, so the queue stays empty.
+    _workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        r -> new Thread(r, threadName + "_" + threadIndex.getAndIncrement()));
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    return new MessageFutureTask<>(callable);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    int queueDepth;
+    synchronized (_lock) {
+      if (_isShutdown) {
+        throw new RejectedExecutionException("The scheduler is shut down, task: " + command);
+      }
+      MessageTask task = command instanceof MessageFutureTask
+          ? ((MessageFutureTask<?>) command)._messageTask : null;
+      _queuedTasks.add(new QueuedTask(command, task, _sequence++));
+      queueDepth = ++_queueDepth;
+      dispatch();
+    }
+    if (_monitor != null) {
+      _monitor.reportStateTransitionQueueDepth(queueDepth);
+    }
+  }
+
+  /**
+   * Hand the queued tasks to the free threads in order. Must be called with the lock held.
+   */
+  private void dispatch() {
+    while (_runningCount < _poolSize && !_queuedTasks.isEmpty()) {
+      QueuedTask next = _queuedTasks.poll();
+      if (next._resource != null && _perResourceConcurrency > 0
+          && _runningCounts.getOrDefault(next._resource, 0) >= _perResourceConcurrency) {
+        _deferredTasks.computeIfAbsent(next._resource, k -> new PriorityQueue<>(this::compare))
+            .add(next);
+        continue;
+      }
+      _queueDepth--;
+      _runningCount++;
+      if (next._resource != null) {
+        _runningCounts.merge(next._resource, 1, Integer::sum);
+      }
+      _workers.execute(() -> run(next));
+    }
+  }
+
+  private void run(QueuedTask queuedTask) {
+    if (_monitor != null) {
+      _monitor.reportStateTransitionQueueWaitTime(
+          System.currentTimeMillis() - queuedTask._queuedTime);
+    }
+    try {
+      queuedTask._command.run();
+    } finally {
+      synchronized (_lock) {
+        _runningCount--;
+        String resource = queuedTask._resource;
+        if (resource != null) {
+          if (_runningCounts.merge(resource, -1, Integer::sum) <= 0) {
+            _runningCounts.remove(resource);
+          }
+          // A thread of the resource is free, requeue its next deferred task.
+          PriorityQueue<QueuedTask> deferredTasks = _deferredTasks.get(resource);
+          if (deferredTasks != null) {
+            _queuedTasks.add(deferredTasks.poll());
+            if (deferredTasks.isEmpty()) {
+              _deferredTasks.remove(resource);
+            }
+          }
+        }
+        dispatch();
+        if (_isShutdown && _runningCount == 0 && _queueDepth == 0) {
+          _workers.shutdown();
+        }
+      }
+    }
+  }
+
+  private int compare(QueuedTask t1, QueuedTask t2) {
+    if (t1._task == null || t2._task == null) {
+      if (t1._task != t2._task) {
+        return t1._task == null ? -1 : 1;
+      }
+    } else {
+      int result = _comparator.compare(t1._task, t2._task);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Long.compare(t1._sequence, t2._sequence);
+  }
+
+  /**
+   * @return the number of tasks that wait for a thread
+   */
+  public int getQueueDepth() {
+    synchronized (_lock) {
+      return _queueDepth;
+    }
+  }
+
+  @Override
+  public int getCorePoolSize() {
+    return _poolSize;
+  }
+
+  @Override
+  public int getMaximumPoolSize() {
+    return _poolSize;
+  }
+
+  @Override
+  public int getQueueSize() {
+    return getQueueDepth();
+  }
+
+  @Override
+  public int getActiveCount() {
+    synchronized (_lock) {
+      return _runningCount;
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    synchronized (_lock) {
+      _isShutdown = true;
+      if (_runningCount == 0 && _queueDepth == 0) {
+        _workers.shutdown();
+      }
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> queuedCommands = new ArrayList<>();
+    synchronized (_lock) {
+      _isShutdown = true;
+      for (QueuedTask queuedTask : _queuedTasks) {
+        queuedCommands.add(queuedTask._command);
+      }
+      for (PriorityQueue<QueuedTask> deferredTasks : _deferredTasks.values()) {
+        for (QueuedTask queuedTask : deferredTasks) {
+          queuedCommands.add(queuedTask._command);
+        }
+      }
+      _queuedTasks.clear();
+      _deferredTasks.clear();
+      _queueDepth = 0;
+    }
+    queuedCommands.addAll(_workers.shutdownNow());
+    return queuedCommands;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    synchronized (_lock) {
+      return _isShutdown;
+    }
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return _workers.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return _workers.awaitTermination(timeout, unit);
+  }
+
+  private static class MessageFutureTask<T> extends FutureTask<T> {
+    private final MessageTask _messageTask;
+
+    MessageFutureTask(Callable<T> callable) {
+      super(callable);
+      _messageTask = callable instanceof MessageTask ? (MessageTask) callable : null;
+    }
+  }
+
+  private static class QueuedTask {
+    private final Runnable _command;
+    private final MessageTask _task;
+    private final String _resource;
+    private final long _sequence;
+    private final long _queuedTime;
+
+    QueuedTask(Runnable command, MessageTask task, long sequence) {
+      _command = command;
+      _task = task;
+      _resource = task == null ? null : task.getMessage().getResourceName();
+      _sequence = sequence;
+      _queuedTime = System.currentTimeMillis();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.monitoring.mbeans.MonitoredThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs each message handling task on a new virtual thread, with at most the given number of tasks
+ * running at a time. The tasks over the limit block their virtual threads on a fair semaphore,
+ * which is cheap, so a participant can run many concurrent blocking state transitions without a
+ * platform thread for each of them.
+ *
+ * Virtual threads are available on JDK 21 or later, see {@link #isSupported()}. Helix is built
+ * for JDK 8, so the executor is created by reflection.
+ *
+ * The executor reports the same thread pool gauges as a ThreadPoolExecutor, the running tasks are
+ * the active threads and the tasks that wait for a permit are the queue.
+ */
+public class VirtualThreadMessageExecutor extends AbstractExecutorService
+    implements MonitoredThreadPool {
+  private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadMessageExecutor.class);
+  private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findExecutorFactory();
+
+  private final ExecutorService _executor;
+  // Null if the number of running tasks is not limited.
+  private final Semaphore _permits;
+  private final int _maxConcurrency;
+  private final AtomicInteger _runningCount = new AtomicInteger();
+
+  /**
+   * @param maxConcurrency the max number of running tasks, 0 for no limit
+   * @throws UnsupportedOperationException if the JVM does not support virtual threads
+   */
+  public VirtualThreadMessageExecutor(int maxConcurrency) {
+    this(newVirtualThreadPerTaskExecutor(), maxConcurrency);
+  }
+
+  VirtualThreadMessageExecutor(ExecutorService executor, int maxConcurrency) {
+    _executor = executor;
+    _permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency, true) : null;
+    _maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+  }
+
+  /**
+   * @return true if the JVM supports virtual threads
+   */
+  public static boolean isSupported() {
+    return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+  }
+
+  private static Method findExecutorFactory() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      // The method exists as a preview API on JDK 19 and 20, where it fails unless the preview
+      // features are enabled.
+      ((ExecutorService) method.invoke(null)).shutdown();
+      return method;
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (Exception e) {
+      LOG.info("Virtual threads are not available: {}", e.toString());
+      return null;
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("Virtual threads require JDK 21 or later.");
+    }
+    try {
+      return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to create the virtual thread executor.", e);
+    }
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (_permits == null) {
+      _executor.execute(() -> run(command));
+      return;
+    }
+    _executor.execute(() -> {
+      try {
+        _permits.acquire();
+      } catch (InterruptedException e) {
+        // Interrupted by shutdownNow() before the task starts.
+        LOG.info("Task {} is not started because the executor is shut down.", command);
+        Thread.currentThread().interrupt();
+        return;
+      }
+      try {
+        run(command);
+      } finally {
+        _permits.release();
+      }
+    });
+  }
+
+  private void run(Runnable command) {
+    _runningCount.incrementAndGet();
+    try {
+      command.run();
+    } finally {
+      _runningCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return the number of tasks that wait for a permit to run
+   */
+  public int getWaitingTaskCount() {
+    return _permits == null ? 0 : _permits.getQueueLength();
+  }
+
+  @Override
+  public int getCorePoolSize() {
+    // Same as a cached thread pool if the number of running tasks is not limited.
+    return _permits == null ? 0 : _maxConcurrency;
+  }
+
+  @Override
+  public int getMaximumPoolSize() {
+    return _maxConcurrency;
+  }
+
+  @Override
+  public int getQueueSize() {
+    return getWaitingTaskCount();
+  }
+
+  @Override
+  public int getActiveCount() {
+    return _runningCount.get();
+  }
+
+  @Override
+  public void shutdown() {
+    _executor.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return _executor.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return _executor.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return _executor.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return _executor.awaitTermination(timeout, unit);
+  }
+}
@@ -134,7 +134,33 @@ public class ClusterConfig extends HelixProperty {
     // offline for more than this specified time period, and users call purge participant API,
     // then the node will be removed.
     // The unit is milliseconds.
-    OFFLINE_DURATION_FOR_PURGE_MS
+    OFFLINE_DURATION_FOR_PURGE_MS,
+
+    // The number of threads that the controller uses to calculate the best possible states of the
+    // non-WAGED resources in parallel. A value smaller than or equal to 1 means the resources are
+    // calculated sequentially in the controller pipeline thread.
+    // Note that enabling it requires any customized rebalancer to be thread safe.
+    // Default to be 1.
+    RESOURCE_REBALANCE_PARALLELISM,
+
+    // The number of threads that the WAGED rebalancer uses to evaluate the candidate nodes of a
+    // replica. 1 means the candidate nodes are evaluated sequentially in the calculating thread.
+    // A value smaller than 1 means the JVM shared common pool is used.
+    // Default to be -1.
+    WAGED_CANDIDATE_SCORING_PARALLELISM,
+
+    // Whether the controller prefetches the participant states for the next queued event while the
+    // rebalance stages of the current event are running. The stages only see the data refreshed
+    // for their own event, the prefetched data is verified by the next refresh before being used.
+    // Default to be false.
+    PIPELINED_DATA_PREFETCH_ENABLED,
+
+    // The debounce window of the controller events during an event burst. When the event queue is
+    // not empty, the controller waits for at least the min delay, and up to the max delay while new
+    // events keep arriving, and merges the queued events that can be handled by the same pipeline
+    // run. A single event is never delayed. A max delay that is not positive disables the debounce.
+    CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS,
+    CONTROLLER_EVENT_DEBOUNCE_MAX_DELAY_MS
   }
 
   public enum GlobalRebalancePreferenceKey {
@@ -169,6 +195,11 @@ public class ClusterConfig extends HelixProperty {
   public final static boolean DEFAULT_GLOBAL_REBALANCE_ASYNC_MODE_ENABLED = true;
   private static final int GLOBAL_TARGET_TASK_THREAD_POOL_SIZE_NOT_SET = -1;
   private static final int OFFLINE_NODE_TIME_OUT_FOR_MAINTENANCE_MODE_NOT_SET = -1;
+  public static final int DEFAULT_RESOURCE_REBALANCE_PARALLELISM = 1;
+  public static final int DEFAULT_WAGED_CANDIDATE_SCORING_PARALLELISM = -1;
+  public static final boolean DEFAULT_PIPELINED_DATA_PREFETCH_ENABLED = false;
+  public static final long DEFAULT_CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS = 50L;
+  public static final long DEFAULT_CONTROLLER_EVENT_DEBOUNCE_MAX_DELAY_MS = -1L;
 
   /**
    * Instantiate for a specific cluster
@@ -933,6 +964,108 @@ public class ClusterConfig extends HelixProperty {
         DEFAULT_GLOBAL_REBALANCE_ASYNC_MODE_ENABLED);
   }
 
+  /**
+   * Set the number of threads used to calculate the best possible states of the non-WAGED
+   * resources in parallel. A value smaller than or equal to 1 disables the parallel calculation.
+   * Note that the customized rebalancers, if any, need to be thread safe when this is enabled.
+   * @param parallelism the maximum number of resources that are calculated concurrently
+   */
+  public void setResourceRebalanceParallelism(int parallelism) {
+    _record.setIntField(ClusterConfigProperty.RESOURCE_REBALANCE_PARALLELISM.name(), parallelism);
+  }
+
+  /**
+   * Get the number of threads used to calculate the best possible states of the non-WAGED
+   * resources in parallel.
+   * @return the parallelism, a value smaller than or equal to 1 means sequential calculation
+   */
+  public int getResourceRebalanceParallelism() {
+    return _record.getIntField(ClusterConfigProperty.RESOURCE_REBALANCE_PARALLELISM.name(),
+        DEFAULT_RESOURCE_REBALANCE_PARALLELISM);
+  }
+
+  /**
+   * Set the number of threads that the WAGED rebalancer uses to evaluate the candidate nodes of
+   * each replica. The chosen node is the same no matter how many threads are used.
+   * @param parallelism 1 for evaluating sequentially, a value larger than 1 for a dedicated pool
+   *                    of that many threads, or a value smaller than 1 for the JVM common pool
+   */
+  public void setWagedCandidateScoringParallelism(int parallelism) {
+    _record.setIntField(ClusterConfigProperty.WAGED_CANDIDATE_SCORING_PARALLELISM.name(),
+        parallelism);
+  }
+
+  /**
+   * Get the number of threads that the WAGED rebalancer uses to evaluate the candidate nodes of
+   * each replica.
+   * @return the parallelism, a value smaller than 1 means the JVM common pool is used
+   */
+  public int getWagedCandidateScoringParallelism() {
+    return _record.getIntField(ClusterConfigProperty.WAGED_CANDIDATE_SCORING_PARALLELISM.name(),
+        DEFAULT_WAGED_CANDIDATE_SCORING_PARALLELISM);
+  }
+
+  /**
+   * Enable or disable the pipelined data prefetch. If enabled, while the rebalance stages of an
+   * event are running, the controller reads the changed participant states from ZK for the next
+   * queued event in the background.
+   * The consistency contract is the same as without the prefetch: the stages of an event only see
+   * the data refreshed by the ReadClusterDataStage of the same event. The prefetched data is only
+   * used as the base of the next refresh, which still verifies every cached znode with its version
+   * on ZK, so it is never older than the data read by the sequential refresh.
+   * @param enabled true to enable the prefetch
+   */
+  public void setPipelinedDataPrefetchEnabled(boolean enabled) {
+    _record.setBooleanField(ClusterConfigProperty.PIPELINED_DATA_PREFETCH_ENABLED.name(), enabled);
+  }
+
+  /**
+   * @return true if the pipelined data prefetch is enabled
+   */
+  public boolean isPipelinedDataPrefetchEnabled() {
+    return _record.getBooleanField(ClusterConfigProperty.PIPELINED_DATA_PREFETCH_ENABLED.name(),
+        DEFAULT_PIPELINED_DATA_PREFETCH_ENABLED);
+  }
+
+  /**
+   * Set the debounce window of the controller events. The window only applies when events are
+   * already queued behind the event that is about to be handled, so a single event is handled
+   * without delay. During an event burst, the controller waits for the min delay and merges the
+   * queued events that the same pipeline run can handle, and it keeps waiting while new events
+   * arrive until the max delay is reached.
+   * @param minDelayMs the delay of each debounce step in milliseconds
+   * @param maxDelayMs the max total delay in milliseconds. A value that is not positive disables
+   *                   the debounce
+   */
+  public void setControllerEventDebounceWindow(long minDelayMs, long maxDelayMs) {
+    if (minDelayMs < 0 || (maxDelayMs > 0 && minDelayMs > maxDelayMs)) {
+      throw new IllegalArgumentException(String
+          .format("Invalid debounce window, min delay: %d ms, max delay: %d ms", minDelayMs,
+              maxDelayMs));
+    }
+    _record.setLongField(ClusterConfigProperty.CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS.name(),
+        minDelayMs);
+    _record.setLongField(ClusterConfigProperty.CONTROLLER_EVENT_DEBOUNCE_MAX_DELAY_MS.name(),
+        maxDelayMs);
+  }
+
+  /**
+   * @return the delay of each debounce step of the controller events in milliseconds
+   */
+  public long getControllerEventDebounceMinDelayMs() {
+    return _record.getLongField(ClusterConfigProperty.CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS.name(),
+        DEFAULT_CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS);
+  }
+
+  /**
+   * @return the max total debounce delay of the controller events in milliseconds. A value that is
+   *         not positive means the debounce is disabled
+   */
+  public long getControllerEventDebounceMaxDelayMs() {
+    return _record.getLongField(ClusterConfigProperty.CONTROLLER_EVENT_DEBOUNCE_MAX_DELAY_MS.name(),
+        DEFAULT_CONTROLLER_EVENT_DEBOUNCE_MAX_DELAY_MS);
+  }
+
   /**
    * Set the time out window for offline nodes during maintenance mode. If an offline node has been
    * offline for more than this specified time period, it's treated as offline for the rest of
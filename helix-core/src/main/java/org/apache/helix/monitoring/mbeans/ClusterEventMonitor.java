@@ -35,6 +35,7 @@ public class ClusterEventMonitor extends DynamicMBeanProvider {
   public enum PhaseName {
     Callback,
     InQueue,
+    Debounce,
     TotalProcessed
   }
 
@@ -48,6 +49,8 @@ public class ClusterEventMonitor extends DynamicMBeanProvider {
   private SimpleDynamicMetric<Long> _maxDuration;
   private SimpleDynamicMetric<Long> _count;
   private HistogramDynamicMetric _duration;
+  private HistogramDynamicMetric _durationNs;
+  private HistogramDynamicMetric _allocatedBytes;
 
   private long _lastResetTime;
   private ClusterStatusMonitor _clusterStatusMonitor;
@@ -55,21 +58,23 @@ public class ClusterEventMonitor extends DynamicMBeanProvider {
   public ClusterEventMonitor(ClusterStatusMonitor clusterStatusMonitor, String phaseName) {
     _phaseName = phaseName;
     _clusterStatusMonitor = clusterStatusMonitor;
-
-    _duration = new HistogramDynamicMetric("DurationGauge", new Histogram(
-        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
-    _count = new SimpleDynamicMetric("EventCounter", 0l);
-    _maxDuration = new SimpleDynamicMetric("MaxSingleDurationGauge", 0l);
-    _totalDuration = new SimpleDynamicMetric("TotalDurationCounter", 0l);
+    initMetrics(getResetIntervalInMs());
   }
 
   public ClusterEventMonitor(ClusterStatusMonitor clusterStatusMonitor, String phaseName,
       int histogramTimeWindowMs) {
     _phaseName = phaseName;
     _clusterStatusMonitor = clusterStatusMonitor;
+    initMetrics(histogramTimeWindowMs);
+  }
 
+  private void initMetrics(long histogramTimeWindowMs) {
     _duration = new HistogramDynamicMetric("DurationGauge", new Histogram(
         new SlidingTimeWindowArrayReservoir(histogramTimeWindowMs, TimeUnit.MILLISECONDS)));
+    _durationNs = new HistogramDynamicMetric("DurationNsGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(histogramTimeWindowMs, TimeUnit.MILLISECONDS)));
+    _allocatedBytes = new HistogramDynamicMetric("AllocatedBytesGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(histogramTimeWindowMs, TimeUnit.MILLISECONDS)));
     _count = new SimpleDynamicMetric("EventCounter", 0l);
     _maxDuration = new SimpleDynamicMetric("MaxSingleDurationGauge", 0l);
     _totalDuration = new SimpleDynamicMetric("TotalDurationCounter", 0l);
@@ -86,6 +91,20 @@ public class ClusterEventMonitor extends DynamicMBeanProvider {
     }
   }
 
+  /**
+   * Report the metrics of one execution of a pipeline stage.
+   * @param durationNs the duration of the stage in nanoseconds
+   * @param allocatedBytes the bytes allocated by the stage, or a negative value if the allocation
+   *                       was not sampled for this execution
+   */
+  public void reportStageMetrics(long durationNs, long allocatedBytes) {
+    reportDuration(TimeUnit.NANOSECONDS.toMillis(durationNs));
+    _durationNs.updateValue(durationNs);
+    if (allocatedBytes >= 0) {
+      _allocatedBytes.updateValue(allocatedBytes);
+    }
+  }
+
   @Override
   public String getSensorName() {
     return String.format("%s.%s.%s.%s", CLUSTEREVENT_DN_KEY, _clusterStatusMonitor.getClusterName(),
@@ -103,6 +122,8 @@ public class ClusterEventMonitor extends DynamicMBeanProvider {
     attributeList.add(_maxDuration);
     attributeList.add(_count);
     attributeList.add(_duration);
+    attributeList.add(_durationNs);
+    attributeList.add(_allocatedBytes);
     doRegister(attributeList, _clusterStatusMonitor.getObjectName(getBeanName()));
     return this;
   }
@@ -87,6 +87,7 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
   private AtomicLong _rebalanceFailureCount = new AtomicLong(0L);
   private AtomicLong _continuousResourceRebalanceFailureCount = new AtomicLong(0L);
   private AtomicLong _continuousTaskRebalanceFailureCount = new AtomicLong(0L);
+  private AtomicLong _mergedEventCount = new AtomicLong(0L);
 
   private final ConcurrentHashMap<String, ResourceMonitor> _resourceMonitorMap =
       new ConcurrentHashMap<>();
@@ -335,6 +336,20 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     }
   }
 
+  /**
+   * Update the metrics of executing a pipeline stage.
+   * @param stageName the name of the stage
+   * @param durationNs the duration of the stage in nanoseconds
+   * @param allocatedBytes the bytes allocated by the stage, or a negative value if not sampled
+   */
+  public void updateClusterEventStageMetrics(String stageName, long durationNs,
+      long allocatedBytes) {
+    ClusterEventMonitor monitor = getOrCreateClusterEventMonitor(stageName);
+    if (monitor != null) {
+      monitor.reportStageMetrics(durationNs, allocatedBytes);
+    }
+  }
+
   /**
    * Lazy initialization of customized view monitor
    * @param clusterName the cluster name of the cluster to be monitored
@@ -653,6 +668,7 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
       _totalPastDueMsgSize.set(0L);
       _totalMsgQueueSize.set(0L);
       _rebalanceFailureCount.set(0L);
+      _mergedEventCount.set(0L);
       _continuousResourceRebalanceFailureCount.set(0L);
       _continuousTaskRebalanceFailureCount.set(0L);
     } catch (Exception e) {
@@ -1021,6 +1037,10 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     _continuousTaskRebalanceFailureCount.set(newValue);
   }
 
+  public void reportMergedEvents(long count) {
+    _mergedEventCount.addAndGet(count);
+  }
+
   @Override
   public long getRebalanceFailureCounter() {
     return _rebalanceFailureCount.get();
@@ -1036,6 +1056,11 @@ public class ClusterStatusMonitor implements ClusterStatusMonitorMBean {
     return _continuousTaskRebalanceFailureCount.get();
   }
 
+  @Override
+  public long getMergedEventCounter() {
+    return _mergedEventCount.get();
+  }
+
   @Override
   public long getTotalResourceGauge() {
     return _resourceMonitorMap.size();
@@ -97,6 +97,11 @@ public interface ClusterStatusMonitorMBean extends SensorNameProvider {
    */
   long getContinuousTaskRebalanceFailureCount();
 
+  /**
+   * @return The number of events that were merged into another event's pipeline run.
+   */
+  long getMergedEventCounter();
+
   /**
    * @return number of all resources in this cluster
    */
@@ -0,0 +1,172 @@
+package org.apache.helix.monitoring.mbeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
+import org.apache.helix.monitoring.mbeans.exception.MetricException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the merge ratio and the queue wait time of the striped group commits of the process.
+ */
+public class GroupCommitMonitor extends DynamicMBeanProvider {
+  private static final Logger LOG = LoggerFactory.getLogger(GroupCommitMonitor.class);
+
+  public static final String MONITOR_TYPE = "Type";
+  public static final String GROUP_COMMIT_TYPE = "GroupCommit";
+  private static final String MBEAN_DESCRIPTION = "Helix Group Commit Monitor";
+
+  private final LongAdder _commitCount = new LongAdder();
+  private final LongAdder _committedUpdateCount = new LongAdder();
+  private final GroupCommitCountMetric _countMetric = new GroupCommitCountMetric();
+  private final HistogramDynamicMetric _batchSize;
+  private final HistogramDynamicMetric _queueWaitTimeNs;
+
+  public GroupCommitMonitor() {
+    _batchSize = new HistogramDynamicMetric("BatchSizeGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _queueWaitTimeNs = new HistogramDynamicMetric("QueueWaitTimeNsGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+  }
+
+  /**
+   * @return the monitor that is shared by the group commits of the process
+   */
+  public static GroupCommitMonitor getSharedMonitor() {
+    return SharedMonitorHolder.SHARED_MONITOR;
+  }
+
+  public static ObjectName getObjectName() throws MalformedObjectNameException {
+    return MBeanRegistrar.buildObjectName(MonitorDomainNames.HelixZkClient.name(), MONITOR_TYPE,
+        GROUP_COMMIT_TYPE);
+  }
+
+  /**
+   * Report a committed batch.
+   * @param batchSize the number of updates that are merged into the batch
+   */
+  public void reportCommit(int batchSize) {
+    _commitCount.increment();
+    _committedUpdateCount.add(batchSize);
+    _batchSize.updateValue((long) batchSize);
+  }
+
+  /**
+   * Report the time an update waits in the queue before its batch is committed.
+   */
+  public void reportQueueWaitTime(long waitTimeNs) {
+    _queueWaitTimeNs.updateValue(waitTimeNs);
+  }
+
+  public long getCommitCount() {
+    return _commitCount.sum();
+  }
+
+  public long getCommittedUpdateCount() {
+    return _committedUpdateCount.sum();
+  }
+
+  /**
+   * @return the average number of updates that are merged into one write
+   */
+  public double getMergeRatio() {
+    long commitCount = getCommitCount();
+    return commitCount == 0 ? 0 : (double) getCommittedUpdateCount() / commitCount;
+  }
+
+  @Override
+  public DynamicMBeanProvider register() throws JMException {
+    doRegister(Arrays.<DynamicMetric<?, ?>>asList(_countMetric, _batchSize, _queueWaitTimeNs),
+        MBEAN_DESCRIPTION, getObjectName());
+    return this;
+  }
+
+  @Override
+  public String getSensorName() {
+    return String.format("%s.%s", MonitorDomainNames.HelixZkClient.name(), GROUP_COMMIT_TYPE);
+  }
+
+  class GroupCommitCountMetric extends DynamicMetric<GroupCommitMonitor, GroupCommitMonitor> {
+    GroupCommitCountMetric() {
+      super(GROUP_COMMIT_TYPE, GroupCommitMonitor.this);
+    }
+
+    @Override
+    protected Set<MBeanAttributeInfo> generateAttributeInfos(String metricName,
+        GroupCommitMonitor monitor) {
+      Set<MBeanAttributeInfo> attributeInfoSet = new HashSet<>();
+      attributeInfoSet.add(new MBeanAttributeInfo("CommitCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("CommittedUpdateCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("MergeRatioGauge", Double.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      return attributeInfoSet;
+    }
+
+    @Override
+    public Object getAttributeValue(String attributeName) {
+      switch (attributeName) {
+      case "CommitCounter":
+        return getMetricObject().getCommitCount();
+      case "CommittedUpdateCounter":
+        return getMetricObject().getCommittedUpdateCount();
+      case "MergeRatioGauge":
+        return getMetricObject().getMergeRatio();
+      default:
+        throw new MetricException("Unknown attribute name: " + attributeName);
+      }
+    }
+
+    @Override
+    public void updateValue(GroupCommitMonitor newMonitor) {
+      setMetricObject(newMonitor);
+    }
+  }
+
+  private static class SharedMonitorHolder {
+    private static final GroupCommitMonitor SHARED_MONITOR = createSharedMonitor();
+
+    private static GroupCommitMonitor createSharedMonitor() {
+      GroupCommitMonitor monitor = new GroupCommitMonitor();
+      try {
+        monitor.register();
+      } catch (JMException e) {
+        LOG.warn("Failed to register the group commit monitor.", e);
+      }
+      return monitor;
+    }
+  }
+}
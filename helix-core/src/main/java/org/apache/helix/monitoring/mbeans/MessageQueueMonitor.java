@@ -22,13 +22,17 @@ package org.apache.helix.monitoring.mbeans;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,12 +45,15 @@ public class MessageQueueMonitor extends DynamicMBeanProvider {
   private final String _instanceName;
   private final MBeanServer _beanServer;
   private SimpleDynamicMetric<Long> _messageQueueBacklog;
+  private HistogramDynamicMetric _messageReadLatency;
 
   public MessageQueueMonitor(String clusterName, String instanceName) {
     _clusterName = clusterName;
     _instanceName = instanceName;
     _beanServer = ManagementFactory.getPlatformMBeanServer();
     _messageQueueBacklog = new SimpleDynamicMetric("MessageQueueBacklog", 0L);
+    _messageReadLatency = new HistogramDynamicMetric("MessageReadLatencyGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
   }
 
   /**
@@ -57,6 +64,14 @@ public class MessageQueueMonitor extends DynamicMBeanProvider {
     _messageQueueBacklog.updateValue(size);
   }
 
+  /**
+   * Report the time to read a batch of messages
+   * @param latencyMs the read latency in milliseconds
+   */
+  public void reportMessageReadLatency(long latencyMs) {
+    _messageReadLatency.updateValue(latencyMs);
+  }
+
   /**
    * Register this bean with the server
    */
@@ -94,6 +109,7 @@ public class MessageQueueMonitor extends DynamicMBeanProvider {
   public DynamicMBeanProvider register() throws JMException {
     List<DynamicMetric<?, ?>> attributeList = new ArrayList<>();
     attributeList.add(_messageQueueBacklog);
+    attributeList.add(_messageReadLatency);
     doRegister(attributeList, MBEAN_DESCRIPTION, getObjectName(getBeanName()));
     return this;
   }
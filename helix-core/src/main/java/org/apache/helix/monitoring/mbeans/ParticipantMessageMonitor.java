@@ -21,10 +21,14 @@ package org.apache.helix.monitoring.mbeans;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.management.JMException;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.HistogramDynamicMetric;
 import org.apache.helix.monitoring.mbeans.dynamicMBeans.SimpleDynamicMetric;
 
 public class ParticipantMessageMonitor extends DynamicMBeanProvider {
@@ -39,6 +43,8 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
   private SimpleDynamicMetric<Long> _completedMessages;
   private SimpleDynamicMetric<Long> _failedMessages;
   private SimpleDynamicMetric<Long> _pendingMessages;
+  private HistogramDynamicMetric _stateTransitionQueueDepthGauge;
+  private HistogramDynamicMetric _stateTransitionQueueWaitTimeGauge;
 
   /**
    * The current processed state of the message
@@ -57,6 +63,12 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     _completedMessages = new SimpleDynamicMetric("CompletedMessages", 0L);
     _failedMessages = new SimpleDynamicMetric("FailedMessages", 0L);
     _pendingMessages = new SimpleDynamicMetric("PendingMessages", 0L);
+    _stateTransitionQueueDepthGauge = new HistogramDynamicMetric(
+        "StateTransitionQueueDepthGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
+    _stateTransitionQueueWaitTimeGauge = new HistogramDynamicMetric(
+        "StateTransitionQueueWaitTimeGauge", new Histogram(
+        new SlidingTimeWindowArrayReservoir(getResetIntervalInMs(), TimeUnit.MILLISECONDS)));
   }
 
   public void incrementReceivedMessages(long count) {
@@ -83,6 +95,20 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     incrementSimpleDynamicMetric(_pendingMessages, -1 * count);
   }
 
+  /**
+   * @param queueDepth the number of state transitions that wait in the scheduler queue
+   */
+  public void reportStateTransitionQueueDepth(int queueDepth) {
+    _stateTransitionQueueDepthGauge.updateValue((long) queueDepth);
+  }
+
+  /**
+   * @param waitTimeMs the time a state transition waited in the scheduler queue
+   */
+  public void reportStateTransitionQueueWaitTime(long waitTimeMs) {
+    _stateTransitionQueueWaitTimeGauge.updateValue(waitTimeMs);
+  }
+
   @Override
   public String getSensorName() {
     return PARTICIPANT_STATUS_KEY;
@@ -101,6 +127,8 @@ public class ParticipantMessageMonitor extends DynamicMBeanProvider {
     attributeList.add(_completedMessages);
     attributeList.add(_failedMessages);
     attributeList.add(_pendingMessages);
+    attributeList.add(_stateTransitionQueueDepthGauge);
+    attributeList.add(_stateTransitionQueueWaitTimeGauge);
     doRegister(attributeList, MBEAN_DESCRIPTION, _domainName,
         ParticipantStatusMonitor.PARTICIPANT_KEY, _participantName, "MonitorType",
         ParticipantMessageMonitor.class.getSimpleName());
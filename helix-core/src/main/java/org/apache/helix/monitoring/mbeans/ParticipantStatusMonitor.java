@@ -32,6 +32,7 @@ import javax.management.ObjectName;
 import org.apache.helix.model.Message;
 import org.apache.helix.monitoring.StateTransitionContext;
 import org.apache.helix.monitoring.StateTransitionDataPoint;
+import org.apache.helix.util.StatusUpdateWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,7 @@ public class ParticipantStatusMonitor {
   private MBeanServer _beanServer;
   private ParticipantMessageMonitor _messageMonitor;
   private MessageLatencyMonitor _messageLatencyMonitor;
+  private StatusUpdateWriterMonitor _statusUpdateWriterMonitor;
   private Map<String, ThreadPoolExecutorMonitor> _executorMonitors;
 
   public ParticipantStatusMonitor(boolean isParticipant, String instanceName) {
@@ -61,6 +63,14 @@ public class ParticipantStatusMonitor {
             new MessageLatencyMonitor(MonitorDomainNames.CLMParticipantReport.name(),
                 _instanceName);
         _messageLatencyMonitor.register();
+        StatusUpdateWriter statusUpdateWriter = StatusUpdateWriter.getSharedWriter();
+        if (statusUpdateWriter != null) {
+          // The writer is shared by the process, so the counts include all the participants.
+          _statusUpdateWriterMonitor =
+              new StatusUpdateWriterMonitor(MonitorDomainNames.CLMParticipantReport.name(),
+                  _instanceName, statusUpdateWriter);
+          _statusUpdateWriterMonitor.register();
+        }
         _executorMonitors = new ConcurrentHashMap<>();
       }
     } catch (Exception e) {
@@ -98,6 +108,18 @@ public class ParticipantStatusMonitor {
     }
   }
 
+  public void reportStateTransitionQueueDepth(int queueDepth) {
+    if (_messageMonitor != null) {  // is participant
+      _messageMonitor.reportStateTransitionQueueDepth(queueDepth);
+    }
+  }
+
+  public void reportStateTransitionQueueWaitTime(long waitTimeMs) {
+    if (_messageMonitor != null) {  // is participant
+      _messageMonitor.reportStateTransitionQueueWaitTime(waitTimeMs);
+    }
+  }
+
   public void reportTransitionStat(StateTransitionContext cxt, StateTransitionDataPoint data) {
     if (_beanServer == null) {
       LOG.warn("bean server is null, skip reporting");
@@ -142,6 +164,9 @@ public class ParticipantStatusMonitor {
     if (_messageMonitor != null) {
       _messageMonitor.unregister();
     }
+    if (_statusUpdateWriterMonitor != null) {
+      _statusUpdateWriterMonitor.unregister();
+    }
     for (StateTransitionContext cxt : _monitorMap.keySet()) {
       try {
         ObjectName name = getObjectName(cxt.toString());
@@ -159,13 +184,17 @@ public class ParticipantStatusMonitor {
     if (_executorMonitors == null) {
       return;
     }
-    if (!(executor instanceof ThreadPoolExecutor)) {
-      return;
-    }
-
     try {
-      _executorMonitors
-          .put(type, new ThreadPoolExecutorMonitor(type, (ThreadPoolExecutor) executor));
+      if (executor instanceof ThreadPoolExecutor) {
+        _executorMonitors
+            .put(type, new ThreadPoolExecutorMonitor(type, (ThreadPoolExecutor) executor));
+      } else if (executor instanceof MonitoredThreadPool) {
+        _executorMonitors
+            .put(type, new ThreadPoolExecutorMonitor(type, (MonitoredThreadPool) executor));
+      } else {
+        LOG.warn("No ThreadPoolExecutorMonitor for type={}, executor {} is not monitored.", type,
+            executor.getClass().getName());
+      }
     } catch (JMException e) {
       LOG.warn(String.format("Error in creating ThreadPoolExecutorMonitor for type=%s", type), e);
     }
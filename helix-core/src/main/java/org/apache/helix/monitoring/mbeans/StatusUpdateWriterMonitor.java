@@ -0,0 +1,101 @@
+package org.apache.helix.monitoring.mbeans;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.exception.MetricException;
+import org.apache.helix.util.StatusUpdateWriter;
+
+/**
+ * Reports the queued, dropped and written status updates of a {@link StatusUpdateWriter}.
+ */
+public class StatusUpdateWriterMonitor extends DynamicMBeanProvider {
+  private static final String MBEAN_DESCRIPTION = "Helix Status Update Writer Monitor";
+  public static final String STATUS_UPDATE_WRITER_KEY = "StatusUpdateWriter";
+
+  private final String _domainName;
+  private final String _participantName;
+  private final StatusUpdateWriterMetric _writerMetric;
+
+  public StatusUpdateWriterMonitor(String domainName, String participantName,
+      StatusUpdateWriter writer) {
+    _domainName = domainName;
+    _participantName = participantName;
+    _writerMetric = new StatusUpdateWriterMetric(writer);
+  }
+
+  @Override
+  public String getSensorName() {
+    return STATUS_UPDATE_WRITER_KEY;
+  }
+
+  @Override
+  public DynamicMBeanProvider register() throws JMException {
+    doRegister(Collections.<DynamicMetric<?, ?>>singletonList(_writerMetric), MBEAN_DESCRIPTION,
+        _domainName, ParticipantStatusMonitor.PARTICIPANT_KEY, _participantName, "MonitorType",
+        StatusUpdateWriterMonitor.class.getSimpleName());
+    return this;
+  }
+
+  class StatusUpdateWriterMetric extends DynamicMetric<StatusUpdateWriter, StatusUpdateWriter> {
+    StatusUpdateWriterMetric(StatusUpdateWriter writer) {
+      super(STATUS_UPDATE_WRITER_KEY, writer);
+    }
+
+    @Override
+    protected Set<MBeanAttributeInfo> generateAttributeInfos(String metricName,
+        StatusUpdateWriter writer) {
+      Set<MBeanAttributeInfo> attributeInfoSet = new HashSet<>();
+      attributeInfoSet.add(new MBeanAttributeInfo("QueuedStatusUpdateGauge", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("DroppedStatusUpdateCounter",
+          Long.TYPE.getName(), DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("WrittenStatusUpdateCounter",
+          Long.TYPE.getName(), DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      return attributeInfoSet;
+    }
+
+    @Override
+    public Object getAttributeValue(String attributeName) {
+      switch (attributeName) {
+      case "QueuedStatusUpdateGauge":
+        return getMetricObject().getQueuedCount();
+      case "DroppedStatusUpdateCounter":
+        return getMetricObject().getDroppedCount();
+      case "WrittenStatusUpdateCounter":
+        return getMetricObject().getWrittenCount();
+      default:
+        throw new MetricException("Unknown attribute name: " + attributeName);
+      }
+    }
+
+    @Override
+    public void updateValue(StatusUpdateWriter newWriter) {
+      setMetricObject(newWriter);
+    }
+  }
+}
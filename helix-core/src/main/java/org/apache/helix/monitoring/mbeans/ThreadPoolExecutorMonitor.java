@@ -27,10 +27,35 @@ public class ThreadPoolExecutorMonitor implements ThreadPoolExecutorMonitorMBean
   public static final String TYPE = "Type";
 
   private ObjectName _objectName;
-  private ThreadPoolExecutor _executor;
+  private MonitoredThreadPool _executor;
   private String _type;
 
-  public ThreadPoolExecutorMonitor(String type, ThreadPoolExecutor executor)
+  public ThreadPoolExecutorMonitor(String type, final ThreadPoolExecutor executor)
+      throws JMException {
+    this(type, new MonitoredThreadPool() {
+      @Override
+      public int getCorePoolSize() {
+        return executor.getCorePoolSize();
+      }
+
+      @Override
+      public int getMaximumPoolSize() {
+        return executor.getMaximumPoolSize();
+      }
+
+      @Override
+      public int getQueueSize() {
+        return executor.getQueue().size();
+      }
+
+      @Override
+      public int getActiveCount() {
+        return executor.getActiveCount();
+      }
+    });
+  }
+
+  public ThreadPoolExecutorMonitor(String type, MonitoredThreadPool executor)
       throws JMException {
     _type = type;
     _executor = executor;
@@ -60,7 +85,7 @@ public class ThreadPoolExecutorMonitor implements ThreadPoolExecutorMonitorMBean
 
   @Override
   public int getQueueSizeGauge() {
-    return _executor.getQueue().size();
+    return _executor.getQueueSize();
   }
 
   @Override
@@ -0,0 +1,259 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.model.InstanceConfig;
+
+/**
+ * An immutable, array-backed copy of the resource partition assignments of a RoutingTable, for
+ * the lookups on the request path. The resources, partitions, states and instances are interned
+ * to int ids once, then the instances of a {resource, partition, state} are looked up by the ids
+ * without hashing Strings or allocating collections:
+ * <pre>
+ * int resourceId = table.getResourceId("MyDB");
+ * int partitionId = table.getPartitionId(resourceId, "MyDB_0");
+ * int stateId = table.getStateId("MASTER");
+ * for (int i = 0; i < table.getInstanceCount(resourceId, partitionId, stateId); i++) {
+ *   InstanceConfig instance = table.getInstance(resourceId, partitionId, stateId, i);
+ * }
+ * </pre>
+ * The ids are only valid for the table that returns them. The resource groups are not included.
+ */
+public class CompiledRoutingTable {
+  public static final int NOT_FOUND = -1;
+
+  private final Map<String, Integer> _resourceIds;
+  private final String[] _resources;
+  // The partition ids of each resource, indexed by resource id.
+  private final Map<String, Integer>[] _partitionIds;
+  private final String[][] _partitions;
+  private final Map<String, Integer> _stateIds;
+  private final String[] _states;
+  private final Map<String, Integer> _instanceIds;
+  private final InstanceConfig[] _instances;
+
+  // The slots of a resource start at _resourceSlots[resourceId], one slot per partition and
+  // state: slot = _resourceSlots[resourceId] + partitionId * stateCount + stateId.
+  private final int[] _resourceSlots;
+  // The instances of a slot are _slotInstances[_slotStarts[slot] ... _slotStarts[slot + 1] - 1].
+  private final int[] _slotStarts;
+  private final int[] _slotInstances;
+
+  @SuppressWarnings("unchecked")
+  CompiledRoutingTable(Map<String, RoutingTable.ResourceInfo> resourceInfoMap) {
+    List<String> resources = new ArrayList<>(resourceInfoMap.keySet());
+    Collections.sort(resources);
+    _resources = resources.toArray(new String[0]);
+    _resourceIds = indexOf(_resources);
+
+    // Intern the partitions, states and instances.
+    _partitions = new String[_resources.length][];
+    _partitionIds = new Map[_resources.length];
+    List<String> states = new ArrayList<>();
+    Map<String, Integer> stateIds = new HashMap<>();
+    List<InstanceConfig> instances = new ArrayList<>();
+    Map<String, Integer> instanceIds = new HashMap<>();
+    for (int r = 0; r < _resources.length; r++) {
+      RoutingTable.ResourceInfo resourceInfo = resourceInfoMap.get(_resources[r]);
+      List<String> partitions = new ArrayList<>(resourceInfo.partitionInfoMap.keySet());
+      Collections.sort(partitions);
+      _partitions[r] = partitions.toArray(new String[0]);
+      _partitionIds[r] = indexOf(_partitions[r]);
+      for (RoutingTable.PartitionInfo partitionInfo : resourceInfo.partitionInfoMap.values()) {
+        for (Map.Entry<String, List<InstanceConfig>> entry : partitionInfo.stateInfoMap
+            .entrySet()) {
+          if (!stateIds.containsKey(entry.getKey())) {
+            stateIds.put(entry.getKey(), states.size());
+            states.add(entry.getKey());
+          }
+          for (InstanceConfig instance : entry.getValue()) {
+            if (!instanceIds.containsKey(instance.getId())) {
+              instanceIds.put(instance.getId(), instances.size());
+              instances.add(instance);
+            }
+          }
+        }
+      }
+    }
+    _states = states.toArray(new String[0]);
+    _stateIds = stateIds;
+    _instances = instances.toArray(new InstanceConfig[0]);
+    _instanceIds = instanceIds;
+
+    // Lay out the instances of the slots.
+    _resourceSlots = new int[_resources.length + 1];
+    for (int r = 0; r < _resources.length; r++) {
+      _resourceSlots[r + 1] = _resourceSlots[r] + _partitions[r].length * _states.length;
+    }
+    int slotCount = _resourceSlots[_resources.length];
+    int[] slotSizes = new int[slotCount];
+    int instanceCount = 0;
+    for (int r = 0; r < _resources.length; r++) {
+      RoutingTable.ResourceInfo resourceInfo = resourceInfoMap.get(_resources[r]);
+      for (int p = 0; p < _partitions[r].length; p++) {
+        RoutingTable.PartitionInfo partitionInfo = resourceInfo.get(_partitions[r][p]);
+        for (Map.Entry<String, List<InstanceConfig>> entry : partitionInfo.stateInfoMap
+            .entrySet()) {
+          int size = entry.getValue().size();
+          slotSizes[slot(r, p, _stateIds.get(entry.getKey()))] = size;
+          instanceCount += size;
+        }
+      }
+    }
+    _slotStarts = new int[slotCount + 1];
+    for (int slot = 0; slot < slotCount; slot++) {
+      _slotStarts[slot + 1] = _slotStarts[slot] + slotSizes[slot];
+    }
+    _slotInstances = new int[instanceCount];
+    for (int r = 0; r < _resources.length; r++) {
+      RoutingTable.ResourceInfo resourceInfo = resourceInfoMap.get(_resources[r]);
+      for (int p = 0; p < _partitions[r].length; p++) {
+        RoutingTable.PartitionInfo partitionInfo = resourceInfo.get(_partitions[r][p]);
+        for (Map.Entry<String, List<InstanceConfig>> entry : partitionInfo.stateInfoMap
+            .entrySet()) {
+          int index = _slotStarts[slot(r, p, _stateIds.get(entry.getKey()))];
+          for (InstanceConfig instance : entry.getValue()) {
+            _slotInstances[index++] = _instanceIds.get(instance.getId());
+          }
+        }
+      }
+    }
+  }
+
+  private static Map<String, Integer> indexOf(String[] names) {
+    Map<String, Integer> ids = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      ids.put(names[i], i);
+    }
+    return ids;
+  }
+
+  private static int idOf(Map<String, Integer> ids, String name) {
+    Integer id = ids.get(name);
+    return id == null ? NOT_FOUND : id;
+  }
+
+  private int slot(int resourceId, int partitionId, int stateId) {
+    return _resourceSlots[resourceId] + partitionId * _states.length + stateId;
+  }
+
+  /**
+   * @return the id of the resource, or NOT_FOUND if the resource is not in the table
+   */
+  public int getResourceId(String resourceName) {
+    return idOf(_resourceIds, resourceName);
+  }
+
+  /**
+   * @return the id of the partition in the resource, or NOT_FOUND if the partition is not in the
+   *         resource
+   */
+  public int getPartitionId(int resourceId, String partitionName) {
+    return idOf(_partitionIds[resourceId], partitionName);
+  }
+
+  /**
+   * @return the id of the state, or NOT_FOUND if no partition is in the state
+   */
+  public int getStateId(String state) {
+    return idOf(_stateIds, state);
+  }
+
+  /**
+   * @return the id of the instance, or NOT_FOUND if the instance holds no partition
+   */
+  public int getInstanceId(String instanceName) {
+    return idOf(_instanceIds, instanceName);
+  }
+
+  public int getResourceCount() {
+    return _resources.length;
+  }
+
+  /**
+   * @return the number of the partitions of the resource, the partition ids are 0 to count - 1 in
+   *         the order of the partition names
+   */
+  public int getPartitionCount(int resourceId) {
+    return _partitions[resourceId].length;
+  }
+
+  public int getStateCount() {
+    return _states.length;
+  }
+
+  public int getInstanceCount() {
+    return _instances.length;
+  }
+
+  public String getResourceName(int resourceId) {
+    return _resources[resourceId];
+  }
+
+  public String getPartitionName(int resourceId, int partitionId) {
+    return _partitions[resourceId][partitionId];
+  }
+
+  public String getState(int stateId) {
+    return _states[stateId];
+  }
+
+  public InstanceConfig getInstanceConfig(int instanceId) {
+    return _instances[instanceId];
+  }
+
+  /**
+   * @return the number of the instances of the {resource, partition} that are in the state
+   */
+  public int getInstanceCount(int resourceId, int partitionId, int stateId) {
+    int slot = slot(resourceId, partitionId, stateId);
+    return _slotStarts[slot + 1] - _slotStarts[slot];
+  }
+
+  /**
+   * @param index the index of the instance in the state, from 0 to
+   *          {@link #getInstanceCount(int, int, int)} - 1
+   * @return the instance id of the index-th instance of the {resource, partition} that is in the
+   *         state
+   */
+  public int getInstanceId(int resourceId, int partitionId, int stateId, int index) {
+    int slot = slot(resourceId, partitionId, stateId);
+    int position = _slotStarts[slot] + index;
+    if (index < 0 || position >= _slotStarts[slot + 1]) {
+      throw new IndexOutOfBoundsException(
+          "Index: " + index + ", Size: " + (_slotStarts[slot + 1] - _slotStarts[slot]));
+    }
+    return _slotInstances[position];
+  }
+
+  /**
+   * @return the config of the index-th instance of the {resource, partition} that is in the state
+   */
+  public InstanceConfig getInstance(int resourceId, int partitionId, int stateId, int index) {
+    return _instances[getInstanceId(resourceId, partitionId, stateId, index)];
+  }
+}
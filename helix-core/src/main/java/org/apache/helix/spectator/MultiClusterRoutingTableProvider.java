@@ -0,0 +1,213 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.helix.HelixException;
+import org.apache.helix.HelixManager;
+import org.apache.helix.HelixManagerProperty;
+import org.apache.helix.InstanceType;
+import org.apache.helix.PropertyType;
+import org.apache.helix.manager.zk.ZKHelixManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the resources of multiple clusters with a RoutingTableProvider per cluster. The providers
+ * share the threads and the ZK connections instead of owning them:
+ * <ul>
+ * <li>The SPECTATOR HelixManagers of the clusters share one ZK connection per ZK realm.</li>
+ * <li>The router update events of all the clusters are handled by one bounded thread pool. The
+ * events of a cluster are still handled one at a time.</li>
+ * <li>One scheduler thread runs the periodic refreshes and the latency reports.</li>
+ * </ul>
+ * The RoutingTableProviderMonitor metrics are reported per cluster as usual.
+ */
+public class MultiClusterRoutingTableProvider {
+  private static final Logger LOG = LoggerFactory.getLogger(MultiClusterRoutingTableProvider.class);
+  private static final long DEFAULT_PERIODIC_REFRESH_INTERVAL = 300000L; // 5 minutes
+
+  private final long _periodRefreshInterval;
+  private final ScheduledExecutorService _scheduler;
+  private final ExecutorService _eventExecutor;
+  private final Map<String, RoutingTableProvider> _providers = new ConcurrentHashMap<>();
+  private final Map<String, HelixManager> _helixManagers = new ConcurrentHashMap<>();
+
+  public MultiClusterRoutingTableProvider(int eventThreadCount) {
+    this(eventThreadCount, DEFAULT_PERIODIC_REFRESH_INTERVAL);
+  }
+
+  /**
+   * @param eventThreadCount the number of threads to handle the router update events of all the
+   *          clusters
+   * @param periodRefreshInterval the interval of the periodic refresh in ms, 0 to disable it
+   */
+  public MultiClusterRoutingTableProvider(int eventThreadCount, long periodRefreshInterval) {
+    if (eventThreadCount <= 0) {
+      throw new IllegalArgumentException(
+          "The event thread count must be positive: " + eventThreadCount);
+    }
+    _periodRefreshInterval = periodRefreshInterval;
+    _scheduler = Executors.newSingleThreadScheduledExecutor(
+        createThreadFactory("MultiClusterRoutingTableProvider-scheduler"));
+    _eventExecutor = Executors.newFixedThreadPool(eventThreadCount,
+        createThreadFactory("MultiClusterRoutingTableProvider-event_process"));
+  }
+
+  private static ThreadFactory createThreadFactory(final String threadNamePrefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger _threadIndex = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, threadNamePrefix + "-" + _threadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  /**
+   * Start routing the cluster by its ExternalViews.
+   * @param clusterName the name of the cluster
+   * @param zkAddress the address of the ZK of the cluster, null to resolve the ZK realm by the
+   *          cluster name in the multi-ZK mode
+   */
+  public void addCluster(String clusterName, String zkAddress) throws Exception {
+    addCluster(clusterName, zkAddress,
+        ImmutableMap.of(PropertyType.EXTERNALVIEW, Collections.<String> emptyList()));
+  }
+
+  /**
+   * Start routing the cluster.
+   * @param clusterName the name of the cluster
+   * @param zkAddress the address of the ZK of the cluster, null to resolve the ZK realm by the
+   *          cluster name in the multi-ZK mode
+   * @param sourceDataTypeMap the sources of the routing tables, see RoutingTableProvider
+   */
+  public synchronized void addCluster(String clusterName, String zkAddress,
+      Map<PropertyType, List<String>> sourceDataTypeMap) throws Exception {
+    if (_providers.containsKey(clusterName)) {
+      throw new HelixException("Cluster " + clusterName + " is already routed.");
+    }
+    HelixManager helixManager = createHelixManager(clusterName, zkAddress);
+    helixManager.connect();
+    try {
+      RoutingTableProvider provider = new RoutingTableProvider(helixManager, sourceDataTypeMap,
+          _periodRefreshInterval > 0, _periodRefreshInterval, null, _scheduler, _eventExecutor);
+      _helixManagers.put(clusterName, helixManager);
+      _providers.put(clusterName, provider);
+    } catch (RuntimeException e) {
+      helixManager.disconnect();
+      throw e;
+    }
+    LOG.info("Start routing cluster {}.", clusterName);
+  }
+
+  /**
+   * Create the SPECTATOR HelixManager of the cluster, which shares the ZK connection with the
+   * other clusters of the same ZK realm.
+   */
+  HelixManager createHelixManager(String clusterName, String zkAddress) {
+    HelixManagerProperty helixManagerProperty =
+        new HelixManagerProperty.Builder().setZkConnectionShared(true).build();
+    return new ZKHelixManager(clusterName, null, InstanceType.SPECTATOR, zkAddress, null,
+        helixManagerProperty);
+  }
+
+  /**
+   * Stop routing the cluster.
+   * @return true if the cluster was routed
+   */
+  public synchronized boolean removeCluster(String clusterName) {
+    RoutingTableProvider provider = _providers.remove(clusterName);
+    if (provider == null) {
+      return false;
+    }
+    try {
+      provider.shutdown();
+    } finally {
+      _helixManagers.remove(clusterName).disconnect();
+    }
+    LOG.info("Stop routing cluster {}.", clusterName);
+    return true;
+  }
+
+  /**
+   * @return the names of the routed clusters
+   */
+  public Set<String> getClusters() {
+    return Collections.unmodifiableSet(_providers.keySet());
+  }
+
+  /**
+   * @return the RoutingTableProvider of the cluster, which must not be shut down by the caller
+   */
+  public RoutingTableProvider getRoutingTableProvider(String clusterName) {
+    RoutingTableProvider provider = _providers.get(clusterName);
+    if (provider == null) {
+      throw new HelixException("Cluster " + clusterName + " is not routed.");
+    }
+    return provider;
+  }
+
+  /**
+   * @return the snapshot of the routing table of the cluster
+   */
+  public RoutingTableSnapshot getRoutingTableSnapshot(String clusterName) {
+    return getRoutingTableProvider(clusterName).getRoutingTableSnapshot();
+  }
+
+  /**
+   * @return the snapshot of the routing table of the cluster for the PropertyType
+   */
+  public RoutingTableSnapshot getRoutingTableSnapshot(String clusterName,
+      PropertyType propertyType) {
+    return getRoutingTableProvider(clusterName).getRoutingTableSnapshot(propertyType);
+  }
+
+  /**
+   * Stop routing all the clusters and release the threads. It should never be reused.
+   */
+  public synchronized void shutdown() {
+    for (String clusterName : new ArrayList<>(_providers.keySet())) {
+      try {
+        removeCluster(clusterName);
+      } catch (Exception e) {
+        LOG.warn("Failed to stop routing cluster {}.", clusterName, e);
+      }
+    }
+    _scheduler.shutdownNow();
+    _eventExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,217 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.helix.PropertyType;
+import org.apache.helix.api.listeners.RoutingTableChangeListener;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.util.JenkinsHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the keys of a resource to the instances that hold the key's partition in a given state.
+ * The partition of a key is the key hash modulo the partition count, and the partitions are
+ * named {resource}_{partition id}. The replicas of all the partitions are precomputed into an
+ * array whenever the routing table changes, so a request is routed by an array lookup without
+ * looking up maps or composing the partition name.
+ * <pre>
+ * PartitionRouter router = new PartitionRouter(routingTableProvider, "MyDB", 64, "MASTER");
+ * InstanceConfig instance = router.route(key);
+ * </pre>
+ * The router registers itself as a RoutingTableChangeListener of the RoutingTableProvider, call
+ * {@link #close()} to remove it.
+ */
+public class PartitionRouter implements RoutingTableChangeListener {
+  private static final Logger LOG = LoggerFactory.getLogger(PartitionRouter.class);
+
+  /**
+   * Hashes a key to a partition.
+   */
+  public interface KeyHashFunction {
+    long hash(String key);
+  }
+
+  /**
+   * The Jenkins hash of the String hash code of the key.
+   */
+  public static final KeyHashFunction JENKINS_HASH = new KeyHashFunction() {
+    private final JenkinsHash _jenkinsHash = new JenkinsHash();
+
+    @Override
+    public long hash(String key) {
+      return _jenkinsHash.hash(key.hashCode() & 0xFFFFFFFFL);
+    }
+  };
+
+  private static final InstanceConfig[] NO_REPLICA = new InstanceConfig[0];
+
+  private final RoutingTableProvider _routingTableProvider;
+  private final PropertyType _propertyType;
+  private final String _resourceName;
+  private final int _partitionCount;
+  private final String _state;
+  private final KeyHashFunction _hashFunction;
+  private final ReplicaSelectionPolicy _replicaSelectionPolicy;
+  // The replicas of each partition, indexed by partition id.
+  private volatile InstanceConfig[][] _replicas;
+  private volatile List<InstanceConfig>[] _replicaLists;
+
+  /**
+   * Route the keys with the Jenkins hash to a random replica, by the routing table of the default
+   * property type of the provider.
+   */
+  public PartitionRouter(RoutingTableProvider routingTableProvider, String resourceName,
+      int partitionCount, String state) {
+    this(routingTableProvider, routingTableProvider.getRoutingTableSnapshot().getPropertyType(),
+        resourceName, partitionCount, state, JENKINS_HASH,
+        new ReplicaSelectionPolicy.RandomPolicy());
+  }
+
+  /**
+   * @param routingTableProvider the provider of the routing table
+   * @param propertyType the source of the routing table, CustomizedView is not supported
+   * @param resourceName the name of the resource
+   * @param partitionCount the number of the partitions of the resource
+   * @param state the state of the replicas that the keys are routed to
+   * @param hashFunction hashes the keys to the partitions
+   * @param replicaSelectionPolicy selects a replica of the partition for a key
+   */
+  public PartitionRouter(RoutingTableProvider routingTableProvider, PropertyType propertyType,
+      String resourceName, int partitionCount, String state, KeyHashFunction hashFunction,
+      ReplicaSelectionPolicy replicaSelectionPolicy) {
+    if (partitionCount <= 0) {
+      throw new IllegalArgumentException("The partition count must be positive: " + partitionCount);
+    }
+    if (propertyType == PropertyType.CUSTOMIZEDVIEW) {
+      throw new IllegalArgumentException("CustomizedView is not supported by PartitionRouter.");
+    }
+    _routingTableProvider = routingTableProvider;
+    _propertyType = propertyType;
+    _resourceName = resourceName;
+    _partitionCount = partitionCount;
+    _state = state;
+    _hashFunction = hashFunction;
+    _replicaSelectionPolicy = replicaSelectionPolicy;
+
+    _routingTableProvider.addRoutingTableChangeListener(this, null);
+    // The changes before the listener is added are not notified, so read the latest table after.
+    refresh(_routingTableProvider.getRoutingTableSnapshot(_propertyType));
+  }
+
+  @Override
+  public void onRoutingTableChange(RoutingTableSnapshot routingTableSnapshot, Object context) {
+    if (routingTableSnapshot.getPropertyType() == _propertyType) {
+      refresh(routingTableSnapshot);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized void refresh(RoutingTableSnapshot routingTableSnapshot) {
+    CompiledRoutingTable routingTable = routingTableSnapshot.getCompiledRoutingTable();
+    InstanceConfig[][] replicas = new InstanceConfig[_partitionCount][];
+    List<InstanceConfig>[] replicaLists = new List[_partitionCount];
+    int resourceId = routingTable.getResourceId(_resourceName);
+    int stateId = routingTable.getStateId(_state);
+    int missingPartitionCount = 0;
+    for (int p = 0; p < _partitionCount; p++) {
+      int partitionId = resourceId == CompiledRoutingTable.NOT_FOUND
+          ? CompiledRoutingTable.NOT_FOUND
+          : routingTable.getPartitionId(resourceId, getPartitionName(p));
+      if (partitionId == CompiledRoutingTable.NOT_FOUND
+          || stateId == CompiledRoutingTable.NOT_FOUND) {
+        replicas[p] = NO_REPLICA;
+      } else {
+        replicas[p] = new InstanceConfig[routingTable.getInstanceCount(resourceId, partitionId,
+            stateId)];
+        for (int i = 0; i < replicas[p].length; i++) {
+          replicas[p][i] = routingTable.getInstance(resourceId, partitionId, stateId, i);
+        }
+      }
+      if (replicas[p].length == 0) {
+        missingPartitionCount++;
+      }
+      replicaLists[p] = Collections.unmodifiableList(Arrays.asList(replicas[p]));
+    }
+    if (missingPartitionCount > 0) {
+      LOG.warn("{} of {} partitions of resource {} have no replica in state {}.",
+          missingPartitionCount, _partitionCount, _resourceName, _state);
+    }
+    _replicaLists = replicaLists;
+    _replicas = replicas;
+  }
+
+  private String getPartitionName(int partitionId) {
+    return _resourceName + "_" + partitionId;
+  }
+
+  /**
+   * @return the id of the partition of the key
+   */
+  public int getPartition(String key) {
+    return (int) ((_hashFunction.hash(key) & Long.MAX_VALUE) % _partitionCount);
+  }
+
+  /**
+   * @return the replicas of the partition that are in the state, empty if there is none
+   */
+  public List<InstanceConfig> getInstances(int partitionId) {
+    return _replicaLists[partitionId];
+  }
+
+  /**
+   * @return the replicas of the key's partition that are in the state, empty if there is none
+   */
+  public List<InstanceConfig> getInstances(String key) {
+    return getInstances(getPartition(key));
+  }
+
+  /**
+   * @return the replica selected by the ReplicaSelectionPolicy from the replicas of the key's
+   *         partition that are in the state, or null if there is none
+   */
+  public InstanceConfig route(String key) {
+    int partitionId = getPartition(key);
+    InstanceConfig[] replicas = _replicas[partitionId];
+    if (replicas.length == 0) {
+      return null;
+    }
+    return replicas[_replicaSelectionPolicy.select(partitionId, replicas)];
+  }
+
+  /**
+   * Report a failed request to the instance to the ReplicaSelectionPolicy.
+   */
+  public void reportFailure(InstanceConfig instance) {
+    _replicaSelectionPolicy.reportFailure(instance.getInstanceName());
+  }
+
+  /**
+   * Stop following the routing table changes.
+   */
+  public void close() {
+    _routingTableProvider.removeRoutingTableChangeListener(this);
+  }
+}
@@ -0,0 +1,106 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.model.InstanceConfig;
+
+/**
+ * Selects one of the replicas of a partition to send a request to. Used by the PartitionRouter.
+ */
+public interface ReplicaSelectionPolicy {
+  /**
+   * Select a replica of the partition.
+   * @param partitionId the id of the partition
+   * @param replicas the replicas of the partition, not empty
+   * @return the index of the selected replica in the replicas
+   */
+  int select(int partitionId, InstanceConfig[] replicas);
+
+  /**
+   * Report a failed request to the instance.
+   * @param instanceName the name of the instance
+   */
+  default void reportFailure(String instanceName) {
+  }
+
+  /**
+   * Selects a random replica.
+   */
+  class RandomPolicy implements ReplicaSelectionPolicy {
+    @Override
+    public int select(int partitionId, InstanceConfig[] replicas) {
+      return replicas.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(replicas.length);
+    }
+  }
+
+  /**
+   * Selects the replicas in turn.
+   */
+  class RoundRobinPolicy implements ReplicaSelectionPolicy {
+    private final AtomicInteger _counter = new AtomicInteger();
+
+    @Override
+    public int select(int partitionId, InstanceConfig[] replicas) {
+      return (_counter.getAndIncrement() & Integer.MAX_VALUE) % replicas.length;
+    }
+  }
+
+  /**
+   * Selects the replica that has not failed, or failed the least recently. The replicas that have
+   * not failed are selected at random.
+   */
+  class LeastRecentlyFailedPolicy implements ReplicaSelectionPolicy {
+    // instance name -> the time of the last failure in ms
+    private final Map<String, Long> _lastFailureTimes = new ConcurrentHashMap<>();
+
+    @Override
+    public int select(int partitionId, InstanceConfig[] replicas) {
+      if (_lastFailureTimes.isEmpty()) {
+        return replicas.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(replicas.length);
+      }
+      int start = ThreadLocalRandom.current().nextInt(replicas.length);
+      int selected = start;
+      long selectedFailureTime = Long.MAX_VALUE;
+      for (int i = 0; i < replicas.length; i++) {
+        int index = (start + i) % replicas.length;
+        Long failureTime = _lastFailureTimes.get(replicas[index].getInstanceName());
+        if (failureTime == null) {
+          return index;
+        }
+        if (failureTime < selectedFailureTime) {
+          selected = index;
+          selectedFailureTime = failureTime;
+        }
+      }
+      return selected;
+    }
+
+    @Override
+    public void reportFailure(String instanceName) {
+      _lastFailureTimes.put(instanceName, System.currentTimeMillis());
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 import org.apache.helix.HelixConstants;
 import org.apache.helix.HelixDataAccessor;
@@ -76,6 +77,22 @@ class RoutingDataCache extends BasicClusterDataCache {
     requireFullRefresh();
   }
 
+  /**
+   * Only read and cache the ExternalViews, TargetExternalViews, CurrentStates and CustomizedViews
+   * of the resources that match the filter. A full refresh is required for the change to take
+   * effect.
+   * @param resourceFilter tests the resource names, null for all the resources
+   */
+  public synchronized void setResourceFilter(Predicate<String> resourceFilter) {
+    _externalViewCache.setResourceFilter(resourceFilter);
+    _targetExternalViewCache.setResourceFilter(resourceFilter);
+    _currentStateCache.setResourceFilter(resourceFilter);
+    for (CustomizedViewCache customizedViewCache : _customizedViewCaches.values()) {
+      customizedViewCache.setResourceFilter(resourceFilter);
+    }
+    requireFullRefresh();
+  }
+
   /**
    * This refreshes the cluster data by re-fetching the data from zookeeper in an efficient way
    *
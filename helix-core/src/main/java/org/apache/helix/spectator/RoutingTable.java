@@ -25,11 +25,14 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyType;
 import org.apache.helix.model.CurrentState;
 import org.apache.helix.model.ExternalView;
@@ -54,8 +57,14 @@ class RoutingTable {
   private final Collection<LiveInstance> _liveInstances;
   protected final Collection<InstanceConfig> _instanceConfigs;
   private final Collection<ExternalView> _externalViews;
+  // The current states of the live sessions that the table is built from, instance name ->
+  // resource name -> current state. Empty if the table is not built from the current states.
+  private final Map<String, Map<String, CurrentState>> _currentStates;
 
   private final PropertyType _propertyType;
+  // Compiled on the first lookup, or by the RoutingTableProvider before the table is published if
+  // the previous table is compiled. The table is not modified after it is built.
+  private volatile CompiledRoutingTable _compiledRoutingTable;
 
   @Deprecated
   public RoutingTable() {
@@ -81,6 +90,47 @@ class RoutingTable {
     refresh(currentStateMap);
   }
 
+  /**
+   * Build the RoutingTable of the current states from the previous RoutingTable. The routing
+   * entries of the resources whose current states are not changed are shared with the previous
+   * table, and only the changed resources are rebuilt. The entries are not modified after the
+   * table is built, so the snapshots of the previous table are not affected.
+   */
+  RoutingTable(RoutingTable previous,
+      Map<String, Map<String, Map<String, CurrentState>>> currentStateMap,
+      Collection<InstanceConfig> instanceConfigs, Collection<LiveInstance> liveInstances) {
+    this(Collections.<ExternalView> emptyList(), instanceConfigs, liveInstances,
+        PropertyType.CURRENTSTATES);
+    if (canRefreshIncrementally(previous)) {
+      refreshIncrementally(previous, currentStateMap);
+    } else {
+      refresh(currentStateMap);
+    }
+  }
+
+  /**
+   * Build the RoutingTable of the ExternalViews from the previous RoutingTable. The routing
+   * entries of the resources whose ExternalView is not changed, and of the resource groups whose
+   * ExternalViews are not changed, are shared with the previous table. Only the changed resources
+   * and resource groups are rebuilt.
+   */
+  RoutingTable(RoutingTable previous, Collection<ExternalView> externalViews,
+      Collection<InstanceConfig> instanceConfigs, Collection<LiveInstance> liveInstances,
+      PropertyType propertyType) {
+    _propertyType = propertyType;
+    _resourceInfoMap = new HashMap<>();
+    _resourceGroupInfoMap = new HashMap<>();
+    _liveInstances = new HashSet<>(liveInstances);
+    _instanceConfigs = new HashSet<>(instanceConfigs);
+    _externalViews = new HashSet<>(externalViews);
+    _currentStates = new HashMap<>();
+    if (canRefreshIncrementally(previous)) {
+      refreshIncrementally(previous);
+    } else {
+      refresh(_externalViews);
+    }
+  }
+
   public RoutingTable(Collection<ExternalView> externalViews,
       Collection<InstanceConfig> instanceConfigs, Collection<LiveInstance> liveInstances) {
     this(externalViews, instanceConfigs, liveInstances,
@@ -96,75 +146,236 @@ class RoutingTable {
     _liveInstances = new HashSet<>(liveInstances);
     _instanceConfigs = new HashSet<>(instanceConfigs);
     _externalViews = new HashSet<>(externalViews);
+    _currentStates = new HashMap<>();
     refresh(_externalViews);
   }
 
-  private void refresh(Collection<ExternalView> externalViewList) {
+  private Map<String, InstanceConfig> getInstanceConfigMap() {
     Map<String, InstanceConfig> instanceConfigMap = new HashMap<>();
+    for (InstanceConfig config : _instanceConfigs) {
+      instanceConfigMap.put(config.getId(), config);
+    }
+    return instanceConfigMap;
+  }
+
+  private void refresh(Collection<ExternalView> externalViewList) {
     if (externalViewList != null && !externalViewList.isEmpty()) {
-      for (InstanceConfig config : _instanceConfigs) {
-        instanceConfigMap.put(config.getId(), config);
-      }
+      Map<String, InstanceConfig> instanceConfigMap = getInstanceConfigMap();
       for (ExternalView extView : externalViewList) {
-        String resourceName = extView.getId();
-        for (String partitionName : extView.getPartitionSet()) {
-          Map<String, String> stateMap = extView.getStateMap(partitionName);
-          for (String instanceName : stateMap.keySet()) {
-            String currentState = stateMap.get(instanceName);
-            if (instanceConfigMap.containsKey(instanceName)) {
-              InstanceConfig instanceConfig = instanceConfigMap.get(instanceName);
-              if (extView.isGroupRoutingEnabled()) {
-                addEntry(resourceName, extView.getResourceGroupName(),
-                    extView.getInstanceGroupTag(), partitionName, currentState, instanceConfig);
-              } else {
-                addEntry(resourceName, partitionName, currentState, instanceConfig);
-              }
-            } else {
-              logger.warn(
-                  "Participant {} is not found with proper configuration information. It might already be removed from the cluster. "
-                      + "Skip recording partition assignment entry: Partition {}, Participant {}, State {}.",
-                  instanceName, partitionName, instanceName, stateMap.get(instanceName));
-            }
+        addEntries(extView, instanceConfigMap, true, true);
+      }
+    }
+  }
+
+  /**
+   * Add the entries of the ExternalView to the resource, or to the resource group if the group
+   * routing is enabled, or both.
+   */
+  private void addEntries(ExternalView extView, Map<String, InstanceConfig> instanceConfigMap,
+      boolean addResourceEntries, boolean addResourceGroupEntries) {
+    String resourceName = extView.getId();
+    boolean addGroupEntries = addResourceGroupEntries && extView.isGroupRoutingEnabled();
+    for (String partitionName : extView.getPartitionSet()) {
+      Map<String, String> stateMap = extView.getStateMap(partitionName);
+      for (String instanceName : stateMap.keySet()) {
+        String currentState = stateMap.get(instanceName);
+        if (instanceConfigMap.containsKey(instanceName)) {
+          InstanceConfig instanceConfig = instanceConfigMap.get(instanceName);
+          if (addResourceEntries) {
+            addEntry(resourceName, partitionName, currentState, instanceConfig);
           }
+          if (addGroupEntries) {
+            addResourceGroupEntry(extView.getResourceGroupName(), extView.getInstanceGroupTag(),
+                partitionName, currentState, instanceConfig);
+          }
+        } else if (addResourceEntries) {
+          logger.warn(
+              "Participant {} is not found with proper configuration information. It might already be removed from the cluster. "
+                  + "Skip recording partition assignment entry: Partition {}, Participant {}, State {}.",
+              instanceName, partitionName, instanceName, stateMap.get(instanceName));
         }
       }
     }
   }
 
   private void refresh(Map<String, Map<String, Map<String, CurrentState>>> currentStateMap) {
-    Map<String, InstanceConfig> instanceConfigMap = new HashMap<>();
     if (currentStateMap != null && !currentStateMap.isEmpty()) {
-      for (InstanceConfig config : _instanceConfigs) {
-        instanceConfigMap.put(config.getId(), config);
+      _currentStates.putAll(getLiveCurrentStates(currentStateMap));
+      Map<String, InstanceConfig> instanceConfigMap = getInstanceConfigMap();
+      for (Map.Entry<String, Map<String, CurrentState>> entry : _currentStates.entrySet()) {
+        addEntries(entry.getValue().values(), instanceConfigMap.get(entry.getKey()), null);
       }
-      for (LiveInstance liveInstance : _liveInstances) {
-        String instanceName = liveInstance.getInstanceName();
-        String sessionId = liveInstance.getEphemeralOwner();
-        InstanceConfig instanceConfig = instanceConfigMap.get(instanceName);
-        if (instanceConfig == null) {
-          logger.warn(
-              "Participant {} is not found with proper configuration information. It might already be removed from the cluster. "
-                  + "Skip recording partition assignments that are related to this instance.",
-              instanceName);
-          continue;
-        }
+    }
+  }
 
-        Map<String, CurrentState> currentStates = Collections.emptyMap();
-        if (currentStateMap.containsKey(instanceName)
-            && currentStateMap.get(instanceName).containsKey(sessionId)) {
-          currentStates = currentStateMap.get(instanceName).get(sessionId);
+  /**
+   * @return the current states of the live sessions of the instances that have a config,
+   *         instance name -> resource name -> current state
+   */
+  private Map<String, Map<String, CurrentState>> getLiveCurrentStates(
+      Map<String, Map<String, Map<String, CurrentState>>> currentStateMap) {
+    Map<String, InstanceConfig> instanceConfigMap = getInstanceConfigMap();
+    Map<String, Map<String, CurrentState>> liveCurrentStates = new LinkedHashMap<>();
+    for (LiveInstance liveInstance : _liveInstances) {
+      String instanceName = liveInstance.getInstanceName();
+      String sessionId = liveInstance.getEphemeralOwner();
+      InstanceConfig instanceConfig = instanceConfigMap.get(instanceName);
+      if (instanceConfig == null) {
+        logger.warn(
+            "Participant {} is not found with proper configuration information. It might already be removed from the cluster. "
+                + "Skip recording partition assignments that are related to this instance.",
+            instanceName);
+        continue;
+      }
+
+      Map<String, CurrentState> currentStates = Collections.emptyMap();
+      if (currentStateMap.containsKey(instanceName)
+          && currentStateMap.get(instanceName).containsKey(sessionId)) {
+        currentStates = currentStateMap.get(instanceName).get(sessionId);
+      }
+      liveCurrentStates.put(instanceName, currentStates);
+    }
+    return liveCurrentStates;
+  }
+
+  /**
+   * Add the entries of the current states of an instance.
+   * @param resources only the current states of these resources are added, null for all
+   */
+  private void addEntries(Collection<CurrentState> currentStates, InstanceConfig instanceConfig,
+      Set<String> resources) {
+    for (CurrentState currentState : currentStates) {
+      String resourceName = currentState.getResourceName();
+      if (resources != null && !resources.contains(resourceName)) {
+        continue;
+      }
+      Map<String, String> stateMap = currentState.getPartitionStateMap();
+
+      for (String partitionName : stateMap.keySet()) {
+        String state = stateMap.get(partitionName);
+        addEntry(resourceName, partitionName, state, instanceConfig);
+      }
+    }
+  }
+
+  /**
+   * The entries of the previous table can be reused if they are built from the same source type
+   * and the same instance configs, because the entries hold the instance configs.
+   */
+  private boolean canRefreshIncrementally(RoutingTable previous) {
+    if (previous == null || previous._propertyType != _propertyType
+        || previous._instanceConfigs.size() != _instanceConfigs.size()) {
+      return false;
+    }
+    Map<InstanceConfig, Boolean> previousConfigs = new IdentityHashMap<>();
+    for (InstanceConfig config : previous._instanceConfigs) {
+      previousConfigs.put(config, Boolean.TRUE);
+    }
+    for (InstanceConfig config : _instanceConfigs) {
+      if (!previousConfigs.containsKey(config)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the two properties are the same version of the same znode
+   */
+  private static boolean isUnchanged(HelixProperty previous, HelixProperty current) {
+    if (previous == current) {
+      return true;
+    }
+    if (previous == null || current == null) {
+      return false;
+    }
+    HelixProperty.Stat stat = current.getStat();
+    // The properties that are not read from ZK have no stat.
+    return stat != null && stat.getModifiedTime() > 0 && stat.equals(previous.getStat());
+  }
+
+  private void refreshIncrementally(RoutingTable previous) {
+    Map<String, ExternalView> previousViews = new HashMap<>();
+    for (ExternalView extView : previous._externalViews) {
+      previousViews.put(extView.getId(), extView);
+    }
+    Map<String, InstanceConfig> instanceConfigMap = getInstanceConfigMap();
+    Set<String> changedGroups = new HashSet<>();
+    for (ExternalView extView : _externalViews) {
+      String resourceName = extView.getId();
+      ExternalView previousView = previousViews.remove(resourceName);
+      if (isUnchanged(previousView, extView)) {
+        ResourceInfo resourceInfo = previous._resourceInfoMap.get(resourceName);
+        if (resourceInfo != null) {
+          _resourceInfoMap.put(resourceName, resourceInfo);
         }
+        continue;
+      }
+      addEntries(extView, instanceConfigMap, true, false);
+      if (extView.isGroupRoutingEnabled()) {
+        changedGroups.add(extView.getResourceGroupName());
+      }
+      if (previousView != null && previousView.isGroupRoutingEnabled()) {
+        changedGroups.add(previousView.getResourceGroupName());
+      }
+    }
+    // The ExternalViews that are removed
+    for (ExternalView previousView : previousViews.values()) {
+      if (previousView.isGroupRoutingEnabled()) {
+        changedGroups.add(previousView.getResourceGroupName());
+      }
+    }
 
-        for (CurrentState currentState : currentStates.values()) {
-          String resourceName = currentState.getResourceName();
-          Map<String, String> stateMap = currentState.getPartitionStateMap();
+    // A resource group aggregates its resources, so a changed group is rebuilt from all of them.
+    for (ExternalView extView : _externalViews) {
+      if (extView.isGroupRoutingEnabled()
+          && changedGroups.contains(extView.getResourceGroupName())) {
+        addEntries(extView, instanceConfigMap, false, true);
+      }
+    }
+    for (Map.Entry<String, ResourceGroupInfo> entry : previous._resourceGroupInfoMap.entrySet()) {
+      if (!changedGroups.contains(entry.getKey())) {
+        _resourceGroupInfoMap.put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
 
-          for (String partitionName : stateMap.keySet()) {
-            String state = stateMap.get(partitionName);
-            addEntry(resourceName, partitionName, state, instanceConfig);
-          }
+  private void refreshIncrementally(RoutingTable previous,
+      Map<String, Map<String, Map<String, CurrentState>>> currentStateMap) {
+    if (currentStateMap != null && !currentStateMap.isEmpty()) {
+      _currentStates.putAll(getLiveCurrentStates(currentStateMap));
+    }
+    Set<String> changedResources = new HashSet<>();
+    Set<String> instanceNames = new HashSet<>(_currentStates.keySet());
+    instanceNames.addAll(previous._currentStates.keySet());
+    for (String instanceName : instanceNames) {
+      Map<String, CurrentState> currentStates =
+          _currentStates.getOrDefault(instanceName, Collections.emptyMap());
+      Map<String, CurrentState> previousStates =
+          previous._currentStates.getOrDefault(instanceName, Collections.emptyMap());
+      for (CurrentState currentState : currentStates.values()) {
+        if (!isUnchanged(previousStates.get(currentState.getId()), currentState)) {
+          changedResources.add(currentState.getResourceName());
         }
       }
+      for (CurrentState previousState : previousStates.values()) {
+        if (!currentStates.containsKey(previousState.getId())) {
+          changedResources.add(previousState.getResourceName());
+        }
+      }
+    }
+
+    for (Map.Entry<String, ResourceInfo> entry : previous._resourceInfoMap.entrySet()) {
+      if (!changedResources.contains(entry.getKey())) {
+        _resourceInfoMap.put(entry.getKey(), entry.getValue());
+      }
+    }
+    if (!changedResources.isEmpty()) {
+      Map<String, InstanceConfig> instanceConfigMap = getInstanceConfigMap();
+      for (Map.Entry<String, Map<String, CurrentState>> entry : _currentStates.entrySet()) {
+        addEntries(entry.getValue().values(), instanceConfigMap.get(entry.getKey()),
+            changedResources);
+      }
     }
   }
 
@@ -178,12 +389,10 @@ class RoutingTable {
   }
 
   /**
-   * add an entry with a resource with resourceGrouping enabled.
+   * add an entry to a resource group.
    */
-  private void addEntry(String resourceName, String resourceGroupName, String resourceTag,
+  private void addResourceGroupEntry(String resourceGroupName, String resourceTag,
       String partitionName, String state, InstanceConfig config) {
-    addEntry(resourceName, partitionName, state, config);
-
     if (!_resourceGroupInfoMap.containsKey(resourceGroupName)) {
       _resourceGroupInfoMap.put(resourceGroupName, new ResourceGroupInfo());
     }
@@ -200,6 +409,31 @@ class RoutingTable {
     return _resourceGroupInfoMap.get(resourceGroupName);
   }
 
+  /**
+   * Returns the array-backed copy of the resource partition assignments.
+   * @return the CompiledRoutingTable of this RoutingTable
+   */
+  CompiledRoutingTable getCompiledRoutingTable() {
+    CompiledRoutingTable compiledRoutingTable = _compiledRoutingTable;
+    if (compiledRoutingTable == null) {
+      synchronized (this) {
+        compiledRoutingTable = _compiledRoutingTable;
+        if (compiledRoutingTable == null) {
+          compiledRoutingTable = new CompiledRoutingTable(_resourceInfoMap);
+          _compiledRoutingTable = compiledRoutingTable;
+        }
+      }
+    }
+    return compiledRoutingTable;
+  }
+
+  /**
+   * @return true if the CompiledRoutingTable of this RoutingTable is built
+   */
+  boolean isCompiled() {
+    return _compiledRoutingTable != null;
+  }
+
   /**
    * returns all instances for {resource} that are in a specific {state}.
    * @param resourceName
@@ -394,7 +628,7 @@ class RoutingTable {
   /**
    * Class to store instances, partitions and their states for each resource.
    */
-  class ResourceInfo {
+  static class ResourceInfo {
     // store PartitionInfo for each partition
     Map<String, PartitionInfo> partitionInfoMap;
     // stores the Set of Instances in a given state
@@ -431,7 +665,7 @@ class RoutingTable {
   /**
    * Class to store instances, partitions and their states for each resource group.
    */
-  class ResourceGroupInfo {
+  static class ResourceGroupInfo {
     // aggregated partitions and instances info for all resources in the resource group.
     ResourceInfo aggregatedResourceInfo;
 
@@ -485,7 +719,7 @@ class RoutingTable {
     }
   }
 
-  class PartitionInfo {
+  static class PartitionInfo {
     Map<String, List<InstanceConfig>> stateInfoMap;
 
     public PartitionInfo() {
@@ -19,6 +19,7 @@ package org.apache.helix.spectator;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,8 +31,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.management.JMException;
 
@@ -43,6 +48,7 @@ import org.apache.helix.HelixManager;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyType;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.api.listeners.ConfigChangeListener;
 import org.apache.helix.api.listeners.CurrentStateChangeListener;
 import org.apache.helix.api.listeners.CustomizedViewChangeListener;
@@ -78,12 +84,19 @@ public class RoutingTableProvider
   private final Map<PropertyType, List<String>> _sourceDataTypeMap;
   private final Map<RoutingTableChangeListener, ListenerContext> _routingTableChangeListenerMap;
   private final Map<PropertyType, RoutingTableProviderMonitor> _monitorMap;
+  // Build the new routing tables from the current ones, only the changed resources are rebuilt.
+  private final boolean _isIncrementalRefreshEnabled =
+      Boolean.getBoolean(SystemPropertyKeys.ROUTING_TABLE_PROVIDER_INCREMENTAL_REFRESH_ENABLED);
+  // The names of the resources that are routed, null for all the resources.
+  private final Set<String> _resources;
 
   // For periodic refresh
   private long _lastRefreshTimestamp;
   private boolean _isPeriodicRefreshEnabled = true; // Default is enabled
   private long _periodRefreshInterval;
   private ScheduledThreadPoolExecutor _periodicRefreshExecutor;
+  // The periodic refresh task on the shared scheduler.
+  private ScheduledFuture<?> _periodicRefreshFuture;
   // For computing intensive reporting logic
   private ExecutorService _reportExecutor;
   private Future _reportingTask = null;
@@ -136,9 +149,48 @@ public class RoutingTableProvider
   public RoutingTableProvider(HelixManager helixManager,
       Map<PropertyType, List<String>> sourceDataTypeMap, boolean isPeriodicRefreshEnabled,
       long periodRefreshInterval) throws HelixException {
+    this(helixManager, sourceDataTypeMap, isPeriodicRefreshEnabled, periodRefreshInterval, null);
+  }
+
+  /**
+   * Initialize an instance of RoutingTableProvider that only routes the given resources. Only the
+   * ExternalViews, CurrentStates or CustomizedViews of these resources are read and cached. The
+   * resources can be changed by {@link #addResources(Collection)} and
+   * {@link #removeResources(Collection)}.
+   * @param helixManager
+   * @param sourceDataTypeMap
+   * @param isPeriodicRefreshEnabled true if periodic refresh is enabled, false otherwise
+   * @param periodRefreshInterval only effective if isPeriodRefreshEnabled is true
+   * @param resources the names of the resources to route, null for all the resources
+   * @throws HelixException
+   */
+  public RoutingTableProvider(HelixManager helixManager,
+      Map<PropertyType, List<String>> sourceDataTypeMap, boolean isPeriodicRefreshEnabled,
+      long periodRefreshInterval, Collection<String> resources) throws HelixException {
+    this(helixManager, sourceDataTypeMap, isPeriodicRefreshEnabled, periodRefreshInterval,
+        resources, null, null);
+  }
+
+  /**
+   * Initialize an instance of RoutingTableProvider that runs on the executors shared with the
+   * other providers, instead of its own threads.
+   * @param scheduler runs the periodic refresh and the latency reports, null for own threads
+   * @param eventExecutor handles the router update events, null for own thread. The events of a
+   *          provider are handled one at a time.
+   */
+  RoutingTableProvider(HelixManager helixManager,
+      Map<PropertyType, List<String>> sourceDataTypeMap, boolean isPeriodicRefreshEnabled,
+      long periodRefreshInterval, Collection<String> resources,
+      ScheduledExecutorService scheduler, ExecutorService eventExecutor) throws HelixException {
 
     validateSourceDataTypeMap(sourceDataTypeMap);
 
+    if (resources != null) {
+      _resources = ConcurrentHashMap.newKeySet();
+      _resources.addAll(resources);
+    } else {
+      _resources = null;
+    }
     _routingTableRefMap = new HashMap<>();
     _helixManager = helixManager;
     _sourceDataTypeMap = sourceDataTypeMap;
@@ -182,11 +234,13 @@ public class RoutingTableProvider
         logger.error("Failed to register RoutingTableProvider monitor MBean.", e);
       }
     }
-    _reportExecutor = Executors.newSingleThreadExecutor();
+    _reportExecutor = scheduler != null ? scheduler : Executors.newSingleThreadExecutor();
 
     // Start Updaters
-    _routerUpdater = new RouterUpdater(clusterName, sourceDataTypeMap);
-    _routerUpdater.start();
+    _routerUpdater = new RouterUpdater(clusterName, sourceDataTypeMap, eventExecutor);
+    if (eventExecutor == null) {
+      _routerUpdater.start();
+    }
 
     // Add listeners
     addListeners();
@@ -199,8 +253,7 @@ public class RoutingTableProvider
       final NotificationContext periodicRefreshContext = new NotificationContext(_helixManager);
       periodicRefreshContext.setType(NotificationContext.Type.PERIODIC_REFRESH);
       // Create a thread that runs at specified interval
-      _periodicRefreshExecutor = new ScheduledThreadPoolExecutor(1);
-      _periodicRefreshExecutor.scheduleAtFixedRate(new Runnable() {
+      Runnable periodicRefreshTask = new Runnable() {
         @Override
         public void run() {
           // If enough time has elapsed since last refresh, queue a refresh event
@@ -210,7 +263,15 @@ public class RoutingTableProvider
                 null);
           }
         }
-      }, _periodRefreshInterval, _periodRefreshInterval, TimeUnit.MILLISECONDS);
+      };
+      if (scheduler != null) {
+        _periodicRefreshFuture = scheduler.scheduleAtFixedRate(periodicRefreshTask,
+            _periodRefreshInterval, _periodRefreshInterval, TimeUnit.MILLISECONDS);
+      } else {
+        _periodicRefreshExecutor = new ScheduledThreadPoolExecutor(1);
+        _periodicRefreshExecutor.scheduleAtFixedRate(periodicRefreshTask, _periodRefreshInterval,
+            _periodRefreshInterval, TimeUnit.MILLISECONDS);
+      }
     } else {
       _isPeriodicRefreshEnabled = false;
     }
@@ -323,6 +384,9 @@ public class RoutingTableProvider
       _periodicRefreshExecutor.purge();
       _periodicRefreshExecutor.shutdown();
     }
+    if (_periodicRefreshFuture != null) {
+      _periodicRefreshFuture.cancel(false);
+    }
     _routerUpdater.shutdown();
 
 
@@ -438,6 +502,46 @@ public class RoutingTableProvider
       }
   }
 
+  /**
+   * Start routing the resources. Only valid if the provider is initialized with the resources to
+   * route. The routing tables are refreshed asynchronously.
+   * @param resources the names of the resources
+   */
+  public void addResources(Collection<String> resources) {
+    if (getRoutedResources().addAll(resources)) {
+      requireResourceRefresh();
+    }
+  }
+
+  /**
+   * Stop routing the resources. Only valid if the provider is initialized with the resources to
+   * route. The routing tables are refreshed asynchronously.
+   * @param resources the names of the resources
+   */
+  public void removeResources(Collection<String> resources) {
+    if (getRoutedResources().removeAll(resources)) {
+      requireResourceRefresh();
+    }
+  }
+
+  private Set<String> getRoutedResources() {
+    if (_resources == null) {
+      throw new HelixException(
+          "The RoutingTableProvider is not initialized with the resources to route.");
+    }
+    return _resources;
+  }
+
+  private void requireResourceRefresh() {
+    logger.info("Routed resources are changed to {}.", _resources);
+    if (_helixManager != null) {
+      // A periodic refresh reads the data of the added resources and drops the removed ones.
+      final NotificationContext refreshContext = new NotificationContext(_helixManager);
+      refreshContext.setType(NotificationContext.Type.PERIODIC_REFRESH);
+      _routerUpdater.queueEvent(refreshContext, ClusterEventType.PeriodicalRebalance, null);
+    }
+  }
+
   /**
    * Remove RoutingTableChangeListener
    * @param routingTableChangeListener
@@ -648,6 +752,10 @@ public class RoutingTableProvider
       PropertyKey.Builder keyBuilder = accessor.keyBuilder();
       List<InstanceConfig> configList = accessor.getChildValues(keyBuilder.instanceConfigs(), true);
       List<LiveInstance> liveInstances = accessor.getChildValues(keyBuilder.liveInstances(), true);
+      if (_resources != null) {
+        externalViewList = new ArrayList<>(externalViewList);
+        externalViewList.removeIf(externalView -> !_resources.contains(externalView.getId()));
+      }
       refreshExternalView(externalViewList, configList, liveInstances, keyReference);
     } else {
       ClusterEventType eventType;
@@ -818,9 +926,12 @@ public class RoutingTableProvider
       Collection<InstanceConfig> instanceConfigs, Collection<LiveInstance> liveInstances,
       String referenceKey) {
     long startTime = System.currentTimeMillis();
-    PropertyType propertyType = _routingTableRefMap.get(referenceKey).get().getPropertyType();
-    RoutingTable newRoutingTable =
-        new RoutingTable(externalViews, instanceConfigs, liveInstances, propertyType);
+    RoutingTable routingTable = _routingTableRefMap.get(referenceKey).get();
+    PropertyType propertyType = routingTable.getPropertyType();
+    RoutingTable newRoutingTable = _isIncrementalRefreshEnabled
+        ? new RoutingTable(routingTable, externalViews, instanceConfigs, liveInstances,
+            propertyType)
+        : new RoutingTable(externalViews, instanceConfigs, liveInstances, propertyType);
     resetRoutingTableAndNotify(startTime, newRoutingTable, referenceKey);
   }
 
@@ -839,12 +950,19 @@ public class RoutingTableProvider
       Collection<InstanceConfig> instanceConfigs, Collection<LiveInstance> liveInstances,
       String referenceKey) {
     long startTime = System.currentTimeMillis();
-    RoutingTable newRoutingTable =
-        new RoutingTable(currentStateMap, instanceConfigs, liveInstances);
+    RoutingTable newRoutingTable = _isIncrementalRefreshEnabled
+        ? new RoutingTable(_routingTableRefMap.get(referenceKey).get(), currentStateMap,
+            instanceConfigs, liveInstances)
+        : new RoutingTable(currentStateMap, instanceConfigs, liveInstances);
     resetRoutingTableAndNotify(startTime, newRoutingTable, referenceKey);
   }
 
   private void resetRoutingTableAndNotify(long startTime, RoutingTable newRoutingTable, String referenceKey) {
+    // If the compiled lookups are in use, compile the new table on this thread before it is
+    // published, so the lookups do not compile it on the request path.
+    if (_routingTableRefMap.get(referenceKey).get().isCompiled()) {
+      newRoutingTable.getCompiledRoutingTable();
+    }
     _routingTableRefMap.get(referenceKey).set(newRoutingTable);
     String clusterName = _helixManager != null ? _helixManager.getClusterName() : null;
     logger.info("Refreshed the RoutingTable for cluster {}, took {} ms.", clusterName,
@@ -878,11 +996,20 @@ public class RoutingTableProvider
   private class RouterUpdater extends ClusterEventProcessor {
     private final RoutingDataCache _dataCache;
     private final Map<PropertyType, List<String>> _sourceDataTypeMap;
+    // Handles the events instead of this thread if it is not null.
+    private final ExecutorService _eventExecutor;
+    private final AtomicBoolean _isEventHandlingScheduled = new AtomicBoolean(false);
+    private volatile boolean _isShutdown = false;
 
-    public RouterUpdater(String clusterName, Map<PropertyType, List<String>> sourceDataTypeMap) {
+    public RouterUpdater(String clusterName, Map<PropertyType, List<String>> sourceDataTypeMap,
+        ExecutorService eventExecutor) {
       super(clusterName, "Helix-RouterUpdater-event_process");
       _sourceDataTypeMap = sourceDataTypeMap;
+      _eventExecutor = eventExecutor;
       _dataCache = new RoutingDataCache(clusterName, _sourceDataTypeMap);
+      if (_resources != null) {
+        _dataCache.setResourceFilter(_resources::contains);
+      }
     }
 
     @Override
@@ -1000,6 +1127,56 @@ public class RoutingTableProvider
     }
 
 
+    @Override
+    public void queueEvent(ClusterEvent event) {
+      super.queueEvent(event);
+      if (_eventExecutor != null) {
+        scheduleEventHandling();
+      }
+    }
+
+    /**
+     * Submit a task to handle the next queued event to the event executor, unless there is one
+     * already. Only one event is handled by a task so the providers sharing the executor take
+     * turns, and the events of this provider are still handled one at a time in order.
+     */
+    private void scheduleEventHandling() {
+      if (_isShutdown || _eventQueue.isEmpty()
+          || !_isEventHandlingScheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        _eventExecutor.execute(this::handleQueuedEvent);
+      } catch (RejectedExecutionException e) {
+        _isEventHandlingScheduled.set(false);
+        logger.warn("Failed to schedule the router update event for cluster {}.", _clusterName,
+            e);
+      }
+    }
+
+    private void handleQueuedEvent() {
+      try {
+        if (!_isShutdown && !_eventQueue.isEmpty()) {
+          handleEvent(_eventQueue.take());
+        }
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted while handling the router update event for cluster {}.",
+            _clusterName, e);
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        logger.error("Failed to handle the router update event for cluster {}.", _clusterName, t);
+      } finally {
+        _isEventHandlingScheduled.set(false);
+        scheduleEventHandling();
+      }
+    }
+
+    @Override
+    public void shutdown() {
+      _isShutdown = true;
+      super.shutdown();
+    }
+
     public void queueEvent(NotificationContext context, ClusterEventType eventType,
         HelixConstants.ChangeType changeType) {
       ClusterEvent event = new ClusterEvent(_clusterName, eventType);
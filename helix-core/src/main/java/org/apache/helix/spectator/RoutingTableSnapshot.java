@@ -121,6 +121,22 @@ public class RoutingTableSnapshot {
         resourceTags);
   }
 
+  /**
+   * Returns the array-backed lookup of the resource partition assignments in this snapshot. It
+   * looks up the instances by the interned ids of the resources, partitions and states, without
+   * allocating collections. It is shared by the snapshots of the same routing table. Once it is
+   * used, the RoutingTableProvider builds it for each new routing table before publishing the
+   * table, so only the first call builds it.
+   * @return the CompiledRoutingTable of this snapshot
+   */
+  public CompiledRoutingTable getCompiledRoutingTable() {
+    return _routingTable.getCompiledRoutingTable();
+  }
+
+  boolean isCompiled() {
+    return _routingTable.isCompiled();
+  }
+
   /**
    * Return all liveInstances in the cluster now.
    * @return
@@ -0,0 +1,523 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map that is implemented as a hash array mapped trie (HAMT).
+ *
+ * Every update returns a new map which shares all the unchanged trie nodes with the original map,
+ * so an update only copies O(log32(n)) nodes. This makes it cheap to keep the snapshots of a
+ * large cache: a snapshot is never modified, so it can be held by other threads without a
+ * defensive copy, while the cache keeps being updated.
+ *
+ * Use {@link Builder} to apply a batch of updates. The builder modifies the nodes that it has
+ * copied in place, so a batch does not copy the same node more than once.
+ *
+ * The map does not support null keys. Null values are supported.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+  private static final Object NOT_FOUND = new Object();
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+  // 7 levels of the bitmap nodes consume the 32 bits hash, plus one level of the collision nodes.
+  private static final int MAX_DEPTH = 8;
+
+  private final Node _root;
+  private final int _size;
+  private Set<Entry<K, V>> _entrySet;
+
+  private PersistentHashMap(Node root, int size) {
+    _root = root;
+    _size = size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns a persistent map that contains the same entries as the input map. If the input map is
+   * already a persistent map, it is returned as is.
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentHashMap) {
+      return (PersistentHashMap<K, V>) map;
+    }
+    Builder<K, V> builder = new Builder<>(PersistentHashMap.<K, V>empty());
+    for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue());
+    }
+    return builder.build();
+  }
+
+  /**
+   * @return a new builder that starts with the entries of this map
+   */
+  public Builder<K, V> toBuilder() {
+    return new Builder<>(this);
+  }
+
+  /**
+   * @return a map that contains the entries of this map and the new entry
+   */
+  public PersistentHashMap<K, V> plus(K key, V value) {
+    return toBuilder().put(key, value).build();
+  }
+
+  /**
+   * @return a map that contains the entries of this map except the entry of the key
+   */
+  public PersistentHashMap<K, V> minus(Object key) {
+    return toBuilder().remove(key).build();
+  }
+
+  /**
+   * Returns a map that has the same entries as the input map. Unlike {@link #copyOf(Map)}, the
+   * result shares the trie nodes with this map, so the unchanged entries are neither copied nor
+   * retained twice when both the maps are kept. The values are compared by identity.
+   * @param contents the entries of the result map
+   */
+  public PersistentHashMap<K, V> withContents(Map<? extends K, ? extends V> contents) {
+    if (contents == this) {
+      return this;
+    }
+    Builder<K, V> builder = toBuilder();
+    if (_size > 0) {
+      for (K key : keySet()) {
+        if (!contents.containsKey(key)) {
+          builder.remove(key);
+        }
+      }
+    }
+    for (Entry<? extends K, ? extends V> entry : contents.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue());
+    }
+    return builder.build();
+  }
+
+  @Override
+  public int size() {
+    return _size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    Object value = find(_root, key);
+    return value == NOT_FOUND ? null : (V) value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(_root, key) != NOT_FOUND;
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    if (_entrySet == null) {
+      _entrySet = new AbstractSet<Entry<K, V>>() {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+          return new EntryIterator<>(_root);
+        }
+
+        @Override
+        public int size() {
+          return _size;
+        }
+      };
+    }
+    return _entrySet;
+  }
+
+  private static Object find(Node root, Object key) {
+    if (root == null || key == null) {
+      return NOT_FOUND;
+    }
+    return root.find(0, hash(key), key);
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * A builder that applies a batch of updates to a persistent map. The builder is not thread-safe.
+   * The maps that are built are never modified by the later updates of the builder.
+   */
+  public static final class Builder<K, V> {
+    private PersistentHashMap<K, V> _built;
+    private Node _root;
+    private int _size;
+    // The nodes that are created by the builder are owned by this token, so they can be modified
+    // in place until the next build.
+    private Object _owner = new Object();
+    private final boolean[] _changedSize = new boolean[1];
+
+    private Builder(PersistentHashMap<K, V> map) {
+      _built = map;
+      _root = map._root;
+      _size = map._size;
+    }
+
+    public Builder<K, V> put(K key, V value) {
+      if (key == null) {
+        throw new NullPointerException("PersistentHashMap does not support null keys");
+      }
+      _changedSize[0] = false;
+      Node root = _root == null ? new BitmapNode(_owner, 0, new Object[0]) : _root;
+      _root = root.put(_owner, 0, hash(key), key, value, _changedSize);
+      if (_changedSize[0]) {
+        _size++;
+      }
+      return this;
+    }
+
+    public Builder<K, V> remove(Object key) {
+      if (_root == null || key == null) {
+        return this;
+      }
+      _changedSize[0] = false;
+      _root = _root.remove(_owner, 0, hash(key), key, _changedSize);
+      if (_changedSize[0]) {
+        _size--;
+      }
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+      Object value = find(_root, key);
+      return value == NOT_FOUND ? null : (V) value;
+    }
+
+    public int size() {
+      return _size;
+    }
+
+    public PersistentHashMap<K, V> build() {
+      if (_root != _built._root) {
+        _built = _size == 0 ? PersistentHashMap.<K, V>empty() : new PersistentHashMap<>(_root, _size);
+        _root = _built._root;
+        // The built map now shares the nodes, so they must not be modified in place any more.
+        _owner = new Object();
+      }
+      return _built;
+    }
+  }
+
+  /**
+   * A trie node. The array holds the key and value pairs. For the bitmap nodes, a null key means
+   * the value is a child node.
+   */
+  private static abstract class Node {
+    final Object _owner;
+    Object[] _array;
+
+    Node(Object owner, Object[] array) {
+      _owner = owner;
+      _array = array;
+    }
+
+    abstract Object find(int shift, int hash, Object key);
+
+    abstract Node put(Object owner, int shift, int hash, Object key, Object value,
+        boolean[] added);
+
+    /**
+     * @return the updated node, or null if the node becomes empty
+     */
+    abstract Node remove(Object owner, int shift, int hash, Object key, boolean[] removed);
+  }
+
+  private static final class BitmapNode extends Node {
+    int _bitmap;
+
+    BitmapNode(Object owner, int bitmap, Object[] array) {
+      super(owner, array);
+      _bitmap = bitmap;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int bit = bitpos(hash, shift);
+      if ((_bitmap & bit) == 0) {
+        return NOT_FOUND;
+      }
+      int index = index(bit);
+      Object storedKey = _array[2 * index];
+      Object storedValue = _array[2 * index + 1];
+      if (storedKey == null) {
+        return ((Node) storedValue).find(shift + BITS_PER_LEVEL, hash, key);
+      }
+      return key.equals(storedKey) ? storedValue : NOT_FOUND;
+    }
+
+    @Override
+    Node put(Object owner, int shift, int hash, Object key, Object value, boolean[] added) {
+      int bit = bitpos(hash, shift);
+      int index = index(bit);
+      if ((_bitmap & bit) != 0) {
+        Object storedKey = _array[2 * index];
+        Object storedValue = _array[2 * index + 1];
+        if (storedKey == null) {
+          Node child = ((Node) storedValue)
+              .put(owner, shift + BITS_PER_LEVEL, hash, key, value, added);
+          return child == storedValue ? this : editAndSet(owner, 2 * index + 1, child);
+        }
+        if (key.equals(storedKey)) {
+          return storedValue == value ? this : editAndSet(owner, 2 * index + 1, value);
+        }
+        added[0] = true;
+        Node child = createNode(owner, shift + BITS_PER_LEVEL, storedKey, storedValue, hash, key,
+            value);
+        BitmapNode editable = ensureEditable(owner);
+        editable._array[2 * index] = null;
+        editable._array[2 * index + 1] = child;
+        return editable;
+      }
+      added[0] = true;
+      Object[] array = new Object[_array.length + 2];
+      System.arraycopy(_array, 0, array, 0, 2 * index);
+      array[2 * index] = key;
+      array[2 * index + 1] = value;
+      System.arraycopy(_array, 2 * index, array, 2 * (index + 1), _array.length - 2 * index);
+      if (_owner == owner) {
+        _array = array;
+        _bitmap |= bit;
+        return this;
+      }
+      return new BitmapNode(owner, _bitmap | bit, array);
+    }
+
+    @Override
+    Node remove(Object owner, int shift, int hash, Object key, boolean[] removed) {
+      int bit = bitpos(hash, shift);
+      if ((_bitmap & bit) == 0) {
+        return this;
+      }
+      int index = index(bit);
+      Object storedKey = _array[2 * index];
+      Object storedValue = _array[2 * index + 1];
+      if (storedKey == null) {
+        Node child =
+            ((Node) storedValue).remove(owner, shift + BITS_PER_LEVEL, hash, key, removed);
+        if (child == storedValue) {
+          return this;
+        }
+        if (child != null) {
+          return editAndSet(owner, 2 * index + 1, child);
+        }
+      } else if (key.equals(storedKey)) {
+        removed[0] = true;
+      } else {
+        return this;
+      }
+      if (_bitmap == bit) {
+        return null;
+      }
+      Object[] array = new Object[_array.length - 2];
+      System.arraycopy(_array, 0, array, 0, 2 * index);
+      System.arraycopy(_array, 2 * (index + 1), array, 2 * index, array.length - 2 * index);
+      if (_owner == owner) {
+        _array = array;
+        _bitmap ^= bit;
+        return this;
+      }
+      return new BitmapNode(owner, _bitmap ^ bit, array);
+    }
+
+    private Node editAndSet(Object owner, int arrayIndex, Object value) {
+      BitmapNode editable = ensureEditable(owner);
+      editable._array[arrayIndex] = value;
+      return editable;
+    }
+
+    private BitmapNode ensureEditable(Object owner) {
+      return _owner == owner ? this : new BitmapNode(owner, _bitmap, _array.clone());
+    }
+
+    private int index(int bit) {
+      return Integer.bitCount(_bitmap & (bit - 1));
+    }
+
+    private static int bitpos(int hash, int shift) {
+      return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    private static Node createNode(Object owner, int shift, Object key1, Object value1, int hash2,
+        Object key2, Object value2) {
+      int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(owner, hash1, new Object[] {key1, value1, key2, value2});
+      }
+      boolean[] added = new boolean[1];
+      return new BitmapNode(owner, 0, new Object[0])
+          .put(owner, shift, hash1, key1, value1, added)
+          .put(owner, shift, hash2, key2, value2, added);
+    }
+  }
+
+  /**
+   * The node of the keys that have the same hash.
+   */
+  private static final class CollisionNode extends Node {
+    final int _hash;
+
+    CollisionNode(Object owner, int hash, Object[] array) {
+      super(owner, array);
+      _hash = hash;
+    }
+
+    @Override
+    Object find(int shift, int hash, Object key) {
+      int index = indexOf(key);
+      return hash == _hash && index >= 0 ? _array[index + 1] : NOT_FOUND;
+    }
+
+    @Override
+    Node put(Object owner, int shift, int hash, Object key, Object value, boolean[] added) {
+      if (hash != _hash) {
+        // Nest this node in a bitmap node, so the two hashes can be told apart.
+        return new BitmapNode(owner, BitmapNode.bitpos(_hash, shift), new Object[] {null, this})
+            .put(owner, shift, hash, key, value, added);
+      }
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (_array[index + 1] == value) {
+          return this;
+        }
+        Object[] array = _owner == owner ? _array : _array.clone();
+        array[index + 1] = value;
+        return _owner == owner ? this : new CollisionNode(owner, _hash, array);
+      }
+      added[0] = true;
+      Object[] array = Arrays.copyOf(_array, _array.length + 2);
+      array[_array.length] = key;
+      array[_array.length + 1] = value;
+      if (_owner == owner) {
+        _array = array;
+        return this;
+      }
+      return new CollisionNode(owner, _hash, array);
+    }
+
+    @Override
+    Node remove(Object owner, int shift, int hash, Object key, boolean[] removed) {
+      int index = hash == _hash ? indexOf(key) : -1;
+      if (index < 0) {
+        return this;
+      }
+      removed[0] = true;
+      if (_array.length == 2) {
+        return null;
+      }
+      Object[] array = new Object[_array.length - 2];
+      System.arraycopy(_array, 0, array, 0, index);
+      System.arraycopy(_array, index + 2, array, index, array.length - index);
+      if (_owner == owner) {
+        _array = array;
+        return this;
+      }
+      return new CollisionNode(owner, _hash, array);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < _array.length; i += 2) {
+        if (key.equals(_array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * Iterates the entries in the trie order with an explicit stack of the node arrays.
+   */
+  private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+    private final Object[][] _arrays = new Object[MAX_DEPTH][];
+    private final int[] _positions = new int[MAX_DEPTH];
+    private int _depth;
+    private Entry<K, V> _next;
+
+    EntryIterator(Node root) {
+      if (root == null) {
+        _depth = -1;
+      } else {
+        _arrays[0] = root._array;
+      }
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _next != null;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (_next == null) {
+        throw new NoSuchElementException();
+      }
+      Entry<K, V> next = _next;
+      advance();
+      return next;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance() {
+      while (_depth >= 0) {
+        Object[] array = _arrays[_depth];
+        int position = _positions[_depth];
+        if (position >= array.length) {
+          _arrays[_depth] = null;
+          _depth--;
+          continue;
+        }
+        _positions[_depth] = position + 2;
+        Object key = array[position];
+        if (key == null) {
+          _depth++;
+          _arrays[_depth] = ((Node) array[position + 1])._array;
+          _positions[_depth] = 0;
+        } else {
+          _next = new SimpleImmutableEntry<>((K) key, (V) array[position + 1]);
+          return;
+        }
+      }
+      _next = null;
+    }
+  }
+}
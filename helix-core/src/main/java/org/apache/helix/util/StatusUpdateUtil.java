@@ -278,6 +278,21 @@ public class StatusUpdateUtil {
 
   Map<String, String> _recordedMessages = new ConcurrentHashMap<>();
 
+  // Null if the status updates are written synchronously.
+  private final StatusUpdateWriter _statusUpdateWriter;
+
+  public StatusUpdateUtil() {
+    this(StatusUpdateWriter.getSharedWriter());
+  }
+
+  /**
+   * @param statusUpdateWriter the writer of the status update records, or null to write the
+   *                           records synchronously
+   */
+  public StatusUpdateUtil(StatusUpdateWriter statusUpdateWriter) {
+    _statusUpdateWriter = statusUpdateWriter;
+  }
+
   /**
    * Create a statusupdate that is related to a cluster manager message.
    * @param message
@@ -323,6 +338,9 @@ public class StatusUpdateUtil {
   @Deprecated
   public void logMessageStatusUpdateRecord(Message message, Level level, Class classInfo,
       String additionalInfo, HelixDataAccessor accessor) {
+    if (_statusUpdateWriter != null && !_statusUpdateWriter.admit(level)) {
+      return;
+    }
     try {
       ZNRecord record = createMessageStatusUpdateRecord(message, level, classInfo, additionalInfo);
       publishStatusUpdateRecord(record, message, level, accessor,
@@ -348,6 +366,9 @@ public class StatusUpdateUtil {
    */
   public void logMessageStatusUpdateRecord(Message message, Level level, Class classInfo,
       String additionalInfo, HelixManager manager) {
+    if (_statusUpdateWriter != null && !_statusUpdateWriter.admit(level)) {
+      return;
+    }
     try {
       ZNRecord record = createMessageStatusUpdateRecord(message, level, classInfo, additionalInfo);
       publishStatusUpdateRecord(record, message, level, manager.getHelixDataAccessor(),
@@ -506,7 +527,7 @@ public class StatusUpdateUtil {
             keyBuilder.stateTransitionStatus(instanceName, sessionId, statusUpdateSubPath,
                 statusUpdateKey);
       }
-      accessor.updateProperty(propertyKey, new StatusUpdate(statusUpdateRecord));
+      updateStatusUpdateRecord(accessor, propertyKey, statusUpdateRecord);
 
       if (_logger.isTraceEnabled()) {
         _logger.trace("StatusUpdate path:" + propertyKey.getPath() + ", updates:"
@@ -523,7 +544,7 @@ public class StatusUpdateUtil {
           keyBuilder.stateTransitionStatus(instanceName, sessionId, statusUpdateSubPath,
               statusUpdateKey);
     }
-    accessor.updateProperty(propertyKey, new StatusUpdate(record));
+    updateStatusUpdateRecord(accessor, propertyKey, record);
 
     if (_logger.isTraceEnabled()) {
       _logger.trace("StatusUpdate path:" + propertyKey.getPath() + ", updates:" + record);
@@ -536,6 +557,15 @@ public class StatusUpdateUtil {
     }
   }
 
+  private void updateStatusUpdateRecord(HelixDataAccessor accessor, PropertyKey propertyKey,
+      ZNRecord record) {
+    if (_statusUpdateWriter != null) {
+      _statusUpdateWriter.write(accessor, propertyKey, record);
+    } else {
+      accessor.updateProperty(propertyKey, new StatusUpdate(record));
+    }
+  }
+
   /**
    * Write an error record to zookeeper to the zookeeper store.
    * @param record
@@ -0,0 +1,280 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.model.StatusUpdate;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An asynchronous and bounded writer of the status update records. The records are queued by the
+ * message handling threads and written by a background thread. The records of the same ZNode that
+ * are queued together are merged into a new record, so each ZNode is updated once per batch. The
+ * merged records are written by {@link HelixDataAccessor#updateProperty}, same as the synchronous
+ * status updates, so the accessor still decides which status updates are persisted.
+ *
+ * When the queue is filling up, the writer starts to drop the records by level:
+ * 1. HELIX_INFO records are sampled when the queue is more than half full, and dropped when the
+ * queue reaches the capacity.
+ * 2. HELIX_WARNING records are dropped when the queue reaches the capacity.
+ * 3. HELIX_ERROR records can use the reserved space beyond the capacity. They are dropped only when
+ * the queue is full, which is twice the capacity. The error records are also logged by the calling
+ * thread, and written to the ERRORS ZNode by it if the error persistency is enabled.
+ */
+public class StatusUpdateWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(StatusUpdateWriter.class);
+  private static final int MAX_BATCH_SIZE = 1000;
+  public static final int DEFAULT_INFO_SAMPLING_RATE = 10;
+
+  private final int _capacity;
+  private final int _infoSamplingRate;
+  private final BlockingQueue<PendingUpdate> _queue;
+  private final AtomicLong _backPressuredInfoCount = new AtomicLong();
+  private final LongAdder _droppedCount = new LongAdder();
+  private final LongAdder _writtenCount = new LongAdder();
+  private final Object _writeLock = new Object();
+  private final Thread _writerThread;
+
+  private static class PendingUpdate {
+    private final HelixDataAccessor _accessor;
+    private final PropertyKey _key;
+    private final ZNRecord _record;
+
+    PendingUpdate(HelixDataAccessor accessor, PropertyKey key, ZNRecord record) {
+      _accessor = accessor;
+      _key = key;
+      _record = record;
+    }
+  }
+
+  /**
+   * @param capacity the max number of queued records
+   * @param infoSamplingRate one in every infoSamplingRate HELIX_INFO records is kept when the
+   *                         queue is more than half full
+   */
+  public StatusUpdateWriter(int capacity, int infoSamplingRate) {
+    this(capacity, infoSamplingRate, true);
+  }
+
+  /**
+   * @param startWriterThread if false, the records are only written by {@link #flush()}
+   */
+  StatusUpdateWriter(int capacity, int infoSamplingRate, boolean startWriterThread) {
+    if (capacity <= 0 || infoSamplingRate <= 0) {
+      throw new IllegalArgumentException(String
+          .format("Invalid capacity %d or info sampling rate %d", capacity, infoSamplingRate));
+    }
+    _capacity = capacity;
+    _infoSamplingRate = infoSamplingRate;
+    // Reserve the same space again for the error records and the message records.
+    _queue = new LinkedBlockingQueue<>(capacity > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE
+        : capacity * 2);
+    _writerThread = new Thread(this::runWriter, "StatusUpdateWriter");
+    _writerThread.setDaemon(true);
+    if (startWriterThread) {
+      _writerThread.start();
+    }
+  }
+
+  /**
+   * @return the writer that is shared by the status updates of this process, or null if the
+   *         asynchronous status update is disabled
+   */
+  public static StatusUpdateWriter getSharedWriter() {
+    return SharedWriterHolder.SHARED_WRITER;
+  }
+
+  /**
+   * Check if a status update of the given level should be recorded. It is called before the
+   * record is created, so the dropped records cost nothing. The HELIX_ERROR records are always
+   * admitted, and they are only dropped by {@link #write} if the queue is full.
+   * @param level the level of the status update
+   * @return true if the status update should be recorded, false if it is dropped
+   */
+  public boolean admit(StatusUpdateUtil.Level level) {
+    if (level == StatusUpdateUtil.Level.HELIX_ERROR) {
+      return true;
+    }
+    int queuedCount = _queue.size();
+    boolean admitted;
+    if (queuedCount >= _capacity) {
+      admitted = false;
+    } else if (queuedCount >= _capacity / 2 && level == StatusUpdateUtil.Level.HELIX_INFO) {
+      admitted = _backPressuredInfoCount.getAndIncrement() % _infoSamplingRate == 0;
+    } else {
+      admitted = true;
+    }
+    if (!admitted) {
+      _droppedCount.increment();
+    }
+    return admitted;
+  }
+
+  /**
+   * Queue a status update record to be merged into the ZNode of the key. The record is not
+   * modified by the writer. If the queue is full, the record is dropped.
+   */
+  public void write(HelixDataAccessor accessor, PropertyKey key, ZNRecord record) {
+    if (!_queue.offer(new PendingUpdate(accessor, key, record))) {
+      _droppedCount.increment();
+      LOG.warn("The status update queue is full, drop the status update to {}", key.getPath());
+    }
+  }
+
+  /**
+   * Write all the queued records in the calling thread.
+   */
+  public void flush() {
+    synchronized (_writeLock) {
+      List<PendingUpdate> batch = new ArrayList<>();
+      while (_queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+        writeBatch(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Stop the background thread. The records that are still queued are not written.
+   */
+  public void shutdown() {
+    _writerThread.interrupt();
+  }
+
+  public long getQueuedCount() {
+    return _queue.size();
+  }
+
+  public long getDroppedCount() {
+    return _droppedCount.sum();
+  }
+
+  public long getWrittenCount() {
+    return _writtenCount.sum();
+  }
+
+  private void runWriter() {
+    List<PendingUpdate> batch = new ArrayList<>();
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        batch.add(_queue.take());
+        synchronized (_writeLock) {
+          _queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+          writeBatch(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        LOG.error("Failed to write the status updates.", t);
+      } finally {
+        batch.clear();
+      }
+    }
+    LOG.info("StatusUpdateWriter thread is stopped.");
+  }
+
+  private void writeBatch(List<PendingUpdate> batch) {
+    // Merge the records of the same ZNode. The queued records may still be used by the callers,
+    // for example the error records are written to the ERRORS ZNode as well, so they are merged
+    // into a new record instead of in place.
+    Map<HelixDataAccessor, Map<String, PendingUpdate>> mergedUpdates = new IdentityHashMap<>();
+    Set<ZNRecord> mergedRecords = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (PendingUpdate update : batch) {
+      Map<String, PendingUpdate> updates =
+          mergedUpdates.computeIfAbsent(update._accessor, accessor -> new LinkedHashMap<>());
+      String path = update._key.getPath();
+      PendingUpdate mergedUpdate = updates.get(path);
+      if (mergedUpdate == null) {
+        updates.put(path, update);
+        continue;
+      }
+      ZNRecord mergedRecord = mergedUpdate._record;
+      if (!mergedRecords.contains(mergedRecord)) {
+        mergedRecord = new ZNRecord(mergedUpdate._record.getId());
+        mergeRecord(mergedRecord, mergedUpdate._record);
+        mergedRecords.add(mergedRecord);
+        updates.put(path, new PendingUpdate(update._accessor, update._key, mergedRecord));
+      }
+      mergeRecord(mergedRecord, update._record);
+    }
+    // Write through the HelixDataAccessor, which decides the status updates to persist. For
+    // example, ZKHelixDataAccessor does not persist the participant STATUSUPDATES.
+    for (Map<String, PendingUpdate> updates : mergedUpdates.values()) {
+      for (PendingUpdate update : updates.values()) {
+        try {
+          update._accessor.updateProperty(update._key, new StatusUpdate(update._record));
+        } catch (Exception e) {
+          LOG.warn("Failed to write the status update to {}", update._key.getPath(), e);
+        }
+      }
+    }
+    _writtenCount.add(batch.size());
+  }
+
+  /**
+   * Merge the fields of the record into the merged record. Unlike {@link ZNRecord#merge(ZNRecord)},
+   * the map and list fields are copied, so the merged record never shares them with the record.
+   */
+  private static void mergeRecord(ZNRecord mergedRecord, ZNRecord record) {
+    mergedRecord.getSimpleFields().putAll(record.getSimpleFields());
+    for (Map.Entry<String, Map<String, String>> entry : record.getMapFields().entrySet()) {
+      mergedRecord.getMapFields().computeIfAbsent(entry.getKey(), key -> new TreeMap<>())
+          .putAll(entry.getValue());
+    }
+    for (Map.Entry<String, List<String>> entry : record.getListFields().entrySet()) {
+      mergedRecord.getListFields().computeIfAbsent(entry.getKey(), key -> new ArrayList<>())
+          .addAll(entry.getValue());
+    }
+  }
+
+  private static class SharedWriterHolder {
+    private static final StatusUpdateWriter SHARED_WRITER = createSharedWriter();
+
+    private static StatusUpdateWriter createSharedWriter() {
+      int capacity = Integer.getInteger(SystemPropertyKeys.STATUS_UPDATE_ASYNC_QUEUE_CAPACITY, 0);
+      if (capacity <= 0) {
+        return null;
+      }
+      int infoSamplingRate = Integer
+          .getInteger(SystemPropertyKeys.STATUS_UPDATE_INFO_SAMPLING_RATE,
+              DEFAULT_INFO_SAMPLING_RATE);
+      LOG.info("Write the status updates asynchronously, capacity: {}, info sampling rate: {}",
+          capacity, infoSamplingRate);
+      return new StatusUpdateWriter(capacity, infoSamplingRate);
+    }
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.helix;
  */
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.helix.PropertyKey.Builder;
 import org.apache.helix.messaging.handling.HelixStateTransitionHandler;
@@ -33,6 +34,7 @@ import org.apache.helix.model.Message;
 import org.apache.helix.model.Message.MessageType;
 import org.apache.helix.model.StateModelDefinition;
 import org.apache.helix.participant.statemachine.StateModelFactory;
+import org.apache.helix.participant.statemachine.StateTransitionError;
 import org.apache.helix.tools.StateModelConfigGenerator;
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
@@ -131,4 +133,62 @@ public class TestHelixTaskHandler {
         + new Date(System.currentTimeMillis()));
   }
 
+  @Test()
+  public void testInterruptedWhileCoalescingCurrentState() throws Exception {
+    System.setProperty(SystemPropertyKeys.PARTICIPANT_CURRENT_STATE_COALESCE_WINDOW_MS, "60000");
+    HelixTaskExecutor executor;
+    try {
+      executor = new HelixTaskExecutor();
+    } finally {
+      System.clearProperty(SystemPropertyKeys.PARTICIPANT_CURRENT_STATE_COALESCE_WINDOW_MS);
+    }
+    Message message = new Message(MessageType.STATE_TRANSITION, "Some unique id");
+    message.setSrcName("cm-instance-0");
+    message.setFromState("Offline");
+    message.setToState("Slave");
+    message.setPartitionName("TestDB_0");
+    message.setResourceName("TestDB");
+    message.setTgtName("localhost");
+    message.setStateModelDef("MasterSlave");
+    message.setStateModelFactoryName(HelixConstants.DEFAULT_STATE_MODEL_FACTORY);
+    final AtomicBoolean rolledBack = new AtomicBoolean();
+    MockMasterSlaveStateModel stateModel = new MockMasterSlaveStateModel() {
+      @Override
+      public void rollbackOnError(Message message, NotificationContext context,
+          StateTransitionError error) {
+        rolledBack.set(true);
+      }
+    };
+    MockManager manager = new MockManager("clusterName");
+    message.setTgtSessionId(manager.getSessionId());
+    HelixDataAccessor accessor = manager.getHelixDataAccessor();
+    Builder keyBuilder = accessor.keyBuilder();
+    accessor.setProperty(keyBuilder.stateModelDef("MasterSlave"),
+        new StateModelDefinition(StateModelConfigGenerator.generateConfigForMasterSlave()));
+    NotificationContext context = new NotificationContext(manager);
+    context.add(NotificationContext.MapKey.TASK_EXECUTOR.toString(), executor);
+    CurrentState currentStateDelta = new CurrentState("TestDB");
+    currentStateDelta.setState("TestDB_0", "OFFLINE");
+    final HelixStateTransitionHandler stHandler =
+        new HelixStateTransitionHandler(null, stateModel, message, context, currentStateDelta);
+
+    // Interrupt the transition while it waits for the coalesced current state update, as a
+    // timeout does.
+    Thread transitionThread = new Thread(stHandler::handleMessage);
+    transitionThread.start();
+    AssertJUnit.assertTrue(TestHelper.verify(
+        () -> transitionThread.getState() == Thread.State.WAITING, TestHelper.WAIT_DURATION));
+    transitionThread.interrupt();
+    transitionThread.join(10000);
+    AssertJUnit.assertFalse(transitionThread.isAlive());
+    AssertJUnit.assertTrue(stateModel.stateModelInvoked);
+    AssertJUnit.assertTrue(rolledBack.get());
+
+    // The state model is rolled back, so the delta of the transition must not be written.
+    executor.shutdown();
+    CurrentState currentState = accessor.getProperty(
+        keyBuilder.currentState(manager.getInstanceName(), manager.getSessionId(), "TestDB"));
+    AssertJUnit.assertTrue(
+        currentState == null || currentState.getState("TestDB_0") == null);
+  }
 }
@@ -129,4 +129,50 @@ public class TestCurrentStateSnapshot {
     Assert.assertTrue(endTimesMap.get(keyBuilder.currentState(instanceName, instance.getEphemeralOwner(), resourceName))
         .get(partitionName) == 300);
   }
+
+  @Test(description = "test the prefetch is only visible after the next refresh")
+  public void testPrefetchCurrentStateCache() {
+    String instanceName = "instance1";
+    String partitionName = "resource_partition1";
+
+    MockAccessor accessor = new MockAccessor();
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    ZNRecord record = new ZNRecord(instanceName);
+    record.setEphemeralOwner(12345);
+    LiveInstance instance = new LiveInstance(record);
+    accessor.setProperty(keyBuilder.liveInstance(instanceName), instance);
+    Map<String, LiveInstance> liveInstanceMap = new HashMap<>();
+    liveInstanceMap.put(instanceName, instance);
+    PropertyKey key1 = keyBuilder.currentState(instanceName, instance.getEphemeralOwner(), "resource1");
+    PropertyKey key2 = keyBuilder.currentState(instanceName, instance.getEphemeralOwner(), "resource2");
+
+    CurrentState originState = new CurrentState("resource1");
+    originState.setEndTime(partitionName, 100);
+    accessor.setProperty(key1, originState);
+    CurrentStateCache cache = new CurrentStateCache("cluster");
+    cache.refresh(accessor, liveInstanceMap);
+
+    CurrentState prefetchedState = new CurrentState("resource1");
+    prefetchedState.setEndTime(partitionName, 200);
+    accessor.setProperty(key1, prefetchedState);
+    cache.prefetch(accessor, liveInstanceMap);
+    // The prefetched state is not visible before the refresh.
+    Assert.assertEquals(cache.getParticipantState(instanceName, instance.getEphemeralOwner())
+        .get("resource1").getEndTime(partitionName), 100);
+
+    // The state changed after the prefetch is read by the refresh.
+    CurrentState newState = new CurrentState("resource2");
+    newState.setEndTime(partitionName, 300);
+    accessor.setProperty(key2, newState);
+    cache.refresh(accessor, liveInstanceMap);
+
+    Map<String, CurrentState> currentStates =
+        cache.getParticipantState(instanceName, instance.getEphemeralOwner());
+    Assert.assertEquals(currentStates.get("resource1").getEndTime(partitionName), 200);
+    Assert.assertEquals(currentStates.get("resource2").getEndTime(partitionName), 300);
+    // Both the prefetched and the refreshed states are reported as changed by the snapshot.
+    Map<PropertyKey, Map<String, Long>> endTimesMap = cache.getSnapshot().getNewCurrentStateEndTimes();
+    Assert.assertEquals(endTimesMap.get(key1).get(partitionName), Long.valueOf(200));
+    Assert.assertEquals(endTimesMap.get(key2).get(partitionName), Long.valueOf(300));
+  }
 }
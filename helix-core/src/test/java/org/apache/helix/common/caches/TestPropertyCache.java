@@ -24,6 +24,7 @@ import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixProperty;
 import org.apache.helix.PropertyKey;
@@ -131,6 +132,25 @@ public class TestPropertyCache {
     Assert.assertTrue(propertyCache.getPropertyMap().isEmpty());
   }
 
+  @Test(description = "The property map returned to the caller is a snapshot")
+  public void testPropertyMapSnapshot() {
+    @SuppressWarnings("unchecked")
+    PropertyCache.PropertyCacheKeyFuncs<HelixProperty> keyFuncs =
+        mock(PropertyCache.PropertyCacheKeyFuncs.class);
+    when(keyFuncs.getObjName(any(HelixProperty.class)))
+        .thenAnswer(invocation -> ((HelixProperty) invocation.getArguments()[0]).getId());
+    PropertyCache<HelixProperty> propertyCache =
+        new PropertyCache<>(MOCK_CONTROL_CONTEXT_PROVIDER, "mock property cache", keyFuncs, false);
+    propertyCache.setPropertyMap(ImmutableMap.of("id", new HelixProperty("id")));
+
+    Map<String, HelixProperty> snapshot = propertyCache.getPropertyMap();
+    propertyCache.setProperty(new HelixProperty("id2"));
+    propertyCache.deletePropertyByName("id");
+
+    Assert.assertEquals(snapshot.keySet(), ImmutableSet.of("id"));
+    Assert.assertEquals(propertyCache.getPropertyMap().keySet(), ImmutableSet.of("id2"));
+  }
+
   //TODO investigate if deep copy is needed for PropertyCache
   @Test(enabled = false, description = "First set the property cache and mutate the object from caller")
   public void testDefensiveCopyOnDataMutate() {
@@ -0,0 +1,159 @@
+package org.apache.helix.controller;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.NotificationContext;
+import org.apache.helix.common.ClusterEventBlockingQueue;
+import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.stages.AttributeName;
+import org.apache.helix.controller.stages.ClusterEvent;
+import org.apache.helix.controller.stages.ClusterEventType;
+import org.apache.helix.model.ClusterConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Test the debounce of the queued controller events in {@link GenericHelixController}.
+ */
+public class TestControllerEventDebounce {
+  private static final String CLUSTER_NAME = "TestControllerEventDebounce";
+  private static final String SESSION = "session_1";
+
+  private GenericHelixController _controller;
+  private ResourceControllerDataProvider _dataProvider;
+
+  @BeforeClass
+  public void beforeClass() {
+    _controller = new GenericHelixController(CLUSTER_NAME);
+    _dataProvider = new ResourceControllerDataProvider(CLUSTER_NAME);
+    ClusterConfig clusterConfig = new ClusterConfig(CLUSTER_NAME);
+    clusterConfig.setControllerEventDebounceWindow(100, 500);
+    _dataProvider.setClusterConfig(clusterConfig);
+  }
+
+  @AfterClass
+  public void afterClass() throws InterruptedException {
+    _controller.shutdown();
+  }
+
+  @Test
+  public void testMergeWithinWindow() throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    queue.put(createEvent(ClusterEventType.IdealStateChange, SESSION));
+    queue.put(createEvent(ClusterEventType.MessageChange, SESSION));
+
+    // An event that arrives within the window is merged as well.
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    executor.schedule(() -> queue.put(createEvent(ClusterEventType.ResourceConfigChange, SESSION)),
+        10, TimeUnit.MILLISECONDS);
+    _controller.debounceEvent(createEvent(ClusterEventType.CurrentStateChange, SESSION), queue,
+        _dataProvider);
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testKeepEventsOfOtherSessions() throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    ClusterEvent otherSessionEvent = createEvent(ClusterEventType.IdealStateChange, "session_2");
+    queue.put(otherSessionEvent);
+    queue.put(createEvent(ClusterEventType.MessageChange, SESSION));
+    _controller.debounceEvent(createEvent(ClusterEventType.CurrentStateChange, SESSION), queue,
+        _dataProvider);
+
+    // The event of the other session stays in its place.
+    Assert.assertEquals(queue.size(), 1);
+    Assert.assertSame(queue.take(), otherSessionEvent);
+  }
+
+  @Test
+  public void testKeepNonMergeableEvents() throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    // An INIT event of a mergeable type.
+    ClusterEvent initEvent = createEvent(ClusterEventType.IdealStateChange, SESSION);
+    NotificationContext initContext = new NotificationContext(null);
+    initContext.setType(NotificationContext.Type.INIT);
+    initEvent.addAttribute(AttributeName.changeContext.name(), initContext);
+    queue.put(initEvent);
+    // An event that needs more pipelines than the taken event.
+    ClusterEvent liveInstanceEvent = createEvent(ClusterEventType.LiveInstanceChange, SESSION);
+    queue.put(liveInstanceEvent);
+    queue.put(createEvent(ClusterEventType.MessageChange, SESSION));
+    _controller.debounceEvent(createEvent(ClusterEventType.CurrentStateChange, SESSION), queue,
+        _dataProvider);
+
+    Assert.assertEquals(queue.size(), 2);
+    Assert.assertSame(queue.take(), initEvent);
+    Assert.assertSame(queue.take(), liveInstanceEvent);
+  }
+
+  @Test
+  public void testMaxWindow() throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    queue.put(createEvent(ClusterEventType.MessageChange, SESSION));
+
+    // Keep merging events in by putting one more often than the min delay.
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    executor.scheduleAtFixedRate(
+        () -> queue.put(createEvent(ClusterEventType.MessageChange, SESSION)), 10, 10,
+        TimeUnit.MILLISECONDS);
+    long startTime = System.currentTimeMillis();
+    _controller.debounceEvent(createEvent(ClusterEventType.CurrentStateChange, SESSION), queue,
+        _dataProvider);
+    long duration = System.currentTimeMillis() - startTime;
+    executor.shutdownNow();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    // The debounce keeps waiting while new events are merged, but stops at the max delay.
+    Assert.assertTrue(duration >= 500, "Debounce duration: " + duration);
+    Assert.assertTrue(duration < 5000, "Debounce duration: " + duration);
+  }
+
+  @Test
+  public void testNoDelayWithoutMergeableEvents() throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    ClusterEvent liveInstanceEvent = createEvent(ClusterEventType.LiveInstanceChange, SESSION);
+    queue.put(liveInstanceEvent);
+    long startTime = System.currentTimeMillis();
+    _controller.debounceEvent(createEvent(ClusterEventType.CurrentStateChange, SESSION), queue,
+        _dataProvider);
+
+    Assert.assertTrue(System.currentTimeMillis() - startTime < 50);
+    Assert.assertSame(queue.peek(), liveInstanceEvent);
+  }
+
+  private static ClusterEvent createEvent(ClusterEventType eventType, String sessionId) {
+    ClusterEvent event = new ClusterEvent(CLUSTER_NAME, eventType);
+    NotificationContext context = new NotificationContext(null);
+    context.setType(NotificationContext.Type.CALLBACK);
+    event.addAttribute(AttributeName.changeContext.name(), context);
+    event.addAttribute(AttributeName.EVENT_SESSION.name(), Optional.of(sessionId));
+    return event;
+  }
+}
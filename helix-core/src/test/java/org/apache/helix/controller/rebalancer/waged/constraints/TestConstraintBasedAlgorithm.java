@@ -20,6 +20,7 @@ package org.apache.helix.controller.rebalancer.waged.constraints;
  */
 
 import java.io.IOException;
+import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -27,6 +28,7 @@ import org.apache.helix.HelixRebalanceException;
 import org.apache.helix.controller.rebalancer.waged.model.ClusterModel;
 import org.apache.helix.controller.rebalancer.waged.model.ClusterModelTestHelper;
 import org.apache.helix.controller.rebalancer.waged.model.OptimalAssignment;
+import org.apache.helix.model.ResourceAssignment;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -98,4 +100,31 @@ public class TestConstraintBasedAlgorithm {
 
     Assert.assertFalse(optimalAssignment.hasAnyFailure());
   }
+
+  @Test
+  public void testParallelCandidateScoringDeterminism()
+      throws IOException, HelixRebalanceException {
+    HardConstraint mockHardConstraint = mock(HardConstraint.class);
+    when(mockHardConstraint.isAssignmentValid(any(), any(), any())).thenReturn(true);
+    Map<SoftConstraint, Float> softConstraints =
+        ImmutableMap.of(new MaxCapacityUsageInstanceConstraint(), 1f,
+            new InstancePartitionsCountConstraint(), 1f);
+
+    // The sequential evaluation result is the expected assignment.
+    Map<String, ResourceAssignment> expectedAssignment =
+        new ConstraintBasedAlgorithm(ImmutableList.of(mockHardConstraint), softConstraints, 1)
+            .calculate(new ClusterModelTestHelper().getMultiNodeClusterModel(40))
+            .getOptimalResourceAssignment();
+    Assert.assertFalse(expectedAssignment.isEmpty());
+
+    // The nodes are split into multiple chunks when evaluated with a dedicated pool or with the
+    // common pool. The chosen nodes, including the tie-breaking results, must be the same.
+    for (int parallelism : new int[] {4, -1}) {
+      Map<String, ResourceAssignment> assignment =
+          new ConstraintBasedAlgorithm(ImmutableList.of(mockHardConstraint), softConstraints,
+              parallelism).calculate(new ClusterModelTestHelper().getMultiNodeClusterModel(40))
+              .getOptimalResourceAssignment();
+      Assert.assertEquals(assignment, expectedAssignment);
+    }
+  }
 }
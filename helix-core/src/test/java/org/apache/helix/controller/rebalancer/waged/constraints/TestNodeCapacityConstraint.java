@@ -28,8 +28,6 @@ import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
-import com.google.common.collect.ImmutableMap;
-
 public class TestNodeCapacityConstraint {
   private final AssignableReplica _testReplica = Mockito.mock(AssignableReplica.class);
   private final AssignableNode _testNode = Mockito.mock(AssignableNode.class);
@@ -38,17 +36,15 @@ public class TestNodeCapacityConstraint {
 
   @Test
   public void testConstraintValidWhenNodeHasEnoughSpace() {
-    String key = "testKey";
-    when(_testNode.getRemainingCapacity()).thenReturn(ImmutableMap.of(key,  10));
-    when(_testReplica.getCapacity()).thenReturn(ImmutableMap.of(key, 5));
+    when(_testNode.getRemainingCapacityArray()).thenReturn(new int[] {10});
+    when(_testReplica.getCapacityArray()).thenReturn(new int[] {5});
     Assert.assertTrue(_constraint.isAssignmentValid(_testNode, _testReplica, _clusterContext));
   }
 
   @Test
   public void testConstraintInValidWhenNodeHasInsufficientSpace() {
-    String key = "testKey";
-    when(_testNode.getRemainingCapacity()).thenReturn(ImmutableMap.of(key,  1));
-    when(_testReplica.getCapacity()).thenReturn(ImmutableMap.of(key, 5));
+    when(_testNode.getRemainingCapacityArray()).thenReturn(new int[] {1});
+    when(_testReplica.getCapacityArray()).thenReturn(new int[] {5});
     Assert.assertFalse(_constraint.isAssignmentValid(_testNode, _testReplica, _clusterContext));
   }
 }
@@ -34,6 +34,7 @@ import static org.mockito.Mockito.when;
 public class ClusterModelTestHelper extends AbstractTestClusterModel {
   public static final String TEST_INSTANCE_ID_1 = "TestInstanceId1";
   public static final String TEST_INSTANCE_ID_2 = "TestInstanceId2";
+  public static final String TEST_INSTANCE_ID_PREFIX = "TestInstanceId_";
 
   public ClusterModel getDefaultClusterModel() throws IOException {
     initialize();
@@ -62,4 +63,21 @@ public class ClusterModelTestHelper extends AbstractTestClusterModel {
         new ClusterContext(assignableReplicas, assignableNodes, Collections.emptyMap(), Collections.emptyMap());
     return new ClusterModel(context, assignableReplicas, assignableNodes);
   }
+
+  public ClusterModel getMultiNodeClusterModel(int nodeCount) throws IOException {
+    initialize();
+    ResourceControllerDataProvider testCache = setupClusterDataCache();
+    Map<String, InstanceConfig> instanceConfigMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      String instanceId = TEST_INSTANCE_ID_PREFIX + i;
+      instanceConfigMap.put(instanceId, createMockInstanceConfig(instanceId));
+    }
+    when(testCache.getInstanceConfigMap()).thenReturn(instanceConfigMap);
+    Set<AssignableReplica> assignableReplicas = generateReplicas(testCache);
+    Set<AssignableNode> assignableNodes = generateNodes(testCache);
+
+    ClusterContext context =
+        new ClusterContext(assignableReplicas, assignableNodes, Collections.emptyMap(), Collections.emptyMap());
+    return new ClusterModel(context, assignableReplicas, assignableNodes);
+  }
 }
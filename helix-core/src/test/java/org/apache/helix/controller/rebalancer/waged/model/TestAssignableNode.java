@@ -172,6 +172,49 @@ public class TestAssignableNode extends AbstractTestClusterModel {
         expectedTopStateAssignmentSet1.size() + expectedTopStateAssignmentSet2.size());
   }
 
+  @Test
+  public void testCapacityArrays() throws IOException {
+    ResourceControllerDataProvider testCache = setupClusterDataCache();
+    ClusterConfig clusterConfig = testCache.getClusterConfig();
+    CapacityKeyDictionary capacityKeyDictionary =
+        new CapacityKeyDictionary(clusterConfig.getInstanceCapacityKeys());
+    AssignableNode assignableNode = new AssignableNode(clusterConfig,
+        testCache.getInstanceConfigMap().get(_testInstanceId), _testInstanceId,
+        capacityKeyDictionary);
+    assignableNode.assignInitBatch(generateReplicas(testCache));
+
+    Assert.assertEquals(capacityKeyDictionary.size(), _capacityDataMap.size());
+    Assert.assertEquals(assignableNode.getCapacityKeyDictionary(), capacityKeyDictionary);
+    Assert.assertEquals(assignableNode.getMaxCapacityArray(),
+        capacityKeyDictionary.toArray(_capacityDataMap));
+    Assert.assertEquals(capacityKeyDictionary.toMap(assignableNode.getRemainingCapacityArray()),
+        assignableNode.getRemainingCapacity());
+
+    AssignableReplica addingReplica = new AssignableReplica(clusterConfig,
+        testCache.getResourceConfig(_resourceNames.get(1)), _partitionNames.get(2), "SLAVE", 2,
+        capacityKeyDictionary);
+    Assert.assertEquals(addingReplica.getCapacityArray(),
+        capacityKeyDictionary.toArray(addingReplica.getCapacity()));
+    // The array based utilization must be the same as the map based one.
+    Assert.assertEquals(
+        assignableNode.getGeneralProjectedHighestUtilization(addingReplica.getCapacityArray()),
+        assignableNode.getGeneralProjectedHighestUtilization(addingReplica.getCapacity()));
+    Assert.assertEquals(
+        assignableNode.getTopStateProjectedHighestUtilization(addingReplica.getCapacityArray()),
+        assignableNode.getTopStateProjectedHighestUtilization(addingReplica.getCapacity()));
+
+    // The keys that are not in the dictionary are ignored, and the missing keys are treated as 0.
+    Map<String, Integer> capacityMap = new HashMap<>();
+    capacityMap.put(capacityKeyDictionary.getCapacityKey(0), 5);
+    capacityMap.put("UnknownCapacityKey", 10);
+    int[] capacityArray = capacityKeyDictionary.toArray(capacityMap);
+    Assert.assertEquals(capacityArray.length, capacityKeyDictionary.size());
+    Assert.assertEquals(capacityArray[0], 5);
+    for (int i = 1; i < capacityArray.length; i++) {
+      Assert.assertEquals(capacityArray[i], 0);
+    }
+  }
+
   @Test
   public void testReleaseNoPartition() throws IOException {
     ResourceControllerDataProvider testCache = setupClusterDataCache();
@@ -28,8 +28,12 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.helix.HelixConstants;
+import org.apache.helix.HelixRebalanceException;
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.waged.RebalanceAlgorithm;
 import org.apache.helix.controller.rebalancer.waged.WagedRebalancer;
+import org.apache.helix.controller.rebalancer.waged.constraints.ConstraintBasedAlgorithmFactory;
+import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.CurrentState;
 import org.apache.helix.model.IdealState;
 import org.apache.helix.model.InstanceConfig;
@@ -373,4 +377,94 @@ public class TestClusterModelProvider extends AbstractTestClusterModel {
     // No need to rebalance the replicas that are not in the baseline yet.
     Assert.assertEquals(clusterModel.getAssignableReplicaMap().size(), 0);
   }
+
+  @Test (dependsOnMethods = "testGenerateClusterModel")
+  public void testUpdateClusterModelForPartialRebalance()
+      throws IOException, HelixRebalanceException {
+    ResourceControllerDataProvider testCache = setupClusterDataCache();
+    Map<String, Resource> resourceMap = _resourceNames.stream()
+        .collect(Collectors.toMap(resource -> resource, resource -> new Resource(resource)));
+    RebalanceAlgorithm algorithm = ConstraintBasedAlgorithmFactory
+        .getInstance(ClusterConfig.DEFAULT_GLOBAL_REBALANCE_PREFERENCE);
+
+    // Calculate a baseline on all the 3 instances, and use it as the best possible assignment.
+    Map<String, ResourceAssignment> baseline = algorithm.calculate(ClusterModelProvider
+        .generateClusterModelForBaseline(testCache, resourceMap, _instances,
+            Collections.emptyMap(), Collections.emptyMap())).getOptimalResourceAssignment();
+    ClusterModel clusterModel = ClusterModelProvider
+        .generateClusterModelForPartialRebalance(testCache, resourceMap, _instances, baseline,
+            baseline);
+    Map<String, ResourceAssignment> bestPossibleAssignment =
+        algorithm.calculate(clusterModel).getOptimalResourceAssignment();
+    Assert.assertEquals(bestPossibleAssignment, baseline);
+
+    // 1. One instance becomes inactive, only the replicas on that instance are re-assigned.
+    String inactiveInstance = _testInstanceId + 1;
+    Set<String> activeInstances = new HashSet<>(_instances);
+    activeInstances.remove(inactiveInstance);
+    Set<String> displacedReplicas =
+        clusterModel.getAssignableNodes().get(inactiveInstance).getAssignedReplicas().stream()
+            .map(AssignableReplica::toString).collect(Collectors.toSet());
+    Assert.assertFalse(displacedReplicas.isEmpty());
+    ClusterModel expectedModel = ClusterModelProvider
+        .generateClusterModelForPartialRebalance(testCache, resourceMap, activeInstances,
+            baseline, bestPossibleAssignment);
+    clusterModel = ClusterModelProvider
+        .updateClusterModelForPartialRebalance(clusterModel, testCache, resourceMap,
+            activeInstances, baseline, bestPossibleAssignment);
+    Assert.assertNotNull(clusterModel);
+    Assert.assertEquals(getAssignableReplicaNames(clusterModel), displacedReplicas);
+    assertSameClusterModel(clusterModel, expectedModel);
+    bestPossibleAssignment = algorithm.calculate(clusterModel).getOptimalResourceAssignment();
+    Assert.assertEquals(bestPossibleAssignment,
+        algorithm.calculate(expectedModel).getOptimalResourceAssignment());
+
+    // 2. The instance becomes active again, the replicas are moved back according to the baseline.
+    expectedModel = ClusterModelProvider
+        .generateClusterModelForPartialRebalance(testCache, resourceMap, _instances, baseline,
+            bestPossibleAssignment);
+    clusterModel = ClusterModelProvider
+        .updateClusterModelForPartialRebalance(clusterModel, testCache, resourceMap, _instances,
+            baseline, bestPossibleAssignment);
+    Assert.assertNotNull(clusterModel);
+    Assert.assertEquals(getAssignableReplicaNames(clusterModel), displacedReplicas);
+    assertSameClusterModel(clusterModel, expectedModel);
+    Assert.assertEquals(algorithm.calculate(clusterModel).getOptimalResourceAssignment(), baseline);
+
+    // 3. The replica count changes with the active instances, the model cannot be reused.
+    testCache.getInstanceConfigMap().values()
+        .forEach(config -> config.setZoneId(config.getInstanceName()));
+    clusterModel = ClusterModelProvider
+        .generateClusterModelForPartialRebalance(testCache, resourceMap, _instances, baseline,
+            baseline);
+    algorithm.calculate(clusterModel);
+    Assert.assertNull(ClusterModelProvider
+        .updateClusterModelForPartialRebalance(clusterModel, testCache, resourceMap,
+            activeInstances, baseline, baseline));
+  }
+
+  private Set<String> getAssignableReplicaNames(ClusterModel clusterModel) {
+    return clusterModel.getAssignableReplicaMap().values().stream().flatMap(Set::stream)
+        .map(AssignableReplica::toString).collect(Collectors.toSet());
+  }
+
+  private void assertSameClusterModel(ClusterModel clusterModel, ClusterModel expectedModel) {
+    Assert.assertEquals(getAssignableReplicaNames(clusterModel),
+        getAssignableReplicaNames(expectedModel));
+    Assert.assertEquals(clusterModel.getAssignableNodes().keySet(),
+        expectedModel.getAssignableNodes().keySet());
+    for (String instanceName : expectedModel.getAssignableNodes().keySet()) {
+      AssignableNode node = clusterModel.getAssignableNodes().get(instanceName);
+      AssignableNode expectedNode = expectedModel.getAssignableNodes().get(instanceName);
+      Assert.assertEquals(node.getAssignedReplicas().stream().map(AssignableReplica::toString)
+              .collect(Collectors.toSet()),
+          expectedNode.getAssignedReplicas().stream().map(AssignableReplica::toString)
+              .collect(Collectors.toSet()));
+      Assert.assertEquals(node.getRemainingCapacity(), expectedNode.getRemainingCapacity());
+    }
+    Assert.assertEquals(clusterModel.getContext().getAssignmentForFaultZoneMap(),
+        expectedModel.getContext().getAssignmentForFaultZoneMap());
+    Assert.assertEquals(clusterModel.getContext().getEstimatedMaxPartitionCount(),
+        expectedModel.getContext().getEstimatedMaxPartitionCount());
+  }
 }
@@ -22,8 +22,10 @@ package org.apache.helix.controller.stages;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.helix.controller.dataproviders.ResourceControllerDataProvider;
+import org.apache.helix.controller.rebalancer.strategy.CrushEdRebalanceStrategy;
 import org.apache.helix.model.BuiltInStateModelDefinitions;
 import org.apache.helix.model.ClusterConfig;
 import org.apache.helix.model.IdealState.RebalanceMode;
@@ -143,4 +145,66 @@ public class TestBestPossibleStateCalcStage extends BaseStageTest {
         output.getInstanceStateMap("testResourceName", new Partition("testResourceName_1"))
             .get("localhost_2"));
   }
+
+  @Test
+  public void testParallelResourceCalculation() {
+    String[] resources = new String[] {
+        "testResource0", "testResource1", "testResource2", "testResource3", "testResource4"
+    };
+    int numInstances = 10;
+    int numPartitions = 20;
+
+    setupIdealState(numInstances, resources, numPartitions, 3, RebalanceMode.FULL_AUTO,
+        BuiltInStateModelDefinitions.MasterSlave.name(), null,
+        CrushEdRebalanceStrategy.class.getName(), -1);
+    setupInstances(numInstances);
+    setupLiveInstances(numInstances);
+    setupStateModel();
+
+    ResourceRebalancePool rebalancePool = new ResourceRebalancePool(_clusterName);
+    try {
+      BestPossibleStateOutput serialOutput =
+          computeBestPossibleState(resources, numPartitions, rebalancePool);
+
+      ClusterConfig clusterConfig = accessor.getProperty(accessor.keyBuilder().clusterConfig());
+      clusterConfig.setResourceRebalanceParallelism(4);
+      setClusterConfig(clusterConfig);
+      BestPossibleStateOutput parallelOutput =
+          computeBestPossibleState(resources, numPartitions, rebalancePool);
+
+      Assert.assertEquals(parallelOutput.resourceSet().size(), resources.length);
+      Assert.assertEquals(parallelOutput.getPreferenceLists(), serialOutput.getPreferenceLists());
+      Assert.assertEquals(parallelOutput.getStateMap(), serialOutput.getStateMap());
+
+      // The pool is kept while the parallelism is unchanged, and replaced when it changes.
+      ForkJoinPool pool = rebalancePool.getPool(4);
+      Assert.assertSame(rebalancePool.getPool(4), pool);
+      Assert.assertEquals(rebalancePool.getPool(2).getParallelism(), 2);
+      Assert.assertTrue(pool.isShutdown());
+
+      // Without the controller owned pool, the stage still calculates the resources in parallel.
+      Assert.assertEquals(computeBestPossibleState(resources, numPartitions, null).getStateMap(),
+          serialOutput.getStateMap());
+    } finally {
+      rebalancePool.shutdown();
+    }
+  }
+
+  private BestPossibleStateOutput computeBestPossibleState(String[] resources, int numPartitions,
+      ResourceRebalancePool rebalancePool) {
+    Map<String, Resource> resourceMap =
+        getResourceMap(resources, numPartitions, BuiltInStateModelDefinitions.MasterSlave.name());
+    ClusterEvent event = new ClusterEvent(ClusterEventType.Unknown);
+    event.addAttribute(AttributeName.RESOURCES.name(), resourceMap);
+    event.addAttribute(AttributeName.RESOURCES_TO_REBALANCE.name(), resourceMap);
+    event.addAttribute(AttributeName.CURRENT_STATE.name(), new CurrentStateOutput());
+    event.addAttribute(AttributeName.ControllerDataProvider.name(),
+        new ResourceControllerDataProvider());
+    if (rebalancePool != null) {
+      event.addAttribute(AttributeName.RESOURCE_REBALANCE_POOL.name(), rebalancePool);
+    }
+    runStage(event, new ReadClusterDataStage());
+    runStage(event, new BestPossibleStateCalcStage());
+    return event.getAttribute(AttributeName.BEST_POSSIBLE_STATE.name());
+  }
 }
@@ -19,17 +19,27 @@ package org.apache.helix.controller.stages;
  * under the License.
  */
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.helix.TestHelper;
 import org.apache.helix.common.ClusterEventBlockingQueue;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 /**
@@ -37,10 +47,17 @@ import org.testng.annotations.Test;
  * FIFO order.
  */
 public class TestClusterEventBlockingQueue {
-  @Test
-  public void testEventQueue() throws Exception {
+  @DataProvider
+  public Object[][] queueTypes() {
+    return new Object[][] {
+        {false}, {true}
+    };
+  }
+
+  @Test(dataProvider = "queueTypes")
+  public void testEventQueue(boolean concurrentQueueEnabled) throws Exception {
     // initialize the queue
-    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue();
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue(concurrentQueueEnabled);
 
     // add an event
     ClusterEvent event1 = new ClusterEvent(ClusterEventType.IdealStateChange);
@@ -78,6 +95,155 @@ public class TestClusterEventBlockingQueue {
     Assert.assertEquals(queue.size(), 0);
   }
 
+  @Test(dataProvider = "queueTypes")
+  public void testRemove(boolean concurrentQueueEnabled) throws Exception {
+    ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue(concurrentQueueEnabled);
+    ClusterEvent event1 = new ClusterEvent(ClusterEventType.IdealStateChange);
+    ClusterEvent event2 = new ClusterEvent(ClusterEventType.ConfigChange);
+    ClusterEvent event3 = new ClusterEvent(ClusterEventType.CurrentStateChange);
+    queue.put(event1);
+    queue.put(event2);
+    queue.put(event3);
+
+    Assert.assertSame(queue.remove(ClusterEventType.ConfigChange), event2);
+    Assert.assertNull(queue.remove(ClusterEventType.ConfigChange));
+    Assert.assertEquals(queue.size(), 2);
+
+    // A conditional remove keeps the event in its place if the condition does not match.
+    Assert.assertNull(queue.remove(ClusterEventType.IdealStateChange, event -> event != event1));
+    Assert.assertEquals(queue.size(), 2);
+    Assert.assertSame(queue.peek(), event1);
+
+    // An event of the removed type is queued behind the remaining events.
+    ClusterEvent newEvent2 = new ClusterEvent(ClusterEventType.ConfigChange);
+    queue.put(newEvent2);
+    ListeningExecutorService service =
+        MoreExecutors.listeningDecorator(Executors.newCachedThreadPool());
+    Assert.assertSame(safeTake(queue, service), event1);
+    Assert.assertSame(safeTake(queue, service), event3);
+    Assert.assertSame(safeTake(queue, service), newEvent2);
+    Assert.assertTrue(queue.isEmpty());
+    service.shutdown();
+  }
+
+  @Test(dataProvider = "queueTypes")
+  public void testConcurrentPut(boolean concurrentQueueEnabled) throws Exception {
+    final ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue(concurrentQueueEnabled);
+    final ClusterEventType[] eventTypes = ClusterEventType.values();
+    final int producerCount = 16;
+    final int eventsPerProducer = 10000;
+    ExecutorService service = Executors.newFixedThreadPool(producerCount);
+    final CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < producerCount; i++) {
+      final int producerId = i;
+      futures.add(service.submit(() -> {
+        startLatch.await();
+        for (int j = 0; j < eventsPerProducer; j++) {
+          ClusterEvent event = new ClusterEvent(eventTypes[j % eventTypes.length]);
+          event.addAttribute("producer", producerId);
+          event.addAttribute("seq", j);
+          queue.put(event);
+        }
+        return null;
+      }));
+    }
+
+    // Consume while the producers are running. Each event type is coalesced, so the queue never
+    // holds more events than the number of types.
+    startLatch.countDown();
+    Map<ClusterEventType, Integer> takenCounts = new HashMap<>();
+    while (!allDone(futures) || !queue.isEmpty()) {
+      Assert.assertTrue(queue.size() <= eventTypes.length);
+      if (!queue.isEmpty()) {
+        ClusterEvent event = queue.take();
+        takenCounts.merge(event.getEventType(), 1, Integer::sum);
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    service.shutdown();
+
+    // Every event type is delivered at least once, and nothing is left behind.
+    Assert.assertEquals(takenCounts.size(), eventTypes.length);
+    Assert.assertTrue(queue.isEmpty());
+    Assert.assertNull(queue.peek());
+  }
+
+  @Test(dataProvider = "queueTypes")
+  public void testPutWakesBlockedConsumers(boolean concurrentQueueEnabled) throws Exception {
+    final ClusterEventBlockingQueue queue = new ClusterEventBlockingQueue(concurrentQueueEnabled);
+    final ClusterEventType[] eventTypes = ClusterEventType.values();
+    final int consumerCount = 4;
+    final int producerCount = 8;
+    final int eventsPerProducer = 2000;
+    final AtomicInteger takenCount = new AtomicInteger();
+    ExecutorService consumers = Executors.newFixedThreadPool(consumerCount);
+    List<Future<?>> consumerFutures = new ArrayList<>();
+    for (int i = 0; i < consumerCount; i++) {
+      consumerFutures.add(consumers.submit(() -> {
+        try {
+          while (true) {
+            queue.take();
+            takenCount.incrementAndGet();
+          }
+        } catch (InterruptedException e) {
+          // The test is done.
+        }
+        return null;
+      }));
+    }
+
+    // Let the consumers block in take(), then wake them up with a single put at a time.
+    for (int round = 0; round < 10; round++) {
+      Thread.sleep(20);
+      int expectedCount = takenCount.get() + 1;
+      queue.put(new ClusterEvent(eventTypes[round % eventTypes.length]));
+      Assert.assertTrue(TestHelper.verify(() -> takenCount.get() == expectedCount, 10000));
+    }
+
+    // Put from many producers, pausing in between so the consumers keep going back to wait.
+    ExecutorService producers = Executors.newFixedThreadPool(producerCount);
+    List<Future<?>> producerFutures = new ArrayList<>();
+    for (int i = 0; i < producerCount; i++) {
+      producerFutures.add(producers.submit(() -> {
+        for (int j = 0; j < eventsPerProducer; j++) {
+          queue.put(new ClusterEvent(eventTypes[j % eventTypes.length]));
+          if (j % 100 == 0) {
+            Thread.sleep(1);
+          }
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : producerFutures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    producers.shutdown();
+
+    // A missed wakeup would leave events in the queue while all the consumers are waiting.
+    Assert.assertTrue(TestHelper.verify(queue::isEmpty, 10000));
+    int finalCount = takenCount.get();
+    queue.put(new ClusterEvent(ClusterEventType.Unknown));
+    Assert.assertTrue(TestHelper.verify(() -> takenCount.get() == finalCount + 1, 10000));
+
+    consumers.shutdownNow();
+    Assert.assertTrue(consumers.awaitTermination(10, TimeUnit.SECONDS));
+    for (Future<?> future : consumerFutures) {
+      future.get();
+    }
+  }
+
+  private static boolean allDone(List<Future<?>> futures) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private ClusterEvent safeTake(final ClusterEventBlockingQueue queue,
       final ListeningExecutorService service) throws InterruptedException, ExecutionException,
       TimeoutException {
@@ -0,0 +1,137 @@
+package org.apache.helix.manager.zk;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.helix.BaseDataAccessor;
+import org.apache.helix.GroupCommit;
+import org.apache.helix.mock.MockBaseDataAccessor;
+import org.apache.helix.monitoring.mbeans.GroupCommitMonitor;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestStripedGroupCommitQueue {
+  @Test
+  public void testMergeConcurrentUpdates() throws Exception {
+    GroupCommitMonitor monitor = new GroupCommitMonitor();
+    // A single stripe, so all the keys share the same lock.
+    StripedGroupCommitQueue<Integer> queue = new StripedGroupCommitQueue<>(1, monitor);
+    List<Integer> committed = new ArrayList<>();
+    StripedGroupCommitQueue.BatchCommitter<Integer> committer = (key, updates) -> {
+      synchronized (committed) {
+        committed.addAll(updates);
+      }
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return true;
+    };
+
+    int updateCount = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(20);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < updateCount; i++) {
+        final int update = i;
+        futures.add(executor.submit(() -> queue.commit("key", update, committer)));
+      }
+      for (Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(committed.size(), updateCount);
+    Assert.assertEquals(monitor.getCommittedUpdateCount(), updateCount);
+    // The concurrent updates are merged while the previous batch is being written.
+    Assert.assertTrue(monitor.getCommitCount() < updateCount);
+    Assert.assertTrue(monitor.getMergeRatio() > 1);
+  }
+
+  @Test
+  public void testHotKeyDoesNotBlockOtherKeys() throws Exception {
+    StripedGroupCommitQueue<String> queue =
+        new StripedGroupCommitQueue<>(1, new GroupCommitMonitor());
+    CountDownLatch hotKeyCommitting = new CountDownLatch(1);
+    CountDownLatch releaseHotKey = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> hotKeyFuture = executor.submit(() -> queue.commit("hotKey", "update",
+          (key, updates) -> {
+            hotKeyCommitting.countDown();
+            try {
+              return releaseHotKey.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+              return false;
+            }
+          }));
+      Assert.assertTrue(hotKeyCommitting.await(10, TimeUnit.SECONDS));
+
+      // The other key shares the stripe with the hot key, but it is committed right away.
+      Assert.assertTrue(queue.commit("otherKey", "update", (key, updates) -> true));
+      Assert.assertFalse(hotKeyFuture.isDone());
+
+      releaseHotKey.countDown();
+      Assert.assertTrue(hotKeyFuture.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testStripedGroupCommit() throws Exception {
+    BaseDataAccessor<ZNRecord> accessor = new MockBaseDataAccessor();
+    GroupCommit commit = new GroupCommit(16);
+    int recordCount = 100;
+
+    ExecutorService executor = Executors.newFixedThreadPool(20);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < recordCount; i++) {
+        ZNRecord record = new ZNRecord("test");
+        record.setSimpleField("test_id" + i, String.valueOf(i));
+        String key = "test" + (i % 2);
+        futures.add(executor.submit(() -> commit.commit(accessor, 0, key, record)));
+      }
+      for (Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(accessor.get("test0", null, 0).getSimpleFields().size(),
+        recordCount / 2);
+    Assert.assertEquals(accessor.get("test1", null, 0).getSimpleFields().size(),
+        recordCount / 2);
+  }
+}
@@ -0,0 +1,311 @@
+package org.apache.helix.manager.zk;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.helix.AccessOption;
+import org.apache.helix.SystemPropertyKeys;
+import org.apache.helix.ZkUnitTestBase;
+import org.apache.helix.zookeeper.api.client.RealmAwareZkClient;
+import org.apache.helix.zookeeper.datamodel.SessionAwareZNRecord;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.callback.ZkAsyncCallbacks;
+import org.apache.helix.zookeeper.zkclient.exception.ZkException;
+import org.apache.helix.zookeeper.zkclient.exception.ZkSessionMismatchedException;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestZkBaseDataAccessorMultiOp extends ZkUnitTestBase {
+  private static ZkBaseDataAccessor<ZNRecord> createAccessor(RealmAwareZkClient zkClient,
+      int batchSize) {
+    System.setProperty(SystemPropertyKeys.ZK_BASE_DATA_ACCESSOR_MULTI_OP_BATCH_SIZE,
+        String.valueOf(batchSize));
+    try {
+      return new ZkBaseDataAccessor<>(zkClient);
+    } finally {
+      System.clearProperty(SystemPropertyKeys.ZK_BASE_DATA_ACCESSOR_MULTI_OP_BATCH_SIZE);
+    }
+  }
+
+  private static RealmAwareZkClient createZkClient() {
+    RealmAwareZkClient zkClient = Mockito.mock(RealmAwareZkClient.class);
+    Mockito.when(zkClient.serialize(Matchers.any(), Matchers.anyString()))
+        .thenReturn(new byte[10]);
+    // Every op of a committed transaction succeeds.
+    Mockito.when(zkClient.multi(Matchers.any())).thenAnswer(invocation -> {
+      List<OpResult> results = new ArrayList<>();
+      for (Op op : (Iterable<Op>) invocation.getArguments()[0]) {
+        results.add(op.getType() == ZooDefs.OpCode.create
+            ? new OpResult.CreateResult(op.getPath()) : new OpResult.SetDataResult(new Stat()));
+      }
+      return results;
+    });
+    Mockito.doAnswer(invocation -> {
+      String path = (String) invocation.getArguments()[0];
+      ZkAsyncCallbacks.CreateCallbackHandler cb =
+          (ZkAsyncCallbacks.CreateCallbackHandler) invocation.getArguments()[3];
+      cb.processResult(KeeperException.Code.OK.intValue(), path, null, path);
+      return null;
+    }).when(zkClient).asyncCreate(Matchers.anyString(), Matchers.any(),
+        Matchers.any(CreateMode.class),
+        Matchers.any(ZkAsyncCallbacks.CreateCallbackHandler.class));
+    return zkClient;
+  }
+
+  private static List<String> createPaths(int count) {
+    return createPaths("/TestZkBaseDataAccessorMultiOp", count);
+  }
+
+  @Test
+  public void testCreateChildrenInBatches() {
+    RealmAwareZkClient zkClient = createZkClient();
+    ZkBaseDataAccessor<ZNRecord> accessor = createAccessor(zkClient, 2);
+    List<String> paths = createPaths(5);
+    List<ZNRecord> records = new ArrayList<>();
+    for (String path : paths) {
+      records.add(new ZNRecord(path));
+    }
+
+    boolean[] success = accessor.createChildren(paths, records, AccessOption.PERSISTENT);
+
+    for (boolean succeeded : success) {
+      Assert.assertTrue(succeeded);
+    }
+    Mockito.verify(zkClient, Mockito.times(3)).multi(Matchers.any());
+    Mockito.verify(zkClient, Mockito.never()).asyncCreate(Matchers.anyString(),
+        Matchers.any(), Matchers.any(CreateMode.class),
+        Matchers.any(ZkAsyncCallbacks.CreateCallbackHandler.class));
+  }
+
+  @Test
+  public void testFailedTransactionFallsBackToAsyncOps() {
+    RealmAwareZkClient zkClient = createZkClient();
+    // The transaction of the expected session fails, e.g. a node exists.
+    Mockito.when(zkClient.multi(Matchers.any(), Matchers.eq("session_1")))
+        .thenThrow(new ZkException("NodeExists"));
+    ZkBaseDataAccessor<ZNRecord> accessor = createAccessor(zkClient, 10);
+    List<String> paths = createPaths(4);
+    List<ZNRecord> records = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      SessionAwareZNRecord record = new SessionAwareZNRecord(paths.get(i));
+      // The records of different sessions are not in the same transaction.
+      record.setExpectedSessionId(i < 2 ? "session_1" : null);
+      records.add(record);
+    }
+
+    boolean[] success = accessor.createChildren(paths, records, AccessOption.PERSISTENT);
+
+    for (boolean succeeded : success) {
+      Assert.assertTrue(succeeded);
+    }
+    Mockito.verify(zkClient).multi(Matchers.any(), Matchers.eq("session_1"));
+    Mockito.verify(zkClient).multi(Matchers.any());
+    for (int i = 0; i < paths.size(); i++) {
+      Mockito.verify(zkClient, Mockito.times(i < 2 ? 1 : 0)).asyncCreate(
+          Matchers.eq(paths.get(i)), Matchers.any(),
+          Matchers.any(CreateMode.class),
+          Matchers.any(ZkAsyncCallbacks.CreateCallbackHandler.class));
+    }
+  }
+
+  @Test
+  public void testSetChildrenInBatches() {
+    RealmAwareZkClient zkClient = createZkClient();
+    ZkBaseDataAccessor<ZNRecord> accessor = createAccessor(zkClient, 3);
+    List<String> paths = createPaths(3);
+    List<ZNRecord> records = new ArrayList<>();
+    for (String path : paths) {
+      records.add(new ZNRecord(path));
+    }
+    List<Stat> stats = new ArrayList<>();
+
+    boolean[] success = accessor.set(paths, records, null, stats, AccessOption.PERSISTENT);
+
+    for (int i = 0; i < paths.size(); i++) {
+      Assert.assertTrue(success[i]);
+      Assert.assertNotNull(stats.get(i));
+    }
+    Mockito.verify(zkClient, Mockito.times(1)).multi(Matchers.any());
+    Mockito.verify(zkClient, Mockito.never()).asyncSetData(Matchers.anyString(),
+        Matchers.any(), Matchers.anyInt(),
+        Matchers.any(ZkAsyncCallbacks.SetDataCallbackHandler.class));
+  }
+
+  /**
+   * @return a ZkClient which writes to the test ZK, and asserts that a failed transaction writes
+   *         none of the paths before it sets rolledBack
+   */
+  private static RealmAwareZkClient createRollbackCheckingZkClient(final List<String> paths,
+      final AtomicBoolean rolledBack) {
+    final List<ZNRecord> dataBefore = new ArrayList<>();
+    for (String path : paths) {
+      dataBefore.add(_gZkClient.exists(path) ? _gZkClient.<ZNRecord> readData(path) : null);
+    }
+    RealmAwareZkClient zkClient =
+        Mockito.mock(RealmAwareZkClient.class, AdditionalAnswers.delegatesTo(_gZkClient));
+    Mockito.doAnswer(invocation -> {
+      try {
+        return _gZkClient.multi((Iterable<Op>) invocation.getArguments()[0]);
+      } catch (ZkException e) {
+        for (int i = 0; i < paths.size(); i++) {
+          String path = paths.get(i);
+          Assert.assertEquals(_gZkClient.exists(path) ? _gZkClient.readData(path) : null,
+              dataBefore.get(i), path + " is written by a failed transaction.");
+        }
+        rolledBack.set(true);
+        throw e;
+      }
+    }).when(zkClient).multi(Matchers.any());
+    return zkClient;
+  }
+
+  private String createTestRoot(String testName) {
+    String root = "/" + getShortClassName() + "_" + testName;
+    if (_gZkClient.exists(root)) {
+      _gZkClient.deleteRecursively(root);
+    }
+    _gZkClient.createPersistent(root, true);
+    return root;
+  }
+
+  private static List<String> createPaths(String root, int count) {
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      paths.add(root + "/node_" + i);
+    }
+    return paths;
+  }
+
+  @Test
+  public void testNodeExistsRollsBackTransaction() {
+    List<String> paths = createPaths(createTestRoot("testNodeExistsRollsBackTransaction"), 4);
+    _gZkClient.createPersistent(paths.get(2), new ZNRecord("existing"));
+    AtomicBoolean rolledBack = new AtomicBoolean();
+    RealmAwareZkClient zkClient = createRollbackCheckingZkClient(paths, rolledBack);
+    ZkBaseDataAccessor<ZNRecord> accessor = createAccessor(zkClient, 10);
+    List<ZNRecord> records = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      records.add(new ZNRecord("node_" + i));
+    }
+
+    boolean[] success = accessor.createChildren(paths, records, AccessOption.PERSISTENT);
+
+    // The existing node rolls back the transaction, then each path is created by an async op.
+    Assert.assertTrue(rolledBack.get());
+    for (int i = 0; i < paths.size(); i++) {
+      Assert.assertEquals(success[i], i != 2);
+      Assert.assertEquals(_gZkClient.<ZNRecord> readData(paths.get(i)).getId(),
+          i == 2 ? "existing" : "node_" + i);
+      Mockito.verify(zkClient).asyncCreate(Matchers.eq(paths.get(i)), Matchers.any(),
+          Matchers.any(CreateMode.class),
+          Matchers.any(ZkAsyncCallbacks.CreateCallbackHandler.class));
+    }
+  }
+
+  @Test
+  public void testNoNodeRollsBackTransaction() {
+    List<String> paths = createPaths(createTestRoot("testNoNodeRollsBackTransaction"), 4);
+    for (int i = 0; i < paths.size(); i++) {
+      if (i != 2) {
+        _gZkClient.createPersistent(paths.get(i), new ZNRecord("previous"));
+      }
+    }
+    AtomicBoolean rolledBack = new AtomicBoolean();
+    RealmAwareZkClient zkClient = createRollbackCheckingZkClient(paths, rolledBack);
+    ZkBaseDataAccessor<ZNRecord> accessor = createAccessor(zkClient, 10);
+    List<ZNRecord> records = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      records.add(new ZNRecord("node_" + i));
+    }
+
+    boolean[] success = accessor.setChildren(paths, records, AccessOption.PERSISTENT);
+
+    // The missing node rolls back the transaction, then each path is set by an async op, which
+    // creates the missing node.
+    Assert.assertTrue(rolledBack.get());
+    for (int i = 0; i < paths.size(); i++) {
+      Assert.assertTrue(success[i]);
+      Assert.assertEquals(_gZkClient.<ZNRecord> readData(paths.get(i)).getId(), "node_" + i);
+      Mockito.verify(zkClient).asyncSetData(Matchers.eq(paths.get(i)), Matchers.any(),
+          Matchers.anyInt(), Matchers.any(ZkAsyncCallbacks.SetDataCallbackHandler.class));
+    }
+  }
+
+  @Test
+  public void testSessionAwareTransaction() {
+    String root = createTestRoot("testSessionAwareTransaction");
+    String sessionId = Long.toHexString(_gZkClient.getSessionId());
+
+    // The records of the current session are created by a transaction.
+    RealmAwareZkClient zkClient =
+        Mockito.mock(RealmAwareZkClient.class, AdditionalAnswers.delegatesTo(_gZkClient));
+    List<String> paths = createPaths(root + "/current", 3);
+    _gZkClient.createPersistent(root + "/current");
+    List<ZNRecord> records = new ArrayList<>();
+    for (String path : paths) {
+      SessionAwareZNRecord record = new SessionAwareZNRecord(path);
+      record.setExpectedSessionId(sessionId);
+      records.add(record);
+    }
+    boolean[] success = createAccessor(zkClient, 10)
+        .createChildren(paths, records, AccessOption.PERSISTENT);
+    for (int i = 0; i < paths.size(); i++) {
+      Assert.assertTrue(success[i]);
+      Assert.assertTrue(_gZkClient.exists(paths.get(i)));
+    }
+    Mockito.verify(zkClient).multi(Matchers.any(), Matchers.eq(sessionId));
+    Mockito.verify(zkClient, Mockito.never()).asyncCreate(Matchers.anyString(), Matchers.any(),
+        Matchers.any(CreateMode.class),
+        Matchers.any(ZkAsyncCallbacks.CreateCallbackHandler.class));
+
+    // The records of another session fail the transaction and the async ops alike, so none of
+    // them is created.
+    List<String> mismatchedPaths = createPaths(root + "/mismatched", 3);
+    _gZkClient.createPersistent(root + "/mismatched");
+    List<ZNRecord> mismatchedRecords = new ArrayList<>();
+    for (String path : mismatchedPaths) {
+      SessionAwareZNRecord record = new SessionAwareZNRecord(path);
+      record.setExpectedSessionId(sessionId + "0");
+      mismatchedRecords.add(record);
+    }
+    try {
+      createAccessor(_gZkClient, 10)
+          .createChildren(mismatchedPaths, mismatchedRecords, AccessOption.PERSISTENT);
+      Assert.fail("Creating the records of another session should fail.");
+    } catch (ZkSessionMismatchedException expected) {
+      // expected
+    }
+    for (String path : mismatchedPaths) {
+      Assert.assertFalse(_gZkClient.exists(path));
+    }
+  }
+}
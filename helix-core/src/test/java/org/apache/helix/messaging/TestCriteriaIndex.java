@@ -0,0 +1,164 @@
+package org.apache.helix.messaging;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.Criteria;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.InstanceType;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.PropertyType;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.spectator.RoutingTableSnapshot;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestCriteriaIndex {
+  private static final String CLUSTER_NAME = "TestCriteriaIndex";
+  private static final int INSTANCE_COUNT = 5;
+
+  private final HelixDataAccessor _accessor = new MockAccessor(CLUSTER_NAME);
+  private final List<ExternalView> _externalViews = new ArrayList<>();
+  private final List<LiveInstance> _liveInstances = new ArrayList<>();
+
+  @BeforeClass
+  public void beforeClass() {
+    PropertyKey.Builder keyBuilder = _accessor.keyBuilder();
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      String instanceName = "localhost_" + i;
+      // The last instance is offline.
+      if (i < INSTANCE_COUNT - 1) {
+        LiveInstance liveInstance = new LiveInstance(instanceName);
+        liveInstance.setSessionId("session_" + i);
+        _liveInstances.add(liveInstance);
+        _accessor.setProperty(keyBuilder.liveInstance(instanceName), liveInstance);
+      }
+    }
+    for (String resource : new String[] {"TestDB", "TestDB_1", "MyDB"}) {
+      ExternalView externalView = new ExternalView(resource);
+      for (int p = 0; p < 10; p++) {
+        for (int r = 0; r < 3; r++) {
+          externalView.setState(resource + "_" + p, "localhost_" + ((p + r) % INSTANCE_COUNT),
+              r == 0 ? "MASTER" : "SLAVE");
+        }
+      }
+      _externalViews.add(externalView);
+      _accessor.setProperty(keyBuilder.externalView(resource), externalView);
+    }
+  }
+
+  private static Criteria createCriteria(String instance, String resource, String partition,
+      String state) {
+    Criteria criteria = new Criteria();
+    criteria.setRecipientInstanceType(InstanceType.PARTICIPANT);
+    criteria.setInstanceName(instance);
+    criteria.setResource(resource);
+    criteria.setPartition(partition);
+    criteria.setPartitionState(state);
+    return criteria;
+  }
+
+  private RoutingTableSnapshot createSnapshot(List<ExternalView> externalViews) {
+    RoutingTableSnapshot snapshot = Mockito.mock(RoutingTableSnapshot.class);
+    Mockito.when(snapshot.getPropertyType()).thenReturn(PropertyType.EXTERNALVIEW);
+    Mockito.when(snapshot.getExternalViews()).thenReturn(externalViews);
+    Mockito.when(snapshot.getLiveInstances()).thenReturn(_liveInstances);
+    return snapshot;
+  }
+
+  @Test
+  public void testSameResultAsCriteriaEvaluator() {
+    CriteriaIndex index = new CriteriaIndex(_externalViews, _liveInstances);
+    CriteriaEvaluator evaluator = new CriteriaEvaluator();
+    List<Criteria> criteriaList = new ArrayList<>();
+    criteriaList.add(createCriteria("%", "%", "%", "%"));
+    criteriaList.add(createCriteria("%", "TestDB", "%", "MASTER"));
+    criteriaList.add(createCriteria("%", "TestDB", "TestDB_1", ""));
+    criteriaList.add(createCriteria("%", "TestDB", "testdb_%", "slave"));
+    criteriaList.add(createCriteria("localhost_1", "%", "", ""));
+    criteriaList.add(createCriteria("LOCALHOST_2", "", "%", "MASTER"));
+    criteriaList.add(createCriteria("localhost_4", "%", "%", "%"));
+    criteriaList.add(createCriteria("localhost__", "MyDB", "MyDB_1_", "%"));
+    criteriaList.add(createCriteria("", "%", "%DB%_3", ""));
+    criteriaList.add(createCriteria("*", "TestDB_1", "*", "*"));
+
+    for (Criteria criteria : criteriaList) {
+      List<Map<String, String>> expected = evaluator.evaluateCriteria(criteria, _accessor);
+      List<Map<String, String>> result = index.evaluateCriteria(criteria);
+      Assert.assertEquals(result.size(), expected.size(), criteria.toString());
+      Assert.assertTrue(new HashSet<>(result).equals(new HashSet<>(expected)), criteria.toString());
+    }
+  }
+
+  @Test(expectedExceptions = HelixException.class)
+  public void testResourceNotFound() {
+    new CriteriaIndex(_externalViews, _liveInstances)
+        .evaluateCriteria(createCriteria("%", "NotExistDB", "%", "%"));
+  }
+
+  @Test
+  public void testLikePattern() {
+    Assert.assertTrue(new CriteriaIndex.LikePattern("").matches("anything"));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("*").matches(""));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("Test%DB").matches("testMyDB"));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("%DB%").matches("TestDB_1"));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("a%b%c").matches("aXbYbZc"));
+    Assert.assertFalse(new CriteriaIndex.LikePattern("a%b%c").matches("aXbYbZ"));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("DB_1").matches("DBX1"));
+    Assert.assertFalse(new CriteriaIndex.LikePattern("DB_1").matches("DB_10"));
+    Assert.assertTrue(new CriteriaIndex.LikePattern("DB.1").isLiteral());
+    Assert.assertFalse(new CriteriaIndex.LikePattern("DB.1").matches("DBX1"));
+  }
+
+  @Test
+  public void testCachedCriteriaEvaluator() throws Exception {
+    CachedCriteriaEvaluator evaluator = new CachedCriteriaEvaluator(CLUSTER_NAME, 60000);
+    Criteria criteria = createCriteria("%", "TestDB", "%", "MASTER");
+    List<Map<String, String>> expected = evaluator.evaluateCriteria(criteria, _accessor);
+    Assert.assertEquals(expected.size(), 8);
+
+    // Only MyDB is in the snapshot, so the result of TestDB must still be read from the accessor.
+    evaluator.onRoutingTableChange(createSnapshot(_externalViews.subList(2, 3)), null);
+    List<Map<String, String>> result = evaluator.evaluateCriteria(criteria, _accessor);
+    Assert.assertTrue(new HashSet<>(result).equals(new HashSet<>(expected)));
+
+    // The resource in the snapshot is evaluated by the index, even if the persisted data is gone.
+    Criteria myDBCriteria = createCriteria("%", "MyDB", "%", "MASTER");
+    HelixDataAccessor emptyAccessor = new MockAccessor(CLUSTER_NAME);
+    Assert.assertEquals(evaluator.evaluateCriteria(myDBCriteria, emptyAccessor).size(), 8);
+
+    // A stale snapshot is not used.
+    Criteria allCriteria = createCriteria("%", "%", "%", "MASTER");
+    CachedCriteriaEvaluator staleEvaluator = new CachedCriteriaEvaluator(CLUSTER_NAME, 0);
+    staleEvaluator.onRoutingTableChange(createSnapshot(_externalViews), null);
+    Thread.sleep(10);
+    Assert.assertTrue(staleEvaluator.evaluateCriteria(allCriteria, emptyAccessor).isEmpty());
+    Assert.assertEquals(evaluator.evaluateCriteria(allCriteria, emptyAccessor).size(), 8);
+  }
+}
@@ -0,0 +1,143 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.helix.HelixProperty;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.CurrentState;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCurrentStateUpdateCoalescer {
+  private static class CountingAccessor extends MockAccessor {
+    private final AtomicInteger _updateCount = new AtomicInteger();
+
+    @Override
+    public <T extends HelixProperty> boolean updateProperty(PropertyKey key, T value) {
+      _updateCount.incrementAndGet();
+      return super.updateProperty(key, value);
+    }
+  }
+
+  @Test
+  public void testMergeConcurrentUpdates() throws Exception {
+    CurrentStateUpdateCoalescer coalescer = new CurrentStateUpdateCoalescer(200);
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key1 = accessor.keyBuilder().currentState("localhost_1", "session_1", "TestDB1");
+    PropertyKey key2 = accessor.keyBuilder().currentState("localhost_1", "session_1", "TestDB2");
+    int partitionCount = 100;
+
+    List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+    for (int i = 0; i < partitionCount; i++) {
+      PropertyKey key = i % 2 == 0 ? key1 : key2;
+      CurrentState delta = new CurrentState(i % 2 == 0 ? "TestDB1" : "TestDB2");
+      delta.setState("partition_" + i, "SLAVE");
+      futures.add(CompletableFuture
+          .supplyAsync(() -> coalescer.update(accessor, key, delta)).thenCompose(f -> f));
+    }
+    for (CompletableFuture<Boolean> future : futures) {
+      Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+    }
+
+    // The deltas of each current state are merged into far fewer writes.
+    Assert.assertTrue(accessor._updateCount.get() < partitionCount / 2,
+        "Update count: " + accessor._updateCount.get());
+    CurrentState currentState1 = accessor.getProperty(key1);
+    CurrentState currentState2 = accessor.getProperty(key2);
+    Assert.assertEquals(currentState1.getPartitionStateMap().size(), partitionCount / 2);
+    Assert.assertEquals(currentState2.getPartitionStateMap().size(), partitionCount / 2);
+    Assert.assertEquals(currentState1.getState("partition_0"), "SLAVE");
+    coalescer.shutdown();
+  }
+
+  @Test
+  public void testShutdownFlushesPendingUpdates() throws Exception {
+    CurrentStateUpdateCoalescer coalescer = new CurrentStateUpdateCoalescer(60000);
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key = accessor.keyBuilder().currentState("localhost_1", "session_1", "TestDB");
+    CurrentState delta = new CurrentState("TestDB");
+    delta.setState("partition_0", "MASTER");
+
+    CompletableFuture<Boolean> future = coalescer.update(accessor, key, delta);
+    Assert.assertFalse(future.isDone());
+    coalescer.shutdown();
+    Assert.assertTrue(future.get(1, TimeUnit.SECONDS));
+    Assert.assertEquals(((CurrentState) accessor.getProperty(key)).getState("partition_0"),
+        "MASTER");
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    CurrentStateUpdateCoalescer coalescer = new CurrentStateUpdateCoalescer(60000);
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key = accessor.keyBuilder().currentState("localhost_1", "session_1", "TestDB");
+    CurrentState canceledDelta = new CurrentState("TestDB");
+    canceledDelta.setState("partition_0", "MASTER");
+    CurrentState delta = new CurrentState("TestDB");
+    delta.setState("partition_1", "SLAVE");
+
+    CompletableFuture<Boolean> canceledFuture = coalescer.update(accessor, key, canceledDelta);
+    CompletableFuture<Boolean> future = coalescer.update(accessor, key, delta);
+    Assert.assertTrue(coalescer.cancel(key, canceledFuture));
+    Assert.assertTrue(canceledFuture.isCancelled());
+    coalescer.shutdown();
+
+    // Only the delta that is not canceled is written.
+    Assert.assertTrue(future.get(1, TimeUnit.SECONDS));
+    CurrentState currentState = accessor.getProperty(key);
+    Assert.assertNull(currentState.getState("partition_0"));
+    Assert.assertEquals(currentState.getState("partition_1"), "SLAVE");
+    // A written delta cannot be canceled.
+    Assert.assertFalse(coalescer.cancel(key, future));
+  }
+
+  @Test
+  public void testDeltasAreNotModified() throws Exception {
+    CurrentStateUpdateCoalescer coalescer = new CurrentStateUpdateCoalescer(60000);
+    CountingAccessor accessor = new CountingAccessor();
+    PropertyKey key = accessor.keyBuilder().currentState("localhost_1", "session_1", "TestDB");
+    CurrentState delta1 = new CurrentState("TestDB");
+    delta1.setState("partition_0", "MASTER");
+    CurrentState delta2 = new CurrentState("TestDB");
+    delta2.setState("partition_0", "OFFLINE");
+    delta2.setState("partition_1", "SLAVE");
+
+    CompletableFuture<Boolean> future1 = coalescer.update(accessor, key, delta1);
+    CompletableFuture<Boolean> future2 = coalescer.update(accessor, key, delta2);
+    coalescer.shutdown();
+    Assert.assertTrue(future1.get(1, TimeUnit.SECONDS));
+    Assert.assertTrue(future2.get(1, TimeUnit.SECONDS));
+
+    // The deltas are merged into a new record, so the deltas of the transitions are unchanged.
+    Assert.assertEquals(delta1.getPartitionStateMap().size(), 1);
+    Assert.assertEquals(delta1.getState("partition_0"), "MASTER");
+    Assert.assertEquals(accessor._updateCount.get(), 1);
+    CurrentState currentState = accessor.getProperty(key);
+    Assert.assertEquals(currentState.getState("partition_0"), "OFFLINE");
+    Assert.assertEquals(currentState.getState("partition_1"), "SLAVE");
+  }
+}
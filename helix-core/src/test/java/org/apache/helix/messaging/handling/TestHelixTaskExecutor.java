@@ -26,9 +26,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.helix.HelixConstants;
@@ -36,15 +38,21 @@ import org.apache.helix.HelixDataAccessor;
 import org.apache.helix.HelixDefinedState;
 import org.apache.helix.HelixException;
 import org.apache.helix.HelixManager;
+import org.apache.helix.MockAccessor;
 import org.apache.helix.NotificationContext;
 import org.apache.helix.PropertyKey;
+import org.apache.helix.PropertyType;
+import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.TestHelper;
 import org.apache.helix.mock.MockManager;
 import org.apache.helix.model.CurrentState;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.Message.MessageState;
+import org.apache.helix.monitoring.mbeans.MessageQueueMonitor;
+import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
 import org.apache.helix.participant.statemachine.StateModel;
 import org.apache.helix.participant.statemachine.StateModelFactory;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.AssertJUnit;
 import org.testng.annotations.AfterClass;
@@ -922,6 +930,65 @@ public class TestHelixTaskExecutor {
     System.out.println("END " + TestHelper.getTestMethodName());
   }
 
+  @Test
+  public void testPipelinedMessageRead() throws Exception {
+    System.out.println("START " + TestHelper.getTestMethodName());
+    final Map<PropertyType, AtomicInteger> childNameReadCounts = new ConcurrentHashMap<>();
+    final MockAccessor accessor = new MockAccessor() {
+      @Override
+      public List<String> getChildNames(PropertyKey propertyKey) {
+        childNameReadCounts.computeIfAbsent(propertyKey.getType(), type -> new AtomicInteger())
+            .incrementAndGet();
+        return super.getChildNames(propertyKey);
+      }
+    };
+    HelixManager manager = new MockClusterManager() {
+      @Override
+      public HelixDataAccessor getHelixDataAccessor() {
+        return accessor;
+      }
+    };
+    MessageQueueMonitor messageQueueMonitor = Mockito.mock(MessageQueueMonitor.class);
+    HelixTaskExecutor executor;
+    System.setProperty(SystemPropertyKeys.PARTICIPANT_MESSAGE_READ_BATCH_SIZE, "2");
+    try {
+      executor = new HelixTaskExecutor(new ParticipantStatusMonitor(false, null),
+          messageQueueMonitor);
+    } finally {
+      System.clearProperty(SystemPropertyKeys.PARTICIPANT_MESSAGE_READ_BATCH_SIZE);
+    }
+
+    TestMessageHandlerFactory factory = new TestMessageHandlerFactory();
+    for (String type : factory.getMessageTypes()) {
+      executor.registerMessageHandlerFactory(type, factory);
+    }
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    int nMsgs = 7;
+    for (int i = 0; i < nMsgs; i++) {
+      Message msg = new Message(factory.getMessageTypes().get(0), UUID.randomUUID().toString());
+      msg.setTgtSessionId(manager.getSessionId());
+      msg.setTgtName("Localhost_1123");
+      msg.setSrcName("127.101.1.23_2234");
+      msg.setCorrelationId(UUID.randomUUID().toString());
+      accessor.setProperty(keyBuilder.message("someInstance", msg.getId()), msg);
+    }
+
+    NotificationContext changeContext = new NotificationContext(manager);
+    changeContext.setChangeType(HelixConstants.ChangeType.MESSAGE);
+    executor.onMessage("someInstance", Collections.EMPTY_LIST, changeContext);
+    Assert.assertTrue(TestHelper
+        .verify(() -> factory._processedMsgIds.size() == nMsgs, TestHelper.WAIT_DURATION));
+
+    // The 4 batches share the backlog report and the current state reads of the callback.
+    Mockito.verify(messageQueueMonitor).setMessageQueueBacklog(nMsgs);
+    Mockito.verify(messageQueueMonitor, Mockito.times(1))
+        .setMessageQueueBacklog(Mockito.anyLong());
+    Assert.assertEquals(childNameReadCounts.get(PropertyType.CURRENTSTATES).get(), 1);
+    Assert.assertEquals(childNameReadCounts.get(PropertyType.TASKCURRENTSTATES).get(), 1);
+    executor.shutdown();
+    System.out.println("END " + TestHelper.getTestMethodName());
+  }
+
   @Test
   public void testNoWriteReadStateForRemovedMessage()
       throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
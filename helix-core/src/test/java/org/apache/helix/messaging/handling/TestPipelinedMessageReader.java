@@ -0,0 +1,85 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixProperty;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.Message;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPipelinedMessageReader {
+  @Test
+  public void testReadInBatches() {
+    HelixDataAccessor accessor = new MockAccessor("TestPipelinedMessageReader") {
+      @Override
+      public <T extends HelixProperty> List<T> getProperty(List<PropertyKey> keys,
+          boolean throwException) {
+        // Delay the first batch, so it is read after the later batches.
+        if (keys.get(0).getPath().endsWith("msg_0")) {
+          try {
+            Thread.sleep(200);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.getProperty(keys, throwException);
+      }
+    };
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    String instanceName = "localhost_1";
+    List<PropertyKey> keys = new ArrayList<>();
+    List<String> expectedIds = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      Message message = new Message(Message.MessageType.STATE_TRANSITION, "msg_" + i);
+      PropertyKey key = keyBuilder.message(instanceName, message.getId());
+      accessor.setProperty(key, message);
+      keys.add(key);
+      expectedIds.add(message.getId());
+    }
+    // The message that is removed before it is read is skipped.
+    keys.add(keyBuilder.message(instanceName, "removedMessage"));
+
+    PipelinedMessageReader reader = new PipelinedMessageReader(10, null);
+    try {
+      List<List<Message>> batches = new ArrayList<>();
+      int messageCount = reader.read(accessor, keys, batches::add);
+
+      Assert.assertEquals(messageCount, expectedIds.size());
+      Assert.assertEquals(batches.size(), 3);
+      // The batches are processed in the order of the keys, even if a later batch is read first.
+      List<String> readIds = new ArrayList<>();
+      for (List<Message> batch : batches) {
+        Assert.assertTrue(batch.size() <= 10);
+        for (Message message : batch) {
+          readIds.add(message.getId());
+        }
+      }
+      Assert.assertEquals(readIds, expectedIds);
+    } finally {
+      reader.shutdown();
+    }
+  }
+}
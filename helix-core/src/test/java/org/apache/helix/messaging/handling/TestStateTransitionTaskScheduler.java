@@ -0,0 +1,235 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixManager;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.NotificationContext;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.model.BuiltInStateModelDefinitions;
+import org.apache.helix.model.ClusterConfig;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.model.Message;
+import org.apache.helix.model.ResourceConfig;
+import org.apache.helix.monitoring.mbeans.MonitorDomainNames;
+import org.apache.helix.monitoring.mbeans.ParticipantStatusMonitor;
+import org.apache.helix.monitoring.mbeans.ThreadPoolExecutorMonitor;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestStateTransitionTaskScheduler {
+  private static final String CLUSTER_NAME = "TestStateTransitionTaskScheduler";
+  private static final String PRIORITY_FIELD = "priority";
+
+  private final StateTransitionTaskComparator _comparator = new StateTransitionTaskComparator();
+  private HelixManager _manager;
+
+  @BeforeClass
+  public void beforeClass() {
+    HelixDataAccessor accessor = new MockAccessor(CLUSTER_NAME);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    ClusterConfig clusterConfig = new ClusterConfig(CLUSTER_NAME);
+    clusterConfig.setResourcePriorityField(PRIORITY_FIELD);
+    accessor.setProperty(keyBuilder.clusterConfig(), clusterConfig);
+    accessor.setProperty(keyBuilder.stateModelDef("MasterSlave"),
+        BuiltInStateModelDefinitions.MasterSlave.getStateModelDefinition());
+    ResourceConfig resourceConfig = new ResourceConfig("HighDB");
+    resourceConfig.putSimpleConfig(PRIORITY_FIELD, "10");
+    accessor.setProperty(keyBuilder.resourceConfig("HighDB"), resourceConfig);
+    // The priority of a resource without ResourceConfig is read from the IdealState.
+    IdealState idealState = new IdealState("LowDB");
+    idealState.getRecord().setSimpleField(PRIORITY_FIELD, "1");
+    accessor.setProperty(keyBuilder.idealStates("LowDB"), idealState);
+
+    _manager = Mockito.mock(HelixManager.class);
+    Mockito.when(_manager.getHelixDataAccessor()).thenReturn(accessor);
+  }
+
+  private TestMessageTask createTask(String msgId, String resource, String toState,
+      long createTime, Runnable action) {
+    Message message = new Message(Message.MessageType.STATE_TRANSITION, msgId);
+    message.setResourceName(resource);
+    message.setStateModelDef("MasterSlave");
+    message.setFromState(toState.equals("MASTER") ? "SLAVE" : "OFFLINE");
+    message.setToState(toState);
+    message.setCreateTimeStamp(createTime);
+    _comparator.loadPriority(message, _manager);
+    return new TestMessageTask(message, action);
+  }
+
+  @Test
+  public void testPriorityOrder() throws Exception {
+    StateTransitionTaskScheduler scheduler =
+        new StateTransitionTaskScheduler(1, 0, _comparator, null, "TestPriorityOrder");
+    try {
+      CountDownLatch blocker = new CountDownLatch(1);
+      List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+      scheduler.submit(createTask("blocker", "LowDB", "SLAVE", 0, () -> await(blocker)));
+
+      List<Future<HelixTaskResult>> futures = new ArrayList<>();
+      String[][] tasks = {
+          {"lowSlave", "LowDB", "SLAVE", "100"},
+          {"highSlave", "HighDB", "SLAVE", "200"},
+          {"lowMaster", "LowDB", "MASTER", "300"},
+          {"oldHighSlave", "HighDB", "SLAVE", "150"},
+          {"noPrioritySlave", "NoPriorityDB", "SLAVE", "50"}
+      };
+      for (String[] task : tasks) {
+        futures.add(scheduler.submit(createTask(task[0], task[1], task[2],
+            Long.parseLong(task[3]), () -> runOrder.add(task[0]))));
+      }
+      Assert.assertEquals(scheduler.getQueueDepth(), tasks.length);
+
+      blocker.countDown();
+      for (Future<HelixTaskResult> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+      Assert.assertEquals(runOrder,
+          Arrays.asList("lowMaster", "oldHighSlave", "highSlave", "lowSlave", "noPrioritySlave"));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testPerResourceConcurrency() throws Exception {
+    StateTransitionTaskScheduler scheduler =
+        new StateTransitionTaskScheduler(2, 1, _comparator, null, "TestPerResourceConcurrency");
+    CountDownLatch blocker = new CountDownLatch(1);
+    CountDownLatch otherResourceDone = new CountDownLatch(1);
+    scheduler.submit(createTask("high_0", "HighDB", "SLAVE", 0, () -> await(blocker)));
+    Future<HelixTaskResult> deferred =
+        scheduler.submit(createTask("high_1", "HighDB", "SLAVE", 1, () -> { }));
+    scheduler.submit(createTask("low_0", "LowDB", "SLAVE", 2, otherResourceDone::countDown));
+
+    // The task of the other resource runs on the free thread, while the second task of the
+    // capped resource waits.
+    Assert.assertTrue(otherResourceDone.await(10, TimeUnit.SECONDS));
+    Assert.assertFalse(deferred.isDone());
+    Assert.assertEquals(scheduler.getQueueDepth(), 1);
+
+    blocker.countDown();
+    deferred.get(10, TimeUnit.SECONDS);
+    Assert.assertEquals(scheduler.getQueueDepth(), 0);
+
+    scheduler.shutdown();
+    Assert.assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testThreadPoolMonitor() throws Exception {
+    String type = "TestStateTransitionTaskScheduler_STATE_TRANSITION";
+    ParticipantStatusMonitor monitor = new ParticipantStatusMonitor(true, "localhost_12918");
+    StateTransitionTaskScheduler scheduler =
+        new StateTransitionTaskScheduler(1, 0, _comparator, monitor, "TestThreadPoolMonitor");
+    monitor.createExecutorMonitor(type, scheduler);
+    MBeanServer beanServer = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = new ObjectName(String.format("%s:%s=%s",
+        MonitorDomainNames.HelixThreadPoolExecutor.name(), ThreadPoolExecutorMonitor.TYPE, type));
+    try {
+      Assert.assertTrue(beanServer.isRegistered(objectName));
+      Assert.assertEquals(beanServer.getAttribute(objectName, "ThreadPoolMaxSizeGauge"), 1);
+
+      CountDownLatch started = new CountDownLatch(1);
+      CountDownLatch blocker = new CountDownLatch(1);
+      scheduler.submit(createTask("blocker", "LowDB", "SLAVE", 0, () -> {
+        started.countDown();
+        await(blocker);
+      }));
+      Future<HelixTaskResult> queued =
+          scheduler.submit(createTask("queued", "HighDB", "SLAVE", 1, () -> { }));
+      Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals(beanServer.getAttribute(objectName, "NumOfActiveThreadsGauge"), 1);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "QueueSizeGauge"), 1);
+
+      blocker.countDown();
+      queued.get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "QueueSizeGauge"), 0);
+    } finally {
+      scheduler.shutdownNow();
+      monitor.removeExecutorMonitor(type);
+    }
+    Assert.assertFalse(beanServer.isRegistered(objectName));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static class TestMessageTask implements MessageTask {
+    private final Message _message;
+    private final Runnable _action;
+
+    TestMessageTask(Message message, Runnable action) {
+      _message = message;
+      _action = action;
+    }
+
+    @Override
+    public HelixTaskResult call() {
+      _action.run();
+      HelixTaskResult result = new HelixTaskResult();
+      result.setSuccess(true);
+      return result;
+    }
+
+    @Override
+    public String getTaskId() {
+      return _message.getId();
+    }
+
+    @Override
+    public Message getMessage() {
+      return _message;
+    }
+
+    @Override
+    public NotificationContext getNotificationContext() {
+      return null;
+    }
+
+    @Override
+    public void onTimeout() {
+    }
+
+    @Override
+    public boolean cancel() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package org.apache.helix.messaging.handling;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestVirtualThreadMessageExecutor {
+  @Test
+  public void testConcurrencyLimit() throws Exception {
+    // The limit does not depend on the type of the threads, so platform threads are used to run
+    // the test on any JDK.
+    VirtualThreadMessageExecutor executor =
+        new VirtualThreadMessageExecutor(Executors.newCachedThreadPool(), 2);
+    CountDownLatch blocker = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      futures.add(executor.submit(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        blocker.await(10, TimeUnit.SECONDS);
+        running.decrementAndGet();
+        return null;
+      }));
+    }
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (executor.getWaitingTaskCount() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals(executor.getWaitingTaskCount(), 3);
+    Assert.assertEquals(running.get(), 2);
+    // The gauges reported to the ThreadPoolExecutorMonitor.
+    Assert.assertEquals(executor.getActiveCount(), 2);
+    Assert.assertEquals(executor.getQueueSize(), 3);
+    Assert.assertEquals(executor.getCorePoolSize(), 2);
+    Assert.assertEquals(executor.getMaximumPoolSize(), 2);
+
+    blocker.countDown();
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    Assert.assertEquals(maxRunning.get(), 2);
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(executor.getActiveCount(), 0);
+  }
+
+  @Test
+  public void testUnlimitedConcurrencyGauges() throws Exception {
+    VirtualThreadMessageExecutor executor =
+        new VirtualThreadMessageExecutor(Executors.newCachedThreadPool(), 0);
+    CountDownLatch started = new CountDownLatch(3);
+    CountDownLatch blocker = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      futures.add(executor.submit(() -> {
+        started.countDown();
+        blocker.await(10, TimeUnit.SECONDS);
+        return null;
+      }));
+    }
+    Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(executor.getActiveCount(), 3);
+    Assert.assertEquals(executor.getQueueSize(), 0);
+    Assert.assertEquals(executor.getCorePoolSize(), 0);
+    Assert.assertEquals(executor.getMaximumPoolSize(), Integer.MAX_VALUE);
+
+    blocker.countDown();
+    for (Future<?> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertEquals(executor.getActiveCount(), 0);
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    if (!VirtualThreadMessageExecutor.isSupported()) {
+      try {
+        new VirtualThreadMessageExecutor(1);
+        Assert.fail("Virtual threads should not be supported.");
+      } catch (UnsupportedOperationException e) {
+        // expected
+      }
+      return;
+    }
+    VirtualThreadMessageExecutor executor = new VirtualThreadMessageExecutor(1);
+    try {
+      Assert.assertEquals(executor.submit(() -> "done").get(10, TimeUnit.SECONDS), "done");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
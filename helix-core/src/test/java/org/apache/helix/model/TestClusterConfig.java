@@ -356,6 +356,25 @@ public class TestClusterConfig {
             -1), 10000L);
   }
 
+  @Test
+  public void testControllerEventDebounceWindow() {
+    ClusterConfig testConfig = new ClusterConfig("testId");
+    Assert.assertEquals(testConfig.getControllerEventDebounceMinDelayMs(),
+        ClusterConfig.DEFAULT_CONTROLLER_EVENT_DEBOUNCE_MIN_DELAY_MS);
+    Assert.assertTrue(testConfig.getControllerEventDebounceMaxDelayMs() <= 0);
+
+    testConfig.setControllerEventDebounceWindow(20L, 500L);
+    Assert.assertEquals(testConfig.getControllerEventDebounceMinDelayMs(), 20L);
+    Assert.assertEquals(testConfig.getControllerEventDebounceMaxDelayMs(), 500L);
+
+    try {
+      testConfig.setControllerEventDebounceWindow(600L, 500L);
+      Assert.fail("The min delay shall not be larger than the max delay.");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+
   @Test
   public void testAbnormalStatesResolverConfig() {
     ClusterConfig testConfig = new ClusterConfig("testConfig");
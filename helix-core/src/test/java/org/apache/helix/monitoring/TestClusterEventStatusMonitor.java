@@ -148,6 +148,32 @@ public class TestClusterEventStatusMonitor {
     System.out.println("END TestParticipantMonitor");
   }
 
+  @Test
+  public void testStageMetrics() throws Exception {
+    String clusterName = "TestStageMetricsCluster";
+    ClusterStatusMonitorForTest monitor = new ClusterStatusMonitorForTest(clusterName);
+    String stageName = ReadClusterDataStage.class.getSimpleName();
+    addTestEventMonitor(monitor, stageName);
+
+    monitor.updateClusterEventStageMetrics(stageName, 2_500_000L, 1024L);
+    // A negative allocation means the stage execution was not sampled.
+    monitor.updateClusterEventStageMetrics(stageName, 1_500_000L, -1L);
+    monitor.updateClusterEventStageMetrics(stageName, 2_000_000L, 1024L);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName objectName = server.queryNames(new ObjectName(
+        "ClusterStatus:cluster=" + clusterName + ",eventName=ClusterEvent,phaseName=" + stageName),
+        null).iterator().next();
+    Assert.assertEquals(server.getAttribute(objectName, "EventCounter"), 3L);
+    Assert.assertEquals(server.getAttribute(objectName, "TotalDurationCounter"), 5L);
+    Assert.assertEquals(server.getAttribute(objectName, "DurationNsGauge.Max"), 2_500_000L);
+    Assert.assertEquals(server.getAttribute(objectName, "DurationNsGauge.Pct50th"), 2_000_000.0);
+    Assert.assertEquals(server.getAttribute(objectName, "AllocatedBytesGauge.Max"), 1024L);
+    Assert.assertEquals(server.getAttribute(objectName, "AllocatedBytesGauge.Pct99th"), 1024.0);
+
+    monitor.reset();
+  }
+
   private void addTestEventMonitor(ClusterStatusMonitorForTest monitor, String phaseName) throws
       JMException {
     ConcurrentHashMap<String, ClusterEventMonitor> monitors = monitor.getClusterEventMonitors();
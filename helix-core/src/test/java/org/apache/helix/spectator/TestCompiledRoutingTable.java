@@ -0,0 +1,140 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.helix.PropertyType;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestCompiledRoutingTable {
+  private static final int INSTANCE_COUNT = 5;
+  private static final String[] STATES = {"MASTER", "SLAVE", "OFFLINE"};
+
+  @Test
+  public void testSameResultAsRoutingTable() {
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      instanceConfigs.add(new InstanceConfig("localhost_" + i));
+    }
+    List<ExternalView> externalViews = new ArrayList<>();
+    for (String resource : new String[] {"TestDB", "MyDB"}) {
+      ExternalView externalView = new ExternalView(resource);
+      for (int p = 0; p < 8; p++) {
+        for (int r = 0; r < 3; r++) {
+          externalView.setState(resource + "_" + p, "localhost_" + ((p + r) % INSTANCE_COUNT),
+              STATES[(p + r) % STATES.length]);
+        }
+      }
+      externalViews.add(externalView);
+    }
+    // The instance that has no config is skipped.
+    externalViews.get(0).setState("TestDB_0", "localhost_" + INSTANCE_COUNT, "SLAVE");
+    RoutingTable routingTable = new RoutingTable(externalViews, instanceConfigs,
+        Collections.<LiveInstance> emptyList());
+    CompiledRoutingTable compiled =
+        new RoutingTableSnapshot(routingTable).getCompiledRoutingTable();
+    Assert.assertSame(new RoutingTableSnapshot(routingTable).getCompiledRoutingTable(), compiled);
+
+    Assert.assertEquals(compiled.getResourceCount(), 2);
+    Assert.assertEquals(compiled.getStateCount(), STATES.length);
+    Assert.assertEquals(compiled.getInstanceCount(), INSTANCE_COUNT);
+    for (ExternalView externalView : externalViews) {
+      String resource = externalView.getId();
+      int resourceId = compiled.getResourceId(resource);
+      Assert.assertEquals(compiled.getResourceName(resourceId), resource);
+      Assert.assertEquals(compiled.getPartitionCount(resourceId), 8);
+      for (String partition : externalView.getPartitionSet()) {
+        int partitionId = compiled.getPartitionId(resourceId, partition);
+        Assert.assertEquals(compiled.getPartitionName(resourceId, partitionId), partition);
+        for (String state : STATES) {
+          int stateId = compiled.getStateId(state);
+          List<InstanceConfig> instances = new ArrayList<>();
+          for (int i = 0; i < compiled.getInstanceCount(resourceId, partitionId, stateId); i++) {
+            instances.add(compiled.getInstance(resourceId, partitionId, stateId, i));
+          }
+          Assert.assertEquals(instances,
+              routingTable.getInstancesForResource(resource, partition, state));
+        }
+      }
+    }
+
+    Assert.assertEquals(compiled.getResourceId("NotExistDB"), CompiledRoutingTable.NOT_FOUND);
+    Assert.assertEquals(compiled.getPartitionId(0, "NotExistDB_0"),
+        CompiledRoutingTable.NOT_FOUND);
+    Assert.assertEquals(compiled.getStateId("ERROR"), CompiledRoutingTable.NOT_FOUND);
+    Assert.assertEquals(compiled.getInstanceId("localhost_" + INSTANCE_COUNT),
+        CompiledRoutingTable.NOT_FOUND);
+    int instanceId = compiled.getInstanceId("localhost_1");
+    Assert.assertEquals(compiled.getInstanceConfig(instanceId).getInstanceName(), "localhost_1");
+  }
+
+  @Test
+  public void testCompiledBeforePublished() {
+    List<InstanceConfig> instanceConfigs =
+        Collections.singletonList(new InstanceConfig("localhost_0"));
+    ExternalView externalView = new ExternalView("TestDB");
+    externalView.setState("TestDB_0", "localhost_0", "MASTER");
+    List<ExternalView> externalViews = Collections.singletonList(externalView);
+    String referenceKey = PropertyType.EXTERNALVIEW.name() + "_"
+        + RoutingTableProvider.DEFAULT_STATE_TYPE;
+    RoutingTableProvider provider = new RoutingTableProvider(null,
+        ImmutableMap.of(PropertyType.EXTERNALVIEW, Collections.<String> emptyList()), false, 0);
+    try {
+      // The table is not compiled until the compiled lookups are used.
+      provider.refreshExternalView(externalViews, instanceConfigs,
+          Collections.<LiveInstance> emptyList(), referenceKey);
+      Assert.assertFalse(provider.getRoutingTableSnapshot().isCompiled());
+      provider.getRoutingTableSnapshot().getCompiledRoutingTable();
+
+      // Then each new table is compiled before the listeners and the lookups can see it.
+      final List<Boolean> compiledOnNotify = new ArrayList<>();
+      provider.addRoutingTableChangeListener(
+          (snapshot, context) -> compiledOnNotify.add(snapshot.isCompiled()), null);
+      provider.refreshExternalView(externalViews, instanceConfigs,
+          Collections.<LiveInstance> emptyList(), referenceKey);
+      Assert.assertEquals(compiledOnNotify, Collections.singletonList(true));
+      Assert.assertTrue(provider.getRoutingTableSnapshot().isCompiled());
+    } finally {
+      provider.shutdown();
+    }
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testIndexOutOfBounds() {
+    ExternalView externalView = new ExternalView("TestDB");
+    externalView.setState("TestDB_0", "localhost_0", "MASTER");
+    externalView.setState("TestDB_1", "localhost_0", "MASTER");
+    RoutingTable routingTable = new RoutingTable(Collections.singletonList(externalView),
+        Collections.singletonList(new InstanceConfig("localhost_0")),
+        Collections.<LiveInstance> emptyList());
+    CompiledRoutingTable compiled = routingTable.getCompiledRoutingTable();
+    compiled.getInstanceId(compiled.getResourceId("TestDB"),
+        compiled.getPartitionId(0, "TestDB_0"), compiled.getStateId("MASTER"), 1);
+  }
+}
@@ -0,0 +1,239 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.helix.HelixProperty;
+import org.apache.helix.PropertyType;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestIncrementalRoutingTable {
+  private static final int INSTANCE_COUNT = 4;
+  private static final int PARTITION_COUNT = 6;
+
+  private final List<InstanceConfig> _instanceConfigs = new ArrayList<>();
+  private final List<LiveInstance> _liveInstances = new ArrayList<>();
+
+  public TestIncrementalRoutingTable() {
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      String instanceName = "localhost_" + i;
+      _instanceConfigs.add(new InstanceConfig(instanceName));
+      LiveInstance liveInstance = new LiveInstance(instanceName);
+      liveInstance.setSessionId("session_" + i);
+      _liveInstances.add(liveInstance);
+    }
+  }
+
+  private static ExternalView createExternalView(String resource, String resourceGroup,
+      int version, int masterOffset) {
+    ExternalView externalView = new ExternalView(resource);
+    if (resourceGroup != null) {
+      externalView.getRecord().setSimpleField(
+          ExternalView.ExternalViewProperty.RESOURCE_GROUP_NAME.name(), resourceGroup);
+      externalView.getRecord().setBooleanField(
+          ExternalView.ExternalViewProperty.GROUP_ROUTING_ENABLED.name(), true);
+    }
+    for (int p = 0; p < PARTITION_COUNT; p++) {
+      for (int r = 0; r < 2; r++) {
+        externalView.setState("partition_" + p,
+            "localhost_" + ((p + r + masterOffset) % INSTANCE_COUNT), r == 0 ? "MASTER" : "SLAVE");
+      }
+    }
+    externalView.setStat(new HelixProperty.Stat(version, 1000L, 1000L + version, 0));
+    return externalView;
+  }
+
+  private static CurrentState createCurrentState(String resource, String instanceName,
+      int version, String state) {
+    CurrentState currentState = new CurrentState(resource);
+    for (int p = 0; p < PARTITION_COUNT; p++) {
+      currentState.setState("partition_" + p, state);
+    }
+    currentState.setStat(new HelixProperty.Stat(version, 1000L, 1000L + version, 0));
+    return currentState;
+  }
+
+  private static void assertSameRouting(RoutingTable result, RoutingTable expected,
+      List<String> resources, List<String> resourceGroups) {
+    for (String state : new String[] {"MASTER", "SLAVE", "OFFLINE"}) {
+      for (String resource : resources) {
+        Assert.assertTrue(result.getInstancesForResource(resource, state)
+            .equals(expected.getInstancesForResource(resource, state)));
+        for (int p = 0; p < PARTITION_COUNT; p++) {
+          Assert.assertTrue(new HashSet<>(result.getInstancesForResource(resource, "partition_" + p,
+              state)).equals(
+              new HashSet<>(expected.getInstancesForResource(resource, "partition_" + p, state))));
+        }
+      }
+      for (String resourceGroup : resourceGroups) {
+        Assert.assertTrue(result.getInstancesForResourceGroup(resourceGroup, state)
+            .equals(expected.getInstancesForResourceGroup(resourceGroup, state)));
+      }
+    }
+  }
+
+  @Test
+  public void testExternalViewRefresh() {
+    List<ExternalView> externalViews = new ArrayList<>();
+    externalViews.add(createExternalView("TestDB", null, 1, 0));
+    externalViews.add(createExternalView("MyDB", null, 1, 0));
+    externalViews.add(createExternalView("GroupDB_0", "GroupDB", 1, 0));
+    externalViews.add(createExternalView("GroupDB_1", "GroupDB", 1, 0));
+    externalViews.add(createExternalView("OtherDB_0", "OtherDB", 1, 0));
+    RoutingTable previous = new RoutingTable(externalViews, _instanceConfigs, _liveInstances);
+
+    // TestDB and GroupDB_1 are changed, MyDB is removed, the copies of the other views are the
+    // same version.
+    List<ExternalView> newExternalViews = new ArrayList<>();
+    newExternalViews.add(createExternalView("TestDB", null, 2, 1));
+    newExternalViews.add(createExternalView("GroupDB_0", "GroupDB", 1, 0));
+    newExternalViews.add(createExternalView("GroupDB_1", "GroupDB", 2, 1));
+    newExternalViews.add(createExternalView("OtherDB_0", "OtherDB", 1, 0));
+    newExternalViews.add(createExternalView("NewDB", null, 1, 0));
+    RoutingTable routingTable = new RoutingTable(previous, newExternalViews, _instanceConfigs,
+        _liveInstances, PropertyType.EXTERNALVIEW);
+
+    List<String> resources = new ArrayList<>();
+    for (ExternalView externalView : externalViews) {
+      resources.add(externalView.getId());
+    }
+    resources.add("NewDB");
+    List<String> resourceGroups = new ArrayList<>();
+    Collections.addAll(resourceGroups, "GroupDB", "OtherDB");
+    assertSameRouting(routingTable,
+        new RoutingTable(newExternalViews, _instanceConfigs, _liveInstances), resources,
+        resourceGroups);
+    // The previous table is not modified.
+    assertSameRouting(previous, new RoutingTable(externalViews, _instanceConfigs, _liveInstances),
+        resources, resourceGroups);
+
+    Assert.assertNotSame(routingTable.get("TestDB"), previous.get("TestDB"));
+    Assert.assertSame(routingTable.get("GroupDB_0"), previous.get("GroupDB_0"));
+    Assert.assertNotSame(routingTable.get("GroupDB_1"), previous.get("GroupDB_1"));
+    Assert.assertNull(routingTable.get("MyDB"));
+    Assert.assertNotSame(routingTable.getResourceGroup("GroupDB"),
+        previous.getResourceGroup("GroupDB"));
+    Assert.assertSame(routingTable.getResourceGroup("OtherDB"),
+        previous.getResourceGroup("OtherDB"));
+
+    // The entries hold the instance configs, so a config change rebuilds the whole table.
+    List<InstanceConfig> instanceConfigs = new ArrayList<>(_instanceConfigs);
+    instanceConfigs.set(0, new InstanceConfig("localhost_0"));
+    RoutingTable fullRoutingTable = new RoutingTable(routingTable, newExternalViews,
+        instanceConfigs, _liveInstances, PropertyType.EXTERNALVIEW);
+    Assert.assertNotSame(fullRoutingTable.get("GroupDB_0"), routingTable.get("GroupDB_0"));
+  }
+
+  @Test
+  public void testCurrentStateRefresh() {
+    Map<String, Map<String, Map<String, CurrentState>>> currentStateMap = new HashMap<>();
+    for (LiveInstance liveInstance : _liveInstances) {
+      Map<String, CurrentState> currentStates = new HashMap<>();
+      for (String resource : new String[] {"TestDB", "MyDB", "OtherDB"}) {
+        currentStates.put(resource,
+            createCurrentState(resource, liveInstance.getInstanceName(), 1, "SLAVE"));
+      }
+      currentStateMap.put(liveInstance.getInstanceName(), Collections
+          .singletonMap(liveInstance.getEphemeralOwner(), currentStates));
+    }
+    RoutingTable previous = new RoutingTable(currentStateMap, _instanceConfigs, _liveInstances);
+
+    // TestDB is changed on localhost_0, OtherDB is dropped from localhost_1, and localhost_3 is
+    // offline.
+    Map<String, Map<String, Map<String, CurrentState>>> newCurrentStateMap = new HashMap<>();
+    List<LiveInstance> liveInstances = _liveInstances.subList(0, INSTANCE_COUNT - 1);
+    for (LiveInstance liveInstance : liveInstances) {
+      String instanceName = liveInstance.getInstanceName();
+      String sessionId = liveInstance.getEphemeralOwner();
+      Map<String, CurrentState> currentStates =
+          new HashMap<>(currentStateMap.get(instanceName).get(sessionId));
+      if (instanceName.equals("localhost_0")) {
+        currentStates.put("TestDB", createCurrentState("TestDB", instanceName, 2, "MASTER"));
+      } else if (instanceName.equals("localhost_1")) {
+        currentStates.remove("OtherDB");
+      }
+      newCurrentStateMap.put(instanceName, Collections.singletonMap(sessionId, currentStates));
+    }
+    RoutingTable routingTable =
+        new RoutingTable(previous, newCurrentStateMap, _instanceConfigs, liveInstances);
+
+    List<String> resources = new ArrayList<>();
+    Collections.addAll(resources, "TestDB", "MyDB", "OtherDB");
+    assertSameRouting(routingTable,
+        new RoutingTable(newCurrentStateMap, _instanceConfigs, liveInstances), resources,
+        Collections.<String> emptyList());
+    assertSameRouting(previous,
+        new RoutingTable(currentStateMap, _instanceConfigs, _liveInstances), resources,
+        Collections.<String> emptyList());
+
+    Assert.assertNotSame(routingTable.get("TestDB"), previous.get("TestDB"));
+    Assert.assertNotSame(routingTable.get("MyDB"), previous.get("MyDB"));
+    Assert.assertNotSame(routingTable.get("OtherDB"), previous.get("OtherDB"));
+    Assert.assertEquals(routingTable.getInstancesForResource("TestDB", "MASTER").size(), 1);
+    Assert.assertEquals(routingTable.getInstancesForResource("OtherDB", "SLAVE").size(), 2);
+
+    // Nothing is changed, all the entries are shared.
+    RoutingTable sameRoutingTable =
+        new RoutingTable(routingTable, newCurrentStateMap, _instanceConfigs, liveInstances);
+    for (String resource : resources) {
+      Assert.assertSame(sameRoutingTable.get(resource), routingTable.get(resource));
+    }
+  }
+
+  @Test
+  public void testSharedEntriesDoNotRetainPreviousTable() throws Exception {
+    List<ExternalView> externalViews = new ArrayList<>();
+    externalViews.add(createExternalView("TestDB", null, 1, 0));
+    externalViews.add(createExternalView("GroupDB_0", "GroupDB", 1, 0));
+    RoutingTable previous = new RoutingTable(externalViews, _instanceConfigs, _liveInstances);
+    RoutingTable routingTable = new RoutingTable(previous, externalViews, _instanceConfigs,
+        _liveInstances, PropertyType.EXTERNALVIEW);
+
+    // The shared entries must not reference the table that built them, otherwise every table
+    // keeps all the older tables that built one of its entries alive.
+    Assert.assertSame(routingTable.get("TestDB"), previous.get("TestDB"));
+    Assert.assertSame(routingTable.getResourceGroup("GroupDB"),
+        previous.getResourceGroup("GroupDB"));
+    assertNoRoutingTableReference(routingTable.get("TestDB"));
+    assertNoRoutingTableReference(routingTable.getResourceGroup("GroupDB"));
+    assertNoRoutingTableReference(routingTable.get("TestDB").get("partition_0"));
+  }
+
+  private static void assertNoRoutingTableReference(Object entry) throws Exception {
+    for (Field field : entry.getClass().getDeclaredFields()) {
+      field.setAccessible(true);
+      Assert.assertFalse(field.get(entry) instanceof RoutingTable,
+          entry.getClass().getSimpleName() + " references a RoutingTable by " + field.getName());
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.apache.helix.HelixConstants;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.HelixManager;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.NotificationContext;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.TestHelper;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMultiClusterRoutingTableProvider {
+  private final Map<String, HelixManager> _helixManagers = new HashMap<>();
+
+  private HelixManager mockHelixManager(String clusterName) {
+    HelixDataAccessor accessor = new MockAccessor(clusterName);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    String instanceName = "localhost_0";
+    accessor.setProperty(keyBuilder.instanceConfig(instanceName),
+        new InstanceConfig(instanceName));
+    LiveInstance liveInstance = new LiveInstance(instanceName);
+    liveInstance.setSessionId("session_0");
+    accessor.setProperty(keyBuilder.liveInstance(instanceName), liveInstance);
+    ExternalView externalView = new ExternalView(clusterName + "_DB");
+    externalView.setState(clusterName + "_DB_0", instanceName, "MASTER");
+    accessor.setProperty(keyBuilder.externalView(externalView.getId()), externalView);
+
+    HelixManager helixManager = Mockito.mock(HelixManager.class);
+    Mockito.when(helixManager.getClusterName()).thenReturn(clusterName);
+    Mockito.when(helixManager.isConnected()).thenReturn(true);
+    Mockito.when(helixManager.getHelixDataAccessor()).thenReturn(accessor);
+    _helixManagers.put(clusterName, helixManager);
+    return helixManager;
+  }
+
+  @Test
+  public void testSharedExecutors() throws Exception {
+    MultiClusterRoutingTableProvider multiClusterProvider =
+        new MultiClusterRoutingTableProvider(2, 0) {
+          @Override
+          HelixManager createHelixManager(String clusterName, String zkAddress) {
+            return mockHelixManager(clusterName);
+          }
+        };
+    try {
+      for (int i = 0; i < 5; i++) {
+        multiClusterProvider.addCluster("TestCluster_" + i, null);
+      }
+      try {
+        multiClusterProvider.addCluster("TestCluster_0", null);
+        Assert.fail("Adding a routed cluster should fail.");
+      } catch (HelixException expected) {
+        // expected
+      }
+      Assert.assertEquals(multiClusterProvider.getClusters().size(), 5);
+
+      // The events of all the clusters are handled by the shared threads.
+      for (String clusterName : multiClusterProvider.getClusters()) {
+        NotificationContext context = new NotificationContext(_helixManagers.get(clusterName));
+        context.setType(NotificationContext.Type.CALLBACK);
+        context.setChangeType(HelixConstants.ChangeType.EXTERNAL_VIEW);
+        multiClusterProvider.getRoutingTableProvider(clusterName)
+            .onExternalViewChange(null, context);
+      }
+      for (final String clusterName : multiClusterProvider.getClusters()) {
+        Assert.assertTrue(TestHelper.verify(() -> multiClusterProvider
+                .getRoutingTableSnapshot(clusterName).getInstancesForResource(clusterName + "_DB",
+                    clusterName + "_DB_0", "MASTER").size() == 1, TestHelper.WAIT_DURATION));
+      }
+      Assert.assertTrue(new HashSet<>(multiClusterProvider.getRoutingTableSnapshot("TestCluster_1")
+          .getResources()).equals(Collections.singleton("TestCluster_1_DB")));
+
+      Assert.assertTrue(multiClusterProvider.removeCluster("TestCluster_0"));
+      Assert.assertFalse(multiClusterProvider.removeCluster("TestCluster_0"));
+      Mockito.verify(_helixManagers.get("TestCluster_0")).disconnect();
+      Assert.assertEquals(multiClusterProvider.getClusters().size(), 4);
+    } finally {
+      multiClusterProvider.shutdown();
+    }
+    Assert.assertTrue(multiClusterProvider.getClusters().isEmpty());
+    Mockito.verify(_helixManagers.get("TestCluster_4")).disconnect();
+  }
+}
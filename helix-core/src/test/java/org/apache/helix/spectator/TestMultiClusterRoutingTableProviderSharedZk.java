@@ -0,0 +1,142 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixManager;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.TestHelper;
+import org.apache.helix.ZkTestHelper;
+import org.apache.helix.common.ZkTestBase;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.manager.zk.ZKHelixManager;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.LiveInstance;
+import org.apache.helix.zookeeper.api.client.HelixZkClient;
+import org.apache.helix.zookeeper.zkclient.ZkClient;
+import org.apache.helix.zookeeper.zkclient.ZkConnection;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestMultiClusterRoutingTableProviderSharedZk extends ZkTestBase {
+  private static final String CLASS_NAME = TestHelper.getTestClassName();
+  private static final String CLUSTER_A = CLUSTER_PREFIX + "_" + CLASS_NAME + "_A";
+  private static final String CLUSTER_B = CLUSTER_PREFIX + "_" + CLASS_NAME + "_B";
+  private static final String INSTANCE_NAME = "localhost_12918";
+
+  private final Map<String, HelixManager> _helixManagers = new HashMap<>();
+
+  @BeforeClass
+  public void beforeClass() {
+    for (String clusterName : new String[] { CLUSTER_A, CLUSTER_B }) {
+      _gSetupTool.addCluster(clusterName, true);
+      _gSetupTool.addInstanceToCluster(clusterName, INSTANCE_NAME);
+      HelixDataAccessor accessor = new ZKHelixDataAccessor(clusterName, _baseAccessor);
+      LiveInstance liveInstance = new LiveInstance(INSTANCE_NAME);
+      liveInstance.setSessionId("session_0");
+      liveInstance.setHelixVersion("0.0.0");
+      accessor.setProperty(accessor.keyBuilder().liveInstance(INSTANCE_NAME), liveInstance);
+      setMaster(clusterName, "DB_0");
+    }
+  }
+
+  @AfterClass
+  public void afterClass() {
+    deleteCluster(CLUSTER_A);
+    deleteCluster(CLUSTER_B);
+  }
+
+  @Test
+  public void testSharedZkConnection() throws Exception {
+    MultiClusterRoutingTableProvider multiClusterProvider =
+        new MultiClusterRoutingTableProvider(2, 0) {
+          @Override
+          HelixManager createHelixManager(String clusterName, String zkAddress) {
+            HelixManager helixManager = super.createHelixManager(clusterName, zkAddress);
+            _helixManagers.put(clusterName, helixManager);
+            return helixManager;
+          }
+        };
+    try {
+      multiClusterProvider.addCluster(CLUSTER_A, ZK_ADDR);
+      multiClusterProvider.addCluster(CLUSTER_B, ZK_ADDR);
+      Assert.assertTrue(isRouted(multiClusterProvider, CLUSTER_A, "DB_0"));
+      Assert.assertTrue(isRouted(multiClusterProvider, CLUSTER_B, "DB_0"));
+
+      // The managers of the clusters share one ZK connection.
+      ZkClient zkClientA = getZkClient(_helixManagers.get(CLUSTER_A));
+      ZkClient zkClientB = getZkClient(_helixManagers.get(CLUSTER_B));
+      Assert.assertNotSame(zkClientA, zkClientB);
+      Assert.assertSame(zkClientA.getConnection(), zkClientB.getConnection());
+
+      // The clusters are still routed after the shared session expires. The shared clients do not
+      // get the new session event, they refresh all their listeners once the connection is back.
+      final ZkConnection sharedConnection = (ZkConnection) zkClientA.getConnection();
+      final long sessionId = sharedConnection.getZookeeper().getSessionId();
+      ZkTestHelper.asyncExpireSession((HelixZkClient) zkClientA);
+      Assert.assertTrue(TestHelper.verify(
+          () -> sharedConnection.getZookeeper().getSessionId() != sessionId
+              && sharedConnection.getZookeeper().getState().isConnected(),
+          TestHelper.WAIT_DURATION));
+      setMaster(CLUSTER_A, "DB_1");
+      setMaster(CLUSTER_B, "DB_1");
+      Assert.assertTrue(isRouted(multiClusterProvider, CLUSTER_A, "DB_1"));
+      Assert.assertTrue(isRouted(multiClusterProvider, CLUSTER_B, "DB_1"));
+
+      // Removing a cluster does not close the connection which the other cluster still uses.
+      Assert.assertTrue(multiClusterProvider.removeCluster(CLUSTER_A));
+      Assert.assertTrue(zkClientA.isClosed());
+      Assert.assertFalse(zkClientB.isClosed());
+      Assert.assertSame(zkClientB.getConnection(), sharedConnection);
+      Assert.assertTrue(sharedConnection.getZookeeper().getState().isConnected());
+      setMaster(CLUSTER_B, "DB_2");
+      Assert.assertTrue(isRouted(multiClusterProvider, CLUSTER_B, "DB_2"));
+    } finally {
+      multiClusterProvider.shutdown();
+    }
+  }
+
+  private void setMaster(String clusterName, String resourceName) {
+    HelixDataAccessor accessor = new ZKHelixDataAccessor(clusterName, _baseAccessor);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    ExternalView externalView = new ExternalView(resourceName);
+    externalView.setState(resourceName + "_0", INSTANCE_NAME, "MASTER");
+    accessor.setProperty(keyBuilder.externalView(resourceName), externalView);
+  }
+
+  private static boolean isRouted(final MultiClusterRoutingTableProvider multiClusterProvider,
+      final String clusterName, final String resourceName) throws Exception {
+    return TestHelper.verify(() -> multiClusterProvider.getRoutingTableSnapshot(clusterName)
+        .getInstancesForResource(resourceName, resourceName + "_0", "MASTER").size() == 1,
+        TestHelper.WAIT_DURATION);
+  }
+
+  private static ZkClient getZkClient(HelixManager helixManager) throws Exception {
+    Field field = ZKHelixManager.class.getDeclaredField("_zkclient");
+    field.setAccessible(true);
+    return (ZkClient) field.get(helixManager);
+  }
+}
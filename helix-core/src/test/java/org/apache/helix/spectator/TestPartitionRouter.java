@@ -0,0 +1,132 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.helix.PropertyType;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPartitionRouter {
+  private static final int INSTANCE_COUNT = 4;
+  private static final int PARTITION_COUNT = 8;
+
+  private static RoutingTableSnapshot createSnapshot(int masterOffset) {
+    List<InstanceConfig> instanceConfigs = new ArrayList<>();
+    for (int i = 0; i < INSTANCE_COUNT; i++) {
+      instanceConfigs.add(new InstanceConfig("localhost_" + i));
+    }
+    ExternalView externalView = new ExternalView("TestDB");
+    for (int p = 0; p < PARTITION_COUNT; p++) {
+      for (int r = 0; r < 3; r++) {
+        externalView.setState("TestDB_" + p,
+            "localhost_" + ((p + r + masterOffset) % INSTANCE_COUNT), r == 0 ? "MASTER" : "SLAVE");
+      }
+    }
+    return new RoutingTableSnapshot(new RoutingTable(Collections.singletonList(externalView),
+        instanceConfigs, Collections.<LiveInstance> emptyList()));
+  }
+
+  private static RoutingTableProvider mockProvider(RoutingTableSnapshot snapshot) {
+    RoutingTableProvider provider = Mockito.mock(RoutingTableProvider.class);
+    Mockito.when(provider.getRoutingTableSnapshot()).thenReturn(snapshot);
+    Mockito.when(provider.getRoutingTableSnapshot(PropertyType.EXTERNALVIEW)).thenReturn(snapshot);
+    return provider;
+  }
+
+  @Test
+  public void testRoute() {
+    RoutingTableSnapshot snapshot = createSnapshot(0);
+    RoutingTableProvider provider = mockProvider(snapshot);
+    PartitionRouter router = new PartitionRouter(provider, "TestDB", PARTITION_COUNT, "MASTER");
+    Mockito.verify(provider).addRoutingTableChangeListener(router, null);
+
+    for (int k = 0; k < 100; k++) {
+      String key = "key_" + k;
+      int partition = router.getPartition(key);
+      Assert.assertTrue(partition >= 0 && partition < PARTITION_COUNT);
+      Assert.assertEquals(router.getPartition(key), partition);
+      Assert.assertEquals(router.getInstances(key),
+          snapshot.getInstancesForResource("TestDB", "TestDB_" + partition, "MASTER"));
+      Assert.assertEquals(router.route(key).getInstanceName(),
+          "localhost_" + (partition % INSTANCE_COUNT));
+    }
+
+    // The router follows the routing table changes.
+    RoutingTableSnapshot newSnapshot = createSnapshot(1);
+    router.onRoutingTableChange(newSnapshot, null);
+    int partition = router.getPartition("key");
+    Assert.assertEquals(router.route("key").getInstanceName(),
+        "localhost_" + ((partition + 1) % INSTANCE_COUNT));
+
+    // The partitions that are not in the routing table have no replica.
+    PartitionRouter largerRouter = new PartitionRouter(provider, PropertyType.EXTERNALVIEW,
+        "TestDB", PARTITION_COUNT * 2, "MASTER", PartitionRouter.JENKINS_HASH,
+        new ReplicaSelectionPolicy.RandomPolicy());
+    Assert.assertTrue(largerRouter.getInstances(PARTITION_COUNT).isEmpty());
+    PartitionRouter notExistRouter = new PartitionRouter(provider, "NotExistDB", 4, "MASTER");
+    Assert.assertNull(notExistRouter.route("key"));
+
+    router.close();
+    Mockito.verify(provider).removeRoutingTableChangeListener(router);
+  }
+
+  @Test
+  public void testReplicaSelectionPolicies() throws InterruptedException {
+    InstanceConfig[] replicas = new InstanceConfig[3];
+    for (int i = 0; i < replicas.length; i++) {
+      replicas[i] = new InstanceConfig("localhost_" + i);
+    }
+
+    ReplicaSelectionPolicy roundRobin = new ReplicaSelectionPolicy.RoundRobinPolicy();
+    for (int i = 0; i < 6; i++) {
+      Assert.assertEquals(roundRobin.select(0, replicas), i % replicas.length);
+    }
+
+    Set<Integer> selected = new HashSet<>();
+    ReplicaSelectionPolicy random = new ReplicaSelectionPolicy.RandomPolicy();
+    for (int i = 0; i < 1000; i++) {
+      selected.add(random.select(0, replicas));
+    }
+    Assert.assertEquals(selected.size(), replicas.length);
+
+    ReplicaSelectionPolicy leastRecentlyFailed =
+        new ReplicaSelectionPolicy.LeastRecentlyFailedPolicy();
+    leastRecentlyFailed.reportFailure("localhost_0");
+    leastRecentlyFailed.reportFailure("localhost_1");
+    for (int i = 0; i < 10; i++) {
+      Assert.assertEquals(leastRecentlyFailed.select(0, replicas), 2);
+    }
+    Thread.sleep(10);
+    leastRecentlyFailed.reportFailure("localhost_2");
+    int index = leastRecentlyFailed.select(0, replicas);
+    Assert.assertTrue(index == 0 || index == 1);
+  }
+}
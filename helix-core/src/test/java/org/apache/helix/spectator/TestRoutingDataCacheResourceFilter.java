@@ -0,0 +1,147 @@
+package org.apache.helix.spectator;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.helix.HelixConstants;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.HelixException;
+import org.apache.helix.HelixManager;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.NotificationContext;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.PropertyType;
+import org.apache.helix.TestHelper;
+import org.apache.helix.model.CurrentState;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.InstanceConfig;
+import org.apache.helix.model.LiveInstance;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestRoutingDataCacheResourceFilter {
+  private static final String CLUSTER_NAME = "TestRoutingDataCacheResourceFilter";
+
+  @Test
+  public void testResourceFilter() {
+    HelixDataAccessor accessor = new MockAccessor(CLUSTER_NAME);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    LiveInstance liveInstance = new LiveInstance("localhost_0");
+    liveInstance.setSessionId("session_0");
+    accessor.setProperty(keyBuilder.liveInstance("localhost_0"), liveInstance);
+    for (String resource : new String[] {"TestDB", "MyDB", "OtherDB"}) {
+      ExternalView externalView = new ExternalView(resource);
+      externalView.setState(resource + "_0", "localhost_0", "MASTER");
+      accessor.setProperty(keyBuilder.externalView(resource), externalView);
+      CurrentState currentState = new CurrentState(resource);
+      currentState.setState(resource + "_0", "MASTER");
+      accessor.setProperty(keyBuilder.currentState("localhost_0", "session_0", resource),
+          currentState);
+    }
+
+    RoutingDataCache dataCache = new RoutingDataCache(CLUSTER_NAME, ImmutableMap
+        .of(PropertyType.EXTERNALVIEW, Collections.<String> emptyList(), PropertyType.CURRENTSTATES,
+            Collections.<String> emptyList()));
+    Set<String> resources = new HashSet<>(Arrays.asList("TestDB", "NotExistDB"));
+    dataCache.setResourceFilter(resources::contains);
+    dataCache.refresh(accessor);
+    Assert.assertEquals(dataCache.getExternalViews().keySet(), Collections.singleton("TestDB"));
+    Assert.assertEquals(dataCache.getCurrentStatesMap().get("localhost_0").get("session_0")
+        .keySet(), Collections.singleton("TestDB"));
+
+    // The filter is applied to the next full refresh.
+    resources.remove("TestDB");
+    resources.add("MyDB");
+    dataCache.setResourceFilter(resources::contains);
+    dataCache.refresh(accessor);
+    Assert.assertEquals(dataCache.getExternalViews().keySet(), Collections.singleton("MyDB"));
+    Assert.assertEquals(dataCache.getCurrentStatesMap().get("localhost_0").get("session_0")
+        .keySet(), Collections.singleton("MyDB"));
+
+    dataCache.setResourceFilter(null);
+    dataCache.refresh(accessor);
+    Assert.assertEquals(dataCache.getExternalViews().size(), 3);
+  }
+
+  @Test
+  public void testRoutedResources() throws Exception {
+    HelixDataAccessor accessor = new MockAccessor(CLUSTER_NAME);
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    accessor.setProperty(keyBuilder.instanceConfig("localhost_0"),
+        new InstanceConfig("localhost_0"));
+    LiveInstance liveInstance = new LiveInstance("localhost_0");
+    liveInstance.setSessionId("session_0");
+    accessor.setProperty(keyBuilder.liveInstance("localhost_0"), liveInstance);
+    for (String resource : new String[] {"TestDB", "MyDB", "OtherDB"}) {
+      ExternalView externalView = new ExternalView(resource);
+      externalView.setState(resource + "_0", "localhost_0", "MASTER");
+      accessor.setProperty(keyBuilder.externalView(resource), externalView);
+    }
+    HelixManager helixManager = Mockito.mock(HelixManager.class);
+    Mockito.when(helixManager.getClusterName()).thenReturn(CLUSTER_NAME);
+    Mockito.when(helixManager.isConnected()).thenReturn(true);
+    Mockito.when(helixManager.getHelixDataAccessor()).thenReturn(accessor);
+
+    final RoutingTableProvider provider = new RoutingTableProvider(helixManager,
+        ImmutableMap.of(PropertyType.EXTERNALVIEW, Collections.<String> emptyList()), false, 0,
+        Collections.singletonList("TestDB"));
+    try {
+      NotificationContext context = new NotificationContext(helixManager);
+      context.setType(NotificationContext.Type.CALLBACK);
+      context.setChangeType(HelixConstants.ChangeType.EXTERNAL_VIEW);
+      provider.onExternalViewChange(null, context);
+      Assert.assertTrue(TestHelper.verify(
+          () -> getRoutedResources(provider).equals(Collections.singleton("TestDB")),
+          TestHelper.WAIT_DURATION));
+
+      // Changing the routed resources queues a refresh, no change notification is needed.
+      provider.addResources(Collections.singletonList("MyDB"));
+      Assert.assertTrue(TestHelper.verify(() -> getRoutedResources(provider)
+          .equals(new HashSet<>(Arrays.asList("TestDB", "MyDB"))), TestHelper.WAIT_DURATION));
+
+      provider.removeResources(Arrays.asList("TestDB", "MyDB"));
+      Assert.assertTrue(TestHelper.verify(() -> getRoutedResources(provider).isEmpty(),
+          TestHelper.WAIT_DURATION));
+    } finally {
+      provider.shutdown();
+    }
+
+    RoutingTableProvider allResourcesProvider = new RoutingTableProvider();
+    try {
+      allResourcesProvider.addResources(Collections.singletonList("MyDB"));
+      Assert.fail("Adding resources to a provider of all the resources should fail.");
+    } catch (HelixException expected) {
+      // expected
+    } finally {
+      allResourcesProvider.shutdown();
+    }
+  }
+
+  private static Set<String> getRoutedResources(RoutingTableProvider provider) {
+    return new HashSet<>(provider.getRoutingTableSnapshot().getResources());
+  }
+}
@@ -0,0 +1,159 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestPersistentHashMap {
+
+  /**
+   * A key with a configurable hash code to test the hash collisions.
+   */
+  private static class CollidingKey {
+    private final String _name;
+    private final int _hash;
+
+    CollidingKey(String name, int hash) {
+      _name = name;
+      _hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof CollidingKey && ((CollidingKey) o)._name.equals(_name);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hash;
+    }
+  }
+
+  @Test
+  public void testRandomUpdates() {
+    Random random = new Random(0);
+    Map<Integer, String> expected = new HashMap<>();
+    PersistentHashMap<Integer, String> map = PersistentHashMap.empty();
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(5000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        String value = "value_" + random.nextInt(100);
+        expected.put(key, value);
+        map = map.plus(key, value);
+      }
+    }
+    Assert.assertEquals(map.size(), expected.size());
+    Assert.assertEquals(map, expected);
+    Assert.assertEquals(expected, map);
+    Assert.assertEquals(map.hashCode(), expected.hashCode());
+    for (int key = 0; key < 5000; key++) {
+      Assert.assertEquals(map.containsKey(key), expected.containsKey(key));
+    }
+  }
+
+  @Test
+  public void testSnapshotIsolation() {
+    PersistentHashMap.Builder<String, String> builder = PersistentHashMap.<String, String>empty()
+        .toBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.put("key_" + i, "value_" + i);
+    }
+    PersistentHashMap<String, String> snapshot = builder.build();
+    Map<String, String> expected = new HashMap<>(snapshot);
+
+    // The later updates of the builder and the derived maps must not change the snapshot.
+    for (int i = 0; i < 1000; i += 2) {
+      builder.remove("key_" + i);
+      builder.put("key_" + (i + 1), "updated");
+    }
+    PersistentHashMap<String, String> updated = builder.build();
+    snapshot.minus("key_1").plus("key_3", "other");
+
+    Assert.assertEquals(snapshot, expected);
+    Assert.assertEquals(updated.size(), 500);
+    Assert.assertEquals(updated.get("key_1"), "updated");
+    Assert.assertFalse(updated.containsKey("key_0"));
+
+    // No change returns the same instance.
+    Assert.assertSame(updated.plus("key_1", updated.get("key_1")), updated);
+    Assert.assertSame(updated.minus("not_exist"), updated);
+    Assert.assertSame(updated.withContents(new HashMap<>(updated)), updated);
+    Assert.assertSame(PersistentHashMap.copyOf(updated), updated);
+    Assert.assertSame(updated.withContents(new HashMap<>()), PersistentHashMap.empty());
+  }
+
+  @Test
+  public void testHashCollision() {
+    PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+    CollidingKey[] keys = new CollidingKey[10];
+    for (int i = 0; i < keys.length; i++) {
+      // Every 5 keys share the same hash.
+      keys[i] = new CollidingKey("key_" + i, i / 5);
+      map = map.plus(keys[i], i);
+    }
+    Assert.assertEquals(map.size(), keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      Assert.assertEquals(map.get(new CollidingKey("key_" + i, i / 5)), Integer.valueOf(i));
+    }
+    for (int i = 0; i < keys.length; i += 2) {
+      map = map.minus(keys[i]);
+    }
+    Assert.assertEquals(map.size(), keys.length / 2);
+    Iterator<CollidingKey> iterator = map.keySet().iterator();
+    int count = 0;
+    while (iterator.hasNext()) {
+      Assert.assertTrue(iterator.next()._name.matches("key_[13579]"));
+      count++;
+    }
+    Assert.assertEquals(count, keys.length / 2);
+  }
+
+  @Test
+  public void testNullValueAndImmutability() {
+    PersistentHashMap<String, String> map = PersistentHashMap.<String, String>empty()
+        .plus("key", null);
+    Assert.assertTrue(map.containsKey("key"));
+    Assert.assertNull(map.get("key"));
+    Assert.assertNull(map.get(null));
+    Assert.assertEquals(map.size(), 1);
+
+    try {
+      map.put("other", "value");
+      Assert.fail("The map should be immutable.");
+    } catch (UnsupportedOperationException expected) {
+    }
+    try {
+      map.plus(null, "value");
+      Assert.fail("Null key should not be supported.");
+    } catch (NullPointerException expected) {
+    }
+  }
+}
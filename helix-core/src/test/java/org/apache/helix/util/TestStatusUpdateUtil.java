@@ -22,12 +22,17 @@ package org.apache.helix.util;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
+import org.apache.helix.AccessOption;
 import org.apache.helix.HelixConstants;
+import org.apache.helix.HelixDataAccessor;
+import org.apache.helix.InstanceType;
+import org.apache.helix.PropertyKey;
 import org.apache.helix.PropertyPathBuilder;
 import org.apache.helix.SystemPropertyKeys;
 import org.apache.helix.TestHelper;
 import org.apache.helix.common.ZkTestBase;
 import org.apache.helix.integration.manager.MockParticipantManager;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
 import org.apache.helix.messaging.handling.HelixStateTransitionHandler;
 import org.apache.helix.model.Message;
 import org.apache.helix.model.StatusUpdate;
@@ -135,4 +140,53 @@ public class TestStatusUpdateUtil extends ZkTestBase {
       // expected
     }
   }
+
+  @Test
+  public void testAsyncWritePersistsSameStatusUpdates() {
+    boolean[] syncPersisted = writeStatusUpdates(null, "SyncDB");
+    StatusUpdateWriter writer = new StatusUpdateWriter(100, 10, false);
+    boolean[] asyncPersisted = writeStatusUpdates(writer, "AsyncDB");
+    Assert.assertEquals(writer.getWrittenCount(), 4);
+
+    // Only the controller status update is persisted by the ZKHelixDataAccessor in both modes.
+    Assert.assertEquals(asyncPersisted, syncPersisted);
+    Assert.assertEquals(asyncPersisted, new boolean[] {false, true});
+  }
+
+  /**
+   * Log a participant and a controller status update of the resource.
+   * @param writer the writer of the status updates, null for the synchronous write
+   * @return if the participant and the controller status updates are persisted
+   */
+  private boolean[] writeStatusUpdates(StatusUpdateWriter writer, String resourceName) {
+    HelixDataAccessor accessor = new ZKHelixDataAccessor(clusterName, _baseAccessor);
+    StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+    String sessionId = participants[0].getSessionId();
+    String partitionName = resourceName + "_0";
+    for (String tgtName : new String[] {"localhost_12918", InstanceType.CONTROLLER.name()}) {
+      Message statusMessage =
+          new Message(Message.MessageType.STATE_TRANSITION, resourceName + "_" + tgtName);
+      statusMessage.setTgtSessionId(sessionId);
+      statusMessage.setTgtName(tgtName);
+      statusMessage.setFromState("Offline");
+      statusMessage.setToState("Slave");
+      statusMessage.setPartitionName(partitionName);
+      statusMessage.setResourceName(resourceName);
+      statusUpdateUtil.logInfo(statusMessage, HelixStateTransitionHandler.class, "info",
+          accessor);
+    }
+    if (writer != null) {
+      writer.flush();
+    }
+
+    PropertyKey.Builder keyBuilder = accessor.keyBuilder();
+    return new boolean[] {
+        accessor.getBaseDataAccessor().exists(keyBuilder
+            .stateTransitionStatus("localhost_12918", sessionId, resourceName, partitionName)
+            .getPath(), AccessOption.PERSISTENT),
+        accessor.getBaseDataAccessor().exists(
+            keyBuilder.controllerTaskStatus(resourceName, partitionName).getPath(),
+            AccessOption.PERSISTENT)
+    };
+  }
 }
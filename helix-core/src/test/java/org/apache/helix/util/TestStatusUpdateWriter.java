@@ -0,0 +1,223 @@
+package org.apache.helix.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.helix.InstanceType;
+import org.apache.helix.MockAccessor;
+import org.apache.helix.PropertyKey;
+import org.apache.helix.TestHelper;
+import org.apache.helix.manager.zk.ZKHelixDataAccessor;
+import org.apache.helix.messaging.handling.HelixStateTransitionHandler;
+import org.apache.helix.mock.MockBaseDataAccessor;
+import org.apache.helix.model.Message;
+import org.apache.helix.model.StatusUpdate;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.zkclient.DataUpdater;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestStatusUpdateWriter {
+  private static Message createMessage() {
+    Message message = new Message(Message.MessageType.STATE_TRANSITION, "msgId");
+    message.setTgtName("localhost_12918");
+    message.setTgtSessionId("session_0");
+    message.setFromState("OFFLINE");
+    message.setToState("SLAVE");
+    message.setPartitionName("TestDB_0");
+    message.setResourceName("TestDB");
+    return message;
+  }
+
+  @Test
+  public void testMergeRecordsOfSameZNode() {
+    StatusUpdateWriter writer = new StatusUpdateWriter(100, 10, false);
+    StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+    MockAccessor accessor = new MockAccessor();
+    Message message = createMessage();
+
+    for (int i = 0; i < 3; i++) {
+      statusUpdateUtil.logInfo(message, HelixStateTransitionHandler.class, "info " + i, accessor);
+    }
+    PropertyKey key = accessor.keyBuilder()
+        .stateTransitionStatus("localhost_12918", "session_0", "TestDB", "TestDB_0");
+    // Nothing is written until the queued records are flushed.
+    Assert.assertNull(accessor.getProperty(key));
+    Assert.assertEquals(writer.getQueuedCount(), 4);
+
+    writer.flush();
+    StatusUpdate statusUpdate = accessor.getProperty(key);
+    // The message record and the 3 status updates are merged into the same ZNode.
+    Assert.assertEquals(statusUpdate.getRecord().getMapFields().size(), 4);
+    Assert.assertEquals(writer.getQueuedCount(), 0);
+    Assert.assertEquals(writer.getWrittenCount(), 4);
+    Assert.assertEquals(writer.getDroppedCount(), 0);
+  }
+
+  @Test
+  public void testDropByLevel() {
+    StatusUpdateWriter writer = new StatusUpdateWriter(4, 2, false);
+    StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+    MockAccessor accessor = new MockAccessor();
+    Message message = createMessage();
+
+    // The first update queues the message record too, so the queue is half full.
+    statusUpdateUtil.logInfo(message, HelixStateTransitionHandler.class, "info", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 2);
+    // The info updates are sampled when the queue is half full.
+    statusUpdateUtil.logInfo(message, HelixStateTransitionHandler.class, "info", accessor);
+    statusUpdateUtil.logInfo(message, HelixStateTransitionHandler.class, "info", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 3);
+    Assert.assertEquals(writer.getDroppedCount(), 1);
+    // The warning updates are kept until the queue is full.
+    statusUpdateUtil.logWarning(message, HelixStateTransitionHandler.class, "warning", accessor);
+    statusUpdateUtil.logWarning(message, HelixStateTransitionHandler.class, "warning", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 4);
+    Assert.assertEquals(writer.getDroppedCount(), 2);
+    // The error updates are never dropped.
+    statusUpdateUtil.logError(message, HelixStateTransitionHandler.class, "error", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 5);
+    Assert.assertEquals(writer.getDroppedCount(), 2);
+
+    writer.flush();
+    Assert.assertEquals(writer.getWrittenCount(), 5);
+  }
+
+  @Test
+  public void testQueueOverflow() {
+    StatusUpdateWriter writer = new StatusUpdateWriter(2, 2, false);
+    StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+    MockAccessor accessor = new MockAccessor();
+    Message message = createMessage();
+
+    // The error records use the reserved space beyond the capacity, up to twice the capacity.
+    statusUpdateUtil.logError(message, HelixStateTransitionHandler.class, "error", accessor);
+    statusUpdateUtil.logError(message, HelixStateTransitionHandler.class, "error", accessor);
+    statusUpdateUtil.logError(message, HelixStateTransitionHandler.class, "error", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 4);
+    Assert.assertEquals(writer.getDroppedCount(), 0);
+    // Once the queue is full, the records of all the levels are dropped.
+    statusUpdateUtil.logError(message, HelixStateTransitionHandler.class, "error", accessor);
+    statusUpdateUtil.logWarning(message, HelixStateTransitionHandler.class, "warning", accessor);
+    Assert.assertEquals(writer.getQueuedCount(), 4);
+    Assert.assertEquals(writer.getDroppedCount(), 2);
+
+    writer.flush();
+    Assert.assertEquals(writer.getWrittenCount(), 4);
+  }
+
+  @Test
+  public void testQueuedRecordsAreNotModified() {
+    StatusUpdateWriter writer = new StatusUpdateWriter(100, 10, false);
+    MockAccessor accessor = new MockAccessor();
+    PropertyKey key = accessor.keyBuilder()
+        .stateTransitionStatus("localhost_12918", "session_0", "TestDB", "TestDB_0");
+    ZNRecord record1 = new ZNRecord("TestDB_0");
+    record1.setMapField("update_1", Collections.singletonMap("key", "value_1"));
+    record1.setMapField("common", new TreeMap<>(Collections.singletonMap("key", "value_1")));
+    ZNRecord record2 = new ZNRecord("TestDB_0");
+    record2.setMapField("update_2", Collections.singletonMap("key", "value_2"));
+    record2.setMapField("common", new TreeMap<>(Collections.singletonMap("key2", "value_2")));
+    writer.write(accessor, key, record1);
+    writer.write(accessor, key, record2);
+    writer.flush();
+
+    // The records are merged into a new record, so the callers' records are unchanged.
+    Assert.assertEquals(record1.getMapFields().keySet(),
+        new HashSet<>(Arrays.asList("update_1", "common")));
+    Assert.assertEquals(record1.getMapField("common").size(), 1);
+    Assert.assertEquals(record2.getMapFields().keySet(),
+        new HashSet<>(Arrays.asList("update_2", "common")));
+    Assert.assertEquals(record2.getMapField("common").size(), 1);
+    ZNRecord writtenRecord = accessor.getProperty(key).getRecord();
+    Assert.assertEquals(writtenRecord.getMapFields().keySet(),
+        new HashSet<>(Arrays.asList("update_1", "update_2", "common")));
+    Assert.assertEquals(writtenRecord.getMapField("common").size(), 2);
+  }
+
+  @Test
+  public void testPersistSameStatusUpdatesAsSyncWrite() {
+    Set<String> syncPaths = writeStatusUpdates(null);
+    StatusUpdateWriter writer = new StatusUpdateWriter(100, 10, false);
+    Set<String> asyncPaths = writeStatusUpdates(writer);
+    Assert.assertEquals(writer.getWrittenCount(), 4);
+
+    // ZKHelixDataAccessor does not persist the participant status updates in either mode.
+    Assert.assertEquals(asyncPaths, syncPaths);
+    Assert.assertEquals(asyncPaths, Collections.singleton(new PropertyKey.Builder("TestCluster")
+        .controllerTaskStatus("TestDB", "TestDB_0").getPath()));
+  }
+
+  /**
+   * Log a participant and a controller status update through a ZKHelixDataAccessor.
+   * @param writer the writer of the status updates, null for the synchronous write
+   * @return the paths that are written to the base data accessor
+   */
+  private static Set<String> writeStatusUpdates(StatusUpdateWriter writer) {
+    final Set<String> writtenPaths = new HashSet<>();
+    MockBaseDataAccessor baseDataAccessor = new MockBaseDataAccessor() {
+      @Override
+      public boolean set(String path, ZNRecord record, int options) {
+        writtenPaths.add(path);
+        return super.set(path, record, options);
+      }
+
+      @Override
+      public boolean update(String path, DataUpdater<ZNRecord> updater, int options) {
+        writtenPaths.add(path);
+        return super.update(path, updater, options);
+      }
+    };
+    ZKHelixDataAccessor accessor = new ZKHelixDataAccessor("TestCluster", baseDataAccessor);
+    StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+    statusUpdateUtil.logInfo(createMessage(), HelixStateTransitionHandler.class, "info", accessor);
+    Message controllerMessage = createMessage();
+    controllerMessage.setMsgId("controllerMsgId");
+    controllerMessage.setTgtName(InstanceType.CONTROLLER.name());
+    statusUpdateUtil.logInfo(controllerMessage, HelixStateTransitionHandler.class, "info",
+        accessor);
+    if (writer != null) {
+      Assert.assertTrue(writtenPaths.isEmpty());
+      writer.flush();
+    }
+    return writtenPaths;
+  }
+
+  @Test
+  public void testBackgroundWrite() throws Exception {
+    StatusUpdateWriter writer = new StatusUpdateWriter(100, 10);
+    try {
+      StatusUpdateUtil statusUpdateUtil = new StatusUpdateUtil(writer);
+      MockAccessor accessor = new MockAccessor();
+      statusUpdateUtil.logInfo(createMessage(), HelixStateTransitionHandler.class, "info",
+          accessor);
+      PropertyKey key = accessor.keyBuilder()
+          .stateTransitionStatus("localhost_12918", "session_0", "TestDB", "TestDB_0");
+      Assert.assertTrue(TestHelper.verify(() -> accessor.getProperty(key) != null, 5000));
+    } finally {
+      writer.shutdown();
+    }
+  }
+}
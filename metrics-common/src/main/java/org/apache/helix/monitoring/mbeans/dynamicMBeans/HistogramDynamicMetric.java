@@ -43,6 +43,7 @@ public class HistogramDynamicMetric extends DynamicMetric<Histogram, Long> {
    * The enum statistic attributes
    */
   enum SnapshotAttribute {
+    Pct50th("getMedian", "50Pct"),
     Pct75th("get75thPercentile", "75Pct"),
     Pct95th("get95thPercentile", "95Pct"),
     Pct99th("get99thPercentile", "99Pct"),
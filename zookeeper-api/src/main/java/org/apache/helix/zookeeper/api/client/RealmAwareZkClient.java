@@ -263,6 +263,19 @@ public interface RealmAwareZkClient {
 
   List<OpResult> multi(final Iterable<Op> ops);
 
+  /**
+   * Executes the ops in one transaction with the expected zk session. The transaction fails with
+   * a ZkSessionMismatchedException if the actual session is not the expected one, like the
+   * session aware writes of {@link org.apache.helix.zookeeper.datamodel.SessionAwareZNRecord}.
+   * @param ops the ops of the transaction
+   * @param expectedSessionId the expected zk session, null to use the actual session
+   * @return the results of the ops
+   */
+  default List<OpResult> multi(final Iterable<Op> ops, final String expectedSessionId) {
+    throw new UnsupportedOperationException(
+        "Session aware multi is not supported by " + getClass().getSimpleName());
+  }
+
   // ZK state control
   boolean waitUntilConnected(long time, TimeUnit timeUnit);
 
@@ -61,6 +61,16 @@ public class ZkSystemPropertyKeys {
   public static final String ZK_AUTOSYNC_ENABLED =
       "zk.zkclient.autosync.enabled";
 
+  /**
+   * Setting this property to a positive number enables a bounded string intern pool with the
+   * configured capacity. The ZNRecord serializers use the pool to deduplicate the repeated field
+   * values, such as the instance names and the states, when deserializing the ZNRecords.
+   * <p>
+   * The default value is 0, which disables the string intern pool.
+   */
+  public static final String ZK_SERIALIZER_ZNRECORD_STRING_INTERN_POOL_CAPACITY =
+      "zk.serializer.znrecord.string.intern.pool.capacity";
+
   /** System property key for jute.maxbuffer */
   public static final String JUTE_MAXBUFFER = "jute.maxbuffer";
 
@@ -0,0 +1,450 @@
+package org.apache.helix.zookeeper.datamodel.serializer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.util.BlockCompressionUtil;
+import org.apache.helix.zookeeper.util.ZNRecordUtil;
+import org.apache.helix.zookeeper.zkclient.exception.ZkMarshallingError;
+import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A compact binary ZNRecord serializer. Compared with the JSON serializers, it avoids the text
+ * encoding and writes every distinct string only once, which makes the records that repeat the
+ * same instance, partition and state names much smaller and cheaper to encode and decode.
+ *
+ * The serialized bytes are:
+ * 1. The 2 bytes magic header and 1 byte format version.
+ * 2. 1 byte flags. If the payload is compressed by {@link BlockCompressionUtil}, the flags are
+ * followed by the uncompressed payload length as a varint.
+ * 3. The payload, which starts with the string table: the string count, then the UTF-8 length and
+ * bytes of each string. The id, simple fields, list fields, map fields and raw payload follow, where
+ * every string is written as its string table index plus 1, and 0 means null.
+ * All the counts and lengths are unsigned varints.
+ *
+ * The deserializer reads the data written by {@link ZNRecordSerializer} as well, so it can be
+ * enabled for a path (for example, with {@link ChainedPathZkSerializer}) without migrating the
+ * existing records. Note that the JSON serializers cannot read the binary records, so all the
+ * readers of the path need to be upgraded before the writers switch to this serializer.
+ */
+public class ZNRecordBinarySerializer implements ZkSerializer {
+  private static final Logger LOG = LoggerFactory.getLogger(ZNRecordBinarySerializer.class);
+
+  // The first bytes of a JSON record are always ASCII, and a GZIP record starts with 0x1f 0x8b.
+  private static final byte MAGIC_0 = (byte) 0xB1;
+  private static final byte MAGIC_1 = (byte) 0x5E;
+  private static final byte FORMAT_VERSION = 1;
+  private static final int HEADER_LENGTH = 4;
+  private static final int FLAG_COMPRESSED = 1;
+
+  public static final int COMPRESSION_THRESHOLD_NOT_SET = -1;
+
+  private final ZNRecordSerializer _legacySerializer = new ZNRecordSerializer();
+  private final int _compressionThreshold;
+
+  /**
+   * Create a serializer that compresses the records in the same cases as
+   * {@link ZNRecordSerializer}. Please refer to {@link ZNRecordUtil#shouldCompress}.
+   */
+  public ZNRecordBinarySerializer() {
+    this(COMPRESSION_THRESHOLD_NOT_SET);
+  }
+
+  /**
+   * @param compressionThreshold the records whose uncompressed payload is larger than this size
+   *                             in bytes are compressed as well. A negative value disables it.
+   */
+  public ZNRecordBinarySerializer(int compressionThreshold) {
+    _compressionThreshold = compressionThreshold;
+  }
+
+  /**
+   * @return true if the bytes were serialized by this serializer.
+   */
+  public static boolean isBinaryFormat(byte[] bytes) {
+    return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0
+        && bytes[1] == MAGIC_1;
+  }
+
+  @Override
+  public byte[] serialize(Object data) throws ZkMarshallingError {
+    if (!(data instanceof ZNRecord)) {
+      // null is NOT an instance of any class
+      LOG.error("Input object must be of type ZNRecord but it is " + data
+          + ". Will not write to zk");
+      throw new ZkMarshallingError("Input object is not of type ZNRecord (was " + data + ")");
+    }
+    ZNRecord record = (ZNRecord) data;
+
+    byte[] payload = encodePayload(record, getListFieldBound(record));
+    boolean isCompressed = false;
+    byte[] compressed = null;
+    if (ZNRecordUtil.shouldCompress(record, payload.length) || (_compressionThreshold >= 0
+        && payload.length > _compressionThreshold)) {
+      compressed = BlockCompressionUtil.compress(payload);
+      // Only keep the compressed payload if it is actually smaller.
+      isCompressed = compressed.length < payload.length;
+    }
+
+    OutputBuffer output = new OutputBuffer(
+        HEADER_LENGTH + 5 + (isCompressed ? compressed.length : payload.length));
+    output.writeByte(MAGIC_0);
+    output.writeByte(MAGIC_1);
+    output.writeByte(FORMAT_VERSION);
+    if (isCompressed) {
+      output.writeByte(FLAG_COMPRESSED);
+      output.writeVarint(payload.length);
+      output.writeBytes(compressed, 0, compressed.length);
+    } else {
+      output.writeByte(0);
+      output.writeBytes(payload, 0, payload.length);
+    }
+    byte[] serializedBytes = output.toByteArray();
+
+    int writeSizeLimit = ZNRecordUtil.getSerializerWriteSizeLimit();
+    if (serializedBytes.length > writeSizeLimit) {
+      LOG.error("Data size: {} is greater than {} bytes, is compressed: {}, ZNRecord.id: {}."
+              + " Data will not be written to Zookeeper.", serializedBytes.length, writeSizeLimit,
+          isCompressed, record.getId());
+      throw new ZkMarshallingError(
+          "Data size: " + serializedBytes.length + " is greater than " + writeSizeLimit
+              + " bytes, is compressed: " + isCompressed + ", ZNRecord.id: " + record.getId());
+    }
+    return serializedBytes;
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws ZkMarshallingError {
+    if (bytes == null || bytes.length == 0) {
+      // reading a parent/null node
+      return null;
+    }
+    if (!isBinaryFormat(bytes)) {
+      // The record was written by the JSON serializer.
+      return _legacySerializer.deserialize(bytes);
+    }
+
+    try {
+      if (bytes[2] != FORMAT_VERSION) {
+        throw new IOException("Unsupported binary ZNRecord format version: " + bytes[2]);
+      }
+      ByteReader reader = new ByteReader(bytes, HEADER_LENGTH);
+      if ((bytes[3] & FLAG_COMPRESSED) != 0) {
+        int payloadLength = reader.readVarint();
+        reader = new ByteReader(
+            BlockCompressionUtil.uncompress(bytes, reader.getPosition(), payloadLength), 0);
+      }
+      return decodePayload(reader);
+    } catch (Exception e) {
+      LOG.error("Exception during deserialization of binary ZNRecord bytes, length: {}",
+          bytes.length, e);
+      return null;
+    }
+  }
+
+  private static int getListFieldBound(ZNRecord record) {
+    int max = Integer.MAX_VALUE;
+    if (record.getSimpleFields().containsKey(ZNRecord.LIST_FIELD_BOUND)) {
+      String maxStr = record.getSimpleField(ZNRecord.LIST_FIELD_BOUND);
+      try {
+        max = Integer.parseInt(maxStr);
+      } catch (Exception e) {
+        LOG.error("IllegalNumberFormat for list field bound: " + maxStr);
+      }
+    }
+    return max;
+  }
+
+  private static byte[] encodePayload(ZNRecord record, int listFieldBound) {
+    // The record structure is encoded first, so the string table is complete when it is written.
+    StringTable stringTable = new StringTable();
+    OutputBuffer body = new OutputBuffer(256);
+    body.writeVarint(stringTable.getReference(record.getId()));
+
+    Map<String, String> simpleFields = record.getSimpleFields();
+    body.writeVarint(simpleFields.size());
+    for (Map.Entry<String, String> entry : simpleFields.entrySet()) {
+      body.writeVarint(stringTable.getReference(entry.getKey()));
+      body.writeVarint(stringTable.getReference(entry.getValue()));
+    }
+
+    Map<String, List<String>> listFields = record.getListFields();
+    body.writeVarint(listFields.size());
+    for (Map.Entry<String, List<String>> entry : listFields.entrySet()) {
+      body.writeVarint(stringTable.getReference(entry.getKey()));
+      List<String> list = entry.getValue();
+      if (list == null) {
+        body.writeVarint(0);
+        continue;
+      }
+      // Apply the retention policy of the list fields. The size is recorded plus 1, 0 means null.
+      int size = Math.min(list.size(), listFieldBound);
+      body.writeVarint(size + 1);
+      for (int i = 0; i < size; i++) {
+        body.writeVarint(stringTable.getReference(list.get(i)));
+      }
+    }
+
+    Map<String, Map<String, String>> mapFields = record.getMapFields();
+    body.writeVarint(mapFields.size());
+    for (Map.Entry<String, Map<String, String>> entry : mapFields.entrySet()) {
+      body.writeVarint(stringTable.getReference(entry.getKey()));
+      Map<String, String> map = entry.getValue();
+      if (map == null) {
+        body.writeVarint(0);
+        continue;
+      }
+      body.writeVarint(map.size() + 1);
+      for (Map.Entry<String, String> mapEntry : map.entrySet()) {
+        body.writeVarint(stringTable.getReference(mapEntry.getKey()));
+        body.writeVarint(stringTable.getReference(mapEntry.getValue()));
+      }
+    }
+
+    byte[] rawPayload = record.getRawPayload();
+    if (rawPayload == null) {
+      body.writeVarint(0);
+    } else {
+      body.writeVarint(rawPayload.length + 1);
+      body.writeBytes(rawPayload, 0, rawPayload.length);
+    }
+
+    OutputBuffer payload = new OutputBuffer(stringTable.getEncodedLength() + body.size());
+    stringTable.writeTo(payload);
+    payload.writeBytes(body.getBuffer(), 0, body.size());
+    return payload.toByteArray();
+  }
+
+  private static ZNRecord decodePayload(ByteReader reader) throws IOException {
+    String[] strings = new String[reader.readCount()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = reader.readString();
+    }
+
+    ZNRecord record = new ZNRecord(readString(reader, strings));
+    int simpleFieldCount = reader.readVarint();
+    for (int i = 0; i < simpleFieldCount; i++) {
+      record.setSimpleField(readString(reader, strings), readString(reader, strings));
+    }
+
+    int listFieldCount = reader.readVarint();
+    for (int i = 0; i < listFieldCount; i++) {
+      String key = readString(reader, strings);
+      int size = reader.readCount() - 1;
+      List<String> list = null;
+      if (size >= 0) {
+        list = new ArrayList<>(size);
+        for (int j = 0; j < size; j++) {
+          list.add(readString(reader, strings));
+        }
+      }
+      record.setListField(key, list);
+    }
+
+    int mapFieldCount = reader.readVarint();
+    for (int i = 0; i < mapFieldCount; i++) {
+      String key = readString(reader, strings);
+      int size = reader.readCount() - 1;
+      Map<String, String> map = null;
+      if (size >= 0) {
+        map = new TreeMap<>();
+        for (int j = 0; j < size; j++) {
+          map.put(readString(reader, strings), readString(reader, strings));
+        }
+      }
+      record.setMapField(key, map);
+    }
+
+    int rawPayloadLength = reader.readVarint() - 1;
+    if (rawPayloadLength >= 0) {
+      record.setRawPayload(reader.readBytes(rawPayloadLength));
+    }
+    return record;
+  }
+
+  private static String readString(ByteReader reader, String[] strings) throws IOException {
+    int reference = reader.readVarint();
+    if (reference > strings.length) {
+      throw new IOException("Invalid string reference: " + reference);
+    }
+    return reference == 0 ? null : strings[reference - 1];
+  }
+
+  /**
+   * The distinct strings of a record in the order of their first occurrence.
+   */
+  private static class StringTable {
+    private final Map<String, Integer> _references = new HashMap<>();
+    private final List<byte[]> _encodedStrings = new ArrayList<>();
+    private int _encodedLength = 0;
+
+    /**
+     * @return the reference of the string, which is the string table index plus 1, or 0 for null.
+     */
+    int getReference(String value) {
+      if (value == null) {
+        return 0;
+      }
+      Integer reference = _references.get(value);
+      if (reference == null) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        _encodedStrings.add(encoded);
+        _encodedLength += encoded.length + 5;
+        reference = _encodedStrings.size();
+        _references.put(value, reference);
+      }
+      return reference;
+    }
+
+    int getEncodedLength() {
+      return _encodedLength + 5;
+    }
+
+    void writeTo(OutputBuffer buffer) {
+      buffer.writeVarint(_encodedStrings.size());
+      for (byte[] encoded : _encodedStrings) {
+        buffer.writeVarint(encoded.length);
+        buffer.writeBytes(encoded, 0, encoded.length);
+      }
+    }
+  }
+
+  /**
+   * A growable byte array that, unlike ByteArrayOutputStream, is not synchronized.
+   */
+  private static class OutputBuffer {
+    private byte[] _buffer;
+    private int _size = 0;
+
+    OutputBuffer(int initialCapacity) {
+      _buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      _buffer[_size++] = (byte) value;
+    }
+
+    void writeVarint(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        _buffer[_size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      _buffer[_size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+      ensureCapacity(length);
+      System.arraycopy(bytes, offset, _buffer, _size, length);
+      _size += length;
+    }
+
+    int size() {
+      return _size;
+    }
+
+    byte[] getBuffer() {
+      return _buffer;
+    }
+
+    byte[] toByteArray() {
+      return _size == _buffer.length ? _buffer : Arrays.copyOf(_buffer, _size);
+    }
+
+    private void ensureCapacity(int length) {
+      if (_size + length > _buffer.length) {
+        _buffer = Arrays.copyOf(_buffer, Math.max(_buffer.length * 2, _size + length));
+      }
+    }
+  }
+
+  private static class ByteReader {
+    private final byte[] _bytes;
+    private int _position;
+
+    ByteReader(byte[] bytes, int position) {
+      _bytes = bytes;
+      _position = position;
+    }
+
+    int getPosition() {
+      return _position;
+    }
+
+    int readVarint() throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        if (_position >= _bytes.length) {
+          throw new IOException("Unexpected end of the binary ZNRecord");
+        }
+        byte b = _bytes[_position++];
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IOException("Malformed varint at position " + _position);
+    }
+
+    /**
+     * Read the count of the following items. Every item takes at least 1 byte, so the count is
+     * validated against the remaining bytes before anything is allocated with it.
+     */
+    int readCount() throws IOException {
+      int count = readVarint();
+      checkRemaining(count);
+      return count;
+    }
+
+    String readString() throws IOException {
+      int length = readVarint();
+      checkRemaining(length);
+      String value = new String(_bytes, _position, length, StandardCharsets.UTF_8);
+      _position += length;
+      return value;
+    }
+
+    byte[] readBytes(int length) throws IOException {
+      checkRemaining(length);
+      byte[] value = Arrays.copyOfRange(_bytes, _position, _position + length);
+      _position += length;
+      return value;
+    }
+
+    private void checkRemaining(int length) throws IOException {
+      if (length < 0 || length > _bytes.length - _position) {
+        throw new IOException("Unexpected end of the binary ZNRecord");
+      }
+    }
+  }
+}
@@ -24,6 +24,8 @@ import java.io.IOException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.introspect.CodehausJacksonIntrospector;
+import org.apache.helix.zookeeper.util.StringInternPool;
+import org.apache.helix.zookeeper.util.ZNRecordUtil;
 import org.apache.helix.zookeeper.zkclient.exception.ZkMarshallingError;
 import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
 
@@ -37,6 +39,24 @@ public class ZNRecordJacksonSerializer implements ZkSerializer {
       // TODO: remove it after upgrading ZNRecord's annotations to Jackson 2
       .setAnnotationIntrospector(new CodehausJacksonIntrospector());
 
+  private final StringInternPool _stringInternPool;
+
+  /**
+   * Creates a serializer that deduplicates the field values with the shared string intern pool,
+   * if the pool is enabled by the system property.
+   */
+  public ZNRecordJacksonSerializer() {
+    this(StringInternPool.getSharedPool());
+  }
+
+  /**
+   * @param stringInternPool the pool to deduplicate the deserialized field values, or null to
+   *                         disable the deduplication
+   */
+  public ZNRecordJacksonSerializer(StringInternPool stringInternPool) {
+    _stringInternPool = stringInternPool;
+  }
+
   @Override
   public byte[] serialize(Object record) throws ZkMarshallingError {
     if (!(record instanceof ZNRecord)) {
@@ -66,6 +86,9 @@ public class ZNRecordJacksonSerializer implements ZkSerializer {
     } catch (IOException e) {
       throw new ZkMarshallingError("Exception during deserialization!", e);
     }
+    if (_stringInternPool != null) {
+      ZNRecordUtil.internFieldValues(record, _stringInternPool);
+    }
     return record;
   }
 }
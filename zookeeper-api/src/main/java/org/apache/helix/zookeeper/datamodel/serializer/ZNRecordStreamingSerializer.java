@@ -21,6 +21,7 @@ package org.apache.helix.zookeeper.datamodel.serializer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -30,6 +31,7 @@ import java.util.TreeMap;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.helix.zookeeper.util.GZipCompressionUtil;
+import org.apache.helix.zookeeper.util.StringInternPool;
 import org.apache.helix.zookeeper.util.ZNRecordUtil;
 import org.apache.helix.zookeeper.zkclient.exception.ZkMarshallingError;
 import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
@@ -44,6 +46,25 @@ import org.slf4j.LoggerFactory;
 public class ZNRecordStreamingSerializer implements ZkSerializer {
   private static final Logger LOG = LoggerFactory.getLogger(ZNRecordStreamingSerializer.class);
 
+  private final StringInternPool _stringInternPool;
+
+  /**
+   * Creates a serializer that deduplicates the field values with the shared string intern pool,
+   * if the pool is enabled by the system property.
+   */
+  public ZNRecordStreamingSerializer() {
+    this(StringInternPool.getSharedPool());
+  }
+
+  /**
+   * @param stringInternPool the pool to deduplicate the deserialized field values, or null to
+   *                         disable the deduplication. The field keys are not deduplicated by the
+   *                         pool because the JSON parser already interns the field names.
+   */
+  public ZNRecordStreamingSerializer(StringInternPool stringInternPool) {
+    _stringInternPool = stringInternPool;
+  }
+
   private static int getListFieldBound(ZNRecord record) {
     int max = Integer.MAX_VALUE;
     if (record.getSimpleFields().containsKey(ZNRecord.LIST_FIELD_BOUND)) {
@@ -216,7 +237,7 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
           while (jp.nextToken() != JsonToken.END_OBJECT) {
             String key = jp.getCurrentName();
             jp.nextToken(); // move to value
-            simpleFields.put(key, jp.getText());
+            simpleFields.put(key, internText(jp));
           }
         } else if ("mapFields".equals(fieldname)) {
           // user.setVerified(jp.getCurrentToken() == JsonToken.VALUE_TRUE);
@@ -228,7 +249,7 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
             while (jp.nextToken() != JsonToken.END_OBJECT) {
               String mapKey = jp.getCurrentName();
               jp.nextToken(); // move to value
-              mapFields.get(key).put(mapKey, jp.getText());
+              mapFields.get(key).put(mapKey, internText(jp));
             }
           }
 
@@ -239,7 +260,7 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
             listFields.put(key, new ArrayList<String>());
             jp.nextToken(); // move to value
             while (jp.nextToken() != JsonToken.END_ARRAY) {
-              listFields.get(key).add(jp.getText());
+              listFields.get(key).add(internText(jp));
             }
 
           }
@@ -266,6 +287,11 @@ public class ZNRecordStreamingSerializer implements ZkSerializer {
     return record;
   }
 
+  private String internText(JsonParser jp) throws IOException {
+    String text = jp.getText();
+    return _stringInternPool == null ? text : _stringInternPool.intern(text);
+  }
+
   public static void main(String[] args) {
     ZNRecord record = new ZNRecord("record");
     final int recordSize = 10;
@@ -421,6 +421,11 @@ public class DedicatedZkClient implements RealmAwareZkClient {
     return _rawZkClient.multi(ops);
   }
 
+  @Override
+  public List<OpResult> multi(Iterable<Op> ops, String expectedSessionId) {
+    return _rawZkClient.multi(ops, expectedSessionId);
+  }
+
   @Override
   public boolean waitUntilConnected(long time, TimeUnit timeUnit) {
     return _rawZkClient.waitUntilConnected(time, timeUnit);
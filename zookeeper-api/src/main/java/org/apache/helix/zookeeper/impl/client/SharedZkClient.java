@@ -457,6 +457,11 @@ public class SharedZkClient implements RealmAwareZkClient {
     return _innerSharedZkClient.multi(ops);
   }
 
+  @Override
+  public List<OpResult> multi(Iterable<Op> ops, String expectedSessionId) {
+    return _innerSharedZkClient.multi(ops, expectedSessionId);
+  }
+
   @Override
   public boolean waitUntilConnected(long time, TimeUnit timeUnit) {
     return _innerSharedZkClient.waitUntilConnected(time, timeUnit);
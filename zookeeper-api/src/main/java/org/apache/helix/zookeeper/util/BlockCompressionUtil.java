@@ -0,0 +1,192 @@
+package org.apache.helix.zookeeper.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * A fast LZ77 block compressor in the style of LZ4. It trades compression ratio for speed, so it
+ * is much cheaper than GZIP for the large but repetitive serialized ZNRecords.
+ *
+ * The compressed block is a sequence of:
+ * 1. A token byte. The high 4 bits are the literal length and the low 4 bits are the match length
+ * minus 4. The value 15 means the length continues in the following bytes, each of which adds
+ * 0 - 255 until a byte smaller than 255 is read.
+ * 2. The literal bytes.
+ * 3. The 2 bytes little endian offset of the match, followed by the extra match length bytes.
+ * The last sequence contains only the literals. The uncompressed length is not part of the block,
+ * and it needs to be recorded by the caller.
+ */
+public class BlockCompressionUtil {
+  private static final int MIN_MATCH = 4;
+  private static final int MAX_OFFSET = 0xFFFF;
+  // The last bytes of the block are always written as literals.
+  private static final int LAST_LITERALS = 5;
+  private static final int HASH_LOG = 14;
+  private static final int RUN_MASK = 0x0F;
+  // Each compressed byte expands to at most 255 bytes, when it is an extra match length byte.
+  private static final int MAX_EXPANSION_RATIO = 0xFF;
+
+  private BlockCompressionUtil() {
+  }
+
+  /**
+   * Compresses the input bytes into a block.
+   * @param src the bytes to be compressed
+   * @return the compressed block
+   */
+  public static byte[] compress(byte[] src) {
+    // The worst case is that all the bytes are literals.
+    byte[] dest = new byte[src.length + src.length / 255 + 16];
+    int[] hashTable = new int[1 << HASH_LOG];
+    Arrays.fill(hashTable, -1);
+
+    int destPos = 0;
+    int anchor = 0;
+    int pos = 0;
+    int matchLimit = src.length - LAST_LITERALS;
+    while (pos + MIN_MATCH <= matchLimit) {
+      int sequence = readInt(src, pos);
+      int hash = hash(sequence);
+      int ref = hashTable[hash];
+      hashTable[hash] = pos;
+      if (ref < 0 || pos - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+        pos++;
+        continue;
+      }
+      int matchLength = MIN_MATCH;
+      while (pos + matchLength < matchLimit && src[ref + matchLength] == src[pos + matchLength]) {
+        matchLength++;
+      }
+      int tokenPos = destPos;
+      destPos = writeLiterals(src, anchor, pos - anchor, dest, destPos);
+      int offset = pos - ref;
+      dest[destPos++] = (byte) offset;
+      dest[destPos++] = (byte) (offset >>> 8);
+      int extraMatchLength = matchLength - MIN_MATCH;
+      dest[tokenPos] |= (byte) Math.min(extraMatchLength, RUN_MASK);
+      if (extraMatchLength >= RUN_MASK) {
+        destPos = writeExtraLength(extraMatchLength - RUN_MASK, dest, destPos);
+      }
+      pos += matchLength;
+      anchor = pos;
+    }
+    destPos = writeLiterals(src, anchor, src.length - anchor, dest, destPos);
+    return Arrays.copyOf(dest, destPos);
+  }
+
+  /**
+   * Uncompresses a block that was generated by {@link #compress(byte[])}.
+   * @param src the bytes that contain the compressed block
+   * @param srcOffset the offset of the compressed block in the src bytes
+   * @param uncompressedLength the length of the original bytes
+   * @return the original bytes
+   * @throws IOException if the block is malformed, or the uncompressed length cannot be generated
+   *                     from a block of this size
+   */
+  public static byte[] uncompress(byte[] src, int srcOffset, int uncompressedLength)
+      throws IOException {
+    // The length is read from the stored data, so validate it before allocating the buffer.
+    long maxUncompressedLength = (long) (src.length - srcOffset) * MAX_EXPANSION_RATIO + RUN_MASK;
+    if (uncompressedLength < 0 || uncompressedLength > maxUncompressedLength) {
+      throw new IOException(String.format(
+          "Invalid uncompressed length %d for a compressed block of %d bytes",
+          uncompressedLength, src.length - srcOffset));
+    }
+    byte[] dest = new byte[uncompressedLength];
+    int srcPos = srcOffset;
+    int destPos = 0;
+    try {
+      while (true) {
+        int token = src[srcPos++] & 0xFF;
+        int literalLength = token >>> 4;
+        if (literalLength == RUN_MASK) {
+          int b;
+          do {
+            b = src[srcPos++] & 0xFF;
+            literalLength += b;
+          } while (b == 0xFF);
+        }
+        System.arraycopy(src, srcPos, dest, destPos, literalLength);
+        srcPos += literalLength;
+        destPos += literalLength;
+        if (destPos == uncompressedLength) {
+          return dest;
+        }
+
+        int offset = (src[srcPos++] & 0xFF) | ((src[srcPos++] & 0xFF) << 8);
+        int matchLength = token & RUN_MASK;
+        if (matchLength == RUN_MASK) {
+          int b;
+          do {
+            b = src[srcPos++] & 0xFF;
+            matchLength += b;
+          } while (b == 0xFF);
+        }
+        matchLength += MIN_MATCH;
+        int ref = destPos - offset;
+        if (offset == 0 || ref < 0 || destPos + matchLength > uncompressedLength) {
+          throw new IOException("Malformed compressed block at offset " + srcPos);
+        }
+        // The match may overlap with the bytes that are being written, so copy byte by byte.
+        for (int i = 0; i < matchLength; i++) {
+          dest[destPos++] = dest[ref + i];
+        }
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Malformed compressed block, the uncompressed length does not match",
+          e);
+    }
+  }
+
+  /**
+   * Write the token and the literals of a sequence. The match length part of the token is filled
+   * by the caller if the sequence has a match.
+   */
+  private static int writeLiterals(byte[] src, int literalOffset, int literalLength, byte[] dest,
+      int destPos) {
+    dest[destPos++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+    if (literalLength >= RUN_MASK) {
+      destPos = writeExtraLength(literalLength - RUN_MASK, dest, destPos);
+    }
+    System.arraycopy(src, literalOffset, dest, destPos, literalLength);
+    return destPos + literalLength;
+  }
+
+  private static int writeExtraLength(int length, byte[] dest, int destPos) {
+    while (length >= 0xFF) {
+      dest[destPos++] = (byte) 0xFF;
+      length -= 0xFF;
+    }
+    dest[destPos++] = (byte) length;
+    return destPos;
+  }
+
+  private static int readInt(byte[] bytes, int pos) {
+    return (bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8) | ((bytes[pos + 2] & 0xFF) << 16)
+        | ((bytes[pos + 3] & 0xFF) << 24);
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+}
@@ -0,0 +1,157 @@
+package org.apache.helix.zookeeper.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+
+import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
+import org.apache.helix.zookeeper.zkclient.metric.StringInternPoolMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A bounded pool that deduplicates the equal strings, such as the instance names and the states,
+ * which are repeated many times in the deserialized ZNRecords.
+ *
+ * Unlike {@link String#intern()}, the pool never grows. It is a direct-mapped table, so a string
+ * replaces the cached string of its slot if they are not equal, and the pool only keeps weak
+ * references, so the cached strings can still be garbage collected. The pool is thread-safe and
+ * lock-free. A lost race only means one duplicate string is not deduplicated.
+ */
+public class StringInternPool {
+  private static final Logger LOG = LoggerFactory.getLogger(StringInternPool.class);
+
+  public static final int MAX_CAPACITY = 1 << 24;
+  // The estimated size of a String object and its char array headers, excluding the chars.
+  private static final int STRING_OVERHEAD_BYTES = 40;
+
+  private final AtomicReferenceArray<WeakReference<String>> _slots;
+  private final int _mask;
+  private final LongAdder _hitCount = new LongAdder();
+  private final LongAdder _missCount = new LongAdder();
+  private final LongAdder _savedBytes = new LongAdder();
+
+  /**
+   * @param capacity the max number of the cached strings. It is rounded up to a power of 2.
+   */
+  public StringInternPool(int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+          "The string intern pool capacity must be in (0, " + MAX_CAPACITY + "]: " + capacity);
+    }
+    int tableSize = Integer.highestOneBit(capacity);
+    if (tableSize < capacity) {
+      tableSize <<= 1;
+    }
+    _slots = new AtomicReferenceArray<>(tableSize);
+    _mask = tableSize - 1;
+  }
+
+  /**
+   * Returns the shared pool that is used by the ZNRecord serializers by default. The pool is
+   * created on the first call according to the system property
+   * {@link ZkSystemPropertyKeys#ZK_SERIALIZER_ZNRECORD_STRING_INTERN_POOL_CAPACITY}.
+   * @return the shared pool, or null if the string interning is not enabled
+   */
+  public static StringInternPool getSharedPool() {
+    return SharedPoolHolder.SHARED_POOL;
+  }
+
+  /**
+   * Returns the cached string that is equal to the input string, or caches and returns the input
+   * string if there is no such cached string.
+   * @param value the string to be deduplicated, can be null
+   * @return the deduplicated string
+   */
+  public String intern(String value) {
+    if (value == null) {
+      return null;
+    }
+    int hash = value.hashCode();
+    int index = (hash ^ (hash >>> 16)) & _mask;
+    WeakReference<String> ref = _slots.get(index);
+    String cached = ref == null ? null : ref.get();
+    if (cached != null && cached.equals(value)) {
+      _hitCount.increment();
+      if (cached != value) {
+        _savedBytes.add(STRING_OVERHEAD_BYTES + 2L * value.length());
+      }
+      return cached;
+    }
+    _slots.set(index, new WeakReference<>(value));
+    _missCount.increment();
+    return value;
+  }
+
+  public int getCapacity() {
+    return _slots.length();
+  }
+
+  public long getHitCount() {
+    return _hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return _missCount.sum();
+  }
+
+  /**
+   * @return the ratio of the intern calls that return a cached string, or 0 if there is no call
+   */
+  public double getHitRate() {
+    long hitCount = getHitCount();
+    long total = hitCount + getMissCount();
+    return total == 0 ? 0 : (double) hitCount / total;
+  }
+
+  /**
+   * @return the estimated heap bytes of the duplicate strings that have been replaced by the cached
+   * strings. The duplicate strings are still allocated by the parser, but they can be collected
+   * right away instead of being retained by the ZNRecords.
+   */
+  public long getSavedBytes() {
+    return _savedBytes.sum();
+  }
+
+  private static class SharedPoolHolder {
+    private static final StringInternPool SHARED_POOL = createSharedPool();
+
+    private static StringInternPool createSharedPool() {
+      int capacity =
+          Integer.getInteger(ZkSystemPropertyKeys.ZK_SERIALIZER_ZNRECORD_STRING_INTERN_POOL_CAPACITY,
+              0);
+      if (capacity <= 0) {
+        return null;
+      }
+      StringInternPool pool = new StringInternPool(Math.min(capacity, MAX_CAPACITY));
+      try {
+        new StringInternPoolMonitor(pool).register();
+      } catch (JMException e) {
+        LOG.warn("Failed to register the monitor of the shared string intern pool.", e);
+      }
+      LOG.info("ZNRecord string intern pool is enabled with capacity {}.", pool.getCapacity());
+      return pool;
+    }
+  }
+}
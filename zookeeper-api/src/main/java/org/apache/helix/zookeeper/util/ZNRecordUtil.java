@@ -19,6 +19,9 @@ package org.apache.helix.zookeeper.util;
  * under the License.
  */
 
+import java.util.List;
+import java.util.Map;
+
 import org.apache.helix.zookeeper.constant.ZkSystemPropertyKeys;
 import org.apache.helix.zookeeper.datamodel.ZNRecord;
 
@@ -62,4 +65,26 @@ public class ZNRecordUtil {
 
     return writeSizeLimit;
   }
+
+  /**
+   * Replaces the simple field values, the map field values and the list field elements of the
+   * ZNRecord with the deduplicated strings from the intern pool. The field keys are not replaced
+   * because the Jackson parser already canonicalizes and interns the JSON field names.
+   *
+   * @param record the deserialized ZNRecord, whose fields are modified in place
+   * @param pool the string intern pool
+   */
+  public static void internFieldValues(ZNRecord record, StringInternPool pool) {
+    record.getSimpleFields().replaceAll((key, value) -> pool.intern(value));
+    for (Map<String, String> mapField : record.getMapFields().values()) {
+      if (mapField != null) {
+        mapField.replaceAll((key, value) -> pool.intern(value));
+      }
+    }
+    for (List<String> listField : record.getListFields().values()) {
+      if (listField != null) {
+        listField.replaceAll(pool::intern);
+      }
+    }
+  }
 }
@@ -58,6 +58,7 @@ import org.apache.helix.zookeeper.zkclient.serialize.BasicZkSerializer;
 import org.apache.helix.zookeeper.zkclient.serialize.PathBasedZkSerializer;
 import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
 import org.apache.helix.zookeeper.zkclient.util.ExponentialBackoffStrategy;
+import org.apache.jute.Record;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.ConnectionLossException;
@@ -72,6 +73,8 @@ import org.apache.zookeeper.ZooDefs;
 import org.apache.zookeeper.ZooKeeper;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
+import org.apache.zookeeper.proto.CreateRequest;
+import org.apache.zookeeper.proto.SetDataRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -2373,13 +2376,39 @@ public class ZkClient implements Watcher {
       throw new NullPointerException("ops must not be null.");
     }
 
-    return retryUntilConnected(new Callable<List<OpResult>>() {
+    long startT = System.currentTimeMillis();
+    try {
+      List<OpResult> results = retryUntilConnected(new Callable<List<OpResult>>() {
 
-      @Override
-      public List<OpResult> call() throws Exception {
-        return getConnection().multi(ops);
-      }
-    });
+        @Override
+        public List<OpResult> call() throws Exception {
+          return getConnection().multi(ops);
+        }
+      });
+      recordMulti(ops, startT);
+      return results;
+    } catch (Exception e) {
+      recordMultiFailure(ops);
+      throw e;
+    }
+  }
+
+  public List<OpResult> multi(final Iterable<Op> ops, final String expectedSessionId)
+      throws ZkException {
+    if (ops == null) {
+      throw new NullPointerException("ops must not be null.");
+    }
+
+    long startT = System.currentTimeMillis();
+    try {
+      List<OpResult> results =
+          retryUntilConnected(() -> getExpectedZookeeper(expectedSessionId).multi(ops));
+      recordMulti(ops, startT);
+      return results;
+    } catch (Exception e) {
+      recordMultiFailure(ops);
+      throw e;
+    }
   }
 
   /**
@@ -2466,6 +2495,34 @@ public class ZkClient implements Watcher {
     }
   }
 
+  // Record the write of each path of a committed multi transaction. The check ops do not write.
+  private void recordMulti(Iterable<Op> ops, long startTimeMilliSec) {
+    for (Op op : ops) {
+      if (op.getType() != ZooDefs.OpCode.check) {
+        record(op.getPath(), getOpData(op), startTimeMilliSec, ZkClientMonitor.AccessType.WRITE);
+      }
+    }
+  }
+
+  private void recordMultiFailure(Iterable<Op> ops) {
+    for (Op op : ops) {
+      if (op.getType() != ZooDefs.OpCode.check) {
+        recordFailure(op.getPath(), ZkClientMonitor.AccessType.WRITE);
+      }
+    }
+  }
+
+  private static byte[] getOpData(Op op) {
+    Record request = op.toRequestRecord();
+    if (request instanceof CreateRequest) {
+      return ((CreateRequest) request).getData();
+    }
+    if (request instanceof SetDataRequest) {
+      return ((SetDataRequest) request).getData();
+    }
+    return null;
+  }
+
   private void recordStateChange(boolean stateChanged, boolean dataChanged, boolean sessionExpired) {
     // update state change counter.
     if (_monitor != null) {
@@ -0,0 +1,112 @@
+package org.apache.helix.zookeeper.zkclient.metric;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.apache.helix.monitoring.mbeans.MBeanRegistrar;
+import org.apache.helix.monitoring.mbeans.MonitorDomainNames;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMBeanProvider;
+import org.apache.helix.monitoring.mbeans.dynamicMBeans.DynamicMetric;
+import org.apache.helix.monitoring.mbeans.exception.MetricException;
+import org.apache.helix.zookeeper.util.StringInternPool;
+
+
+/**
+ * Reports the hit rate and the saved bytes of a {@link StringInternPool}.
+ */
+public class StringInternPoolMonitor extends DynamicMBeanProvider {
+  public static final String MONITOR_TYPE = "Type";
+  public static final String STRING_INTERN_POOL_TYPE = "StringInternPool";
+  private static final String MBEAN_DESCRIPTION = "Helix ZNRecord String Intern Pool Monitor";
+
+  private final String _sensorName;
+  private final StringInternPoolMetric _poolMetric;
+
+  public StringInternPoolMonitor(StringInternPool pool) {
+    _sensorName =
+        String.format("%s.%s", MonitorDomainNames.HelixZkClient.name(), STRING_INTERN_POOL_TYPE);
+    _poolMetric = new StringInternPoolMetric(pool);
+  }
+
+  public static ObjectName getObjectName() throws MalformedObjectNameException {
+    return MBeanRegistrar.buildObjectName(MonitorDomainNames.HelixZkClient.name(), MONITOR_TYPE,
+        STRING_INTERN_POOL_TYPE);
+  }
+
+  @Override
+  public DynamicMBeanProvider register() throws JMException {
+    doRegister(Collections.<DynamicMetric<?, ?>>singletonList(_poolMetric), MBEAN_DESCRIPTION, getObjectName());
+    return this;
+  }
+
+  @Override
+  public String getSensorName() {
+    return _sensorName;
+  }
+
+  class StringInternPoolMetric extends DynamicMetric<StringInternPool, StringInternPool> {
+    StringInternPoolMetric(StringInternPool pool) {
+      super("StringInternPool", pool);
+    }
+
+    @Override
+    protected Set<MBeanAttributeInfo> generateAttributeInfos(String metricName,
+        StringInternPool pool) {
+      Set<MBeanAttributeInfo> attributeInfoSet = new HashSet<>();
+      attributeInfoSet.add(new MBeanAttributeInfo("HitCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("MissCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("HitRateGauge", Double.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      attributeInfoSet.add(new MBeanAttributeInfo("SavedBytesCounter", Long.TYPE.getName(),
+          DEFAULT_ATTRIBUTE_DESCRIPTION, true, false, false));
+      return attributeInfoSet;
+    }
+
+    @Override
+    public Object getAttributeValue(String attributeName) {
+      switch (attributeName) {
+      case "HitCounter":
+        return getMetricObject().getHitCount();
+      case "MissCounter":
+        return getMetricObject().getMissCount();
+      case "HitRateGauge":
+        return getMetricObject().getHitRate();
+      case "SavedBytesCounter":
+        return getMetricObject().getSavedBytes();
+      default:
+        throw new MetricException("Unknown attribute name: " + attributeName);
+      }
+    }
+
+    @Override
+    public void updateValue(StringInternPool newPool) {
+      setMetricObject(newPool);
+    }
+  }
+}
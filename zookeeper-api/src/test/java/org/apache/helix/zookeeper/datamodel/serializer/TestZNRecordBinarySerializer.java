@@ -0,0 +1,191 @@
+package org.apache.helix.zookeeper.datamodel.serializer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.util.BlockCompressionUtil;
+import org.apache.helix.zookeeper.zkclient.serialize.PathBasedZkSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestZNRecordBinarySerializer {
+
+  private static ZNRecord createRecord(int partitionCount) {
+    ZNRecord record = new ZNRecord("TestDB");
+    record.setSimpleField("STATE_MODEL_DEF_REF", "MasterSlave");
+    record.setSimpleField("NUM_PARTITIONS", String.valueOf(partitionCount));
+    record.setSimpleField("unicode", "分区-é");
+    for (int i = 0; i < partitionCount; i++) {
+      String partition = "TestDB_" + i;
+      Map<String, String> stateMap = new TreeMap<>();
+      List<String> preferenceList = new ArrayList<>();
+      for (int j = 0; j < 3; j++) {
+        String instance = "localhost_" + ((i + j) % 10);
+        stateMap.put(instance, j == 0 ? "MASTER" : "SLAVE");
+        preferenceList.add(instance);
+      }
+      record.setMapField(partition, stateMap);
+      record.setListField(partition, preferenceList);
+    }
+    return record;
+  }
+
+  @Test
+  public void testSerializeAndDeserialize() {
+    ZNRecordBinarySerializer serializer = new ZNRecordBinarySerializer();
+    ZNRecord record = createRecord(100);
+    record.setRawPayload(new byte[] {1, 2, 3});
+
+    byte[] bytes = serializer.serialize(record);
+    Assert.assertTrue(ZNRecordBinarySerializer.isBinaryFormat(bytes));
+    // The string table makes the binary record much smaller than the JSON record.
+    Assert.assertTrue(bytes.length < new ZNRecordSerializer().serialize(record).length / 2);
+
+    ZNRecord result = (ZNRecord) serializer.deserialize(bytes);
+    Assert.assertEquals(result, record);
+    Assert.assertEquals(result.getRawPayload(), record.getRawPayload());
+  }
+
+  @Test
+  public void testNullValues() {
+    ZNRecordBinarySerializer serializer = new ZNRecordBinarySerializer();
+    ZNRecord record = new ZNRecord("nullValues");
+    record.setSimpleField("nullSimpleField", null);
+    record.setListField("nullListField", null);
+    record.setListField("listFieldWithNull", Arrays.asList("a", null, "b"));
+    record.setMapField("nullMapField", null);
+    Map<String, String> mapWithNullValue = new TreeMap<>();
+    mapWithNullValue.put("key", null);
+    record.setMapField("mapFieldWithNullValue", mapWithNullValue);
+
+    ZNRecord result = (ZNRecord) serializer.deserialize(serializer.serialize(record));
+    Assert.assertEquals(result.getSimpleFields(), record.getSimpleFields());
+    Assert.assertEquals(result.getListFields(), record.getListFields());
+    Assert.assertEquals(result.getMapFields(), record.getMapFields());
+    Assert.assertNull(result.getRawPayload());
+  }
+
+  @Test
+  public void testCompression() {
+    ZNRecord record = createRecord(1000);
+    byte[] uncompressed = new ZNRecordBinarySerializer().serialize(record);
+    ZNRecordBinarySerializer compressingSerializer = new ZNRecordBinarySerializer(0);
+    byte[] compressed = compressingSerializer.serialize(record);
+    Assert.assertTrue(compressed.length < uncompressed.length);
+    Assert.assertEquals(compressingSerializer.deserialize(compressed), record);
+
+    // The compression is also enabled by the same ZNRecord field as the JSON serializers.
+    record.setBooleanField(ZNRecord.ENABLE_COMPRESSION_BOOLEAN_FIELD, true);
+    Assert.assertTrue(
+        new ZNRecordBinarySerializer().serialize(record).length < uncompressed.length);
+  }
+
+  @Test
+  public void testBlockCompression() throws IOException {
+    Random random = new Random(0);
+    for (int length : new int[] {0, 1, 8, 15, 16, 300, 70000, 200000}) {
+      byte[] repetitive = new byte[length];
+      byte[] randomBytes = new byte[length];
+      random.nextBytes(randomBytes);
+      for (int i = 0; i < length; i++) {
+        repetitive[i] = (byte) "MASTERSLAVE".charAt(i % 11);
+      }
+      for (byte[] data : Arrays.asList(repetitive, randomBytes)) {
+        byte[] block = BlockCompressionUtil.compress(data);
+        Assert.assertEquals(BlockCompressionUtil.uncompress(block, 0, data.length), data);
+      }
+    }
+
+    // The most compressible input is still within the expansion bound.
+    byte[] zeros = new byte[1 << 20];
+    Assert.assertEquals(
+        BlockCompressionUtil.uncompress(BlockCompressionUtil.compress(zeros), 0, zeros.length),
+        zeros);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testBlockCompressionInvalidLength() throws IOException {
+    byte[] block = BlockCompressionUtil.compress(new byte[100]);
+    // A length that the block cannot generate is rejected before the buffer is allocated.
+    BlockCompressionUtil.uncompress(block, 0, Integer.MAX_VALUE);
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testBlockCompressionNegativeLength() throws IOException {
+    BlockCompressionUtil.uncompress(BlockCompressionUtil.compress(new byte[100]), 0, -1);
+  }
+
+  @Test
+  public void testReadLegacyFormats() {
+    ZNRecord record = createRecord(10);
+    ZNRecordBinarySerializer serializer = new ZNRecordBinarySerializer();
+    Assert.assertEquals(serializer.deserialize(new ZNRecordSerializer().serialize(record)), record);
+    Assert.assertEquals(
+        serializer.deserialize(new ZNRecordStreamingSerializer().serialize(record)), record);
+
+    // GZIP compressed JSON
+    record.setBooleanField(ZNRecord.ENABLE_COMPRESSION_BOOLEAN_FIELD, true);
+    Assert.assertEquals(serializer.deserialize(new ZNRecordSerializer().serialize(record)), record);
+  }
+
+  @Test
+  public void testMalformedBytes() {
+    ZNRecordBinarySerializer serializer = new ZNRecordBinarySerializer(0);
+    byte[] bytes = serializer.serialize(createRecord(100));
+    Assert.assertNull(serializer.deserialize(Arrays.copyOf(bytes, bytes.length / 2)));
+    Assert.assertNull(serializer.deserialize(null));
+    Assert.assertNull(serializer.deserialize(new byte[0]));
+  }
+
+  @Test
+  public void testListFieldBound() {
+    ZNRecord record = createRecord(1);
+    record.setSimpleField(ZNRecord.LIST_FIELD_BOUND, "2");
+    ZNRecordBinarySerializer serializer = new ZNRecordBinarySerializer();
+    ZNRecord result = (ZNRecord) serializer.deserialize(serializer.serialize(record));
+    Assert.assertEquals(result.getListField("TestDB_0"),
+        record.getListField("TestDB_0").subList(0, 2));
+  }
+
+  @Test
+  public void testSelectByPath() {
+    PathBasedZkSerializer serializer = ChainedPathZkSerializer.builder(new ZNRecordSerializer())
+        .serialize("/cluster/EXTERNALVIEW", new ZNRecordBinarySerializer()).build();
+    ZNRecord record = createRecord(10);
+
+    byte[] binaryBytes = serializer.serialize(record, "/cluster/EXTERNALVIEW/TestDB");
+    Assert.assertTrue(ZNRecordBinarySerializer.isBinaryFormat(binaryBytes));
+    Assert.assertEquals(serializer.deserialize(binaryBytes, "/cluster/EXTERNALVIEW/TestDB"), record);
+
+    byte[] jsonBytes = serializer.serialize(record, "/cluster/IDEALSTATES/TestDB");
+    Assert.assertFalse(ZNRecordBinarySerializer.isBinaryFormat(jsonBytes));
+    // The existing JSON records can still be read after the path switches to the binary format.
+    Assert.assertEquals(serializer.deserialize(jsonBytes, "/cluster/EXTERNALVIEW/TestDB"), record);
+  }
+}
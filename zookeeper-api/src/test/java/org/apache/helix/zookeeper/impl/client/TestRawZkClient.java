@@ -21,6 +21,7 @@ package org.apache.helix.zookeeper.impl.client;
 
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -391,6 +392,28 @@ public class TestRawZkClient extends ZkTestBase {
     Assert.assertTrue((long) beanServer.getAttribute(idealStatename, "WriteTotalLatencyCounter")
         >= origIdealStatesWriteTotalLatencyCounter);
 
+    // Test multi, the writes of a committed transaction are recorded by path
+    byte[] testDataBytes = zkClient.serialize(TEST_DATA, TEST_PATH);
+    zkClient.multi(
+        Arrays.asList(Op.check(TEST_PATH, -1), Op.setData(TEST_PATH, testDataBytes, -1)));
+    Assert.assertEquals((long) beanServer.getAttribute(rootname, "WriteCounter"), 3);
+    Assert.assertEquals((long) beanServer.getAttribute(rootname, "WriteBytesCounter"),
+        TEST_DATA_SIZE * 3);
+    Assert.assertEquals((long) beanServer.getAttribute(idealStatename, "WriteCounter"), 3);
+    Assert.assertEquals((long) beanServer.getAttribute(idealStatename, "WriteBytesCounter"),
+        TEST_DATA_SIZE * 3);
+    long origWriteFailureCounter =
+        (long) beanServer.getAttribute(rootname, "WriteFailureCounter");
+    try {
+      zkClient.multi(Arrays.asList(Op.setData(TEST_PATH + "_nonexistent", testDataBytes, -1)));
+      Assert.fail("The transaction should fail on the nonexistent path.");
+    } catch (ZkException expected) {
+      // expected
+    }
+    Assert.assertEquals((long) beanServer.getAttribute(rootname, "WriteFailureCounter"),
+        origWriteFailureCounter + 1);
+    Assert.assertEquals((long) beanServer.getAttribute(rootname, "WriteCounter"), 3);
+
     // Test data change count
     final Lock lock = new ReentrantLock();
     final Condition callbackFinish = lock.newCondition();
@@ -0,0 +1,128 @@
+package org.apache.helix.zookeeper.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordJacksonSerializer;
+import org.apache.helix.zookeeper.datamodel.serializer.ZNRecordStreamingSerializer;
+import org.apache.helix.zookeeper.zkclient.metric.StringInternPoolMonitor;
+import org.apache.helix.zookeeper.zkclient.serialize.ZkSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class TestStringInternPool {
+
+  @Test
+  public void testIntern() {
+    StringInternPool pool = new StringInternPool(100);
+    Assert.assertEquals(pool.getCapacity(), 128);
+    Assert.assertNull(pool.intern(null));
+
+    String first = new String("MASTER");
+    String second = new String("MASTER");
+    Assert.assertSame(pool.intern(first), first);
+    Assert.assertSame(pool.intern(second), first);
+    Assert.assertSame(pool.intern(first), first);
+    Assert.assertEquals(pool.getMissCount(), 1);
+    Assert.assertEquals(pool.getHitCount(), 2);
+    Assert.assertEquals(pool.getHitRate(), 2.0 / 3);
+    // Only the duplicate instance is counted as saved.
+    Assert.assertEquals(pool.getSavedBytes(), 40 + 2 * "MASTER".length());
+  }
+
+  @Test
+  public void testBoundedCapacity() {
+    StringInternPool pool = new StringInternPool(1);
+    String master = new String("MASTER");
+    String slave = new String("SLAVE");
+    pool.intern(master);
+    // The only slot is replaced by the new string, so the pool never grows.
+    Assert.assertSame(pool.intern(slave), slave);
+    Assert.assertSame(pool.intern(new String("SLAVE")), slave);
+    Assert.assertNotSame(pool.intern(new String("MASTER")), master);
+
+    try {
+      new StringInternPool(0);
+      Assert.fail("Should fail on the invalid capacity.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testDeserializeWithPool() {
+    ZNRecord record = new ZNRecord("TestDB");
+    record.setSimpleField("STATE_MODEL_DEF_REF", "MasterSlave");
+    for (int i = 0; i < 10; i++) {
+      Map<String, String> stateMap = new TreeMap<>();
+      List<String> preferenceList = new ArrayList<>();
+      for (int j = 0; j < 3; j++) {
+        String instance = "localhost_" + ((i + j) % 5);
+        stateMap.put(instance, j == 0 ? "MASTER" : "SLAVE");
+        preferenceList.add(instance);
+      }
+      record.setMapField("TestDB_" + i, stateMap);
+      record.setListField("TestDB_" + i, preferenceList);
+    }
+
+    StringInternPool pool = new StringInternPool(1024);
+    for (ZkSerializer serializer : new ZkSerializer[] {
+        new ZNRecordJacksonSerializer(pool), new ZNRecordStreamingSerializer(pool)
+    }) {
+      ZNRecord result = (ZNRecord) serializer.deserialize(serializer.serialize(record));
+      Assert.assertEquals(result, record);
+      Assert.assertSame(result.getMapField("TestDB_0").get("localhost_2"),
+          result.getMapField("TestDB_1").get("localhost_2"));
+      Assert.assertSame(result.getListField("TestDB_0").get(1),
+          result.getListField("TestDB_1").get(0));
+    }
+    Assert.assertTrue(pool.getHitRate() > 0.5);
+    Assert.assertTrue(pool.getSavedBytes() > 0);
+  }
+
+  @Test
+  public void testMonitor() throws Exception {
+    StringInternPool pool = new StringInternPool(16);
+    pool.intern(new String("SLAVE"));
+    pool.intern(new String("SLAVE"));
+    StringInternPoolMonitor monitor = new StringInternPoolMonitor(pool);
+    monitor.register();
+    try {
+      MBeanServer beanServer = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = StringInternPoolMonitor.getObjectName();
+      Assert.assertEquals(beanServer.getAttribute(objectName, "HitCounter"), 1L);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "MissCounter"), 1L);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "HitRateGauge"), 0.5);
+      Assert.assertEquals(beanServer.getAttribute(objectName, "SavedBytesCounter"),
+          pool.getSavedBytes());
+    } finally {
+      monitor.unregister();
+    }
+  }
+}